@@ -0,0 +1,97 @@
+package es.grayapps.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import es.grayapps.exceptions.EasyWebUIException;
+import es.grayapps.methods.CompletionMessage;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CompletionMethodBenchmark is a class that measures the serialization of completion requests
+ * across conversation sizes, and the deserialization of completion responses with and without reasoning sections.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompletionMethodBenchmark {
+
+    @Benchmark
+    public String getBody(RequestState state) throws JsonProcessingException {
+        return state.method.getBody();
+    }
+
+    @Benchmark
+    public void writeBody(RequestState state) throws IOException {
+        state.method.writeBody(state.sink);
+    }
+
+    @Benchmark
+    public CompletionResponse deserializeString(ResponseState state) throws EasyWebUIException {
+        return state.method.deserialize(state.json);
+    }
+
+    @Benchmark
+    public CompletionResponse deserializeStream(ResponseState state) throws EasyWebUIException, IOException {
+        return state.method.deserialize(new ByteArrayInputStream(state.bytes));
+    }
+
+    @State(Scope.Benchmark)
+    public static class RequestState {
+
+        @Param({"1", "10", "100"})
+        private int messages;
+
+        private CompletionMethod method;
+        private OutputStream sink;
+
+        @Setup
+        public void setUp(Blackhole blackhole) {
+            List<CompletionMessage> conversation = new ArrayList<>(messages);
+            for (int i = 0; i < messages; i++) {
+                conversation.add(new CompletionMessage(Payloads.text(i, 400), i % 2 == 0 ? "user" : "assistant"));
+            }
+            method = new CompletionMethod("llama3:8b", conversation);
+            sink = Payloads.blackholeStream(blackhole);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ResponseState {
+
+        @Param({"false", "true"})
+        private boolean think;
+
+        private CompletionMethod method;
+        private String json;
+        private byte[] bytes;
+
+        @Setup
+        public void setUp() {
+            method = new CompletionMethod("llama3:8b", "message", "user");
+            json = Payloads.completionJson(think, 2000);
+            bytes = json.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
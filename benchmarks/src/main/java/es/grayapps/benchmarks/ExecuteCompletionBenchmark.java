@@ -0,0 +1,82 @@
+package es.grayapps.benchmarks;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ExecuteCompletionBenchmark is a class that measures the whole client overhead of a completion,
+ * against a local server that answers immediately, so the measurement is dominated by the client.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecuteCompletionBenchmark {
+
+    private MockWebServer server;
+    private EasyWebUI easyWebUI;
+    private CompletionMethod method;
+
+    @Setup
+    public void setUp() throws IOException {
+        Logger.getLogger("es.grayapps").setLevel(Level.WARNING);
+        MockResponse response = new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(Payloads.completionJson(false, 2000));
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @NotNull
+            @Override
+            public MockResponse dispatch(@NotNull RecordedRequest request) {
+                return response;
+            }
+        });
+        server.start();
+        easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .build();
+        method = new CompletionMethod("llama3:8b", Payloads.text(0, 400), "user");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public CompletionResponse executeCompletion() {
+        return easyWebUI.executeCompletion(method);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public CompletionResponse executeCompletionConcurrent() {
+        return easyWebUI.executeCompletion(method);
+    }
+}
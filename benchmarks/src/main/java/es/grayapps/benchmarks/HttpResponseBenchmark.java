@@ -0,0 +1,72 @@
+package es.grayapps.benchmarks;
+
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.utils.HttpResponse;
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HttpResponseBenchmark is a class that measures the handling of an HTTP response,
+ * from the response body to the completed future, without any network involved.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpResponseBenchmark {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    @Param({"200", "2000", "20000"})
+    private int contentLength;
+
+    private CompletionMethod method;
+    private Request request;
+    private Call call;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        method = new CompletionMethod("llama3:8b", "message", "user");
+        request = new Request.Builder().url("http://localhost/api/chat/completions").build();
+        call = new OkHttpClient().newCall(request);
+        body = Payloads.completionJson(false, contentLength).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CompletionResponse onResponse() throws IOException {
+        HttpResponse<CompletionResponse, CompletionMethod> callback = new HttpResponse<>(method);
+        Response response = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(body, JSON))
+                .build();
+        callback.onResponse(call, response);
+        return callback.join();
+    }
+}
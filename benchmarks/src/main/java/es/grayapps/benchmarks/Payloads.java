@@ -0,0 +1,65 @@
+package es.grayapps.benchmarks;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+
+/**
+ * Payloads is a class that builds the requests and responses used by the benchmarks.
+ */
+final class Payloads {
+
+    private static final String WORDS = "the quick brown fox jumps over the lazy dog while a \"model\" answers\n";
+
+    private Payloads() {
+    }
+
+    /**
+     * Returns a text of about the provided length, different for every seed.
+     */
+    static String text(int seed, int length) {
+        StringBuilder text = new StringBuilder(length + WORDS.length());
+        text.append(seed).append(' ');
+        while (text.length() < length) {
+            text.append(WORDS);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns a completion response whose content has about the provided length,
+     * optionally preceded by a reasoning section of the same length.
+     */
+    static String completionJson(boolean think, int length) {
+        String content = escape(text(0, length));
+        if (think) {
+            content = "<think>" + escape(text(1, length)) + "</think>\\n\\n" + content;
+        }
+        return "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"created\":1700000000,\"model\":\"llama3:8b\","
+                + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"" + content + "\"},"
+                + "\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":120,\"completion_tokens\":480,\"total_tokens\":600}}";
+    }
+
+    /**
+     * Returns a stream that discards what is written to it into the provided blackhole.
+     */
+    static OutputStream blackholeStream(Blackhole blackhole) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(b);
+                blackhole.consume(len);
+            }
+        };
+    }
+
+    private static String escape(String text) {
+        return text.replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
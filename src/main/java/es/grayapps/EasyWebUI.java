@@ -1,22 +1,81 @@
 package es.grayapps;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import es.grayapps.batch.BatchListener;
+import es.grayapps.batch.BatchProgress;
+import es.grayapps.batch.BatchResult;
+import es.grayapps.batch.BatchRunner;
+import es.grayapps.cache.CacheStats;
+import es.grayapps.cache.CachingExecutor;
+import es.grayapps.cache.MemoryResponseCache;
+import es.grayapps.cache.ResponseCache;
+import es.grayapps.compression.CompressedRequestBody;
+import es.grayapps.compression.RequestCompression;
+import es.grayapps.endpoints.Endpoint;
+import es.grayapps.endpoints.EndpointGroup;
 import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
 import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.EmbeddingsMethod;
 import es.grayapps.methods.IMethod;
+import es.grayapps.methods.ModelsMethod;
+import es.grayapps.methods.response.CompletionChoice;
+import es.grayapps.methods.response.CompletionChunk;
 import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.methods.response.EmbeddingsResponse;
+import es.grayapps.methods.response.ModelsResponse;
+import es.grayapps.metrics.ClientMetrics;
+import es.grayapps.metrics.MetricTags;
+import es.grayapps.metrics.MetricsEventListener;
+import es.grayapps.metrics.UsageStats;
+import es.grayapps.resilience.CircuitBreaker;
+import es.grayapps.resilience.CircuitBreakerExecutor;
+import es.grayapps.resilience.CircuitBreakerPolicy;
+import es.grayapps.resilience.HedgeStats;
+import es.grayapps.resilience.HedgingExecutor;
+import es.grayapps.resilience.HedgingPolicy;
+import es.grayapps.resilience.LimiterPolicy;
+import es.grayapps.resilience.LimitingExecutor;
+import es.grayapps.resilience.RetryPolicy;
+import es.grayapps.resilience.RetryingExecutor;
+import es.grayapps.utils.Deadline;
 import es.grayapps.utils.HttpResponse;
-import okhttp3.MediaType;
+import es.grayapps.utils.JsonCodec;
+import es.grayapps.utils.ServerSentEventPublisher;
+import es.grayapps.utils.StreamingRequestBody;
+import es.grayapps.utils.ThinkTagFilter;
+import es.grayapps.utils.VirtualThreads;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
-import okhttp3.RequestBody;
+import okhttp3.Response;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * EasyWebUI is a class that allows
@@ -28,23 +87,42 @@ public class EasyWebUI {
 
     private static final Logger logger = Logger.getLogger(EasyWebUI.class.getName());
 
-    private final OkHttpClient client = new OkHttpClient.Builder()
+    private static final Interceptor HEADERS_INTERCEPTOR = chain -> {
+        Request original = chain.request();
+        Request.Builder builder = original.newBuilder()
+                .header("User-Agent", "EasyWebUI/1.0");
+        if (original.header("Accept") == null) {
+            builder.header("Accept", "application/json");
+        }
+        Request request = builder.build();
+        logger.fine(() -> "Intercepted request: " + request.url());
+        return chain.proceed(request);
+    };
+
+    /**
+     * Client shared by every instance that does not customize its HTTP client,
+     * so they all share the same connection pool and dispatcher.
+     */
+    private static final OkHttpClient DEFAULT_CLIENT = new OkHttpClient.Builder()
             .connectTimeout(10, TimeUnit.MINUTES)
             .readTimeout(10, TimeUnit.MINUTES)
             .writeTimeout(10, TimeUnit.MINUTES)
             .callTimeout(10, TimeUnit.MINUTES)
             .retryOnConnectionFailure(true)
-            .addInterceptor(chain -> {
-                Request original = chain.request();
-                Request request = original.newBuilder()
-                        .header("Accept", "application/json")
-                        .header("User-Agent", "EasyWebUI/1.0")
-                        .build();
-                logger.fine("Intercepted request: " + request.url());
-                return chain.proceed(request);
-            })
+            .addInterceptor(HEADERS_INTERCEPTOR)
             .build();
 
+    private OkHttpClient client = DEFAULT_CLIENT;
+    private ExecutionMode executionMode = ExecutionMode.DISPATCHER;
+    private CachingExecutor cachingExecutor;
+    private RetryingExecutor retryingExecutor;
+    private CircuitBreakerExecutor circuitBreakerExecutor;
+    private LimitingExecutor limitingExecutor;
+    private HedgingExecutor hedgingExecutor;
+    private EndpointGroup endpointGroup;
+    private RequestCompression compression;
+    private ClientMetrics metrics = ClientMetrics.noop();
+    private UsageStats usageStats;
     private String serverUrl;
     private String serverToken;
 
@@ -76,6 +154,81 @@ public class EasyWebUI {
         return serverToken;
     }
 
+    /**
+     * Returns how this instance runs the HTTP calls.
+     *
+     * @return the execution mode.
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Returns the statistics of the response cache.
+     *
+     * @return the statistics, or null if this instance has no response cache.
+     */
+    public CacheStats getCacheStats() {
+        return cachingExecutor != null ? cachingExecutor.getStats() : null;
+    }
+
+    /**
+     * Returns the metrics the measurements of this instance are reported to.
+     *
+     * @return the metrics, a no-op implementation if none were configured.
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the token usage and latency of the completions of this instance, by model.
+     *
+     * @return the usage statistics, or null if they were not enabled.
+     */
+    public UsageStats getUsageStats() {
+        return usageStats;
+    }
+
+    /**
+     * Returns the circuit breaker of the provided model.
+     *
+     * @param model the model.
+     * @return the circuit breaker, or null if the model is not protected by a circuit breaker or has not been used yet.
+     */
+    public CircuitBreaker getCircuitBreaker(String model) {
+        return circuitBreakerExecutor != null ? circuitBreakerExecutor.getCircuitBreaker(model) : null;
+    }
+
+    /**
+     * Returns the statistics of the hedged requests.
+     *
+     * @return the statistics, or null if this instance does not hedge requests.
+     */
+    public HedgeStats getHedgeStats() {
+        return hedgingExecutor != null ? hedgingExecutor.getStats() : null;
+    }
+
+    /**
+     * Returns the endpoints the requests of this instance are spread over.
+     *
+     * @return the endpoint group, or null if this instance talks to a single server.
+     */
+    public EndpointGroup getEndpointGroup() {
+        return endpointGroup;
+    }
+
+    /**
+     * Returns the HTTP client used by this instance.<br>
+     * It can be passed to {@link EasyWebUIBuilder#okHttpClient(OkHttpClient)} so other instances
+     * share its connection pool and dispatcher.
+     *
+     * @return the HTTP client.
+     */
+    public OkHttpClient getHttpClient() {
+        return client;
+    }
+
     /**
      * Executes the provided completion method.<br>
      * A completion is ask for a completion for a message,
@@ -85,63 +238,600 @@ public class EasyWebUI {
      * @return the response of the completion method.
      */
     public CompletionResponse executeCompletion(CompletionMethod completionMethod) {
-        logger.info("Executing CompletionMethod: " + completionMethod.getClass().getSimpleName());
+        logger.info(() -> "Executing CompletionMethod: " + completionMethod.getClass().getSimpleName());
         return execute(completionMethod);
     }
 
     /**
-     * Executes the provided method.
+     * Executes the provided completion method asynchronously.<br>
+     * No thread is blocked while the request is in flight.
+     *
+     * @param completionMethod the completion method to execute.
+     * @return a future completed with the response of the completion method,
+     * cancelling it cancels the request.
+     */
+    public CompletableFuture<CompletionResponse> executeCompletionAsync(CompletionMethod completionMethod) {
+        return executeCompletionAsync(completionMethod, null);
+    }
+
+    /**
+     * Executes the provided completion method asynchronously, completing the returned future on the provided executor.
+     *
+     * @param completionMethod the completion method to execute.
+     * @param executor         the executor used to complete the future, or null to complete it on the HTTP client thread.
+     * @return a future completed with the response of the completion method,
+     * cancelling it cancels the request.
+     */
+    public CompletableFuture<CompletionResponse> executeCompletionAsync(CompletionMethod completionMethod,
+                                                                        Executor executor) {
+        logger.info(() -> "Executing CompletionMethod asynchronously: " + completionMethod.getClass().getSimpleName());
+        return executeAsync(completionMethod, executor);
+    }
+
+    /**
+     * Lists the models available on the server.<br>
+     * With a response cache, the list is only requested again once its time to live expires.
+     *
+     * @return the models available on the server.
+     */
+    public ModelsResponse listModels() {
+        return execute(new ModelsMethod());
+    }
+
+    /**
+     * Computes the embeddings of the inputs of the provided method, in a single request.
+     *
+     * @param embeddingsMethod the embeddings method to execute.
+     * @return the embeddings, in the order of the inputs.
+     */
+    public EmbeddingsResponse executeEmbeddings(EmbeddingsMethod embeddingsMethod) {
+        logger.info(() -> "Executing EmbeddingsMethod with " + embeddingsMethod.getInputs().size() + " inputs");
+        return execute(embeddingsMethod);
+    }
+
+    /**
+     * Computes the embeddings of the inputs of the provided method asynchronously, in a single request.
+     *
+     * @param embeddingsMethod the embeddings method to execute.
+     * @return a future completed with the embeddings, in the order of the inputs, cancelling it cancels the request.
+     */
+    public CompletableFuture<EmbeddingsResponse> executeEmbeddingsAsync(EmbeddingsMethod embeddingsMethod) {
+        return executeAsync(embeddingsMethod, null);
+    }
+
+    /**
+     * Executes the provided method asynchronously.
      *
      * @param method the method to execute.
      * @param <T>    the type of the response.
-     * @return the response of the method.
+     * @return a future completed with the response of the method, cancelling it cancels the request.
      */
-    private <T extends Serializable> T execute(IMethod<T> method) {
-        try {
-            logger.fine("Preparing HTTP request for method: " + method.getClass().getSimpleName());
-            logger.fine("Request path: " + method.getPath());
-            logger.fine("Request method: " + method.getMethod());
-            logger.fine("Request body: " + method.getBody());
+    public <T extends Serializable> CompletableFuture<T> executeAsync(IMethod<T> method) {
+        return executeAsync(method, null);
+    }
+
+    /**
+     * Executes the provided method asynchronously, completing the returned future on the provided executor.
+     *
+     * @param method   the method to execute.
+     * @param executor the executor used to complete the future, or null to complete it on the HTTP client thread.
+     * @param <T>      the type of the response.
+     * @return a future completed with the response of the method, cancelling it cancels the request.
+     */
+    public <T extends Serializable> CompletableFuture<T> executeAsync(IMethod<T> method, Executor executor) {
+        return executeAsync(method, executor, null);
+    }
+
+    /**
+     * Executes the provided method asynchronously, giving it up once the provided timeout elapses.<br>
+     * The timeout covers the whole execution, including the wait for the limiter and the retries. When it elapses,
+     * the request in flight is cancelled, releasing its connection, and the returned future fails with a
+     * {@link java.util.concurrent.TimeoutException}. Each HTTP call is sent with the time left as its call timeout.
+     * Without an executor, a timeout completes the future on the common fork-join pool.
+     * A request shared by identical cacheable methods is only cancelled once every caller gave up.
+     *
+     * @param method   the method to execute.
+     * @param executor the executor used to complete the future, or null to complete it on the HTTP client thread.
+     * @param timeout  the time the execution may take, or null to use the timeout of the method, if any.
+     * @param <T>      the type of the response.
+     * @return a future completed with the response of the method, cancelling it cancels the request.
+     * @throws IllegalArgumentException if timeout is not positive.
+     */
+    public <T extends Serializable> CompletableFuture<T> executeAsync(IMethod<T> method, Executor executor,
+                                                                      Duration timeout) {
+        Duration effective = timeout != null ? timeout : method.getTimeout();
+        Deadline deadline = effective != null ? Deadline.after(effective) : null;
+        CompletableFuture<T> future;
+        if (cachingExecutor != null && method.isCacheable()) {
+            future = cachingExecutor.execute(method, cacheable -> attempt(cacheable, executor, null));
+        } else {
+            future = attempt(method, executor, deadline);
+        }
+        return deadline != null ? deadline.enforce(future, executor) : future;
+    }
+
+    /**
+     * Sends the provided method to the server, retrying it according to the retry policy of this instance.
+     *
+     * @param method   the method to send.
+     * @param executor the executor used to complete the future, or null to complete it on the HTTP client thread.
+     * @param deadline the deadline of the execution, or null for none.
+     * @param <T>      the type of the response.
+     * @return a future completed with the response of the method, cancelling it cancels the request.
+     */
+    private <T extends Serializable> CompletableFuture<T> attempt(IMethod<T> method, Executor executor,
+                                                                  Deadline deadline) {
+        if (retryingExecutor != null) {
+            return retryingExecutor.execute(method, retried -> admit(retried, executor, deadline));
+        }
+        return admit(method, executor, deadline);
+    }
+
+    /**
+     * Sends the provided method to the server once the client-side limiter of its model admits it.<br>
+     * The circuit breaker is only consulted after the admission, so it neither counts the requests the limiter rejects
+     * nor the time they wait in its queue.
+     *
+     * @param method   the method to send.
+     * @param executor the executor used to complete the future, or null to complete it on the HTTP client thread.
+     * @param deadline the deadline of the execution, or null for none.
+     * @param <T>      the type of the response.
+     * @return a future completed with the response of the method, cancelling it cancels the request.
+     */
+    private <T extends Serializable> CompletableFuture<T> admit(IMethod<T> method, Executor executor,
+                                                                Deadline deadline) {
+        if (limitingExecutor != null) {
+            return limitingExecutor.execute(method, admitted -> guard(admitted, executor, deadline));
+        }
+        return guard(method, executor, deadline);
+    }
 
-            HttpResponse<T, IMethod<T>> callback = new HttpResponse<>(method);
+    /**
+     * Sends the provided method to the server if the circuit breaker of its model permits it.
+     *
+     * @param method   the method to send.
+     * @param executor the executor used to complete the future, or null to complete it on the HTTP client thread.
+     * @param deadline the deadline of the execution, or null for none.
+     * @param <T>      the type of the response.
+     * @return a future completed with the response of the method, cancelling it cancels the request.
+     */
+    private <T extends Serializable> CompletableFuture<T> guard(IMethod<T> method, Executor executor,
+                                                                Deadline deadline) {
+        if (circuitBreakerExecutor != null) {
+            return circuitBreakerExecutor.execute(method, permitted -> hedge(permitted, executor, deadline));
+        }
+        return hedge(method, executor, deadline);
+    }
 
-            RequestBody body = RequestBody.create(
-                    method.getBody(),
-                    MediaType.get("application/json")
-            );
+    /**
+     * Sends the provided method to the server, sending duplicates of it if it is idempotent and slow to answer.
+     *
+     * @param method   the method to send.
+     * @param executor the executor used to complete the future, or null to complete it on the HTTP client thread.
+     * @param deadline the deadline of the execution, or null for none.
+     * @param <T>      the type of the response.
+     * @return a future completed with the response of the method, cancelling it cancels the request.
+     */
+    private <T extends Serializable> CompletableFuture<T> hedge(IMethod<T> method, Executor executor,
+                                                                Deadline deadline) {
+        if (hedgingExecutor != null) {
+            return hedgingExecutor.execute(method, (hedged, onStarted) -> route(hedged, executor, deadline, onStarted));
+        }
+        return route(method, executor, deadline, null);
+    }
 
-            Request request = new Request.Builder()
-                    .url(serverUrl + method.getPath())
-                    .method(method.getMethod().name(), body)
-                    .addHeader("Authorization", "Bearer " + serverToken)
-                    .build();
+    /**
+     * Sends the provided method to the server, or to an endpoint of the endpoint group of this instance.
+     *
+     * @param method    the method to send.
+     * @param executor  the executor used to complete the future, or null to complete it on the HTTP client thread.
+     * @param deadline  the deadline of the execution, or null for none.
+     * @param onStarted the listener called once the response starts to be received, or null for none.
+     * @param <T>       the type of the response.
+     * @return a future completed with the response of the method, cancelling it cancels the request.
+     */
+    private <T extends Serializable> CompletableFuture<T> route(IMethod<T> method, Executor executor, Deadline deadline,
+                                                                Runnable onStarted) {
+        if (endpointGroup != null) {
+            return endpointGroup.execute(endpoint ->
+                    send(method, executor, endpoint.getUrl(), endpoint.getToken(), deadline, onStarted));
+        }
+        return send(method, executor, serverUrl, serverToken, deadline, onStarted);
+    }
 
-            logger.fine("Sending request to: " + request.url());
+    /**
+     * Sends the provided method to the provided server.
+     *
+     * @param method    the method to send.
+     * @param executor  the executor used to complete the future, or null to complete it on the HTTP client thread.
+     * @param url       the server URL.
+     * @param token     the server token.
+     * @param deadline  the deadline of the execution, or null for none.
+     * @param onStarted the listener called once the response starts to be received, or null for none.
+     * @param <T>       the type of the response.
+     * @return a future completed with the response of the method, cancelling it cancels the request.
+     */
+    private <T extends Serializable> CompletableFuture<T> send(IMethod<T> method, Executor executor, String url,
+                                                              String token, Deadline deadline, Runnable onStarted) {
+        MetricTags tags = MetricTags.of(method);
+        HttpResponse<T, IMethod<T>> callback = new HttpResponse<>(method, executor, metrics, tags);
+        callback.whenStarted(onStarted);
+        if (metrics != ClientMetrics.noop()) {
+            long start = System.nanoTime();
+            metrics.requestStarted(tags);
+            callback.whenComplete((result, error) -> metrics.requestFinished(tags, System.nanoTime() - start, error));
+        }
+        if (usageStats != null && method instanceof CompletionMethod) {
+            String model = ((CompletionMethod) method).getModel();
+            callback.whenComplete((result, error) -> {
+                if (error instanceof CancellationException) {
+                    return;
+                }
+                if (error != null) {
+                    usageStats.recordError(model);
+                } else {
+                    usageStats.record(model, (CompletionResponse) result);
+                }
+            });
+        }
+        try {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("Preparing HTTP request for method: " + method.getClass().getSimpleName()
+                        + " - " + method.getMethod() + " " + method.getPath());
+            }
+            if (logger.isLoggable(Level.FINEST) && method.getMethod().permitsBody()) {
+                logger.finest("Request body: " + method.getBody());
+            }
 
-            client.newCall(request).enqueue(callback);
-            T response = callback.get();
+            Request.Builder builder = new Request.Builder()
+                    .url(url + method.getPath())
+                    .addHeader("Authorization", "Bearer " + token)
+                    .tag(MetricTags.class, tags);
+            method.getHeaders().forEach(builder::header);
+            Request request = withBody(builder, method, method::writeBody, tags).build();
 
-            logger.fine("Received response of type: " + (response != null ? response.getClass().getSimpleName() : "null"));
+            logger.fine(() -> "Sending request to: " + request.url());
 
-            return response;
+            Call call = client.newCall(request);
+            if (deadline != null) {
+                long remaining = deadline.remainingNanos();
+                if (remaining <= 0) {
+                    callback.completeExceptionally(deadline.timeoutException());
+                    return callback;
+                }
+                call.timeout().timeout(remaining, TimeUnit.NANOSECONDS);
+            }
+            callback.bind(call);
+            dispatch(call, callback);
         } catch (JsonProcessingException e) {
             logger.log(Level.SEVERE, "JSON processing error: " + e.getMessage(), e);
+            callback.completeExceptionally(e);
+        }
+        return callback;
+    }
+
+    /**
+     * Sets the body of the provided request, compressed if the compression settings of this instance ask for it.
+     *
+     * @param builder the builder of the request.
+     * @param method  the method the request is sent for.
+     * @param writer  the writer of the body.
+     * @param tags    the tags of the request.
+     * @return the same builder.
+     */
+    private Request.Builder withBody(Request.Builder builder, IMethod<?> method, StreamingRequestBody.BodyWriter writer,
+                                     MetricTags tags) {
+        if (!method.getMethod().permitsBody()) {
+            return builder.method(method.getMethod().name(), null);
+        }
+        if (compression == null || !compression.shouldCompress(method.estimateBodySize())) {
+            return builder.method(method.getMethod().name(),
+                    new StreamingRequestBody(writer, method.estimateBodySize()));
+        }
+        return builder.method(method.getMethod().name(),
+                        new CompressedRequestBody(writer, compression.getCodec(), metrics, tags))
+                .header("Content-Encoding", compression.getCodec().getEncoding());
+    }
+
+    /**
+     * Runs the provided call according to the execution mode of this instance.
+     *
+     * @param call     the call to run.
+     * @param callback the callback notified of the outcome of the call.
+     */
+    private void dispatch(Call call, Callback callback) {
+        if (executionMode != ExecutionMode.VIRTUAL_THREADS) {
+            call.enqueue(callback);
+            return;
+        }
+        VirtualThreads.executor().execute(() -> {
+            try (Response response = call.execute()) {
+                callback.onResponse(call, response);
+            } catch (IOException e) {
+                callback.onFailure(call, e);
+            }
+        });
+    }
+
+    /**
+     * Executes the provided methods, keeping at most {@code concurrency} of them in flight,
+     * and blocks until all of them finished.<br>
+     * A failed method does not abort the batch, it is reported as a failed result.
+     *
+     * @param methods     the methods to execute.
+     * @param concurrency the maximum number of methods in flight.
+     * @param <T>         the type of the response.
+     * @return the results, in the same order as the methods.
+     */
+    public <T extends Serializable> List<BatchResult<T>> executeAll(List<? extends IMethod<T>> methods, int concurrency) {
+        return executeAll(methods, concurrency, new BatchListener<>() {
+        });
+    }
+
+    /**
+     * Executes the provided methods, keeping at most {@code concurrency} of them in flight,
+     * and blocks until all of them finished.<br>
+     * A failed method does not abort the batch, it is reported as a failed result.
+     *
+     * @param methods     the methods to execute.
+     * @param concurrency the maximum number of methods in flight.
+     * @param listener    the listener notified of every result and of the progress of the batch.
+     * @param <T>         the type of the response.
+     * @return the results, in the same order as the methods.
+     */
+    public <T extends Serializable> List<BatchResult<T>> executeAll(List<? extends IMethod<T>> methods, int concurrency,
+                                                                    BatchListener<T> listener) {
+        CompletableFuture<List<BatchResult<T>>> future = executeAllAsync(methods, concurrency, listener);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            logger.log(Level.SEVERE, "Execution error during batch: " + e.getMessage(), e);
+            throw new EasyWebUIExceptionRuntime(e);
+        } catch (InterruptedException e) {
+            logger.log(Level.SEVERE, "Batch interrupted: " + e.getMessage(), e);
+            future.cancel(true);
+            Thread.currentThread().interrupt();
             throw new EasyWebUIExceptionRuntime(e);
+        }
+    }
+
+    /**
+     * Executes the provided methods asynchronously, keeping at most {@code concurrency} of them in flight.
+     *
+     * @param methods     the methods to execute.
+     * @param concurrency the maximum number of methods in flight.
+     * @param listener    the listener notified of every result and of the progress of the batch.
+     * @param <T>         the type of the response.
+     * @return a future completed with the results, in the same order as the methods,
+     * cancelling it stops the batch and cancels the methods in flight.
+     */
+    public <T extends Serializable> CompletableFuture<List<BatchResult<T>>> executeAllAsync(
+            List<? extends IMethod<T>> methods, int concurrency, BatchListener<T> listener) {
+        Objects.requireNonNull(listener);
+        AtomicReferenceArray<BatchResult<T>> results = new AtomicReferenceArray<>(methods.size());
+        CompletableFuture<BatchProgress> batch = executeAllAsync(methods.iterator(), methods.size(), concurrency,
+                new BatchListener<>() {
+                    @Override
+                    public void onResult(BatchResult<T> result) {
+                        results.set((int) result.getIndex(), result);
+                        listener.onResult(result);
+                    }
+
+                    @Override
+                    public void onProgress(BatchProgress progress) {
+                        listener.onProgress(progress);
+                    }
+                });
+        CompletableFuture<List<BatchResult<T>>> future = batch.thenApply(progress -> {
+            List<BatchResult<T>> list = new ArrayList<>(results.length());
+            for (int i = 0; i < results.length(); i++) {
+                list.add(results.get(i));
+            }
+            return List.copyOf(list);
+        });
+        future.whenComplete((value, e) -> {
+            if (future.isCancelled()) {
+                batch.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Executes the methods of the provided stream asynchronously, keeping at most {@code concurrency} of them in flight.<br>
+     * Methods are taken from the stream as previous ones finish, and results are only handed to the listener,
+     * in completion order, so arbitrarily large batches run in bounded memory. If taking a method from the stream
+     * fails, the batch stops and the methods in flight are cancelled.
+     *
+     * @param methods     the methods to execute.
+     * @param concurrency the maximum number of methods in flight.
+     * @param listener    the listener notified of every result and of the progress of the batch.
+     * @param <T>         the type of the response.
+     * @return a future completed with the final progress of the batch, or failed with the error of the stream,
+     * cancelling it stops the batch and cancels the methods in flight.
+     */
+    public <T extends Serializable> CompletableFuture<BatchProgress> executeAllAsync(
+            Stream<? extends IMethod<T>> methods, int concurrency, BatchListener<T> listener) {
+        return executeAllAsync(methods.iterator(), -1, concurrency, listener);
+    }
+
+    private <T extends Serializable> CompletableFuture<BatchProgress> executeAllAsync(
+            Iterator<? extends IMethod<T>> methods, long total, int concurrency, BatchListener<T> listener) {
+        logger.info(() -> "Executing batch with concurrency " + concurrency);
+        return new BatchRunner<IMethod<T>, T>(methods, total, concurrency, this::executeAsync, listener).run();
+    }
+
+    /**
+     * Streams the provided completion method.<br>
+     * The server sends the completion as server-sent events, which are published
+     * as chunks while they arrive. The request is sent when the subscriber first requests items,
+     * and cancelling the subscription cancels the request.<br>
+     * With an endpoint group, the stream is sent to the endpoint chosen by its load balancer and does not fail over.
+     *
+     * @param completionMethod the completion method to stream.
+     * @return a publisher of the chunks of the completion, supporting a single subscriber.
+     */
+    public Flow.Publisher<CompletionChunk> streamCompletion(CompletionMethod completionMethod) {
+        logger.info(() -> "Streaming CompletionMethod: " + completionMethod.getClass().getSimpleName());
+        Endpoint endpoint = endpointGroup != null ? endpointGroup.choose() : new Endpoint(serverUrl, serverToken);
+        MetricTags tags = MetricTags.of(completionMethod);
+
+        Request.Builder builder = new Request.Builder()
+                .url(endpoint.getUrl() + completionMethod.getPath())
+                .addHeader("Authorization", "Bearer " + endpoint.getToken())
+                .header("Accept", "text/event-stream")
+                .tag(MetricTags.class, tags);
+        completionMethod.getHeaders().forEach(builder::header);
+        Request request = withBody(builder, completionMethod, completionMethod::writeStreamBody, tags).build();
+
+        Call call = client.newCall(request);
+        if (completionMethod.getTimeout() != null) {
+            call.timeout().timeout(completionMethod.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return new ServerSentEventPublisher<>(call, completionMethod::deserializeChunk);
+    }
+
+    /**
+     * Streams the provided completion method, calling the provided consumer for every chunk received.<br>
+     * The chunks are passed as received, while the whole completion has its {@code <think>} sections removed
+     * from its content, as with {@link #executeCompletion(CompletionMethod)}.
+     *
+     * @param completionMethod the completion method to stream.
+     * @param onChunk          the consumer called for every chunk, in order, on an HTTP client thread.
+     * @return a future completed with the whole completion once the stream ends,
+     * cancelling it cancels the request.
+     */
+    public CompletableFuture<CompletionResponse> streamCompletion(CompletionMethod completionMethod,
+                                                                  Consumer<CompletionChunk> onChunk) {
+        Objects.requireNonNull(onChunk);
+        CompletableFuture<CompletionResponse> future = new CompletableFuture<>();
+        streamCompletion(completionMethod).subscribe(new Flow.Subscriber<>() {
+            private final SortedMap<Integer, StreamedChoice> choices = new TreeMap<>();
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                future.whenComplete((response, e) -> {
+                    if (future.isCancelled()) {
+                        subscription.cancel();
+                    }
+                });
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(CompletionChunk chunk) {
+                StreamedChoice choice = choices.computeIfAbsent(chunk.getIndex(),
+                        index -> new StreamedChoice(completionMethod.isKeepReasoning()));
+                choice.content.write(chunk.getContent());
+                if (choice.role == null) {
+                    choice.role = chunk.getRole();
+                }
+                if (chunk.getFinishReason() != null) {
+                    choice.finishReason = chunk.getFinishReason();
+                }
+                onChunk.accept(chunk);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                if (choices.isEmpty()) {
+                    future.complete(new CompletionResponse("", null));
+                    return;
+                }
+                List<CompletionChoice> completed = new ArrayList<>(choices.size());
+                choices.forEach((index, choice) -> completed.add(new CompletionChoice(index,
+                        choice.content.getContent(), choice.role, choice.content.getReasoning(), choice.finishReason)));
+                future.complete(new CompletionResponse(completed));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Executes the provided method, blocking until the response is received.<br>
+     * Any method can be executed, it goes through the same pipeline as the completions: response cache, retries,
+     * circuit breaker, limiter, hedging, endpoints and metrics.
+     *
+     * @param method the method to execute.
+     * @param <T>    the type of the response.
+     * @return the response of the method.
+     */
+    public <T extends Serializable> T execute(IMethod<T> method) {
+        return execute(method, null);
+    }
+
+    /**
+     * Executes the provided method, blocking until the response is received or the provided timeout elapses.<br>
+     * Interrupting the calling thread, or reaching the timeout, cancels the request and releases its connection.
+     *
+     * @param method  the method to execute.
+     * @param timeout the time the execution may take, or null to use the timeout of the method, if any.
+     * @param <T>     the type of the response.
+     * @return the response of the method.
+     * @throws IllegalArgumentException if timeout is not positive.
+     */
+    public <T extends Serializable> T execute(IMethod<T> method, Duration timeout) {
+        CompletableFuture<T> future = executeAsync(method, null, timeout);
+        try {
+            T response = future.get();
+
+            logger.fine(() -> "Received response of type: " + (response != null ? response.getClass().getSimpleName() : "null"));
+
+            return response;
         } catch (ExecutionException e) {
             logger.log(Level.SEVERE, "Execution error during HTTP call: " + e.getMessage(), e);
             throw new EasyWebUIExceptionRuntime(e);
         } catch (InterruptedException e) {
             logger.log(Level.SEVERE, "Request interrupted: " + e.getMessage(), e);
+            future.cancel(true);
             Thread.currentThread().interrupt();
             throw new EasyWebUIExceptionRuntime(e);
         }
     }
 
+    /**
+     * StreamedChoice is the state of a choice of a streamed completion while its chunks are received.
+     * Its content goes through a {@link ThinkTagFilter}, as the content of the completions that are not streamed.
+     */
+    private static final class StreamedChoice {
+        private final ThinkTagFilter content;
+        private String role;
+        private String finishReason;
+
+        private StreamedChoice(boolean keepReasoning) {
+            this.content = new ThinkTagFilter(keepReasoning);
+        }
+    }
+
     /**
      * Builder for the EasyWebUI class.
      */
     public static class EasyWebUIBuilder {
         private final EasyWebUI easyWebUI = new EasyWebUI();
+        private OkHttpClient okHttpClient;
+        private Dispatcher dispatcher;
+        private Integer maxRequests;
+        private Integer maxRequestsPerHost;
+        private ConnectionPool connectionPool;
+        private List<Protocol> protocols;
+        private Duration connectTimeout;
+        private Duration readTimeout;
+        private Duration writeTimeout;
+        private Duration callTimeout;
+        private ExecutionMode executionMode = ExecutionMode.DISPATCHER;
+        private ResponseCache responseCache;
+        private ClientMetrics metrics;
+        private RetryPolicy retryPolicy;
+        private LimiterPolicy limiterPolicy;
+        private final Map<String, LimiterPolicy> modelLimiterPolicies = new HashMap<>();
+        private CircuitBreakerPolicy circuitBreakerPolicy;
+        private final Map<String, CircuitBreakerPolicy> modelCircuitBreakerPolicies = new HashMap<>();
+        private HedgingPolicy hedgingPolicy;
 
         /**
          * Creates a new instance of EasyWebUIBuilder.
@@ -176,16 +866,429 @@ public class EasyWebUI {
             return this;
         }
 
+        /**
+         * Spreads the requests over several replicas of the server, each with its own URL and token,
+         * instead of sending them to a single server.<br>
+         * The server URL and token are not required then, the getters of the instance return those of the first endpoint.
+         * The health checks of the group, if any, start when the instance is built.
+         *
+         * @param endpointGroup the endpoint group.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if endpointGroup is null.
+         */
+        public EasyWebUIBuilder endpoints(EndpointGroup endpointGroup) {
+            easyWebUI.endpointGroup = Objects.requireNonNull(endpointGroup);
+            return this;
+        }
+
+        /**
+         * Compresses the large request bodies, and negotiates the codings of the responses.
+         *
+         * @param compression the compression settings, see {@link RequestCompression#defaults()}.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if compression is null.
+         */
+        public EasyWebUIBuilder compression(RequestCompression compression) {
+            easyWebUI.compression = Objects.requireNonNull(compression);
+            return this;
+        }
+
+        /**
+         * Sets an externally managed HTTP client to build on.<br>
+         * The instance shares the connection pool and dispatcher of the provided client,
+         * so many instances can share one pool. The other HTTP options of this builder
+         * are applied on top of it.
+         *
+         * @param okHttpClient the HTTP client.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if okHttpClient is null.
+         */
+        public EasyWebUIBuilder okHttpClient(OkHttpClient okHttpClient) {
+            this.okHttpClient = Objects.requireNonNull(okHttpClient);
+            return this;
+        }
+
+        /**
+         * Sets the dispatcher that runs asynchronous calls, it can be shared between instances.
+         *
+         * @param dispatcher the dispatcher.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if dispatcher is null.
+         */
+        public EasyWebUIBuilder dispatcher(Dispatcher dispatcher) {
+            this.dispatcher = Objects.requireNonNull(dispatcher);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent requests.<br>
+         * If no dispatcher is set, a new one is created for this instance with this limit.
+         *
+         * @param maxRequests the maximum number of concurrent requests.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws IllegalArgumentException if maxRequests is lower than 1.
+         */
+        public EasyWebUIBuilder maxRequests(int maxRequests) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException("maxRequests must be at least 1");
+            }
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent requests to the server.<br>
+         * As every request goes to the same host, this is usually the effective limit.
+         * If no dispatcher is set, a new one is created for this instance with this limit.
+         *
+         * @param maxRequestsPerHost the maximum number of concurrent requests per host.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws IllegalArgumentException if maxRequestsPerHost is lower than 1.
+         */
+        public EasyWebUIBuilder maxRequestsPerHost(int maxRequestsPerHost) {
+            if (maxRequestsPerHost < 1) {
+                throw new IllegalArgumentException("maxRequestsPerHost must be at least 1");
+            }
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Sets a new connection pool for this instance.
+         *
+         * @param maxIdleConnections the maximum number of idle connections kept in the pool.
+         * @param keepAlive          the time an idle connection is kept alive.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if keepAlive is null.
+         */
+        public EasyWebUIBuilder connectionPool(int maxIdleConnections, Duration keepAlive) {
+            return connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS));
+        }
+
+        /**
+         * Sets the connection pool, it can be shared between instances.
+         *
+         * @param connectionPool the connection pool.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if connectionPool is null.
+         */
+        public EasyWebUIBuilder connectionPool(ConnectionPool connectionPool) {
+            this.connectionPool = Objects.requireNonNull(connectionPool);
+            return this;
+        }
+
+        /**
+         * Sets the protocols used to talk to the server, for example HTTP/2 with HTTP/1.1 fallback.
+         *
+         * @param protocols the protocols.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if protocols is null.
+         */
+        public EasyWebUIBuilder protocols(List<Protocol> protocols) {
+            this.protocols = List.copyOf(protocols);
+            return this;
+        }
+
+        /**
+         * Talks HTTP/2 over cleartext to the server without upgrade negotiation (h2c prior knowledge),
+         * so every request is multiplexed over a single connection.
+         *
+         * @return the current instance of EasyWebUIBuilder.
+         */
+        public EasyWebUIBuilder http2PriorKnowledge() {
+            return protocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+
+        /**
+         * Sets the connect timeout.
+         *
+         * @param connectTimeout the connect timeout, zero for no timeout.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if connectTimeout is null.
+         */
+        public EasyWebUIBuilder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = Objects.requireNonNull(connectTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the read timeout, the maximum time between two reads of the response.
+         *
+         * @param readTimeout the read timeout, zero for no timeout.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if readTimeout is null.
+         */
+        public EasyWebUIBuilder readTimeout(Duration readTimeout) {
+            this.readTimeout = Objects.requireNonNull(readTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the write timeout, the maximum time between two writes of the request.
+         *
+         * @param writeTimeout the write timeout, zero for no timeout.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if writeTimeout is null.
+         */
+        public EasyWebUIBuilder writeTimeout(Duration writeTimeout) {
+            this.writeTimeout = Objects.requireNonNull(writeTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the call timeout, the maximum time of a whole call.
+         *
+         * @param callTimeout the call timeout, zero for no timeout.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if callTimeout is null.
+         */
+        public EasyWebUIBuilder callTimeout(Duration callTimeout) {
+            this.callTimeout = Objects.requireNonNull(callTimeout);
+            return this;
+        }
+
+        /**
+         * Sets how the HTTP calls are run.<br>
+         * With {@link ExecutionMode#VIRTUAL_THREADS} every call runs synchronously on its own virtual thread
+         * and the dispatcher limits do not apply. On runtimes older than Java 21 it falls back to
+         * {@link ExecutionMode#DISPATCHER}.
+         *
+         * @param executionMode the execution mode.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if executionMode is null.
+         */
+        public EasyWebUIBuilder executionMode(ExecutionMode executionMode) {
+            this.executionMode = Objects.requireNonNull(executionMode);
+            return this;
+        }
+
+        /**
+         * Sets a response cache for the cacheable methods.<br>
+         * Identical cacheable methods sent while one of them is in flight are coalesced into a single request.
+         *
+         * @param responseCache the response cache, for example a {@link MemoryResponseCache}.
+         * @return the current instance of EasyWebUIBuilder.
+         * @throws NullPointerException if responseCache is null.
+         */
+        public EasyWebUIBuilder responseCache(ResponseCache responseCache) {
+            this.responseCache = Objects.requireNonNull(responseCache);
+            return this;
+        }
+
+        /**
+         * Sets the policy failed requests are retried with. By default requests are not retried,
+         * besides the connection failures the HTTP client retries on its own.<br>
+         * Streamed completions are never retried.
+         *
+         * @param retryPolicy the retry policy, see {@link RetryPolicy#defaults()}.
+         * @return the EasyWebUIBuilder instance.
+         * @throws NullPointerException if retryPolicy is null.
+         */
+        public EasyWebUIBuilder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = Objects.requireNonNull(retryPolicy);
+            return this;
+        }
+
+        /**
+         * Limits the requests of every model on the client side, so the server is not sent more than it can handle.
+         * Each model gets its own limits built from the policy. Requests over the limits wait, and are rejected with
+         * a {@link es.grayapps.exceptions.LimitExceededException} when they cannot be admitted in time.
+         *
+         * @param limiterPolicy the limiter policy of every model.
+         * @return the EasyWebUIBuilder instance.
+         * @throws NullPointerException if limiterPolicy is null.
+         */
+        public EasyWebUIBuilder limiter(LimiterPolicy limiterPolicy) {
+            this.limiterPolicy = Objects.requireNonNull(limiterPolicy);
+            return this;
+        }
+
+        /**
+         * Limits the requests of the provided model on the client side, overriding the policy of every model.
+         *
+         * @param model         the model.
+         * @param limiterPolicy the limiter policy of the model.
+         * @return the EasyWebUIBuilder instance.
+         * @throws NullPointerException if model or limiterPolicy are null.
+         */
+        public EasyWebUIBuilder limiter(String model, LimiterPolicy limiterPolicy) {
+            modelLimiterPolicies.put(Objects.requireNonNull(model), Objects.requireNonNull(limiterPolicy));
+            return this;
+        }
+
+        /**
+         * Protects every model with a circuit breaker, so requests to a model that keeps failing or hangs
+         * fail fast with a {@link es.grayapps.exceptions.CallNotPermittedException} instead of piling up.
+         * Each model gets its own breaker built from the policy.
+         *
+         * @param circuitBreakerPolicy the circuit breaker policy of every model.
+         * @return the EasyWebUIBuilder instance.
+         * @throws NullPointerException if circuitBreakerPolicy is null.
+         */
+        public EasyWebUIBuilder circuitBreaker(CircuitBreakerPolicy circuitBreakerPolicy) {
+            this.circuitBreakerPolicy = Objects.requireNonNull(circuitBreakerPolicy);
+            return this;
+        }
+
+        /**
+         * Protects the provided model with a circuit breaker, overriding the policy of every model.
+         *
+         * @param model                the model.
+         * @param circuitBreakerPolicy the circuit breaker policy of the model.
+         * @return the EasyWebUIBuilder instance.
+         * @throws NullPointerException if model or circuitBreakerPolicy are null.
+         */
+        public EasyWebUIBuilder circuitBreaker(String model, CircuitBreakerPolicy circuitBreakerPolicy) {
+            modelCircuitBreakerPolicies.put(Objects.requireNonNull(model), Objects.requireNonNull(circuitBreakerPolicy));
+            return this;
+        }
+
+        /**
+         * Hedges the idempotent methods, see {@link IMethod#isIdempotent()}: when one has not started receiving
+         * its response after the hedging delay, a duplicate is sent, to another endpoint if there is an endpoint
+         * group, and the first response wins while the other request is cancelled.<br>
+         * Duplicates go through the same limiter and circuit breaker permit as the original request.
+         *
+         * @param hedgingPolicy the hedging policy.
+         * @return the EasyWebUIBuilder instance.
+         * @throws NullPointerException if hedgingPolicy is null.
+         */
+        public EasyWebUIBuilder hedging(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = Objects.requireNonNull(hedgingPolicy);
+            return this;
+        }
+
+        /**
+         * Sets the metrics the measurements of the requests are reported to: in-flight requests, durations,
+         * errors, dispatcher queue wait, DNS, connect, time to first byte, body sizes and deserialization time.<br>
+         * The measurements are taken by an event listener of the HTTP client, added next to the listener it already had.
+         *
+         * @param metrics the metrics, see {@link es.grayapps.metrics.MicrometerClientMetrics}.
+         * @return the EasyWebUIBuilder instance.
+         * @throws NullPointerException if metrics is null.
+         */
+        public EasyWebUIBuilder metrics(ClientMetrics metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+
+        /**
+         * Sets the statistics the token usage and latency of the completions are aggregated in, by model.<br>
+         * Every completion received from the server is counted, including retries and hedged requests.
+         * Cancelled requests, completions answered from the response cache and streamed completions are not.
+         *
+         * @param usageStats the usage statistics, which may be shared by several instances.
+         * @return the EasyWebUIBuilder instance.
+         * @throws NullPointerException if usageStats is null.
+         */
+        public EasyWebUIBuilder usageStats(UsageStats usageStats) {
+            easyWebUI.usageStats = Objects.requireNonNull(usageStats);
+            return this;
+        }
+
         /**
          * Builds an instance of EasyWebUI with the provided parameters.
          *
          * @return a new instance of EasyWebUI.
-         * @throws NullPointerException if serverUrl or serverToken are null.
+         * @throws NullPointerException if serverUrl or serverToken are null and no endpoint group was set.
          */
         public EasyWebUI build() {
+            EndpointGroup endpointGroup = easyWebUI.endpointGroup;
+            if (endpointGroup != null && easyWebUI.serverUrl == null && easyWebUI.serverToken == null) {
+                Endpoint first = endpointGroup.getEndpoints().get(0).getEndpoint();
+                easyWebUI.serverUrl = first.getUrl();
+                easyWebUI.serverToken = first.getToken();
+            }
             Objects.requireNonNull(easyWebUI.serverUrl);
             Objects.requireNonNull(easyWebUI.serverToken);
+            easyWebUI.client = buildClient();
+            if (endpointGroup != null) {
+                endpointGroup.startHealthChecks(easyWebUI.client);
+            }
+            if (metrics != null) {
+                easyWebUI.metrics = metrics;
+            }
+            if (hedgingPolicy != null) {
+                easyWebUI.hedgingExecutor = new HedgingExecutor(hedgingPolicy);
+            }
+            if (limiterPolicy != null || !modelLimiterPolicies.isEmpty()) {
+                easyWebUI.limitingExecutor = new LimitingExecutor(limiterPolicy, modelLimiterPolicies, easyWebUI.metrics);
+            }
+            if (circuitBreakerPolicy != null || !modelCircuitBreakerPolicies.isEmpty()) {
+                easyWebUI.circuitBreakerExecutor = new CircuitBreakerExecutor(circuitBreakerPolicy, modelCircuitBreakerPolicies);
+            }
+            if (retryPolicy != null) {
+                easyWebUI.retryingExecutor = new RetryingExecutor(retryPolicy, easyWebUI.metrics);
+            }
+            if (responseCache != null) {
+                easyWebUI.cachingExecutor = new CachingExecutor(responseCache, JsonCodec.getDefault());
+            }
+            if (executionMode == ExecutionMode.VIRTUAL_THREADS && !VirtualThreads.isSupported()) {
+                logger.warning("Virtual threads are not supported on this runtime, falling back to the dispatcher");
+                easyWebUI.executionMode = ExecutionMode.DISPATCHER;
+            } else {
+                easyWebUI.executionMode = executionMode;
+            }
             return easyWebUI;
         }
+
+        private OkHttpClient buildClient() {
+            boolean customized = dispatcher != null || maxRequests != null || maxRequestsPerHost != null
+                    || connectionPool != null || protocols != null || connectTimeout != null
+                    || readTimeout != null || writeTimeout != null || callTimeout != null
+                    || metrics != null || responseInterceptor() != null;
+            if (!customized) {
+                return okHttpClient != null ? withHeaders(okHttpClient) : DEFAULT_CLIENT;
+            }
+
+            OkHttpClient base = okHttpClient != null ? withHeaders(okHttpClient) : DEFAULT_CLIENT;
+            OkHttpClient.Builder builder = base.newBuilder();
+            if (dispatcher != null || maxRequests != null || maxRequestsPerHost != null) {
+                Dispatcher configured = dispatcher != null ? dispatcher : new Dispatcher();
+                if (maxRequests != null) {
+                    configured.setMaxRequests(maxRequests);
+                }
+                if (maxRequestsPerHost != null) {
+                    configured.setMaxRequestsPerHost(maxRequestsPerHost);
+                }
+                builder.dispatcher(configured);
+            }
+            if (connectionPool != null) {
+                builder.connectionPool(connectionPool);
+            }
+            if (protocols != null) {
+                builder.protocols(protocols);
+            }
+            if (connectTimeout != null) {
+                builder.connectTimeout(connectTimeout);
+            }
+            if (readTimeout != null) {
+                builder.readTimeout(readTimeout);
+            }
+            if (writeTimeout != null) {
+                builder.writeTimeout(writeTimeout);
+            }
+            if (callTimeout != null) {
+                builder.callTimeout(callTimeout);
+            }
+            if (metrics != null) {
+                builder.eventListenerFactory(MetricsEventListener.factory(metrics, base.eventListenerFactory()));
+            }
+            if (responseInterceptor() != null) {
+                builder.addInterceptor(responseInterceptor());
+            }
+            return builder.build();
+        }
+
+        private Interceptor responseInterceptor() {
+            return easyWebUI.compression != null ? easyWebUI.compression.getResponseInterceptor() : null;
+        }
+
+        private static OkHttpClient withHeaders(OkHttpClient client) {
+            if (client.interceptors().contains(HEADERS_INTERCEPTOR)) {
+                return client;
+            }
+            return client.newBuilder().addInterceptor(HEADERS_INTERCEPTOR).build();
+        }
     }
 }
@@ -0,0 +1,20 @@
+package es.grayapps;
+
+/**
+ * ExecutionMode is an enum that represents how EasyWebUI runs the HTTP calls.
+ */
+public enum ExecutionMode {
+
+    /**
+     * Calls are enqueued on the OkHttp dispatcher, which runs them on its own thread pool
+     * and limits them by its maximum number of requests.
+     */
+    DISPATCHER,
+
+    /**
+     * Calls are executed synchronously, each one on its own virtual thread, so no thread pool has to be sized
+     * for long-running calls. Requires a Java 21 or newer runtime, on older runtimes
+     * {@link #DISPATCHER} is used instead.
+     */
+    VIRTUAL_THREADS
+}
@@ -0,0 +1,26 @@
+package es.grayapps.batch;
+
+/**
+ * BatchListener is an interface that is notified while a batch runs.
+ * Its methods are called from the threads completing the methods, one at a time.
+ *
+ * @param <T> the type of the response of the methods.
+ */
+public interface BatchListener<T> {
+
+    /**
+     * Called when a method of the batch finishes, in completion order.
+     *
+     * @param result the result of the method.
+     */
+    default void onResult(BatchResult<T> result) {
+    }
+
+    /**
+     * Called after every finished method with the progress of the batch.
+     *
+     * @param progress the progress of the batch.
+     */
+    default void onProgress(BatchProgress progress) {
+    }
+}
@@ -0,0 +1,80 @@
+package es.grayapps.batch;
+
+import java.time.Duration;
+
+/**
+ * BatchProgress is a class that represents a snapshot of the progress of a batch.
+ */
+public class BatchProgress {
+
+    private final long completed;
+    private final long failed;
+    private final long total;
+    private final long elapsedNanos;
+
+    /**
+     * Creates a new instance of BatchProgress.
+     *
+     * @param completed    the number of methods finished, successfully or not.
+     * @param failed       the number of methods that failed.
+     * @param total        the number of methods of the batch, or -1 if it is not known in advance.
+     * @param elapsedNanos the time elapsed since the batch started, in nanoseconds.
+     */
+    public BatchProgress(long completed, long failed, long total, long elapsedNanos) {
+        this.completed = completed;
+        this.failed = failed;
+        this.total = total;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of methods finished, successfully or not.
+     *
+     * @return the number of methods finished.
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Returns the number of methods that failed.
+     *
+     * @return the number of methods that failed.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the number of methods of the batch.
+     *
+     * @return the number of methods, or -1 if it is not known in advance.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the time elapsed since the batch started.
+     *
+     * @return the elapsed time.
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    /**
+     * Returns the number of methods finished per second since the batch started.
+     *
+     * @return the throughput in methods per second.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : completed * 1_000_000_000d / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchProgress{completed=" + completed + ", failed=" + failed + ", total=" + total
+                + ", throughput=" + String.format("%.2f", getThroughput()) + "/s}";
+    }
+}
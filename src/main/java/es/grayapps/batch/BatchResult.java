@@ -0,0 +1,81 @@
+package es.grayapps.batch;
+
+import java.io.Serializable;
+
+/**
+ * BatchResult is a class that represents the outcome of a single method of a batch.
+ *
+ * @param <T> the type of the response of the method.
+ */
+public class BatchResult<T> implements Serializable {
+
+    private final long index;
+    private final T value;
+    private final Throwable error;
+
+    private BatchResult(long index, T value, Throwable error) {
+        this.index = index;
+        this.value = value;
+        this.error = error;
+    }
+
+    /**
+     * Creates a successful result.
+     *
+     * @param index the position of the method in the batch.
+     * @param value the response of the method.
+     * @param <T>   the type of the response.
+     * @return the result.
+     */
+    public static <T> BatchResult<T> success(long index, T value) {
+        return new BatchResult<>(index, value, null);
+    }
+
+    /**
+     * Creates a failed result.
+     *
+     * @param index the position of the method in the batch.
+     * @param error the error that made the method fail.
+     * @param <T>   the type of the response.
+     * @return the result.
+     */
+    public static <T> BatchResult<T> failure(long index, Throwable error) {
+        return new BatchResult<>(index, null, error);
+    }
+
+    /**
+     * Returns the position of the method in the batch.
+     *
+     * @return the position, starting at zero.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns whether the method succeeded.
+     *
+     * @return true if the method succeeded.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Returns the response of the method.
+     *
+     * @return the response, or null if the method failed.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the error that made the method fail.
+     *
+     * @return the error, or null if the method succeeded.
+     */
+    public Throwable getError() {
+        return error;
+    }
+}
@@ -0,0 +1,158 @@
+package es.grayapps.batch;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * BatchRunner is a class that runs the methods of a batch through an asynchronous executor,
+ * keeping at most a fixed number of them in flight.
+ * <p>
+ * A new method is only taken from the source when a previous one finishes, so sources backed by
+ * large or lazy streams are consumed incrementally. A failed method is reported as a failed result
+ * and does not abort the batch. Cancelling the future returned by {@link #run()} stops the batch
+ * and cancels the methods in flight. If the source itself fails, the batch stops the same way and its future fails
+ * with the error of the source.
+ *
+ * @param <M> the type of the methods.
+ * @param <T> the type of the response of the methods.
+ */
+public final class BatchRunner<M, T> {
+
+    private static final Logger logger = Logger.getLogger(BatchRunner.class.getName());
+
+    private final Iterator<? extends M> source;
+    private final int concurrency;
+    private final long total;
+    private final Function<? super M, ? extends CompletableFuture<T>> executor;
+    private final BatchListener<T> listener;
+    private final CompletableFuture<BatchProgress> done = new CompletableFuture<>();
+    private final Map<Long, CompletableFuture<T>> inFlightFutures = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    private long nextIndex;
+    private int inFlight;
+    private boolean filling;
+    private long completed;
+    private long failed;
+
+    /**
+     * Creates a new instance of BatchRunner.
+     *
+     * @param source      the methods of the batch.
+     * @param total       the number of methods of the batch, or -1 if it is not known in advance.
+     * @param concurrency the maximum number of methods in flight.
+     * @param executor    the function that executes a method asynchronously.
+     * @param listener    the listener notified of results and progress.
+     * @throws IllegalArgumentException if concurrency is lower than 1.
+     */
+    public BatchRunner(Iterator<? extends M> source, long total, int concurrency,
+                       Function<? super M, ? extends CompletableFuture<T>> executor, BatchListener<T> listener) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.source = Objects.requireNonNull(source);
+        this.total = total;
+        this.concurrency = concurrency;
+        this.executor = Objects.requireNonNull(executor);
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * Starts the batch.
+     *
+     * @return a future completed with the final progress once every method finished,
+     * cancelling it stops the batch.
+     */
+    public CompletableFuture<BatchProgress> run() {
+        done.whenComplete((progress, e) -> {
+            if (done.isCancelled()) {
+                inFlightFutures.values().forEach(future -> future.cancel(true));
+            }
+        });
+        fill();
+        return done;
+    }
+
+    private void fill() {
+        synchronized (this) {
+            if (filling) {
+                return;
+            }
+            filling = true;
+        }
+        while (true) {
+            M method;
+            long index;
+            synchronized (this) {
+                try {
+                    if (done.isDone() || inFlight >= concurrency || !source.hasNext()) {
+                        filling = false;
+                        if (inFlight == 0 && !done.isDone()) {
+                            done.complete(progress());
+                        }
+                        return;
+                    }
+                    method = source.next();
+                } catch (RuntimeException e) {
+                    filling = false;
+                    fail(e);
+                    return;
+                }
+                index = nextIndex++;
+                inFlight++;
+            }
+            launch(index, method);
+        }
+    }
+
+    private void fail(RuntimeException error) {
+        if (done.completeExceptionally(error)) {
+            logger.log(Level.WARNING, "Batch source failed: " + error.getMessage(), error);
+            inFlightFutures.values().forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void launch(long index, M method) {
+        CompletableFuture<T> future;
+        try {
+            future = executor.apply(method);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        inFlightFutures.put(index, future);
+        future.whenComplete((value, e) -> onDone(index, value, e));
+    }
+
+    private void onDone(long index, T value, Throwable error) {
+        inFlightFutures.remove(index);
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        BatchResult<T> result = cause == null ? BatchResult.success(index, value) : BatchResult.failure(index, cause);
+        synchronized (this) {
+            completed++;
+            if (cause != null) {
+                failed++;
+            }
+            inFlight--;
+            if (!done.isDone()) {
+                try {
+                    listener.onResult(result);
+                    listener.onProgress(progress());
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Batch listener failed: " + e.getMessage(), e);
+                }
+            }
+        }
+        fill();
+    }
+
+    private BatchProgress progress() {
+        return new BatchProgress(completed, failed, total, System.nanoTime() - startNanos);
+    }
+}
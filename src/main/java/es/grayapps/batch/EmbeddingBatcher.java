@@ -0,0 +1,291 @@
+package es.grayapps.batch;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.exceptions.EasyWebUIException;
+import es.grayapps.methods.EmbeddingsMethod;
+import es.grayapps.methods.response.EmbeddingsResponse;
+import es.grayapps.utils.Timers;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * EmbeddingBatcher is a class that gathers the inputs of concurrent {@link #embed(String)} calls into
+ * batched {@link EmbeddingsMethod} requests.
+ * <p>
+ * An input waits at most the linger time for others to join its batch, and a batch is sent at once when it reaches
+ * the maximum batch size. The embeddings of the response are handed back to the future of each input as primitive
+ * float arrays. Cancelling the future of an input that has not been sent yet leaves it out of its batch, and a batch
+ * whose inputs are all cancelled is cancelled too.
+ * A response whose number of embeddings differs from the number of inputs fails every input of its batch.
+ */
+public class EmbeddingBatcher implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(EmbeddingBatcher.class.getName());
+
+    private final EasyWebUI easyWebUI;
+    private final String model;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder inputs = new LongAdder();
+    private List<Input> pending = new ArrayList<>();
+    private ScheduledFuture<?> lingerTimeout;
+    private boolean closed;
+
+    private EmbeddingBatcher(EmbeddingBatcherBuilder builder) {
+        this.easyWebUI = builder.easyWebUI;
+        this.model = builder.model;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.lingerNanos = builder.linger.toNanos();
+    }
+
+    /**
+     * Creates a new builder of EmbeddingBatcher.
+     *
+     * @param easyWebUI the client the batches are sent with.
+     * @param model     the model that computes the embeddings.
+     * @return a new builder.
+     * @throws NullPointerException if easyWebUI or model are null.
+     */
+    public static EmbeddingBatcherBuilder builder(EasyWebUI easyWebUI, String model) {
+        return new EmbeddingBatcherBuilder(easyWebUI, model);
+    }
+
+    /**
+     * Computes the embedding of the provided input, in a batch with the inputs of other concurrent calls.
+     *
+     * @param input the input.
+     * @return a future completed with the embedding of the input.
+     * @throws NullPointerException  if input is null.
+     * @throws IllegalStateException if the batcher is closed.
+     */
+    public CompletableFuture<float[]> embed(String input) {
+        Input item = new Input(Objects.requireNonNull(input));
+        List<Input> batch = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("EmbeddingBatcher is closed");
+            }
+            pending.add(item);
+            if (pending.size() >= maxBatchSize) {
+                batch = drain();
+            } else if (pending.size() == 1) {
+                lingerTimeout = Timers.schedule(this::flush, lingerNanos);
+            }
+        }
+        if (batch != null) {
+            send(batch);
+        }
+        return item.future;
+    }
+
+    /**
+     * Computes the embeddings of the provided inputs, in as many batches as needed.
+     *
+     * @param inputs the inputs.
+     * @return a future completed with the embeddings, in the order of the inputs.
+     * @throws NullPointerException  if inputs or any of them are null.
+     * @throws IllegalStateException if the batcher is closed.
+     */
+    public CompletableFuture<List<float[]>> embedAll(List<String> inputs) {
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            futures.add(embed(input));
+        }
+        CompletableFuture<List<float[]>> result = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<float[]> embeddings = new ArrayList<>(futures.size());
+                    futures.forEach(future -> embeddings.add(future.join()));
+                    return embeddings;
+                });
+        result.whenComplete((embeddings, e) -> {
+            if (result.isCancelled()) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends the pending inputs without waiting for their linger time to elapse.
+     */
+    public void flush() {
+        List<Input> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Sends the pending inputs and rejects new ones. The batches in flight are not cancelled.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+    }
+
+    /**
+     * Returns the number of batches sent.
+     *
+     * @return the number of batches.
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Returns the number of inputs sent in the batches.
+     *
+     * @return the number of inputs.
+     */
+    public long getInputs() {
+        return inputs.sum();
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    private List<Input> drain() {
+        if (lingerTimeout != null) {
+            lingerTimeout.cancel(false);
+            lingerTimeout = null;
+        }
+        if (pending.isEmpty()) {
+            return null;
+        }
+        List<Input> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void send(List<Input> batch) {
+        List<Input> live = new ArrayList<>(batch.size());
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Input item : batch) {
+            if (!item.future.isDone()) {
+                live.add(item);
+                texts.add(item.text);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+        batches.increment();
+        inputs.add(live.size());
+        logger.fine(() -> "Sending a batch of " + live.size() + " inputs to model " + model);
+
+        CompletableFuture<EmbeddingsResponse> request;
+        try {
+            request = easyWebUI.executeEmbeddingsAsync(new EmbeddingsMethod(model, texts));
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+        request.whenComplete((response, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause == null && response.size() != live.size()) {
+                cause = new EasyWebUIException("Expected " + live.size() + " embeddings but received " + response.size());
+            }
+            for (int i = 0; i < live.size(); i++) {
+                if (cause != null) {
+                    live.get(i).future.completeExceptionally(cause);
+                } else {
+                    live.get(i).future.complete(response.getEmbedding(i));
+                }
+            }
+        });
+
+        CompletableFuture<EmbeddingsResponse> sent = request;
+        AtomicInteger waiting = new AtomicInteger(live.size());
+        for (Input item : live) {
+            item.future.whenComplete((embedding, e) -> {
+                if (item.future.isCancelled() && waiting.decrementAndGet() == 0) {
+                    sent.cancel(true);
+                }
+            });
+        }
+    }
+
+    /**
+     * Input is an input waiting for its embedding.
+     */
+    private static final class Input {
+        private final String text;
+        private final CompletableFuture<float[]> future = new CompletableFuture<>();
+
+        private Input(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * Builder for the EmbeddingBatcher class.
+     */
+    public static class EmbeddingBatcherBuilder {
+        private final EasyWebUI easyWebUI;
+        private final String model;
+        private int maxBatchSize = 64;
+        private Duration linger = Duration.ofMillis(10);
+
+        private EmbeddingBatcherBuilder(EasyWebUI easyWebUI, String model) {
+            this.easyWebUI = Objects.requireNonNull(easyWebUI);
+            this.model = Objects.requireNonNull(model);
+        }
+
+        /**
+         * Sets the maximum number of inputs of a batch, 64 by default.
+         *
+         * @param maxBatchSize the maximum number of inputs.
+         * @return the current instance of EmbeddingBatcherBuilder.
+         * @throws IllegalArgumentException if maxBatchSize is lower than 1.
+         */
+        public EmbeddingBatcherBuilder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("maxBatchSize must be at least 1");
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time an input waits for others to join its batch, 10 milliseconds by default.
+         *
+         * @param linger the linger time.
+         * @return the current instance of EmbeddingBatcherBuilder.
+         * @throws NullPointerException     if linger is null.
+         * @throws IllegalArgumentException if linger is negative.
+         */
+        public EmbeddingBatcherBuilder linger(Duration linger) {
+            if (linger.isNegative()) {
+                throw new IllegalArgumentException("linger must not be negative");
+            }
+            this.linger = linger;
+            return this;
+        }
+
+        /**
+         * Builds an instance of EmbeddingBatcher with the provided parameters.
+         *
+         * @return a new instance of EmbeddingBatcher.
+         */
+        public EmbeddingBatcher build() {
+            return new EmbeddingBatcher(this);
+        }
+    }
+}
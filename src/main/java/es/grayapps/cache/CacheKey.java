@@ -0,0 +1,69 @@
+package es.grayapps.cache;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import es.grayapps.methods.IMethod;
+import es.grayapps.utils.JsonCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * CacheKey is a class that computes the stable key of the response of a method.
+ * <p>
+ * The key is the SHA-256 hash of the method type, its path, its cache variant and its body in canonical form,
+ * with the properties of every JSON object sorted by name, so bodies that only differ in property order
+ * share the same key.
+ */
+public final class CacheKey {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private CacheKey() {
+    }
+
+    /**
+     * Computes the key of the response of the provided method.
+     *
+     * @param method the method.
+     * @param codec  the codec used to canonicalize the body.
+     * @return the key, as a hexadecimal string.
+     * @throws IOException if the body cannot be written or parsed.
+     */
+    public static String of(IMethod<?> method, JsonCodec codec) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update((method.getMethod().name() + ' ' + method.getPath() + ' ' + method.getCacheVariant() + '\n')
+                .getBytes(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        method.writeBody(body);
+        if (body.size() > 0) {
+            Object tree = codec.readerFor(Object.class).readValue(body.toByteArray());
+            try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+                codec.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).writeValue(out, tree);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
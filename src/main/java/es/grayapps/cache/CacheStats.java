@@ -0,0 +1,68 @@
+package es.grayapps.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CacheStats is a class that counts the outcomes of the lookups of a response cache.
+ */
+public class CacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that sent a request to the server.
+     *
+     * @return the number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of lookups that joined an identical request already in flight.
+     *
+     * @return the number of coalesced lookups.
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Returns the share of lookups that did not send a request to the server.
+     *
+     * @return the hit ratio between 0 and 1, or 0 if there was no lookup.
+     */
+    public double getHitRatio() {
+        long saved = getHits() + getCoalesced();
+        long total = saved + getMisses();
+        return total == 0 ? 0 : (double) saved / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + getHits() + ", misses=" + getMisses() + ", coalesced=" + getCoalesced() + "}";
+    }
+}
@@ -0,0 +1,200 @@
+package es.grayapps.cache;
+
+import es.grayapps.methods.IMethod;
+import es.grayapps.utils.JsonCodec;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * CachingExecutor is a class that answers cacheable methods from a response cache,
+ * and coalesces identical methods in flight into a single request ("single-flight").
+ * <p>
+ * Every caller of a coalesced request gets its own future. Cancelling it only detaches that caller,
+ * the request itself is cancelled once every caller has cancelled.
+ */
+public class CachingExecutor {
+
+    private static final Logger logger = Logger.getLogger(CachingExecutor.class.getName());
+
+    private final ResponseCache cache;
+    private final JsonCodec codec;
+    private final CacheStats stats = new CacheStats();
+    private final ConcurrentMap<String, Flight<?>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance of CachingExecutor.
+     *
+     * @param cache the cache the responses are stored in.
+     * @param codec the codec used to compute the keys.
+     * @throws NullPointerException if cache or codec are null.
+     */
+    public CachingExecutor(ResponseCache cache, JsonCodec codec) {
+        this.cache = Objects.requireNonNull(cache);
+        this.codec = Objects.requireNonNull(codec);
+    }
+
+    /**
+     * Returns the response of the provided method from the cache, or loads it if it is not cached.
+     *
+     * @param method the method, which must be cacheable.
+     * @param loader the function that sends the method to the server.
+     * @param <T>    the type of the response.
+     * @return a future completed with the response.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Serializable> CompletableFuture<T> execute(IMethod<T> method,
+                                                                 Function<IMethod<T>, CompletableFuture<T>> loader) {
+        String key;
+        try {
+            key = CacheKey.of(method, codec);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Cannot compute cache key, bypassing cache: " + e.getMessage(), e);
+            return loader.apply(method);
+        }
+
+        T cached = (T) cache.get(key);
+        if (cached != null) {
+            stats.recordHit();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        Flight<T> flight = new Flight<>();
+        Flight<T> existing = (Flight<T>) inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            CompletableFuture<T> joined = existing.join();
+            if (joined != null) {
+                stats.recordCoalesced();
+                return joined;
+            }
+            inFlight.remove(key, existing);
+            return execute(method, loader);
+        }
+
+        cached = (T) cache.get(key);
+        if (cached != null) {
+            inFlight.remove(key, flight);
+            stats.recordHit();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        stats.recordMiss();
+        CompletableFuture<T> caller = flight.join();
+        CompletableFuture<T> request;
+        try {
+            request = loader.apply(method);
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+        flight.start(request, value -> cache.put(key, value, method.getCacheTtl()),
+                () -> inFlight.remove(key, flight));
+        return caller;
+    }
+
+    /**
+     * Returns the statistics of the lookups.
+     *
+     * @return the statistics.
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Returns the cache the responses are stored in.
+     *
+     * @return the cache.
+     */
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Flight is a request in flight shared by every caller of an identical method.
+     */
+    private static final class Flight<T> {
+        private final AtomicInteger callers = new AtomicInteger();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile CompletableFuture<T> request;
+
+        /**
+         * Adds a caller to the flight.
+         *
+         * @return the future of the caller, or null if every previous caller cancelled and the flight is over.
+         */
+        private CompletableFuture<T> join() {
+            int current;
+            do {
+                current = callers.get();
+                if (current < 0) {
+                    return null;
+                }
+            } while (!callers.compareAndSet(current, current + 1));
+
+            CompletableFuture<T> caller = new CompletableFuture<>();
+            result.whenComplete((value, e) -> {
+                if (e != null) {
+                    caller.completeExceptionally(e);
+                } else {
+                    caller.complete(value);
+                }
+            });
+            caller.whenComplete((value, e) -> {
+                if (caller.isCancelled()) {
+                    leave();
+                }
+            });
+            return caller;
+        }
+
+        /**
+         * Removes a cancelled caller from the flight, cancelling the request when it was the last one.
+         */
+        private void leave() {
+            while (true) {
+                int current = callers.get();
+                if (current <= 0) {
+                    return;
+                }
+                int next = current == 1 ? -1 : current - 1;
+                if (callers.compareAndSet(current, next)) {
+                    if (next < 0) {
+                        result.cancel(true);
+                        CompletableFuture<T> started = request;
+                        if (started != null) {
+                            started.cancel(true);
+                        }
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void start(CompletableFuture<T> request, Consumer<T> onSuccess, Runnable onDone) {
+            this.request = request;
+            if (result.isCancelled()) {
+                request.cancel(true);
+            }
+            request.whenComplete((value, e) -> {
+                if (e == null && value != null) {
+                    onSuccess.accept(value);
+                }
+                onDone.run();
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package es.grayapps.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * MappedFileResponseCache is a class that stores responses in a memory-mapped file of fixed size,
+ * so they survive restarts and do not take heap space.
+ * <p>
+ * Responses are Java-serialized and appended to the file as checksummed records. When the end of the file
+ * is reached, writing wraps around to its start and the responses it overwrites are evicted.
+ * Only the index of the responses is kept on the heap, it is bounded too and evicts the least recently used
+ * response when full, erasing its record. On open, the index is rebuilt by scanning the records of the file.
+ * <p>
+ * As the file may be altered outside the client, responses are read back through an {@link ObjectInputFilter} that
+ * only accepts the response classes of this library and the {@code java.lang}, {@code java.util} and
+ * {@code java.time} classes they are made of. Caches of custom response types must provide their own filter.
+ */
+public class MappedFileResponseCache implements ResponseCache, Closeable {
+
+    private static final Logger logger = Logger.getLogger(MappedFileResponseCache.class.getName());
+
+    private static final int FILE_MAGIC = 0x45574331;
+    private static final int RECORD_MAGIC = 0x52454331;
+    private static final int HEADER_SIZE = 16;
+    private static final int WRITE_POSITION_OFFSET = 8;
+    private static final int RECORD_HEADER_SIZE = 24;
+    private static final int ALIGNMENT = 8;
+    private static final ObjectInputFilter RESPONSE_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=32;java.lang.*;java.util.*;java.time.*;es.grayapps.methods.response.*;!*");
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final Duration defaultTtl;
+    private final ObjectInputFilter filter;
+    private final TreeMap<Integer, Slot> slotsByOffset = new TreeMap<>();
+    private final LinkedHashMap<String, Slot> index;
+    private int writePosition;
+
+    /**
+     * Opens or creates a cache file.
+     *
+     * @param file       the cache file, an existing file of the same capacity is reused.
+     * @param capacity   the size of the file in bytes.
+     * @param maxEntries the maximum number of responses indexed.
+     * @param defaultTtl the time a response is kept when stored without an explicit time to live.
+     * @throws IOException              if the file cannot be opened or mapped.
+     * @throws IllegalArgumentException if capacity or maxEntries are too small.
+     */
+    public MappedFileResponseCache(Path file, int capacity, int maxEntries, Duration defaultTtl) throws IOException {
+        this(file, capacity, maxEntries, defaultTtl, RESPONSE_FILTER);
+    }
+
+    /**
+     * Opens or creates a cache file whose responses are read back through the provided filter,
+     * for caches of custom response types.
+     *
+     * @param file       the cache file, an existing file of the same capacity is reused.
+     * @param capacity   the size of the file in bytes.
+     * @param maxEntries the maximum number of responses indexed.
+     * @param defaultTtl the time a response is kept when stored without an explicit time to live.
+     * @param filter     the filter of the classes of the responses read from the file.
+     * @throws IOException              if the file cannot be opened or mapped.
+     * @throws IllegalArgumentException if capacity or maxEntries are too small.
+     * @throws NullPointerException     if defaultTtl or filter are null.
+     */
+    public MappedFileResponseCache(Path file, int capacity, int maxEntries, Duration defaultTtl,
+                                   ObjectInputFilter filter) throws IOException {
+        if (capacity < HEADER_SIZE + RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("capacity must be at least " + (HEADER_SIZE + RECORD_HEADER_SIZE));
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.capacity = capacity;
+        this.defaultTtl = Objects.requireNonNull(defaultTtl);
+        this.filter = Objects.requireNonNull(filter);
+        this.index = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Slot> eldest) {
+                if (size() > maxEntries) {
+                    slotsByOffset.remove(eldest.getValue().offset);
+                    buffer.putInt(eldest.getValue().offset, 0);
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        boolean existing = Files.exists(file) && Files.size(file) == capacity;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        long storedPosition = buffer.getLong(WRITE_POSITION_OFFSET);
+        if (existing && buffer.getInt(0) == FILE_MAGIC && storedPosition >= HEADER_SIZE && storedPosition <= capacity) {
+            writePosition = (int) storedPosition;
+            scan(writePosition, capacity);
+            scan(HEADER_SIZE, writePosition);
+            logger.fine("Recovered " + index.size() + " cached responses from " + file);
+        } else {
+            buffer.putInt(0, FILE_MAGIC);
+            writePosition = HEADER_SIZE;
+            buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+        }
+    }
+
+    @Override
+    public synchronized Serializable get(String key) {
+        Slot slot = index.get(key);
+        if (slot == null) {
+            return null;
+        }
+        if (slot.expiresAtMillis <= System.currentTimeMillis()) {
+            remove(key);
+            return null;
+        }
+        byte[] value = new byte[slot.valueLength];
+        ByteBuffer view = buffer.duplicate();
+        view.position(slot.offset + RECORD_HEADER_SIZE + slot.keyLength);
+        view.get(value);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(value))) {
+            in.setObjectInputFilter(filter);
+            return (Serializable) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            logger.log(Level.FINE, "Dropping unreadable cached response: " + e.getMessage(), e);
+            remove(key);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, Serializable value, Duration ttl) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+                objectOut.writeObject(value);
+            }
+            valueBytes = out.toByteArray();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Response is not serializable, not caching it: " + e.getMessage(), e);
+            return;
+        }
+
+        int length = align(RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length);
+        if (length > capacity - HEADER_SIZE) {
+            logger.fine("Response of " + valueBytes.length + " bytes does not fit in the cache file");
+            return;
+        }
+        if (writePosition + length > capacity) {
+            writePosition = HEADER_SIZE;
+        }
+        remove(key);
+        evictRange(writePosition, writePosition + length);
+
+        long expiresAtMillis = System.currentTimeMillis() + (ttl != null ? ttl : defaultTtl).toMillis();
+        CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+        crc.update(valueBytes);
+
+        ByteBuffer view = buffer.duplicate();
+        view.position(writePosition);
+        view.putInt(RECORD_MAGIC)
+                .putInt(keyBytes.length)
+                .putInt(valueBytes.length)
+                .putLong(expiresAtMillis)
+                .putInt((int) crc.getValue())
+                .put(keyBytes)
+                .put(valueBytes);
+
+        Slot slot = new Slot(key, writePosition, keyBytes.length, valueBytes.length, expiresAtMillis);
+        index.put(key, slot);
+        slotsByOffset.put(writePosition, slot);
+        writePosition += length;
+        buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+    }
+
+    @Override
+    public synchronized void invalidate(String key) {
+        remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        index.clear();
+        slotsByOffset.clear();
+        writePosition = HEADER_SIZE;
+        buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+        for (int position = HEADER_SIZE; position + 4 <= capacity; position += ALIGNMENT) {
+            if (buffer.getInt(position) == RECORD_MAGIC) {
+                buffer.putInt(position, 0);
+            }
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Flushes the file to disk and releases it.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void remove(String key) {
+        Slot slot = index.remove(key);
+        if (slot != null) {
+            slotsByOffset.remove(slot.offset);
+            buffer.putInt(slot.offset, 0);
+        }
+    }
+
+    /**
+     * Evicts the responses whose records overlap the provided range of the file.
+     */
+    private void evictRange(int start, int end) {
+        Map.Entry<Integer, Slot> before = slotsByOffset.lowerEntry(start);
+        if (before != null && before.getValue().end() > start) {
+            remove(before.getValue().key);
+        }
+        List<Slot> overlapping = new ArrayList<>(slotsByOffset.subMap(start, true, end, false).values());
+        overlapping.forEach(slot -> remove(slot.key));
+    }
+
+    /**
+     * Indexes the valid records found in the provided range of the file.
+     */
+    private void scan(int from, int to) {
+        long now = System.currentTimeMillis();
+        int position = from;
+        while (position + RECORD_HEADER_SIZE <= to) {
+            Slot slot = readSlot(position, to);
+            if (slot == null) {
+                position += ALIGNMENT;
+                continue;
+            }
+            if (slot.expiresAtMillis > now) {
+                remove(slot.key);
+                evictRange(position, slot.end());
+                index.put(slot.key, slot);
+                slotsByOffset.put(position, slot);
+            }
+            position = slot.end();
+        }
+    }
+
+    /**
+     * Reads the record at the provided position, returning null if there is no valid record there.
+     */
+    private Slot readSlot(int position, int limit) {
+        if (buffer.getInt(position) != RECORD_MAGIC) {
+            return null;
+        }
+        int keyLength = buffer.getInt(position + 4);
+        int valueLength = buffer.getInt(position + 8);
+        if (keyLength < 0 || valueLength < 0
+                || (long) position + RECORD_HEADER_SIZE + keyLength + valueLength > limit) {
+            return null;
+        }
+        byte[] data = new byte[keyLength + valueLength];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + RECORD_HEADER_SIZE);
+        view.get(data);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if ((int) crc.getValue() != buffer.getInt(position + 20)) {
+            return null;
+        }
+        String key = new String(data, 0, keyLength, StandardCharsets.UTF_8);
+        return new Slot(key, position, keyLength, valueLength, buffer.getLong(position + 12));
+    }
+
+    private static int align(int length) {
+        return (length + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Slot is the location of a stored response in the file.
+     */
+    private static final class Slot {
+        private final String key;
+        private final int offset;
+        private final int keyLength;
+        private final int valueLength;
+        private final long expiresAtMillis;
+
+        private Slot(String key, int offset, int keyLength, int valueLength, long expiresAtMillis) {
+            this.key = key;
+            this.offset = offset;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private int end() {
+            return offset + align(RECORD_HEADER_SIZE + keyLength + valueLength);
+        }
+    }
+}
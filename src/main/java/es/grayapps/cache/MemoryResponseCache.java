@@ -0,0 +1,85 @@
+package es.grayapps.cache;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * MemoryResponseCache is a class that stores responses on the heap, evicting the least recently used
+ * response when full and expiring responses after their time to live.
+ */
+public class MemoryResponseCache implements ResponseCache {
+
+    private final Duration defaultTtl;
+    private final LinkedHashMap<String, CachedValue> entries;
+
+    /**
+     * Creates a new instance of MemoryResponseCache.
+     *
+     * @param maxEntries the maximum number of responses stored.
+     * @param defaultTtl the time a response is kept when stored without an explicit time to live.
+     * @throws IllegalArgumentException if maxEntries is lower than 1.
+     * @throws NullPointerException     if defaultTtl is null.
+     */
+    public MemoryResponseCache(int maxEntries, Duration defaultTtl) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.defaultTtl = Objects.requireNonNull(defaultTtl);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Serializable get(String key) {
+        CachedValue entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtNanos - System.nanoTime() <= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public synchronized void put(String key, Serializable value, Duration ttl) {
+        long ttlNanos = (ttl != null ? ttl : defaultTtl).toNanos();
+        entries.put(key, new CachedValue(value, System.nanoTime() + ttlNanos));
+    }
+
+    @Override
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * CachedValue is a stored response with its expiration time.
+     */
+    private static final class CachedValue {
+        private final Serializable value;
+        private final long expiresAtNanos;
+
+        private CachedValue(Serializable value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
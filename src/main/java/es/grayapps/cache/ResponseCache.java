@@ -0,0 +1,47 @@
+package es.grayapps.cache;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+/**
+ * ResponseCache is an interface that stores the responses of cacheable methods by key.
+ * Implementations must be thread-safe and bounded, evicting entries as needed.
+ */
+public interface ResponseCache {
+
+    /**
+     * Returns the response stored under the provided key.
+     *
+     * @param key the key of the response.
+     * @return the response, or null if there is none or it has expired.
+     */
+    Serializable get(String key);
+
+    /**
+     * Stores a response under the provided key.
+     *
+     * @param key   the key of the response.
+     * @param value the response.
+     * @param ttl   the time the response is kept, or null to use the default of the cache.
+     */
+    void put(String key, Serializable value, Duration ttl);
+
+    /**
+     * Removes the response stored under the provided key, if any.
+     *
+     * @param key the key of the response.
+     */
+    void invalidate(String key);
+
+    /**
+     * Removes every response.
+     */
+    void clear();
+
+    /**
+     * Returns the number of responses stored, including expired ones not yet evicted.
+     *
+     * @return the number of responses stored.
+     */
+    int size();
+}
@@ -0,0 +1,90 @@
+package es.grayapps.compression;
+
+import es.grayapps.metrics.ClientMetrics;
+import es.grayapps.metrics.MetricTags;
+import es.grayapps.utils.StreamingRequestBody;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * CompressedRequestBody is a class that compresses a request body while it is written into the HTTP connection,
+ * without buffering an uncompressed or compressed copy.
+ * <p>
+ * The sizes of the body before and after compression are reported to the provided metrics.
+ */
+public class CompressedRequestBody extends RequestBody {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final StreamingRequestBody.BodyWriter writer;
+    private final CompressionCodec codec;
+    private final ClientMetrics metrics;
+    private final MetricTags tags;
+
+    /**
+     * Creates a new instance of CompressedRequestBody.
+     *
+     * @param writer  the writer of the uncompressed body, it may be called more than once if the request is retried.
+     * @param codec   the codec the body is compressed with.
+     * @param metrics the metrics the sizes of the body are reported to.
+     * @param tags    the tags the sizes of the body are reported with.
+     */
+    public CompressedRequestBody(StreamingRequestBody.BodyWriter writer, CompressionCodec codec,
+                                 ClientMetrics metrics, MetricTags tags) {
+        this.writer = writer;
+        this.codec = codec;
+        this.metrics = metrics;
+        this.tags = tags;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public void writeTo(@NotNull BufferedSink sink) throws IOException {
+        CountingOutputStream compressed = new CountingOutputStream(sink.outputStream());
+        CountingOutputStream uncompressed;
+        try (OutputStream out = codec.compress(compressed)) {
+            uncompressed = new CountingOutputStream(out);
+            writer.writeTo(uncompressed);
+        }
+        metrics.requestCompressed(tags, uncompressed.count, compressed.count);
+    }
+
+    /**
+     * CountingOutputStream is a stream that counts the bytes written through it.
+     * It does not close the stream it writes to, so the connection stays open.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
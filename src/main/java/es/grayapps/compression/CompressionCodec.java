@@ -0,0 +1,59 @@
+package es.grayapps.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * CompressionCodec is an interface that compresses request bodies and decompresses response bodies
+ * for an HTTP content coding.
+ * <p>
+ * Gzip and deflate are built in. Other codings, such as zstd or brotli, can be plugged in by implementing this
+ * interface on top of a library that supports them.
+ */
+public interface CompressionCodec {
+
+    /**
+     * Returns the name of the content coding, as sent in the {@code Content-Encoding} header.
+     *
+     * @return the content coding, for example {@code gzip}.
+     */
+    String getEncoding();
+
+    /**
+     * Wraps the provided stream so what is written to the returned stream is compressed into it.
+     * Closing the returned stream must finish the compressed data and close the provided stream.
+     *
+     * @param out the stream the compressed data is written to.
+     * @return the stream to write the uncompressed data to.
+     * @throws IOException if an error occurs while starting the compressed data.
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * Wraps the provided stream so what is read from the returned stream is decompressed from it.
+     *
+     * @param in the stream of the compressed data.
+     * @return the stream of the decompressed data.
+     * @throws IOException if an error occurs while reading the start of the compressed data.
+     */
+    InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * Returns the gzip codec.
+     *
+     * @return the gzip codec.
+     */
+    static CompressionCodec gzip() {
+        return BuiltinCodec.GZIP;
+    }
+
+    /**
+     * Returns the deflate codec, which uses the zlib format as HTTP requires.
+     *
+     * @return the deflate codec.
+     */
+    static CompressionCodec deflate() {
+        return BuiltinCodec.DEFLATE;
+    }
+}
@@ -0,0 +1,54 @@
+package es.grayapps.compression;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * DecompressingInterceptor is a class that advertises the accepted content codings of the responses
+ * and decompresses the responses encoded with one of them while they are read.
+ */
+final class DecompressingInterceptor implements Interceptor {
+
+    private final List<CompressionCodec> codecs;
+    private final String acceptEncoding;
+
+    DecompressingInterceptor(List<CompressionCodec> codecs) {
+        this.codecs = codecs;
+        this.acceptEncoding = codecs.stream().map(CompressionCodec::getEncoding).collect(Collectors.joining(", "));
+    }
+
+    @NotNull
+    @Override
+    public Response intercept(@NotNull Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.header("Accept-Encoding") != null) {
+            return chain.proceed(request);
+        }
+        Response response = chain.proceed(request.newBuilder().header("Accept-Encoding", acceptEncoding).build());
+        String encoding = response.header("Content-Encoding");
+        ResponseBody body = response.body();
+        if (encoding == null || body == null) {
+            return response;
+        }
+        for (CompressionCodec codec : codecs) {
+            if (codec.getEncoding().equalsIgnoreCase(encoding.trim())) {
+                ResponseBody decompressed = ResponseBody.create(
+                        Okio.buffer(Okio.source(codec.decompress(body.byteStream()))), body.contentType(), -1);
+                return response.newBuilder()
+                        .removeHeader("Content-Encoding")
+                        .removeHeader("Content-Length")
+                        .body(decompressed)
+                        .build();
+            }
+        }
+        return response;
+    }
+}
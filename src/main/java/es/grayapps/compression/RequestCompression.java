@@ -0,0 +1,143 @@
+package es.grayapps.compression;
+
+import okhttp3.Interceptor;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * RequestCompression is a class that decides which request bodies are compressed, and which content codings
+ * are accepted for the responses.
+ * <p>
+ * Request bodies whose estimated size reaches the threshold are compressed with the codec while they are written
+ * to the connection, without buffering a compressed copy. Small bodies are sent as they are, as compressing them
+ * costs more than it saves. Note that the server must support compressed requests.
+ * <p>
+ * Responses are decompressed transparently by the HTTP client when they are gzipped. When other codings are
+ * accepted, they are advertised in the {@code Accept-Encoding} header and decompressed by the
+ * {@link #getResponseInterceptor() response interceptor}.
+ */
+public class RequestCompression {
+
+    private final CompressionCodec codec;
+    private final long threshold;
+    private final List<CompressionCodec> acceptedEncodings;
+    private final Interceptor responseInterceptor;
+
+    private RequestCompression(RequestCompressionBuilder builder) {
+        this.codec = builder.codec;
+        this.threshold = builder.threshold;
+        this.acceptedEncodings = builder.acceptedEncodings;
+        this.responseInterceptor = acceptedEncodings.isEmpty() ? null : new DecompressingInterceptor(acceptedEncodings);
+    }
+
+    /**
+     * Creates a new builder of RequestCompression.
+     *
+     * @return a new builder.
+     */
+    public static RequestCompressionBuilder builder() {
+        return new RequestCompressionBuilder();
+    }
+
+    /**
+     * Returns a configuration that gzips the request bodies of at least 16 KiB.
+     *
+     * @return the default configuration.
+     */
+    public static RequestCompression defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Returns whether a request body of the provided estimated size is compressed.
+     *
+     * @param estimatedSize the estimated size of the body in bytes, or -1 if it is unknown.
+     * @return true if the body reaches the threshold, or the size is unknown and the threshold is zero.
+     */
+    public boolean shouldCompress(long estimatedSize) {
+        return estimatedSize < 0 ? threshold == 0 : estimatedSize >= threshold;
+    }
+
+    public CompressionCodec getCodec() {
+        return codec;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public List<CompressionCodec> getAcceptedEncodings() {
+        return acceptedEncodings;
+    }
+
+    /**
+     * Returns the interceptor that negotiates and decompresses the accepted codings of the responses.
+     *
+     * @return the interceptor, or null if no coding besides the transparent gzip is accepted.
+     */
+    public Interceptor getResponseInterceptor() {
+        return responseInterceptor;
+    }
+
+    /**
+     * RequestCompressionBuilder is a class that builds a RequestCompression.
+     */
+    public static class RequestCompressionBuilder {
+        private CompressionCodec codec = CompressionCodec.gzip();
+        private long threshold = 16 * 1024;
+        private List<CompressionCodec> acceptedEncodings = List.of();
+
+        private RequestCompressionBuilder() {
+        }
+
+        /**
+         * Sets the codec the request bodies are compressed with. By default gzip.
+         *
+         * @param codec the codec.
+         * @return the RequestCompressionBuilder instance.
+         * @throws NullPointerException if codec is null.
+         */
+        public RequestCompressionBuilder codec(CompressionCodec codec) {
+            this.codec = Objects.requireNonNull(codec);
+            return this;
+        }
+
+        /**
+         * Sets the estimated size from which request bodies are compressed. By default 16 KiB.<br>
+         * With a threshold of zero every body is compressed, including those whose size cannot be estimated.
+         *
+         * @param threshold the threshold in bytes.
+         * @return the RequestCompressionBuilder instance.
+         * @throws IllegalArgumentException if threshold is negative.
+         */
+        public RequestCompressionBuilder threshold(long threshold) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("threshold must not be negative");
+            }
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * Sets the codings accepted for the responses, in order of preference, replacing the transparent gzip
+         * of the HTTP client. Include {@link CompressionCodec#gzip()} to keep accepting gzip.
+         *
+         * @param codecs the codecs of the accepted codings.
+         * @return the RequestCompressionBuilder instance.
+         */
+        public RequestCompressionBuilder acceptEncoding(CompressionCodec... codecs) {
+            this.acceptedEncodings = List.of(codecs);
+            return this;
+        }
+
+        /**
+         * Builds the RequestCompression.
+         *
+         * @return a new RequestCompression.
+         */
+        public RequestCompression build() {
+            return new RequestCompression(this);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package es.grayapps.conversation;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.methods.CompletionMessage;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Conversation is a class that holds the history of a multi-turn chat with a model.
+ * <p>
+ * Every message sent is completed with the history of the conversation, and the reply of the model is appended to it.
+ * Messages are encoded as JSON once, when they are added, so each turn only encodes its new messages and copies
+ * the rest. The history is truncated according to a {@link TruncationPolicy}, so long-running conversations
+ * keep bounded memory and request size. The system messages are always kept.
+ * <p>
+ * A conversation sends one message at a time: a message cannot be sent while the reply to the previous one is pending.
+ */
+public class Conversation {
+
+    private static final Logger logger = Logger.getLogger(Conversation.class.getName());
+
+    private final EasyWebUI easyWebUI;
+    private final String model;
+    private final List<CompletionMessage> system;
+    private final TruncationPolicy truncationPolicy;
+    private final UnaryOperator<CompletionMethod> customizer;
+    private final Deque<CompletionMessage> history = new ArrayDeque<>();
+    private long historyTokens;
+    private boolean pending;
+
+    private Conversation(ConversationBuilder builder) {
+        this.easyWebUI = builder.easyWebUI;
+        this.model = builder.model;
+        this.system = List.copyOf(builder.system);
+        this.truncationPolicy = builder.truncationPolicy;
+        this.customizer = builder.customizer;
+    }
+
+    /**
+     * Creates a new builder of Conversation.
+     *
+     * @param easyWebUI the client the messages are sent with.
+     * @param model     the model the conversation is held with.
+     * @return a new builder.
+     * @throws NullPointerException if easyWebUI or model are null.
+     */
+    public static ConversationBuilder builder(EasyWebUI easyWebUI, String model) {
+        return new ConversationBuilder(easyWebUI, model);
+    }
+
+    /**
+     * Sends a user message, blocking until the reply is received.
+     *
+     * @param message the content of the message.
+     * @return the reply of the model, which is appended to the history.
+     */
+    public CompletionResponse send(String message) {
+        CompletableFuture<CompletionResponse> future = sendAsync(message);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            logger.log(Level.SEVERE, "Execution error during conversation: " + e.getMessage(), e);
+            throw new EasyWebUIExceptionRuntime(e);
+        } catch (InterruptedException e) {
+            logger.log(Level.SEVERE, "Conversation interrupted: " + e.getMessage(), e);
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new EasyWebUIExceptionRuntime(e);
+        }
+    }
+
+    /**
+     * Sends a user message asynchronously.
+     *
+     * @param message the content of the message.
+     * @return a future completed with the reply of the model, which is appended to the history.
+     * If the message fails or is cancelled, it is removed from the history so it can be sent again.
+     * @throws IllegalStateException if the reply to the previous message is pending.
+     */
+    public CompletableFuture<CompletionResponse> sendAsync(String message) {
+        return sendAsync(new CompletionMessage(Objects.requireNonNull(message), "user"));
+    }
+
+    /**
+     * Sends a message asynchronously.
+     *
+     * @param message the message.
+     * @return a future completed with the reply of the model, which is appended to the history.
+     * If the message fails or is cancelled, it is removed from the history so it can be sent again.
+     * @throws IllegalStateException if the reply to the previous message is pending.
+     */
+    public CompletableFuture<CompletionResponse> sendAsync(CompletionMessage message) {
+        Objects.requireNonNull(message);
+        CompletionMethod method;
+        synchronized (this) {
+            if (pending) {
+                throw new IllegalStateException("The reply to the previous message is pending");
+            }
+            pending = true;
+            append(message);
+            method = customizer.apply(new CompletionMethod(model, messages()));
+        }
+        CompletableFuture<CompletionResponse> future;
+        try {
+            future = easyWebUI.executeCompletionAsync(method);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<CompletionResponse> sent = future;
+        CompletableFuture<CompletionResponse> reply = sent.whenComplete((response, e) -> {
+            synchronized (this) {
+                pending = false;
+                if (e != null) {
+                    remove(message);
+                } else {
+                    append(new CompletionMessage(response.getContent(),
+                            response.getRole() != null ? response.getRole() : "assistant"));
+                }
+            }
+        });
+        reply.whenComplete((response, e) -> {
+            if (reply.isCancelled()) {
+                sent.cancel(true);
+            }
+        });
+        return reply;
+    }
+
+    /**
+     * Returns the messages the next message would be completed with: the system messages and the kept history.
+     *
+     * @return a snapshot of the messages.
+     */
+    public synchronized List<CompletionMessage> getMessages() {
+        return messages();
+    }
+
+    /**
+     * Returns the approximate number of tokens of the kept history, excluding the system messages.
+     *
+     * @return the number of tokens.
+     */
+    public synchronized long getHistoryTokens() {
+        return historyTokens;
+    }
+
+    /**
+     * Drops the history, keeping the system messages.
+     *
+     * @throws IllegalStateException if the reply to a message is pending.
+     */
+    public synchronized void clear() {
+        if (pending) {
+            throw new IllegalStateException("The reply to the previous message is pending");
+        }
+        history.clear();
+        historyTokens = 0;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Estimates the number of tokens of a message, about four characters per token plus the overhead of the message.
+     *
+     * @param message the message.
+     * @return the approximate number of tokens.
+     */
+    static long estimateTokens(CompletionMessage message) {
+        String content = message.getMessage();
+        return 4 + (content != null ? (content.length() + 3) / 4 : 0);
+    }
+
+    private List<CompletionMessage> messages() {
+        List<CompletionMessage> messages = new ArrayList<>(system.size() + history.size());
+        messages.addAll(system);
+        messages.addAll(history);
+        return messages;
+    }
+
+    private void append(CompletionMessage message) {
+        history.addLast(message);
+        historyTokens += estimateTokens(message);
+        while (history.size() > 1 && truncationPolicy.exceeds(history.size(), historyTokens)) {
+            historyTokens -= estimateTokens(history.removeFirst());
+        }
+    }
+
+    private void remove(CompletionMessage message) {
+        if (history.removeLastOccurrence(message)) {
+            historyTokens -= estimateTokens(message);
+        }
+    }
+
+    /**
+     * Builder for the Conversation class.
+     */
+    public static class ConversationBuilder {
+        private final EasyWebUI easyWebUI;
+        private final String model;
+        private final List<CompletionMessage> system = new ArrayList<>();
+        private TruncationPolicy truncationPolicy = TruncationPolicy.none();
+        private UnaryOperator<CompletionMethod> customizer = UnaryOperator.identity();
+
+        private ConversationBuilder(EasyWebUI easyWebUI, String model) {
+            this.easyWebUI = Objects.requireNonNull(easyWebUI);
+            this.model = Objects.requireNonNull(model);
+        }
+
+        /**
+         * Adds a system message, sent first in every request and never truncated.
+         *
+         * @param message the content of the system message.
+         * @return the current instance of ConversationBuilder.
+         * @throws NullPointerException if message is null.
+         */
+        public ConversationBuilder system(String message) {
+            system.add(new CompletionMessage(Objects.requireNonNull(message), "system"));
+            return this;
+        }
+
+        /**
+         * Sets how much of its history the conversation keeps. By default the whole history is kept.
+         *
+         * @param truncationPolicy the truncation policy.
+         * @return the current instance of ConversationBuilder.
+         * @throws NullPointerException if truncationPolicy is null.
+         */
+        public ConversationBuilder truncation(TruncationPolicy truncationPolicy) {
+            this.truncationPolicy = Objects.requireNonNull(truncationPolicy);
+            return this;
+        }
+
+        /**
+         * Sets a function applied to the method of every turn, to change its settings.
+         * For example {@code method -> method.withReasoning(true)}.
+         *
+         * @param customizer the function.
+         * @return the current instance of ConversationBuilder.
+         * @throws NullPointerException if customizer is null.
+         */
+        public ConversationBuilder method(UnaryOperator<CompletionMethod> customizer) {
+            this.customizer = Objects.requireNonNull(customizer);
+            return this;
+        }
+
+        /**
+         * Builds an instance of Conversation with the provided parameters.
+         *
+         * @return a new instance of Conversation.
+         */
+        public Conversation build() {
+            return new Conversation(this);
+        }
+    }
+}
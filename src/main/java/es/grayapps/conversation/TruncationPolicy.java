@@ -0,0 +1,68 @@
+package es.grayapps.conversation;
+
+/**
+ * TruncationPolicy is an interface that decides how much of its history a conversation keeps.
+ * <p>
+ * While the policy reports the history as too large, the conversation drops its oldest messages. The system
+ * messages of the conversation are never dropped and are not counted, and neither is the latest message.
+ */
+@FunctionalInterface
+public interface TruncationPolicy {
+
+    /**
+     * Returns whether a history of the provided size must be truncated.
+     *
+     * @param messages the number of messages of the history.
+     * @param tokens   the approximate number of tokens of the history.
+     * @return true if the oldest message must be dropped.
+     */
+    boolean exceeds(int messages, long tokens);
+
+    /**
+     * Returns a policy that keeps the whole history.
+     *
+     * @return the policy.
+     */
+    static TruncationPolicy none() {
+        return (messages, tokens) -> false;
+    }
+
+    /**
+     * Returns a policy that keeps the latest messages.
+     *
+     * @param maxMessages the maximum number of messages kept.
+     * @return the policy.
+     * @throws IllegalArgumentException if maxMessages is lower than 1.
+     */
+    static TruncationPolicy maxMessages(int maxMessages) {
+        if (maxMessages < 1) {
+            throw new IllegalArgumentException("maxMessages must be at least 1");
+        }
+        return (messages, tokens) -> messages > maxMessages;
+    }
+
+    /**
+     * Returns a policy that keeps the latest messages that fit in a budget of tokens.
+     * Tokens are estimated from the length of the messages, about four characters per token.
+     *
+     * @param maxTokens the maximum number of tokens kept.
+     * @return the policy.
+     * @throws IllegalArgumentException if maxTokens is lower than 1.
+     */
+    static TruncationPolicy maxTokens(long maxTokens) {
+        if (maxTokens < 1) {
+            throw new IllegalArgumentException("maxTokens must be at least 1");
+        }
+        return (messages, tokens) -> tokens > maxTokens;
+    }
+
+    /**
+     * Returns a policy that truncates the history when this policy or the provided one would.
+     *
+     * @param other the other policy.
+     * @return the combined policy.
+     */
+    default TruncationPolicy or(TruncationPolicy other) {
+        return (messages, tokens) -> exceeds(messages, tokens) || other.exceeds(messages, tokens);
+    }
+}
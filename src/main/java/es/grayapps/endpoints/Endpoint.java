@@ -0,0 +1,37 @@
+package es.grayapps.endpoints;
+
+import java.util.Objects;
+
+/**
+ * Endpoint is a class that holds the URL of a server replica and the token to authenticate against it.
+ */
+public final class Endpoint {
+
+    private final String url;
+    private final String token;
+
+    /**
+     * Creates a new instance of Endpoint.
+     *
+     * @param url   the server URL, without trailing slash.
+     * @param token the server token.
+     * @throws NullPointerException if url or token are null.
+     */
+    public Endpoint(String url, String token) {
+        this.url = Objects.requireNonNull(url);
+        this.token = Objects.requireNonNull(token);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
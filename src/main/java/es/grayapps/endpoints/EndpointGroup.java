@@ -0,0 +1,412 @@
+package es.grayapps.endpoints;
+
+import es.grayapps.exceptions.EasyWebUIException;
+import es.grayapps.exceptions.HttpStatusException;
+import es.grayapps.utils.Failures;
+import es.grayapps.utils.Timers;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * EndpointGroup is a class that spreads the requests over several replicas of the server.
+ * <p>
+ * Every request is sent to the endpoint chosen by the {@link LoadBalancer} among the available ones. An endpoint
+ * stops being available after a number of consecutive failures or a failed health check, and is tried again
+ * once it passes a health check or the cooldown elapses. When a request fails because its endpoint could not be
+ * reached or answered 502, 503 or 504, it fails over to another endpoint it was not sent to yet.
+ */
+public class EndpointGroup implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(EndpointGroup.class.getName());
+
+    private static final Set<Integer> FAILOVER_STATUS = Set.of(502, 503, 504);
+
+    private final List<EndpointState> endpoints;
+    private final LoadBalancer loadBalancer;
+    private final int maxFailovers;
+    private final int unhealthyAfter;
+    private final long cooldownNanos;
+    private final String healthCheckPath;
+    private final Duration healthCheckInterval;
+    private volatile OkHttpClient healthCheckClient;
+    private volatile boolean closed;
+    private final List<ScheduledFuture<?>> healthChecks = new ArrayList<>();
+
+    private EndpointGroup(EndpointGroupBuilder builder) {
+        this.endpoints = builder.endpoints.stream().map(EndpointState::new).collect(Collectors.toUnmodifiableList());
+        this.loadBalancer = builder.loadBalancer;
+        this.maxFailovers = builder.maxFailovers;
+        this.unhealthyAfter = builder.unhealthyAfter;
+        this.cooldownNanos = builder.cooldown.toNanos();
+        this.healthCheckPath = builder.healthCheckPath;
+        this.healthCheckInterval = builder.healthCheckInterval;
+    }
+
+    /**
+     * Creates a new builder of EndpointGroup.
+     *
+     * @return a new builder.
+     */
+    public static EndpointGroupBuilder builder() {
+        return new EndpointGroupBuilder();
+    }
+
+    /**
+     * Returns the state of every endpoint of the group, in the order they were added.
+     *
+     * @return the endpoint states.
+     */
+    public List<EndpointState> getEndpoints() {
+        return endpoints;
+    }
+
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    /**
+     * Chooses the endpoint a request is sent to, among the available endpoints that were not tried yet.
+     * If none of them is available, any endpoint not tried yet is chosen.
+     *
+     * @param tried the endpoints the request was already sent to.
+     * @return the chosen endpoint, or null if every endpoint was tried.
+     */
+    EndpointState choose(List<EndpointState> tried) {
+        List<EndpointState> candidates = new ArrayList<>(endpoints.size());
+        List<EndpointState> untried = new ArrayList<>(endpoints.size());
+        for (EndpointState state : endpoints) {
+            if (tried.contains(state)) {
+                continue;
+            }
+            untried.add(state);
+            if (state.isAvailable(cooldownNanos)) {
+                candidates.add(state);
+            }
+        }
+        if (candidates.isEmpty()) {
+            if (untried.isEmpty()) {
+                return null;
+            }
+            candidates = untried;
+        }
+        return loadBalancer.choose(candidates);
+    }
+
+    /**
+     * Chooses the endpoint a request that cannot fail over, such as a streamed completion, is sent to.
+     *
+     * @return the chosen endpoint.
+     */
+    public Endpoint choose() {
+        return choose(List.of()).getEndpoint();
+    }
+
+    /**
+     * Sends a request to an endpoint of the group, failing over to another one when it cannot be served.
+     *
+     * @param sender the function that sends the request to the provided endpoint.
+     * @param <T>    the type of the response.
+     * @return a future completed with the response, cancelling it cancels the request in flight.
+     */
+    public <T> CompletableFuture<T> execute(Function<Endpoint, CompletableFuture<T>> sender) {
+        Objects.requireNonNull(sender);
+        Failover<T> failover = new Failover<>(sender);
+        failover.send(null);
+        return failover.result;
+    }
+
+    /**
+     * Starts checking the health of every endpoint periodically, if a health check was configured.
+     *
+     * @param client the HTTP client the health checks are sent with.
+     */
+    public synchronized void startHealthChecks(OkHttpClient client) {
+        if (healthCheckInterval == null || healthCheckClient != null || closed) {
+            return;
+        }
+        healthCheckClient = Objects.requireNonNull(client);
+        for (int i = 0; i < endpoints.size(); i++) {
+            healthChecks.add(null);
+            scheduleHealthCheck(i);
+        }
+    }
+
+    /**
+     * Stops the health checks.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        healthChecks.stream().filter(Objects::nonNull).forEach(check -> check.cancel(false));
+    }
+
+    private synchronized void scheduleHealthCheck(int index) {
+        if (closed) {
+            return;
+        }
+        healthChecks.set(index, Timers.schedule(() -> checkHealth(endpoints.get(index), () -> scheduleHealthCheck(index)),
+                healthCheckInterval.toNanos()));
+    }
+
+    /**
+     * Sends a health check to the provided endpoint: a 2xx response marks it healthy, anything else unhealthy.
+     */
+    private void checkHealth(EndpointState state, Runnable next) {
+        Endpoint endpoint = state.getEndpoint();
+        Request request = new Request.Builder()
+                .url(endpoint.getUrl() + healthCheckPath)
+                .addHeader("Authorization", "Bearer " + endpoint.getToken())
+                .build();
+        healthCheckClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    if (response.isSuccessful()) {
+                        if (!state.isHealthy()) {
+                            logger.info(() -> "Endpoint " + endpoint + " passed its health check");
+                        }
+                        state.markHealthy();
+                    } else {
+                        unhealthy("returned " + response.code());
+                    }
+                } finally {
+                    next.run();
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                try {
+                    unhealthy(e.getMessage());
+                } finally {
+                    next.run();
+                }
+            }
+
+            private void unhealthy(String reason) {
+                if (state.isHealthy()) {
+                    logger.warning(() -> "Endpoint " + endpoint + " failed its health check: " + reason);
+                }
+                state.markUnhealthy();
+            }
+        });
+    }
+
+    /**
+     * Returns whether a request that failed with the provided error may be sent to another endpoint,
+     * which is the case when its endpoint could not be reached or is unavailable.
+     */
+    static boolean isFailover(Throwable error) {
+        Throwable cause = Failures.unwrap(error);
+        if (cause instanceof HttpStatusException) {
+            return FAILOVER_STATUS.contains(((HttpStatusException) cause).getStatusCode());
+        }
+        return Failures.isConnectionFailure(cause);
+    }
+
+    /**
+     * Failover is the state of the attempts of a single request over the endpoints of the group.
+     */
+    private final class Failover<T> {
+        private final Function<Endpoint, CompletableFuture<T>> sender;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final List<EndpointState> tried = new ArrayList<>(2);
+        private volatile CompletableFuture<T> current;
+
+        private Failover(Function<Endpoint, CompletableFuture<T>> sender) {
+            this.sender = sender;
+            result.whenComplete((value, e) -> {
+                CompletableFuture<T> attempt = current;
+                if (result.isCancelled() && attempt != null) {
+                    attempt.cancel(true);
+                }
+            });
+        }
+
+        private void send(Throwable previous) {
+            if (result.isDone()) {
+                return;
+            }
+            EndpointState state = tried.size() <= maxFailovers ? choose(tried) : null;
+            if (state == null) {
+                result.completeExceptionally(previous != null ? previous : new EasyWebUIException("No endpoint available"));
+                return;
+            }
+            tried.add(state);
+            state.onStart();
+            long start = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = sender.apply(state.getEndpoint());
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            current = future;
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+            CompletableFuture<T> sent = future;
+            sent.whenComplete((value, e) -> {
+                if (e == null) {
+                    state.onSuccess(System.nanoTime() - start);
+                    result.complete(value);
+                    return;
+                }
+                if (sent.isCancelled() || !isFailover(e)) {
+                    state.onDone();
+                    result.completeExceptionally(e);
+                    return;
+                }
+                state.onFailure(unhealthyAfter);
+                if (tried.size() <= maxFailovers) {
+                    logger.fine(() -> "Request to " + state.getEndpoint() + " failed, failing over: " + e.getMessage());
+                }
+                send(e);
+            });
+        }
+    }
+
+    /**
+     * Builder for the EndpointGroup class.
+     */
+    public static class EndpointGroupBuilder {
+        private final List<Endpoint> endpoints = new ArrayList<>();
+        private LoadBalancer loadBalancer = LoadBalancer.leastOutstanding();
+        private int maxFailovers = 1;
+        private int unhealthyAfter = 3;
+        private Duration cooldown = Duration.ofSeconds(30);
+        private String healthCheckPath;
+        private Duration healthCheckInterval;
+
+        private EndpointGroupBuilder() {
+        }
+
+        /**
+         * Adds an endpoint to the group.
+         *
+         * @param url   the server URL of the endpoint.
+         * @param token the server token of the endpoint.
+         * @return the current instance of EndpointGroupBuilder.
+         * @throws NullPointerException if url or token are null.
+         */
+        public EndpointGroupBuilder endpoint(String url, String token) {
+            return endpoint(new Endpoint(url, token));
+        }
+
+        /**
+         * Adds an endpoint to the group.
+         *
+         * @param endpoint the endpoint.
+         * @return the current instance of EndpointGroupBuilder.
+         * @throws NullPointerException if endpoint is null.
+         */
+        public EndpointGroupBuilder endpoint(Endpoint endpoint) {
+            endpoints.add(Objects.requireNonNull(endpoint));
+            return this;
+        }
+
+        /**
+         * Sets the strategy that chooses the endpoint of each request, by default the one with the fewest
+         * requests outstanding.
+         *
+         * @param loadBalancer the load balancer, see the factories of {@link LoadBalancer}.
+         * @return the current instance of EndpointGroupBuilder.
+         * @throws NullPointerException if loadBalancer is null.
+         */
+        public EndpointGroupBuilder loadBalancer(LoadBalancer loadBalancer) {
+            this.loadBalancer = Objects.requireNonNull(loadBalancer);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of other endpoints a failed request is sent to, 1 by default.
+         *
+         * @param maxFailovers the maximum number of failovers, zero to not fail over.
+         * @return the current instance of EndpointGroupBuilder.
+         * @throws IllegalArgumentException if maxFailovers is negative.
+         */
+        public EndpointGroupBuilder maxFailovers(int maxFailovers) {
+            if (maxFailovers < 0) {
+                throw new IllegalArgumentException("maxFailovers must not be negative");
+            }
+            this.maxFailovers = maxFailovers;
+            return this;
+        }
+
+        /**
+         * Sets the number of consecutive failed requests after which an endpoint is considered unhealthy, 3 by default.
+         *
+         * @param unhealthyAfter the number of consecutive failures.
+         * @return the current instance of EndpointGroupBuilder.
+         * @throws IllegalArgumentException if unhealthyAfter is lower than 1.
+         */
+        public EndpointGroupBuilder unhealthyAfter(int unhealthyAfter) {
+            if (unhealthyAfter < 1) {
+                throw new IllegalArgumentException("unhealthyAfter must be at least 1");
+            }
+            this.unhealthyAfter = unhealthyAfter;
+            return this;
+        }
+
+        /**
+         * Sets the time after which an unhealthy endpoint is sent requests again to find out whether it recovered,
+         * 30 seconds by default.
+         *
+         * @param cooldown the cooldown.
+         * @return the current instance of EndpointGroupBuilder.
+         * @throws NullPointerException if cooldown is null.
+         */
+        public EndpointGroupBuilder cooldown(Duration cooldown) {
+            this.cooldown = Objects.requireNonNull(cooldown);
+            return this;
+        }
+
+        /**
+         * Checks the health of every endpoint periodically in the background, sending a GET request to the provided path.
+         * Endpoints are marked healthy when they answer with a 2xx status, and unhealthy otherwise.
+         *
+         * @param path     the path of the health check, for example {@code /health}.
+         * @param interval the time between two health checks of an endpoint.
+         * @return the current instance of EndpointGroupBuilder.
+         * @throws NullPointerException     if path or interval are null.
+         * @throws IllegalArgumentException if interval is not positive.
+         */
+        public EndpointGroupBuilder healthCheck(String path, Duration interval) {
+            if (interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException("interval must be positive");
+            }
+            this.healthCheckPath = Objects.requireNonNull(path);
+            this.healthCheckInterval = interval;
+            return this;
+        }
+
+        /**
+         * Builds an instance of EndpointGroup with the provided parameters.
+         *
+         * @return a new instance of EndpointGroup.
+         * @throws IllegalStateException if no endpoint was added.
+         */
+        public EndpointGroup build() {
+            if (endpoints.isEmpty()) {
+                throw new IllegalStateException("At least one endpoint is required");
+            }
+            return new EndpointGroup(this);
+        }
+    }
+}
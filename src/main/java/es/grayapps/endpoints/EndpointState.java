@@ -0,0 +1,102 @@
+package es.grayapps.endpoints;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EndpointState is a class that holds what the client observed of an endpoint, used to balance the requests.
+ * <p>
+ * It tracks the requests outstanding, an exponentially weighted moving average of the latency of the
+ * successful requests, and whether the endpoint is healthy. An endpoint becomes unhealthy after a number of
+ * consecutive failures, or when it fails a health check, and healthy again on the next success.
+ */
+public final class EndpointState {
+
+    private static final double EWMA_WEIGHT = 0.3;
+
+    private final Endpoint endpoint;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile boolean healthy = true;
+    private volatile long unhealthySince;
+    private volatile double latencyNanos;
+
+    EndpointState(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns the number of requests sent to the endpoint that have not finished yet.
+     *
+     * @return the outstanding requests.
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Returns the moving average of the latency of the successful requests.
+     *
+     * @return the average latency in nanoseconds, 0 before the first successful request.
+     */
+    public double getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * Returns whether the endpoint may receive requests: it is healthy,
+     * or has been unhealthy for longer than the provided cooldown and may be tried again.
+     */
+    boolean isAvailable(long cooldownNanos) {
+        return healthy || System.nanoTime() - unhealthySince >= cooldownNanos;
+    }
+
+    void onStart() {
+        outstanding.incrementAndGet();
+    }
+
+    void onSuccess(long latency) {
+        outstanding.decrementAndGet();
+        synchronized (this) {
+            latencyNanos = latencyNanos == 0 ? latency : latencyNanos + EWMA_WEIGHT * (latency - latencyNanos);
+        }
+        markHealthy();
+    }
+
+    void onFailure(int unhealthyAfter) {
+        outstanding.decrementAndGet();
+        if (consecutiveFailures.incrementAndGet() >= unhealthyAfter) {
+            markUnhealthy();
+        }
+    }
+
+    /**
+     * Records the end of a request that tells nothing about the endpoint, such as a cancelled request.
+     */
+    void onDone() {
+        outstanding.decrementAndGet();
+    }
+
+    void markHealthy() {
+        consecutiveFailures.set(0);
+        healthy = true;
+    }
+
+    void markUnhealthy() {
+        unhealthySince = System.nanoTime();
+        healthy = false;
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointState{" + endpoint + ", healthy=" + healthy + ", outstanding=" + outstanding.get()
+                + ", latencyMillis=" + (long) (latencyNanos / 1e6) + "}";
+    }
+}
@@ -0,0 +1,33 @@
+package es.grayapps.endpoints;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * EwmaBalancer is a load balancer that compares two endpoints picked at random ("power of two choices")
+ * and sends the request to the one with the lowest expected latency: the moving average of its latency
+ * multiplied by its outstanding requests plus one. Endpoints without a latency yet are preferred, so they are measured.
+ */
+final class EwmaBalancer implements LoadBalancer {
+
+    @Override
+    public EndpointState choose(List<EndpointState> candidates) {
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        EndpointState a = candidates.get(first);
+        EndpointState b = candidates.get(second);
+        return cost(a) <= cost(b) ? a : b;
+    }
+
+    private static double cost(EndpointState state) {
+        return state.getLatencyNanos() * (state.getOutstanding() + 1);
+    }
+}
@@ -0,0 +1,25 @@
+package es.grayapps.endpoints;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * LeastOutstandingBalancer is a load balancer that sends requests to the endpoint with the fewest requests outstanding.
+ * Ties are broken by starting the search at a random endpoint.
+ */
+final class LeastOutstandingBalancer implements LoadBalancer {
+
+    @Override
+    public EndpointState choose(List<EndpointState> candidates) {
+        int size = candidates.size();
+        int start = ThreadLocalRandom.current().nextInt(size);
+        EndpointState best = candidates.get(start);
+        for (int i = 1; i < size; i++) {
+            EndpointState candidate = candidates.get((start + i) % size);
+            if (candidate.getOutstanding() < best.getOutstanding()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+}
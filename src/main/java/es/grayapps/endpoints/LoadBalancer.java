@@ -0,0 +1,48 @@
+package es.grayapps.endpoints;
+
+import java.util.List;
+
+/**
+ * LoadBalancer is an interface that chooses the endpoint each request is sent to.
+ * <p>
+ * Implementations must be thread-safe, as they are called concurrently by every request.
+ */
+@FunctionalInterface
+public interface LoadBalancer {
+
+    /**
+     * Chooses an endpoint among the provided candidates.
+     *
+     * @param candidates the endpoints available, never empty.
+     * @return the chosen endpoint, one of the candidates.
+     */
+    EndpointState choose(List<EndpointState> candidates);
+
+    /**
+     * Returns a balancer that sends requests to each endpoint in turn.
+     *
+     * @return the round-robin balancer.
+     */
+    static LoadBalancer roundRobin() {
+        return new RoundRobinBalancer();
+    }
+
+    /**
+     * Returns a balancer that sends requests to the endpoint with the fewest requests outstanding.
+     *
+     * @return the least-outstanding-requests balancer.
+     */
+    static LoadBalancer leastOutstanding() {
+        return new LeastOutstandingBalancer();
+    }
+
+    /**
+     * Returns a balancer that weighs the moving average of the latency of each endpoint by its outstanding requests,
+     * comparing two endpoints picked at random so the fastest one is not flooded.
+     *
+     * @return the latency-weighted balancer.
+     */
+    static LoadBalancer ewma() {
+        return new EwmaBalancer();
+    }
+}
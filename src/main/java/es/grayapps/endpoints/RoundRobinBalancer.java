@@ -0,0 +1,17 @@
+package es.grayapps.endpoints;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RoundRobinBalancer is a load balancer that sends requests to each endpoint in turn.
+ */
+final class RoundRobinBalancer implements LoadBalancer {
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public EndpointState choose(List<EndpointState> candidates) {
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+}
@@ -0,0 +1,12 @@
+package es.grayapps.exceptions;
+
+/**
+ * CallNotPermittedException is an exception that is thrown when a request is not sent
+ * because the circuit breaker of its model is open.
+ */
+public class CallNotPermittedException extends EasyWebUIException {
+
+    public CallNotPermittedException(String message) {
+        super(message);
+    }
+}
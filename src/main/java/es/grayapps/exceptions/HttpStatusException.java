@@ -0,0 +1,47 @@
+package es.grayapps.exceptions;
+
+import java.time.Duration;
+
+/**
+ * HttpStatusException is an exception that is thrown when the server answers with an unexpected HTTP status.
+ * <p>
+ * It keeps the status, the body and the {@code Retry-After} delay asked by the server, if any,
+ * so callers and retry policies can tell transient errors apart.
+ */
+public class HttpStatusException extends EasyWebUIException {
+
+    private final int statusCode;
+    private final String body;
+    private final Duration retryAfter;
+
+    /**
+     * Creates a new instance of HttpStatusException.
+     *
+     * @param statusCode the HTTP status of the response.
+     * @param body       the body of the response.
+     * @param retryAfter the delay asked by the server before retrying, or null if none was given.
+     */
+    public HttpStatusException(int statusCode, String body, Duration retryAfter) {
+        super("API returned error code: " + statusCode + " - Body: " + body);
+        this.statusCode = statusCode;
+        this.body = body;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the delay asked by the server before retrying, from the {@code Retry-After} header.
+     *
+     * @return the delay, or null if the server did not ask for one.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,12 @@
+package es.grayapps.exceptions;
+
+/**
+ * LimitExceededException is an exception that is thrown when a request is rejected by the client-side limiter,
+ * because its queue is full or the request waited longer than allowed.
+ */
+public class LimitExceededException extends EasyWebUIException {
+
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
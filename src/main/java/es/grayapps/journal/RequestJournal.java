@@ -0,0 +1,544 @@
+package es.grayapps.journal;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.batch.BatchListener;
+import es.grayapps.batch.BatchProgress;
+import es.grayapps.batch.BatchRunner;
+import es.grayapps.cache.CacheKey;
+import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.methods.IMethod;
+import es.grayapps.utils.JsonCodec;
+import es.grayapps.utils.Timers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * RequestJournal is a class that records the methods of a long-running job and their responses in an append-only,
+ * memory-mapped log file, so a job that dies can be resumed without sending the methods that already completed.
+ * <p>
+ * Every method is identified by an id, given by the caller or computed from its request. Before a method is sent,
+ * its request is appended to the journal, and its response is appended once received. When the journal is opened
+ * again, the responses of the completed methods are answered from the file, and {@link #resume} sends the pending
+ * methods again. Failed methods stay pending.
+ * <p>
+ * Records are written through the memory mapping, so they survive a crash of the JVM as soon as they are appended.
+ * To also survive a crash of the system, the file is synced to disk in batches, every given number of records or
+ * time, and when the journal is closed. On open, the log ends at the first torn or corrupt record.
+ * Methods and responses must be {@link Serializable}.
+ * <p>
+ * As the file may be altered outside the client, methods and responses are read back through an
+ * {@link ObjectInputFilter} that only accepts the method and response classes of this library and the
+ * {@code java.lang}, {@code java.util} and {@code java.time} classes they are made of. Journals of custom methods or
+ * response types must provide their own filter.
+ */
+public class RequestJournal implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(RequestJournal.class.getName());
+
+    private static final int FILE_MAGIC = 0x45574A31;
+    private static final int RECORD_MAGIC = 0x4A524331;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 20;
+    private static final int ALIGNMENT = 8;
+    private static final int REQUEST = 1;
+    private static final int RESULT = 2;
+    private static final ObjectInputFilter RECORD_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=32;java.lang.*;java.util.*;java.time.*;es.grayapps.methods.*;es.grayapps.methods.response.*;!*");
+
+    private final FileChannel channel;
+    private final int chunkSize;
+    private final int syncEvery;
+    private final long syncIntervalNanos;
+    private final ObjectInputFilter filter;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    private long writePosition;
+    private int unsynced;
+    private long lastSyncNanos = System.nanoTime();
+    private ScheduledFuture<?> scheduledSync;
+    private int completed;
+    private boolean closed;
+
+    /**
+     * Opens or creates a journal file, syncing it every 1000 records or every second.
+     *
+     * @param file the journal file, the records of an existing file are replayed.
+     * @throws IOException if the file cannot be opened or read.
+     */
+    public RequestJournal(Path file) throws IOException {
+        this(file, 64 * 1024 * 1024, 1000, Duration.ofSeconds(1));
+    }
+
+    /**
+     * Opens or creates a journal file.
+     *
+     * @param file         the journal file, the records of an existing file are replayed.
+     * @param chunkSize    the size of the regions of the file mapped at once, the file grows by this size.
+     * @param syncEvery    the number of records appended before syncing the file to disk.
+     * @param syncInterval the maximum time between an append and the sync of the file to disk.
+     * @throws IOException              if the file cannot be opened or read.
+     * @throws IllegalArgumentException if chunkSize or syncEvery are too small, or syncInterval is negative.
+     */
+    public RequestJournal(Path file, int chunkSize, int syncEvery, Duration syncInterval) throws IOException {
+        this(file, chunkSize, syncEvery, syncInterval, RECORD_FILTER);
+    }
+
+    /**
+     * Opens or creates a journal file whose methods and responses are read back through the provided filter,
+     * for journals of custom methods or response types.
+     *
+     * @param file         the journal file, the records of an existing file are replayed.
+     * @param chunkSize    the size of the regions of the file mapped at once, the file grows by this size.
+     * @param syncEvery    the number of records appended before syncing the file to disk.
+     * @param syncInterval the maximum time between an append and the sync of the file to disk.
+     * @param filter       the filter of the classes of the methods and responses read from the file.
+     * @throws IOException              if the file cannot be opened or read.
+     * @throws IllegalArgumentException if chunkSize or syncEvery are too small, or syncInterval is negative.
+     * @throws NullPointerException     if syncInterval or filter are null.
+     */
+    public RequestJournal(Path file, int chunkSize, int syncEvery, Duration syncInterval, ObjectInputFilter filter)
+            throws IOException {
+        if (chunkSize < RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("chunkSize must be at least " + RECORD_HEADER_SIZE);
+        }
+        if (syncEvery < 1) {
+            throw new IllegalArgumentException("syncEvery must be at least 1");
+        }
+        if (syncInterval.isNegative()) {
+            throw new IllegalArgumentException("syncInterval must not be negative");
+        }
+        this.chunkSize = chunkSize;
+        this.syncEvery = syncEvery;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.filter = Objects.requireNonNull(filter);
+        this.channel = FileChannel.open(Objects.requireNonNull(file),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            open(file);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Executes the provided method, identified by the hash of its request, unless it completed already.
+     *
+     * @param easyWebUI the client the method is sent with.
+     * @param method    the method to execute.
+     * @param <T>       the type of the response.
+     * @return a future completed with the response of the method, from the journal if it completed already.
+     * @throws IllegalArgumentException if the method is not serializable.
+     * @throws IllegalStateException    if the journal is closed.
+     */
+    public <T extends Serializable> CompletableFuture<T> execute(EasyWebUI easyWebUI, IMethod<T> method) {
+        String id;
+        try {
+            id = CacheKey.of(method, JsonCodec.getDefault());
+        } catch (IOException e) {
+            throw new EasyWebUIExceptionRuntime(e);
+        }
+        return execute(easyWebUI, id, method);
+    }
+
+    /**
+     * Executes the provided method unless the method with the same id completed already.
+     *
+     * @param easyWebUI the client the method is sent with.
+     * @param id        the id of the method in the job.
+     * @param method    the method to execute.
+     * @param <T>       the type of the response.
+     * @return a future completed with the response of the method, from the journal if it completed already.
+     * @throws IllegalArgumentException if the method is not serializable.
+     * @throws IllegalStateException    if the journal is closed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Serializable> CompletableFuture<T> execute(EasyWebUI easyWebUI, String id, IMethod<T> method) {
+        Objects.requireNonNull(easyWebUI);
+        Objects.requireNonNull(id);
+        Objects.requireNonNull(method);
+        synchronized (this) {
+            ensureOpen();
+            Entry entry = entries.get(id);
+            if (entry != null && entry.result != null) {
+                return CompletableFuture.completedFuture((T) read(entry.result));
+            }
+            if (entry == null) {
+                byte[] request;
+                try {
+                    request = serialize(method);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Method is not serializable: " + e.getMessage(), e);
+                }
+                entries.put(id, new Entry(append(REQUEST, id, request)));
+            }
+        }
+
+        CompletableFuture<T> request = easyWebUI.executeAsync(method);
+        CompletableFuture<T> result = request.thenApply(value -> {
+            complete(id, value);
+            return value;
+        });
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) {
+                request.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends the pending methods of the journal again, keeping at most the provided number of them in flight.
+     *
+     * @param easyWebUI   the client the methods are sent with.
+     * @param concurrency the maximum number of methods in flight.
+     * @param listener    the listener notified of results and progress, the index of the results is the position
+     *                    of the method in {@link #getPending()}.
+     * @return a future completed with the final progress once every pending method finished,
+     * cancelling it stops sending them.
+     * @throws IllegalArgumentException if concurrency is lower than 1.
+     * @throws IllegalStateException    if the journal is closed.
+     */
+    public CompletableFuture<BatchProgress> resume(EasyWebUI easyWebUI, int concurrency,
+                                                   BatchListener<Serializable> listener) {
+        List<String> pending = getPending();
+        logger.info(() -> "Resuming " + pending.size() + " pending methods");
+        return new BatchRunner<String, Serializable>(pending.iterator(), pending.size(), concurrency,
+                id -> execute(easyWebUI, id, getMethod(id)), listener).run();
+    }
+
+    /**
+     * Returns the ids of the methods whose request was recorded but not their response, in the order they were sent.
+     *
+     * @return the ids of the pending methods.
+     * @throws IllegalStateException if the journal is closed.
+     */
+    public synchronized List<String> getPending() {
+        ensureOpen();
+        List<String> pending = new ArrayList<>(entries.size() - completed);
+        entries.forEach((id, entry) -> {
+            if (entry.result == null) {
+                pending.add(id);
+            }
+        });
+        return pending;
+    }
+
+    /**
+     * Returns the recorded method with the provided id.
+     *
+     * @param id the id of the method.
+     * @return the method, or null if there is none with the provided id.
+     * @throws IllegalStateException if the journal is closed.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized IMethod<Serializable> getMethod(String id) {
+        ensureOpen();
+        Entry entry = entries.get(id);
+        return entry != null ? (IMethod<Serializable>) read(entry.request) : null;
+    }
+
+    /**
+     * Returns the recorded response of the method with the provided id.
+     *
+     * @param id the id of the method.
+     * @return the response, or null if the method is not completed.
+     * @throws IllegalStateException if the journal is closed.
+     */
+    public synchronized Serializable getResult(String id) {
+        ensureOpen();
+        Entry entry = entries.get(id);
+        return entry != null && entry.result != null ? read(entry.result) : null;
+    }
+
+    /**
+     * Returns whether the method with the provided id completed.
+     *
+     * @param id the id of the method.
+     * @return true if its response is recorded.
+     */
+    public synchronized boolean isCompleted(String id) {
+        Entry entry = entries.get(id);
+        return entry != null && entry.result != null;
+    }
+
+    /**
+     * Returns the number of completed methods.
+     *
+     * @return the number of completed methods.
+     */
+    public synchronized int getCompletedCount() {
+        return completed;
+    }
+
+    /**
+     * Returns the number of pending methods.
+     *
+     * @return the number of pending methods.
+     */
+    public synchronized int getPendingCount() {
+        return entries.size() - completed;
+    }
+
+    /**
+     * Syncs the appended records to disk.
+     *
+     * @throws IllegalStateException if the journal is closed.
+     */
+    public synchronized void sync() {
+        ensureOpen();
+        force();
+    }
+
+    /**
+     * Syncs the file to disk and releases it.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        force();
+        chunk = null;
+        channel.close();
+    }
+
+    private void complete(String id, Serializable value) {
+        byte[] result;
+        try {
+            result = serialize(value);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Response of " + id + " is not serializable, it stays pending: "
+                    + e.getMessage(), e);
+            return;
+        }
+        synchronized (this) {
+            Entry entry = entries.get(id);
+            if (closed || entry == null || entry.result != null) {
+                return;
+            }
+            entry.result = append(RESULT, id, result);
+            completed++;
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("RequestJournal is closed");
+        }
+    }
+
+    /**
+     * Replays the records of the file, stopping at the first one that is not valid.
+     */
+    private void open(Path file) throws IOException {
+        ByteBuffer fileHeader = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() < HEADER_SIZE || readFully(fileHeader, 0) < HEADER_SIZE || fileHeader.getInt(0) == 0) {
+            fileHeader.clear();
+            fileHeader.putInt(FILE_MAGIC).putInt(1).flip();
+            channel.write(fileHeader, 0);
+            writePosition = HEADER_SIZE;
+            return;
+        }
+        if (fileHeader.getInt(0) != FILE_MAGIC) {
+            throw new IOException(file + " is not a request journal");
+        }
+
+        long size = channel.size();
+        long position = HEADER_SIZE;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (position + RECORD_HEADER_SIZE <= size) {
+            header.clear();
+            if (readFully(header, position) < RECORD_HEADER_SIZE || header.getInt(0) != RECORD_MAGIC) {
+                break;
+            }
+            int type = header.getInt(4);
+            int idLength = header.getInt(8);
+            int payloadLength = header.getInt(12);
+            if (idLength < 0 || payloadLength < 0 || position + RECORD_HEADER_SIZE + idLength + payloadLength > size) {
+                break;
+            }
+            ByteBuffer data = ByteBuffer.allocate(idLength + payloadLength);
+            if (readFully(data, position + RECORD_HEADER_SIZE) < data.capacity()) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data.array());
+            if ((int) crc.getValue() != header.getInt(16)) {
+                break;
+            }
+            String id = new String(data.array(), 0, idLength, StandardCharsets.UTF_8);
+            replay(type, id, new Payload(position + RECORD_HEADER_SIZE + idLength, payloadLength));
+            position += align(RECORD_HEADER_SIZE + idLength + payloadLength);
+        }
+        writePosition = position;
+        logger.fine("Replayed " + entries.size() + " methods from " + file + ", " + completed + " completed");
+    }
+
+    private void replay(int type, String id, Payload payload) {
+        Entry entry = entries.get(id);
+        if (type == REQUEST && entry == null) {
+            entries.put(id, new Entry(payload));
+        } else if (type == RESULT && entry != null && entry.result == null) {
+            entry.result = payload;
+            completed++;
+        }
+    }
+
+    private Payload append(int type, String id, byte[] payload) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        int length = align(RECORD_HEADER_SIZE + idBytes.length + payload.length);
+        try {
+            if (chunk == null || writePosition + length > chunkStart + chunk.capacity()) {
+                force();
+                chunkStart = writePosition;
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, Math.max(chunkSize, length));
+            }
+        } catch (IOException e) {
+            throw new EasyWebUIExceptionRuntime("Cannot extend the request journal", e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(idBytes);
+        crc.update(payload);
+        int offset = (int) (writePosition - chunkStart);
+        ByteBuffer view = chunk.duplicate();
+        view.position(offset + 4);
+        view.putInt(type)
+                .putInt(idBytes.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(idBytes)
+                .put(payload);
+        chunk.putInt(offset, RECORD_MAGIC);
+
+        Payload written = new Payload(writePosition + RECORD_HEADER_SIZE + idBytes.length, payload.length);
+        writePosition += length;
+        unsynced++;
+        long sinceSync = System.nanoTime() - lastSyncNanos;
+        if (unsynced >= syncEvery || sinceSync >= syncIntervalNanos) {
+            force();
+        } else if (scheduledSync == null) {
+            scheduledSync = Timers.schedule(() -> ForkJoinPool.commonPool().execute(this::syncScheduled),
+                    syncIntervalNanos - sinceSync);
+        }
+        return written;
+    }
+
+    /**
+     * Syncs the records appended since the last sync once the sync interval elapses, off the timer thread as syncing
+     * may block on the disk.
+     */
+    private synchronized void syncScheduled() {
+        scheduledSync = null;
+        if (!closed) {
+            force();
+        }
+    }
+
+    private void force() {
+        if (scheduledSync != null) {
+            scheduledSync.cancel(false);
+            scheduledSync = null;
+        }
+        if (chunk != null && unsynced > 0) {
+            chunk.force();
+        }
+        unsynced = 0;
+        lastSyncNanos = System.nanoTime();
+    }
+
+    private Serializable read(Payload payload) {
+        ByteBuffer data = ByteBuffer.allocate(payload.length);
+        try {
+            if (readFully(data, payload.position) < payload.length) {
+                throw new EOFException("Truncated record at " + payload.position);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data.array()))) {
+                in.setObjectInputFilter(filter);
+                return (Serializable) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new EasyWebUIExceptionRuntime("Cannot read the request journal", e);
+        }
+    }
+
+    private int readFully(ByteBuffer buffer, long position) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position + read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(value);
+        }
+        return out.toByteArray();
+    }
+
+    private static int align(int length) {
+        return (length + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Payload is the location of a serialized method or response in the file.
+     */
+    private static final class Payload {
+        private final long position;
+        private final int length;
+
+        private Payload(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Entry is the recorded request of a method and its response, if it completed.
+     */
+    private static final class Entry {
+        private final Payload request;
+        private Payload result;
+
+        private Entry(Payload request) {
+            this.request = request;
+        }
+    }
+}
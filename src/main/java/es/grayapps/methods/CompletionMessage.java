@@ -1,12 +1,36 @@
 package es.grayapps.methods;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.utils.JsonCodec;
 
-public class CompletionMessage {
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringWriter;
+
+/**
+ * CompletionMessage is a class that represents a message of a completion, with its content and role.
+ * <p>
+ * Messages are immutable, so each one is encoded as JSON only once: the encoded fragment is kept and copied as is
+ * into every request that includes the message, which makes resending a long history cheap.
+ * The fragment is encoded with the default {@link JsonCodec}, so it is only reused by requests written with that
+ * codec: a method with another codec encodes its messages through that codec every time.
+ * The encoded fragment is not serialized, it is encoded again on first use after deserialization.
+ */
+@JsonSerialize(using = CompletionMessage.Serializer.class)
+public class CompletionMessage implements Serializable {
 
     @JsonProperty("content")
     private final String message;
     private final String role;
+    private transient volatile SerializableString json;
 
     public CompletionMessage(String message, String role) {
         this.message = message;
@@ -20,4 +44,53 @@ public class CompletionMessage {
     public String getRole() {
         return role;
     }
+
+    /**
+     * Returns the message encoded as a JSON object, encoding it on first use.
+     *
+     * @return the encoded message.
+     */
+    SerializableString toJson() {
+        SerializableString encoded = json;
+        if (encoded == null) {
+            StringWriter out = new StringWriter(32 + (message != null ? message.length() : 0));
+            try (JsonGenerator generator = JsonCodec.getDefault().getFactory().createGenerator(out)) {
+                writeTo(generator);
+            } catch (IOException e) {
+                throw new EasyWebUIExceptionRuntime(e);
+            }
+            encoded = new SerializedString(out.toString());
+            json = encoded;
+        }
+        return encoded;
+    }
+
+    private void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("content", message);
+        generator.writeStringField("role", role);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Serializer is a class that writes the encoded fragment of a message instead of encoding it again.<br>
+     * Generators of other codecs than the default one encode the message themselves, so their settings apply.
+     */
+    static final class Serializer extends StdSerializer<CompletionMessage> {
+
+        Serializer() {
+            super(CompletionMessage.class);
+        }
+
+        @Override
+        public void serialize(CompletionMessage value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            ObjectCodec codec = generator.getCodec();
+            if (codec != null && codec.getFactory() == JsonCodec.getDefault().getFactory()) {
+                generator.writeRawValue(value.toJson());
+            } else {
+                value.writeTo(generator);
+            }
+        }
+    }
 }
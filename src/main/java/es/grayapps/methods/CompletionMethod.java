@@ -1,14 +1,24 @@
 package es.grayapps.methods;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
 import es.grayapps.exceptions.EasyWebUIException;
 import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.methods.response.CompletionChunk;
 import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.utils.JsonCodec;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
-import java.util.Comparator;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -21,9 +31,18 @@ import java.util.Objects;
  */
 public class CompletionMethod implements IMethod<CompletionResponse>, Serializable {
 
+    private static final byte[] BODY_END = "}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STREAM_BODY_END = ",\"stream\":true}".getBytes(StandardCharsets.UTF_8);
+
     private final String model;
     private final List<CompletionMessage> messages;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final boolean keepReasoning;
+    private final boolean cacheable;
+    private final boolean idempotent;
+    private final PromptTemplate template;
+    private final CompletionOptions options;
+    private final Duration timeout;
+    private final transient JsonCodec codec;
 
     /**
      * Creates a new CompletionMethod with the given model, message, and role.
@@ -33,10 +52,7 @@ public class CompletionMethod implements IMethod<CompletionResponse>, Serializab
      * @param role    the role to use for the completion.
      */
     public CompletionMethod(String model, String message, String role) {
-        this.model = Objects.requireNonNull(model);
-        Objects.requireNonNull(message);
-        Objects.requireNonNull(role);
-        this.messages = List.of(new CompletionMessage(message, role));
+        this(model, new CompletionMessage(Objects.requireNonNull(message), Objects.requireNonNull(role)));
     }
 
     /**
@@ -46,9 +62,7 @@ public class CompletionMethod implements IMethod<CompletionResponse>, Serializab
      * @param completionMessage the completion message to use.
      */
     public CompletionMethod(String model, CompletionMessage completionMessage) {
-        this.model = Objects.requireNonNull(model);
-        Objects.requireNonNull(completionMessage);
-        this.messages = List.of(completionMessage);
+        this(model, List.of(Objects.requireNonNull(completionMessage)));
     }
 
     /**
@@ -58,8 +72,179 @@ public class CompletionMethod implements IMethod<CompletionResponse>, Serializab
      * @param messages the list of completion messages to use.
      */
     public CompletionMethod(String model, List<CompletionMessage> messages) {
+        this(model, messages, JsonCodec.getDefault());
+    }
+
+    /**
+     * Creates a new CompletionMethod with the given model, list of completion messages and JSON codec.
+     *
+     * @param model    the model to use for the completion.
+     * @param messages the list of completion messages to use.
+     * @param codec    the JSON codec used to write the request and read the response.
+     */
+    public CompletionMethod(String model, List<CompletionMessage> messages, JsonCodec codec) {
+        this(model, messages, false, false, false, null, CompletionOptions.none(), null, codec);
+    }
+
+    /**
+     * Creates a new CompletionMethod from a prompt template, whose messages start with the fixed messages of the template.
+     *
+     * @param template the template.
+     * @param messages the fixed messages of the template followed by the messages of this completion.
+     */
+    CompletionMethod(PromptTemplate template, List<CompletionMessage> messages) {
+        this(template.getModel(), messages, false, false, false, template, CompletionOptions.none(), null,
+                JsonCodec.getDefault());
+    }
+
+    private CompletionMethod(String model, List<CompletionMessage> messages, boolean keepReasoning, boolean cacheable,
+                             boolean idempotent, PromptTemplate template, CompletionOptions options,
+                             Duration timeout, JsonCodec codec) {
         this.model = Objects.requireNonNull(model);
         this.messages = Objects.requireNonNull(messages);
+        this.keepReasoning = keepReasoning;
+        this.cacheable = cacheable;
+        this.idempotent = idempotent;
+        this.template = template;
+        this.options = Objects.requireNonNull(options);
+        this.timeout = timeout;
+        this.codec = Objects.requireNonNull(codec);
+    }
+
+    /**
+     * Returns a copy of this method that keeps or discards the reasoning of reasoning models.<br>
+     * The {@code <think>} sections are always removed from the content of the response,
+     * when kept they are available through {@link CompletionResponse#getReasoning()}.
+     *
+     * @param keepReasoning whether the reasoning is kept.
+     * @return a copy of this method with the provided setting.
+     */
+    public CompletionMethod withReasoning(boolean keepReasoning) {
+        return new CompletionMethod(model, messages, keepReasoning, cacheable, idempotent, template, options, timeout,
+                codec);
+    }
+
+    /**
+     * Returns whether the reasoning of reasoning models is kept in the response.
+     *
+     * @return true if the reasoning is kept.
+     */
+    public boolean isKeepReasoning() {
+        return keepReasoning;
+    }
+
+    /**
+     * Returns a copy of this method whose response may or may not be answered from a response cache.<br>
+     * Only enable it for deterministic settings, where the same request always yields the same answer.
+     *
+     * @param cacheable whether the response is cacheable.
+     * @return a copy of this method with the provided setting.
+     */
+    public CompletionMethod withCacheable(boolean cacheable) {
+        return new CompletionMethod(model, messages, keepReasoning, cacheable, idempotent, template, options, timeout,
+                codec);
+    }
+
+    /**
+     * Returns whether the response of this method may be answered from a response cache.
+     *
+     * @return true if the response is cacheable.
+     */
+    @Override
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Returns a copy of this method that may or may not be sent again while it is in flight,
+     * when the client hedges slow requests. Completions have no side effects on the server,
+     * so they can be hedged at the cost of the duplicated work.
+     *
+     * @param idempotent whether the method is idempotent.
+     * @return a copy of this method with the provided setting.
+     */
+    public CompletionMethod withIdempotent(boolean idempotent) {
+        return new CompletionMethod(model, messages, keepReasoning, cacheable, idempotent, template, options, timeout,
+                codec);
+    }
+
+    /**
+     * Returns whether this method may be sent again while it is in flight.
+     *
+     * @return true if the method is idempotent.
+     */
+    @Override
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * Returns a copy of this method with the provided generation options, such as the maximum number of tokens
+     * or the temperature. The options are shared, not copied.
+     *
+     * @param options the options.
+     * @return a copy of this method with the provided options.
+     * @throws NullPointerException if options is null.
+     */
+    public CompletionMethod withOptions(CompletionOptions options) {
+        return new CompletionMethod(model, messages, keepReasoning, cacheable, idempotent, template,
+                Objects.requireNonNull(options), timeout, codec);
+    }
+
+    /**
+     * Returns the generation options of this method.
+     *
+     * @return the options, empty unless set with {@link #withOptions(CompletionOptions)}.
+     */
+    public CompletionOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns a copy of this method that is abandoned once the provided time elapses: its request is cancelled,
+     * releasing its connection, and the future of the execution fails with a
+     * {@link java.util.concurrent.TimeoutException}. When streamed, the timeout bounds the whole stream.
+     *
+     * @param timeout the time the execution may take, including retries, or null for none.
+     * @return a copy of this method with the provided timeout.
+     * @throws IllegalArgumentException if timeout is not positive.
+     */
+    public CompletionMethod withTimeout(Duration timeout) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+        return new CompletionMethod(model, messages, keepReasoning, cacheable, idempotent, template, options, timeout,
+                codec);
+    }
+
+    /**
+     * Returns the time the execution of this method may take.
+     *
+     * @return the timeout, or null unless set with {@link #withTimeout(Duration)}.
+     */
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns the cache variant of this method, which depends on whether the reasoning is kept.
+     *
+     * @return the cache variant.
+     */
+    @Override
+    public String getCacheVariant() {
+        return keepReasoning ? "reasoning" : "";
+    }
+
+    /**
+     * Returns the model this completion is asked to.
+     *
+     * @return the model.
+     */
+    @Override
+    public String getModel() {
+        return model;
     }
 
     /**
@@ -90,108 +275,219 @@ public class CompletionMethod implements IMethod<CompletionResponse>, Serializab
      */
     @Override
     public String getBody() throws JsonProcessingException {
-        return mapper.writeValueAsString(Map.of("model", model, "messages", messages));
+        if (template != null) {
+            return templateBody(false);
+        }
+        return codec.writerFor(CompletionRequest.class).writeValueAsString(new CompletionRequest(model, messages, options, null));
     }
 
     /**
-     * Deserializes the JSON response into a CompletionResponse object.
+     * Returns an estimate of the size of the body of the request, from the length of the messages.
      *
-     * @param json the JSON response.
-     * @return the deserialized CompletionResponse.
-     * @throws EasyWebUIException if an error occurs while parsing JSON.
+     * @return the estimated size in bytes.
      */
     @Override
-    public CompletionResponse deserialize(String json) throws EasyWebUIException {
-        try {
-            return mapper.readValue(json, CompletionUnparsedResponse.class).getResponse();
-        } catch (JsonProcessingException e) {
-            throw new EasyWebUIException("Error parsing json", e);
+    public long estimateBodySize() {
+        long size = 32 + model.length();
+        for (CompletionMessage message : messages) {
+            size += 32 + (message.getMessage() != null ? message.getMessage().length() : 0);
         }
+        return size;
     }
 
     /**
-     * CompletionUnparsedResponse is a class that represents the unparsed response from the server.
+     * Writes the body of the request as JSON directly into the provided stream.
+     *
+     * @param out the stream the body is written to.
+     * @throws IOException if an error occurs while writing the body.
      */
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private static class CompletionUnparsedResponse {
-        private String id;
-        private List<CompletionUnparsedChoiceResponse> choices;
-
-        /**
-         * Returns the parsed CompletionResponse from the unparsed response.
-         *
-         * @return the parsed CompletionResponse.
-         */
-        public CompletionResponse getResponse() {
-            this.choices.sort(Comparator.comparing(CompletionUnparsedChoiceResponse::getIndex));
-            CompletionUnparsedChoiceResponse choice = this.choices.stream().findFirst().orElseThrow(() -> new EasyWebUIExceptionRuntime("No choices found"));
-            return new CompletionResponse(choice.getMessage().getContent(), choice.getMessage().getRole());
+    @Override
+    public void writeBody(OutputStream out) throws IOException {
+        if (template != null) {
+            writeTemplateBody(out, false);
+            return;
         }
+        codec.writerFor(CompletionRequest.class).writeValue(out, new CompletionRequest(model, messages, options, null));
+    }
 
-        public String getId() {
-            return id;
+    /**
+     * Returns the body of the request as a JSON string, asking the server to stream the completion
+     * as server-sent events.
+     *
+     * @return the body of the streaming request.
+     * @throws JsonProcessingException if an error occurs while processing JSON.
+     */
+    public String getStreamBody() throws JsonProcessingException {
+        if (template != null) {
+            return templateBody(true);
         }
+        return codec.writerFor(CompletionRequest.class).writeValueAsString(new CompletionRequest(model, messages, options, true));
+    }
 
-        public void setId(String id) {
-            this.id = id;
+    /**
+     * Writes the body of the streaming request as JSON directly into the provided stream.
+     *
+     * @param out the stream the body is written to.
+     * @throws IOException if an error occurs while writing the body.
+     */
+    public void writeStreamBody(OutputStream out) throws IOException {
+        if (template != null) {
+            writeTemplateBody(out, true);
+            return;
         }
+        codec.writerFor(CompletionRequest.class).writeValue(out, new CompletionRequest(model, messages, options, true));
+    }
 
-        public List<CompletionUnparsedChoiceResponse> getChoices() {
-            return choices;
-        }
+    /**
+     * Returns the headers of this request, the prefix hash header when the method was created by a template
+     * that sends it.
+     *
+     * @return the headers.
+     */
+    @Override
+    public Map<String, String> getHeaders() {
+        return template != null ? template.getHeaders() : Map.of();
+    }
 
-        public void setChoices(List<CompletionUnparsedChoiceResponse> choices) {
-            this.choices = choices;
+    private String templateBody(boolean stream) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) estimateBodySize());
+        try {
+            writeTemplateBody(out, stream);
+        } catch (IOException e) {
+            throw new EasyWebUIExceptionRuntime(e);
         }
+        return out.toString(StandardCharsets.UTF_8);
     }
 
     /**
-     * CompletionUnparsedChoiceResponse is a class that represents an unparsed choice in the response.
+     * Writes the body of a method created by a template: the encoded prefix of the template as is,
+     * followed by the messages that are not part of it and the encoded options.
      */
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private static class CompletionUnparsedChoiceResponse {
-        private Integer index;
-        private CompletionUnparsedMessageResponse message;
-
-        public Integer getIndex() {
-            return index;
+    private void writeTemplateBody(OutputStream out, boolean stream) throws IOException {
+        template.writePrefix(out);
+        for (int i = template.getPrefix().size(); i < messages.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(messages.get(i).toJson().asUnquotedUTF8());
         }
+        out.write(']');
+        if (!options.isEmpty()) {
+            out.write(',');
+            out.write(options.toJsonFields());
+        }
+        out.write(stream ? STREAM_BODY_END : BODY_END);
+    }
 
-        public void setIndex(Integer index) {
-            this.index = index;
+    /**
+     * Deserializes the JSON payload of a single server-sent event into a CompletionChunk object.<br>
+     * Events without choices, such as the sources, selected model or final usage events of Open WebUI, are skipped.
+     *
+     * @param json the JSON payload of the event.
+     * @return the deserialized CompletionChunk, or null if the event has no choice.
+     * @throws EasyWebUIException if an error occurs while parsing JSON.
+     */
+    public CompletionChunk deserializeChunk(String json) throws EasyWebUIException {
+        try {
+            JsonNode root = codec.readerFor(JsonNode.class).readTree(json);
+            JsonNode choice = root.path("choices").path(0);
+            if (choice.isMissingNode()) {
+                return null;
+            }
+            JsonNode delta = choice.path("delta");
+            return new CompletionChunk(
+                    root.path("id").asText(null),
+                    choice.path("index").asInt(0),
+                    delta.path("content").asText(""),
+                    delta.path("role").asText(null),
+                    choice.path("finish_reason").asText(null)
+            );
+        } catch (JsonProcessingException e) {
+            throw new EasyWebUIException("Error parsing json", e);
         }
+    }
 
-        public CompletionUnparsedMessageResponse getMessage() {
-            return message;
+    /**
+     * Deserializes the JSON response into a CompletionResponse object.
+     *
+     * @param json the JSON response.
+     * @return the deserialized CompletionResponse.
+     * @throws EasyWebUIException if an error occurs while parsing JSON.
+     */
+    @Override
+    public CompletionResponse deserialize(String json) throws EasyWebUIException {
+        try (JsonParser parser = codec.getFactory().createParser(json)) {
+            return CompletionResponseParser.parse(parser, keepReasoning);
+        } catch (JsonProcessingException e) {
+            throw new EasyWebUIException("Error parsing json", e);
+        } catch (IOException e) {
+            throw new EasyWebUIExceptionRuntime(e);
         }
+    }
 
-        public void setMessage(CompletionUnparsedMessageResponse message) {
-            this.message = message;
+    /**
+     * Deserializes the JSON response read from the provided stream into a CompletionResponse object,
+     * without materializing it as a String.
+     *
+     * @param in the stream of the JSON response.
+     * @return the deserialized CompletionResponse.
+     * @throws EasyWebUIException if an error occurs while parsing JSON.
+     * @throws IOException        if an error occurs while reading the stream.
+     */
+    @Override
+    public CompletionResponse deserialize(InputStream in) throws EasyWebUIException, IOException {
+        try (JsonParser parser = codec.getFactory().createParser(in)) {
+            return CompletionResponseParser.parse(parser, keepReasoning);
+        } catch (JsonProcessingException e) {
+            throw new EasyWebUIException("Error parsing json", e);
         }
     }
 
     /**
-     * CompletionUnparsedMessageResponse is a class that represents an unparsed message in the response.
+     * Restores the default JSON codec after Java deserialization, as the codec itself is not serialized.
+     *
+     * @return an equivalent CompletionMethod using the default codec.
      */
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private static class CompletionUnparsedMessageResponse {
-        private String content;
-        private String role;
+    private Object readResolve() {
+        return codec != null ? this : new CompletionMethod(model, messages, keepReasoning, cacheable, idempotent, template,
+                options, timeout, JsonCodec.getDefault());
+    }
+
+    /**
+     * CompletionRequest is a class that represents the body of the request sent to the server.
+     * The options are written in place of the {@code options} property, in their own fixed order.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonPropertyOrder({"model", "messages", "options", "stream"})
+    private static class CompletionRequest {
+        private final String model;
+        private final List<CompletionMessage> messages;
+        private final CompletionOptions options;
+        private final Boolean stream;
+
+        private CompletionRequest(String model, List<CompletionMessage> messages, CompletionOptions options,
+                                  Boolean stream) {
+            this.model = model;
+            this.messages = messages;
+            this.options = options;
+            this.stream = stream;
+        }
 
-        public String getContent() {
-            return content.replaceAll("(?s)<think>.*?</think>\\s*", "");
+        public String getModel() {
+            return model;
         }
 
-        public void setContent(String content) {
-            this.content = content;
+        public List<CompletionMessage> getMessages() {
+            return messages;
         }
 
-        public String getRole() {
-            return role;
+        @JsonUnwrapped
+        public CompletionOptions getOptions() {
+            return options;
         }
 
-        public void setRole(String role) {
-            this.role = role;
+        public Boolean getStream() {
+            return stream;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,273 @@
+package es.grayapps.methods;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.utils.JsonCodec;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * CompletionOptions is a class that holds the generation settings of a completion, such as the maximum number
+ * of tokens generated or the sampling temperature. Settings left unset are not sent, so the server uses its defaults.
+ * <p>
+ * Options are immutable, so one instance can be shared by many methods. Variations are derived with
+ * {@link #toBuilder()}, which copies only the references of the settings and shares the rest, such as the list of
+ * stop sequences. The options are written in a fixed order: {@code max_tokens}, {@code temperature}, {@code top_p},
+ * {@code stop}, {@code n} and {@code seed}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"max_tokens", "temperature", "top_p", "stop", "n", "seed"})
+public final class CompletionOptions implements Serializable {
+
+    private static final CompletionOptions NONE = new CompletionOptions(builder());
+
+    private final Integer maxTokens;
+    private final Double temperature;
+    private final Double topP;
+    private final List<String> stop;
+    private final Integer n;
+    private final Long seed;
+    private transient volatile byte[] fields;
+
+    private CompletionOptions(CompletionOptionsBuilder builder) {
+        this.maxTokens = builder.maxTokens;
+        this.temperature = builder.temperature;
+        this.topP = builder.topP;
+        this.stop = builder.stop;
+        this.n = builder.n;
+        this.seed = builder.seed;
+    }
+
+    /**
+     * Returns the options with every setting unset.
+     *
+     * @return the empty options.
+     */
+    public static CompletionOptions none() {
+        return NONE;
+    }
+
+    /**
+     * Creates a new builder of CompletionOptions.
+     *
+     * @return a new builder.
+     */
+    public static CompletionOptionsBuilder builder() {
+        return new CompletionOptionsBuilder();
+    }
+
+    /**
+     * Creates a new builder initialized with the settings of these options, to derive a variation of them.
+     *
+     * @return a new builder.
+     */
+    public CompletionOptionsBuilder toBuilder() {
+        CompletionOptionsBuilder builder = new CompletionOptionsBuilder();
+        builder.maxTokens = maxTokens;
+        builder.temperature = temperature;
+        builder.topP = topP;
+        builder.stop = stop;
+        builder.n = n;
+        builder.seed = seed;
+        return builder;
+    }
+
+    @JsonProperty("max_tokens")
+    public Integer getMaxTokens() {
+        return maxTokens;
+    }
+
+    @JsonProperty("temperature")
+    public Double getTemperature() {
+        return temperature;
+    }
+
+    @JsonProperty("top_p")
+    public Double getTopP() {
+        return topP;
+    }
+
+    @JsonProperty("stop")
+    public List<String> getStop() {
+        return stop;
+    }
+
+    @JsonProperty("n")
+    public Integer getN() {
+        return n;
+    }
+
+    @JsonProperty("seed")
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns whether every setting is unset.
+     *
+     * @return true if no setting is sent.
+     */
+    @JsonIgnore
+    public boolean isEmpty() {
+        return maxTokens == null && temperature == null && topP == null && stop == null && n == null && seed == null;
+    }
+
+    /**
+     * Returns the settings encoded as the fields of a JSON object, without its braces, encoding them on first use.
+     *
+     * @return the encoded fields, empty if every setting is unset.
+     */
+    byte[] toJsonFields() {
+        byte[] encoded = fields;
+        if (encoded == null) {
+            try {
+                byte[] object = JsonCodec.getDefault().writerFor(CompletionOptions.class).writeValueAsBytes(this);
+                encoded = Arrays.copyOfRange(object, 1, object.length - 1);
+            } catch (JsonProcessingException e) {
+                throw new EasyWebUIExceptionRuntime(e);
+            }
+            fields = encoded;
+        }
+        return encoded;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompletionOptions)) {
+            return false;
+        }
+        CompletionOptions that = (CompletionOptions) o;
+        return Objects.equals(maxTokens, that.maxTokens) && Objects.equals(temperature, that.temperature)
+                && Objects.equals(topP, that.topP) && Objects.equals(stop, that.stop)
+                && Objects.equals(n, that.n) && Objects.equals(seed, that.seed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxTokens, temperature, topP, stop, n, seed);
+    }
+
+    @Override
+    public String toString() {
+        return new String(toJsonFields(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builder for the CompletionOptions class.
+     */
+    public static class CompletionOptionsBuilder {
+        private Integer maxTokens;
+        private Double temperature;
+        private Double topP;
+        private List<String> stop;
+        private Integer n;
+        private Long seed;
+
+        private CompletionOptionsBuilder() {
+        }
+
+        /**
+         * Sets the maximum number of tokens generated, the main bound of the latency of a completion.
+         *
+         * @param maxTokens the maximum number of tokens, or null to unset it.
+         * @return the current instance of CompletionOptionsBuilder.
+         * @throws IllegalArgumentException if maxTokens is lower than 1.
+         */
+        public CompletionOptionsBuilder maxTokens(Integer maxTokens) {
+            if (maxTokens != null && maxTokens < 1) {
+                throw new IllegalArgumentException("maxTokens must be at least 1");
+            }
+            this.maxTokens = maxTokens;
+            return this;
+        }
+
+        /**
+         * Sets the sampling temperature, lower values make the completion more deterministic.
+         *
+         * @param temperature the temperature, between 0 and 2, or null to unset it.
+         * @return the current instance of CompletionOptionsBuilder.
+         * @throws IllegalArgumentException if temperature is out of range.
+         */
+        public CompletionOptionsBuilder temperature(Double temperature) {
+            if (temperature != null && !(temperature >= 0 && temperature <= 2)) {
+                throw new IllegalArgumentException("temperature must be between 0 and 2");
+            }
+            this.temperature = temperature;
+            return this;
+        }
+
+        /**
+         * Sets the nucleus sampling probability mass.
+         *
+         * @param topP the probability mass, between 0 and 1, or null to unset it.
+         * @return the current instance of CompletionOptionsBuilder.
+         * @throws IllegalArgumentException if topP is out of range.
+         */
+        public CompletionOptionsBuilder topP(Double topP) {
+            if (topP != null && !(topP >= 0 && topP <= 1)) {
+                throw new IllegalArgumentException("topP must be between 0 and 1");
+            }
+            this.topP = topP;
+            return this;
+        }
+
+        /**
+         * Sets the sequences that stop the generation when generated.
+         *
+         * @param stop the stop sequences, none to unset them.
+         * @return the current instance of CompletionOptionsBuilder.
+         * @throws NullPointerException if any sequence is null.
+         */
+        public CompletionOptionsBuilder stop(String... stop) {
+            this.stop = stop.length > 0 ? List.of(stop) : null;
+            return this;
+        }
+
+        /**
+         * Sets the number of choices generated for the completion, see {@link
+         * es.grayapps.methods.response.CompletionResponse#getChoices()}.
+         *
+         * @param n the number of choices, or null to unset it.
+         * @return the current instance of CompletionOptionsBuilder.
+         * @throws IllegalArgumentException if n is lower than 1.
+         */
+        public CompletionOptionsBuilder n(Integer n) {
+            if (n != null && n < 1) {
+                throw new IllegalArgumentException("n must be at least 1");
+            }
+            this.n = n;
+            return this;
+        }
+
+        /**
+         * Sets the seed of the sampling, so repeated requests yield the same completion where the server supports it.
+         *
+         * @param seed the seed, or null to unset it.
+         * @return the current instance of CompletionOptionsBuilder.
+         */
+        public CompletionOptionsBuilder seed(Long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Builds an instance of CompletionOptions with the provided parameters.
+         *
+         * @return a new instance of CompletionOptions.
+         */
+        public CompletionOptions build() {
+            return new CompletionOptions(this);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package es.grayapps.methods;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.methods.response.CompletionChoice;
+import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.methods.response.CompletionUsage;
+import es.grayapps.utils.ThinkTagFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * CompletionResponseParser is a class that reads a completion response in a single pass over the JSON tokens.
+ * <p>
+ * The choices are ordered by index, and the content of each is streamed through a {@link ThinkTagFilter}
+ * instead of being read as a String first. The usage and the generation time reported by the server are read too.
+ */
+final class CompletionResponseParser {
+
+    private CompletionResponseParser() {
+    }
+
+    /**
+     * Parses a completion response.
+     *
+     * @param parser        the parser positioned before the response.
+     * @param keepReasoning whether the reasoning sections of the content are kept.
+     * @return the parsed CompletionResponse.
+     * @throws IOException if an error occurs while reading or parsing JSON.
+     */
+    static CompletionResponse parse(JsonParser parser, boolean keepReasoning) throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+        List<CompletionChoice> choices = new ArrayList<>(1);
+        Usage usage = null;
+        long timingsNanos = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+                    choices.add(parseChoice(parser, keepReasoning));
+                }
+            } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                usage = parseUsage(parser);
+            } else if ("timings".equals(field) && value == JsonToken.START_OBJECT) {
+                timingsNanos = parseTimings(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (choices.isEmpty()) {
+            throw new EasyWebUIExceptionRuntime("No choices found");
+        }
+        if (choices.size() > 1) {
+            choices.sort(Comparator.comparingInt(CompletionChoice::getIndex));
+        }
+        return new CompletionResponse(choices, usage != null ? usage.toCompletionUsage(timingsNanos) : null);
+    }
+
+    private static CompletionChoice parseChoice(JsonParser parser, boolean keepReasoning) throws IOException {
+        Choice choice = new Choice();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("index".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                choice.index = parser.getIntValue();
+            } else if ("message".equals(field) && value == JsonToken.START_OBJECT) {
+                parseMessage(parser, choice, keepReasoning);
+            } else if ("finish_reason".equals(field) && value == JsonToken.VALUE_STRING) {
+                choice.finishReason = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new CompletionChoice(choice.index, choice.content, choice.role, choice.reasoning, choice.finishReason);
+    }
+
+    private static void parseMessage(JsonParser parser, Choice choice, boolean keepReasoning) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("content".equals(field) && value == JsonToken.VALUE_STRING) {
+                ThinkTagFilter filter = new ThinkTagFilter(keepReasoning);
+                parser.getText(filter);
+                choice.content = filter.getContent();
+                choice.reasoning = filter.getReasoning();
+            } else if ("role".equals(field) && value == JsonToken.VALUE_STRING) {
+                choice.role = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Parses the usage of the OpenAI format, with the total duration in nanoseconds reported by Ollama backends.
+     */
+    private static Usage parseUsage(JsonParser parser) throws IOException {
+        Usage usage = new Usage();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_NUMBER_INT && value != JsonToken.VALUE_NUMBER_FLOAT) {
+                parser.skipChildren();
+            } else if ("prompt_tokens".equals(field)) {
+                usage.promptTokens = parser.getIntValue();
+            } else if ("completion_tokens".equals(field)) {
+                usage.completionTokens = parser.getIntValue();
+            } else if ("total_tokens".equals(field)) {
+                usage.totalTokens = parser.getIntValue();
+            } else if ("total_duration".equals(field)) {
+                usage.durationNanos = parser.getLongValue();
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Parses the timings reported by llama.cpp backends, in milliseconds, into the total generation time.
+     */
+    private static long parseTimings(JsonParser parser) throws IOException {
+        double millis = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (("prompt_ms".equals(field) || "predicted_ms".equals(field))
+                    && (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT)) {
+                millis += parser.getDoubleValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return (long) (millis * 1_000_000);
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * Choice is the state of a choice while it is being parsed.
+     */
+    private static final class Choice {
+        private int index;
+        private String content;
+        private String role;
+        private String reasoning;
+        private String finishReason;
+    }
+
+    /**
+     * Usage is the state of the usage while it is being parsed.
+     */
+    private static final class Usage {
+        private int promptTokens;
+        private int completionTokens;
+        private int totalTokens = -1;
+        private long durationNanos = -1;
+
+        private CompletionUsage toCompletionUsage(long timingsNanos) {
+            return new CompletionUsage(promptTokens, completionTokens,
+                    totalTokens >= 0 ? totalTokens : promptTokens + completionTokens,
+                    durationNanos >= 0 ? durationNanos : timingsNanos);
+        }
+    }
+}
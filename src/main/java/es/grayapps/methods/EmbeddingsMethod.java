@@ -0,0 +1,272 @@
+package es.grayapps.methods;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import es.grayapps.exceptions.EasyWebUIException;
+import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.methods.response.EmbeddingsResponse;
+import es.grayapps.utils.JsonCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * EmbeddingsMethod is a class that represents a method to compute the embeddings of a batch of inputs.
+ * <p>
+ * Sending many inputs in one request is much cheaper than one request per input. The response is read
+ * in a single pass straight into primitive float arrays.
+ */
+public class EmbeddingsMethod implements IMethod<EmbeddingsResponse>, Serializable {
+
+    private final String model;
+    private final List<String> inputs;
+    private final boolean cacheable;
+    private final transient JsonCodec codec;
+
+    /**
+     * Creates a new EmbeddingsMethod for a single input.
+     *
+     * @param model the model that computes the embeddings.
+     * @param input the input.
+     */
+    public EmbeddingsMethod(String model, String input) {
+        this(model, List.of(Objects.requireNonNull(input)));
+    }
+
+    /**
+     * Creates a new EmbeddingsMethod for a batch of inputs.
+     *
+     * @param model  the model that computes the embeddings.
+     * @param inputs the inputs.
+     */
+    public EmbeddingsMethod(String model, List<String> inputs) {
+        this(model, inputs, false, JsonCodec.getDefault());
+    }
+
+    /**
+     * Creates a new EmbeddingsMethod for a batch of inputs, with the provided JSON codec.
+     *
+     * @param model  the model that computes the embeddings.
+     * @param inputs the inputs.
+     * @param codec  the JSON codec used to write the request and read the response.
+     */
+    public EmbeddingsMethod(String model, List<String> inputs, JsonCodec codec) {
+        this(model, inputs, false, codec);
+    }
+
+    private EmbeddingsMethod(String model, List<String> inputs, boolean cacheable, JsonCodec codec) {
+        this.model = Objects.requireNonNull(model);
+        this.inputs = List.copyOf(inputs);
+        this.cacheable = cacheable;
+        this.codec = Objects.requireNonNull(codec);
+        if (this.inputs.isEmpty()) {
+            throw new IllegalArgumentException("At least one input is required");
+        }
+    }
+
+    /**
+     * Returns a copy of this method whose response may or may not be answered from a response cache.
+     *
+     * @param cacheable whether the response is cacheable.
+     * @return a copy of this method with the provided setting.
+     */
+    public EmbeddingsMethod withCacheable(boolean cacheable) {
+        return new EmbeddingsMethod(model, inputs, cacheable, codec);
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Returns true, as computing embeddings has no side effects.
+     *
+     * @return true.
+     */
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+
+    @Override
+    public String getModel() {
+        return model;
+    }
+
+    public List<String> getInputs() {
+        return inputs;
+    }
+
+    @Override
+    public MethodType getMethod() {
+        return MethodType.POST;
+    }
+
+    @Override
+    public String getPath() {
+        return "/api/embeddings";
+    }
+
+    @Override
+    public String getBody() throws JsonProcessingException {
+        return codec.writerFor(EmbeddingsRequest.class).writeValueAsString(new EmbeddingsRequest(model, inputs));
+    }
+
+    @Override
+    public void writeBody(OutputStream out) throws IOException {
+        codec.writerFor(EmbeddingsRequest.class).writeValue(out, new EmbeddingsRequest(model, inputs));
+    }
+
+    @Override
+    public long estimateBodySize() {
+        long size = 32 + model.length();
+        for (String input : inputs) {
+            size += 4 + input.length();
+        }
+        return size;
+    }
+
+    /**
+     * Deserializes the JSON response into an EmbeddingsResponse object.
+     *
+     * @param json the JSON response.
+     * @return the deserialized EmbeddingsResponse.
+     * @throws EasyWebUIException if an error occurs while parsing JSON.
+     */
+    @Override
+    public EmbeddingsResponse deserialize(String json) throws EasyWebUIException {
+        try (JsonParser parser = codec.getFactory().createParser(json)) {
+            return parse(parser);
+        } catch (JsonProcessingException e) {
+            throw new EasyWebUIException("Error parsing json", e);
+        } catch (IOException e) {
+            throw new EasyWebUIExceptionRuntime(e);
+        }
+    }
+
+    /**
+     * Deserializes the JSON response read from the provided stream into an EmbeddingsResponse object.
+     *
+     * @param in the stream of the JSON response.
+     * @return the deserialized EmbeddingsResponse.
+     * @throws EasyWebUIException if an error occurs while parsing JSON.
+     * @throws IOException        if an error occurs while reading the stream.
+     */
+    @Override
+    public EmbeddingsResponse deserialize(InputStream in) throws EasyWebUIException, IOException {
+        try (JsonParser parser = codec.getFactory().createParser(in)) {
+            return parse(parser);
+        } catch (JsonProcessingException e) {
+            throw new EasyWebUIException("Error parsing json", e);
+        }
+    }
+
+    /**
+     * Parses a response in the OpenAI format, {@code {"data":[{"embedding":[...],"index":0}],"model":"..."}}.
+     */
+    private EmbeddingsResponse parse(JsonParser parser) throws IOException, EasyWebUIException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+        float[][] embeddings = new float[inputs.size()][];
+        String responseModel = model;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                int position = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+                    parseItem(parser, embeddings, position++);
+                }
+            } else if ("model".equals(field) && value == JsonToken.VALUE_STRING) {
+                responseModel = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        for (float[] embedding : embeddings) {
+            if (embedding == null) {
+                throw new EasyWebUIException("Expected " + inputs.size() + " embeddings");
+            }
+        }
+        return new EmbeddingsResponse(responseModel, Arrays.asList(embeddings));
+    }
+
+    private static void parseItem(JsonParser parser, float[][] embeddings, int position) throws IOException {
+        int index = position;
+        float[] embedding = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("index".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                index = parser.getIntValue();
+            } else if ("embedding".equals(field) && value == JsonToken.START_ARRAY) {
+                embedding = parseVector(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (index < 0 || index >= embeddings.length) {
+            throw new JsonParseException(parser, "Embedding index out of range: " + index);
+        }
+        embeddings[index] = embedding;
+    }
+
+    private static float[] parseVector(JsonParser parser) throws IOException {
+        float[] vector = new float[1024];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == vector.length) {
+                vector = Arrays.copyOf(vector, size * 2);
+            }
+            vector[size++] = parser.getFloatValue();
+        }
+        return size == vector.length ? vector : Arrays.copyOf(vector, size);
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * Restores the default JSON codec after Java deserialization, as the codec itself is not serialized.
+     *
+     * @return an equivalent EmbeddingsMethod using the default codec.
+     */
+    private Object readResolve() {
+        return codec != null ? this : new EmbeddingsMethod(model, inputs, cacheable, JsonCodec.getDefault());
+    }
+
+    /**
+     * EmbeddingsRequest is a class that represents the body of the request sent to the server.
+     */
+    @JsonPropertyOrder({"model", "input"})
+    private static class EmbeddingsRequest {
+        private final String model;
+        private final List<String> input;
+
+        private EmbeddingsRequest(String model, List<String> input) {
+            this.model = model;
+            this.input = input;
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public List<String> getInput() {
+            return input;
+        }
+    }
+}
@@ -3,8 +3,19 @@ package es.grayapps.methods;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import es.grayapps.exceptions.EasyWebUIException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
 /**
  * IMethod is an interface that defines the necessary methods to make a request and process the response.
+ * <p>
+ * Requests are written and responses are read through the streaming variants,
+ * {@link #writeBody(OutputStream)} and {@link #deserialize(InputStream)}. By default they bridge to the
+ * String based methods, implementations can override them to avoid materializing the JSON as a String.
  *
  * @param <T> the type of the response expected to be deserialized.
  */
@@ -24,13 +35,43 @@ public interface IMethod<T> {
      */
     String getPath();
 
+    /**
+     * Returns the model this request is addressed to, used to tag metrics and logs.
+     *
+     * @return the model, or null if the request is not addressed to a model.
+     */
+    default String getModel() {
+        return null;
+    }
+
+    /**
+     * Returns the additional headers sent with this request.
+     *
+     * @return the headers, empty by default.
+     */
+    default Map<String, String> getHeaders() {
+        return Map.of();
+    }
+
     /**
      * Returns the body of the request as a JSON string.
+     * It is not sent when the HTTP method type does not permit a body, see {@link MethodType#permitsBody()}.
      *
-     * @return the body of the request.
+     * @return the body of the request, empty by default.
      * @throws JsonProcessingException if an error occurs while processing JSON.
      */
-    String getBody() throws JsonProcessingException;
+    default String getBody() throws JsonProcessingException {
+        return "";
+    }
+
+    /**
+     * Returns an estimate of the size of the body of the request, used to decide whether it is worth compressing.
+     *
+     * @return the estimated size in bytes, or -1 if it is unknown, as by default.
+     */
+    default long estimateBodySize() {
+        return -1;
+    }
 
     /**
      * Deserializes the JSON response into an object of type T.
@@ -40,4 +81,76 @@ public interface IMethod<T> {
      * @throws EasyWebUIException if an error occurs while parsing JSON.
      */
     T deserialize(String json) throws EasyWebUIException;
-}
\ No newline at end of file
+
+    /**
+     * Writes the body of the request as JSON into the provided stream.
+     * The stream must not be closed by the implementation.
+     *
+     * @param out the stream the body is written to.
+     * @throws IOException if an error occurs while writing the body.
+     */
+    default void writeBody(OutputStream out) throws IOException {
+        out.write(getBody().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deserializes the JSON response read from the provided stream into an object of type T.
+     *
+     * @param in the stream of the JSON response.
+     * @return the deserialized object of type T.
+     * @throws EasyWebUIException if an error occurs while parsing JSON.
+     * @throws IOException        if an error occurs while reading the stream.
+     */
+    default T deserialize(InputStream in) throws EasyWebUIException, IOException {
+        return deserialize(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns whether the response of this method may be answered from a response cache,
+     * when the client has one. Only methods whose response is fully determined by their request should be cacheable.
+     *
+     * @return true if the response is cacheable, false by default.
+     */
+    default boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * Returns whether sending this method more than once has the same effect as sending it once,
+     * so a duplicate may be sent when it is slow to answer, see {@link es.grayapps.resilience.HedgingPolicy}.
+     *
+     * @return true if the method is idempotent, false by default.
+     */
+    default boolean isIdempotent() {
+        return false;
+    }
+
+    /**
+     * Returns the time the response of this method is kept in a response cache.
+     *
+     * @return the time to live, or null to use the default of the cache.
+     */
+    default Duration getCacheTtl() {
+        return null;
+    }
+
+    /**
+     * Returns the time the execution of this method may take, including retries, after which its request is
+     * cancelled. A timeout passed to the execution takes precedence over it.
+     *
+     * @return the timeout, or null for none, as by default.
+     */
+    default Duration getTimeout() {
+        return null;
+    }
+
+    /**
+     * Returns a discriminator added to the cache key of this method, for settings that change how the response
+     * is deserialized without changing the request.
+     *
+     * @return the cache variant, empty by default.
+     */
+    default String getCacheVariant() {
+        return "";
+    }
+}
@@ -4,5 +4,14 @@ package es.grayapps.methods;
  * MethodType is an enum that represents the HTTP method types.
  */
 public enum MethodType {
-    GET, POST, DELETE, HEAD
+    GET, POST, DELETE, HEAD;
+
+    /**
+     * Returns whether requests of this type carry a body.
+     *
+     * @return true for POST, false for the other types.
+     */
+    public boolean permitsBody() {
+        return this == POST;
+    }
 }
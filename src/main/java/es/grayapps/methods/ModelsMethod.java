@@ -0,0 +1,91 @@
+package es.grayapps.methods;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import es.grayapps.exceptions.EasyWebUIException;
+import es.grayapps.methods.response.ModelInfo;
+import es.grayapps.methods.response.ModelsResponse;
+import es.grayapps.utils.JsonCodec;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * ModelsMethod is a class that represents a method to list the models available on the server.
+ * <p>
+ * The list rarely changes, so the method is cacheable: with a response cache, it is only requested again
+ * once its time to live expires.
+ */
+public class ModelsMethod implements IMethod<ModelsResponse>, Serializable {
+
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    private final Duration cacheTtl;
+
+    /**
+     * Creates a new ModelsMethod, whose response is cached for five minutes.
+     */
+    public ModelsMethod() {
+        this(DEFAULT_TTL);
+    }
+
+    /**
+     * Creates a new ModelsMethod, whose response is cached for the provided time.
+     *
+     * @param cacheTtl the time the list of models is kept in the response cache.
+     * @throws NullPointerException if cacheTtl is null.
+     */
+    public ModelsMethod(Duration cacheTtl) {
+        this.cacheTtl = Objects.requireNonNull(cacheTtl);
+    }
+
+    @Override
+    public MethodType getMethod() {
+        return MethodType.GET;
+    }
+
+    @Override
+    public String getPath() {
+        return "/api/models";
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+
+    /**
+     * Deserializes the JSON response into a ModelsResponse object.
+     *
+     * @param json the JSON response.
+     * @return the deserialized ModelsResponse.
+     * @throws EasyWebUIException if an error occurs while parsing JSON.
+     */
+    @Override
+    public ModelsResponse deserialize(String json) throws EasyWebUIException {
+        try {
+            JsonNode data = JsonCodec.getDefault().readerFor(JsonNode.class).readTree(json).path("data");
+            List<ModelInfo> models = new ArrayList<>(data.size());
+            for (JsonNode model : data) {
+                models.add(new ModelInfo(model.path("id").asText(null), model.path("name").asText(null),
+                        model.path("owned_by").asText(null)));
+            }
+            return new ModelsResponse(models);
+        } catch (JsonProcessingException e) {
+            throw new EasyWebUIException("Error parsing json", e);
+        }
+    }
+}
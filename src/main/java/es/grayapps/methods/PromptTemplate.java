@@ -0,0 +1,212 @@
+package es.grayapps.methods;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.utils.JsonCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * PromptTemplate is a class that compiles the fixed leading messages of the completions of a model,
+ * such as a long system prompt, so only the messages that change are encoded for each request.
+ * <p>
+ * The start of the body, up to the last fixed message, is encoded once as UTF-8 bytes, and the methods created by
+ * the template copy those bytes as they are before their own messages. The template also exposes a stable hash of
+ * that prefix, which can be sent in a header so servers and proxies that cache prompt prefixes can route the
+ * requests sharing it together.
+ */
+public final class PromptTemplate implements Serializable {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String model;
+    private final List<CompletionMessage> prefix;
+    private final byte[] encodedPrefix;
+    private final String prefixHash;
+    private final Map<String, String> headers;
+
+    private PromptTemplate(PromptTemplateBuilder builder) {
+        this.model = builder.model;
+        this.prefix = List.copyOf(builder.prefix);
+        this.encodedPrefix = encode(model, prefix);
+        this.prefixHash = hash(encodedPrefix);
+        this.headers = builder.prefixHashHeader != null ? Map.of(builder.prefixHashHeader, prefixHash) : Map.of();
+    }
+
+    /**
+     * Creates a new builder of PromptTemplate.
+     *
+     * @param model the model the completions are asked to.
+     * @return a new builder.
+     * @throws NullPointerException if model is null.
+     */
+    public static PromptTemplateBuilder builder(String model) {
+        return new PromptTemplateBuilder(model);
+    }
+
+    /**
+     * Creates a completion method with the fixed messages of this template followed by a user message.
+     *
+     * @param message the content of the user message.
+     * @return a new CompletionMethod.
+     * @throws NullPointerException if message is null.
+     */
+    public CompletionMethod method(String message) {
+        return method(List.of(new CompletionMessage(Objects.requireNonNull(message), "user")));
+    }
+
+    /**
+     * Creates a completion method with the fixed messages of this template followed by the provided messages.
+     *
+     * @param messages the messages that follow the fixed ones.
+     * @return a new CompletionMethod.
+     * @throws NullPointerException if messages is null.
+     */
+    public CompletionMethod method(List<CompletionMessage> messages) {
+        List<CompletionMessage> all = new ArrayList<>(prefix.size() + messages.size());
+        all.addAll(prefix);
+        all.addAll(messages);
+        return new CompletionMethod(this, all);
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the fixed leading messages of this template.
+     *
+     * @return the fixed messages.
+     */
+    public List<CompletionMessage> getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Returns the SHA-256 hash of the encoded prefix of the bodies, the same for every template with the same model
+     * and fixed messages.
+     *
+     * @return the hash, as a hexadecimal string.
+     */
+    public String getPrefixHash() {
+        return prefixHash;
+    }
+
+    /**
+     * Returns the headers sent with the methods of this template.
+     *
+     * @return the headers, empty unless a prefix hash header was set.
+     */
+    Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Writes the encoded prefix of the body: the opening of the request, the model and the fixed messages,
+     * leaving the array of messages open.
+     *
+     * @param out the stream the prefix is written to.
+     * @throws IOException if an error occurs while writing the prefix.
+     */
+    void writePrefix(OutputStream out) throws IOException {
+        out.write(encodedPrefix);
+    }
+
+    private static byte[] encode(String model, List<CompletionMessage> prefix) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + 64 * prefix.size());
+        try (JsonGenerator generator = JsonCodec.getDefault().getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartObject();
+            generator.writeStringField("model", model);
+            generator.writeFieldName("messages");
+            generator.writeStartArray();
+            for (CompletionMessage message : prefix) {
+                generator.writeRawValue(message.toJson());
+            }
+        } catch (IOException e) {
+            throw new EasyWebUIExceptionRuntime(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] bytes) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        char[] chars = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Builder for the PromptTemplate class.
+     */
+    public static class PromptTemplateBuilder {
+        private final String model;
+        private final List<CompletionMessage> prefix = new ArrayList<>();
+        private String prefixHashHeader;
+
+        private PromptTemplateBuilder(String model) {
+            this.model = Objects.requireNonNull(model);
+        }
+
+        /**
+         * Adds a fixed system message.
+         *
+         * @param message the content of the system message.
+         * @return the current instance of PromptTemplateBuilder.
+         * @throws NullPointerException if message is null.
+         */
+        public PromptTemplateBuilder system(String message) {
+            return message(new CompletionMessage(Objects.requireNonNull(message), "system"));
+        }
+
+        /**
+         * Adds a fixed message, such as an example exchange.
+         *
+         * @param message the message.
+         * @return the current instance of PromptTemplateBuilder.
+         * @throws NullPointerException if message is null.
+         */
+        public PromptTemplateBuilder message(CompletionMessage message) {
+            prefix.add(Objects.requireNonNull(message));
+            return this;
+        }
+
+        /**
+         * Sets the header the prefix hash is sent in, such as {@code X-Prompt-Prefix-Hash}. By default it is not sent.
+         *
+         * @param name the name of the header.
+         * @return the current instance of PromptTemplateBuilder.
+         * @throws NullPointerException if name is null.
+         */
+        public PromptTemplateBuilder prefixHashHeader(String name) {
+            this.prefixHashHeader = Objects.requireNonNull(name);
+            return this;
+        }
+
+        /**
+         * Builds an instance of PromptTemplate with the provided parameters, encoding its prefix.
+         *
+         * @return a new instance of PromptTemplate.
+         */
+        public PromptTemplate build() {
+            return new PromptTemplate(this);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package es.grayapps.methods.response;
+
+import java.io.Serializable;
+
+/**
+ * CompletionChoice is a class that represents one of the choices generated for a completion.
+ */
+public class CompletionChoice implements Serializable {
+
+    private final int index;
+    private final String content;
+    private final String role;
+    private final String reasoning;
+    private final String finishReason;
+
+    /**
+     * Creates a new instance of CompletionChoice.
+     *
+     * @param index        the index of the choice.
+     * @param content      the content of the choice.
+     * @param role         the role of the choice.
+     * @param reasoning    the reasoning of the choice, or null if it was not kept or there was none.
+     * @param finishReason the reason the generation of the choice finished, or null if it is not known.
+     */
+    public CompletionChoice(int index, String content, String role, String reasoning, String finishReason) {
+        this.index = index;
+        this.content = content;
+        this.role = role;
+        this.reasoning = reasoning;
+        this.finishReason = finishReason;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Returns the reasoning of the choice, the text of the {@code <think>} sections of reasoning models.
+     *
+     * @return the reasoning of the choice, or null if it was not kept or there was none.
+     */
+    public String getReasoning() {
+        return reasoning;
+    }
+
+    /**
+     * Returns the reason the generation of the choice finished, such as {@code stop} or {@code length}.
+     *
+     * @return the finish reason, or null if it is not known.
+     */
+    public String getFinishReason() {
+        return finishReason;
+    }
+}
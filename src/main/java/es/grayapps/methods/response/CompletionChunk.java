@@ -0,0 +1,77 @@
+package es.grayapps.methods.response;
+
+import java.io.Serializable;
+
+/**
+ * CompletionChunk is a class that represents a single incremental piece of a streamed completion.
+ */
+public class CompletionChunk implements Serializable {
+
+    private final String id;
+    private final int index;
+    private final String content;
+    private final String role;
+    private final String finishReason;
+
+    /**
+     * Creates a new instance of CompletionChunk.
+     *
+     * @param id           the id of the completion this chunk belongs to.
+     * @param index        the index of the choice this chunk belongs to.
+     * @param content      the content delta of the chunk, may be empty.
+     * @param role         the role of the chunk, usually only present on the first chunk.
+     * @param finishReason the reason the generation finished, only present on the last chunk.
+     */
+    public CompletionChunk(String id, int index, String content, String role, String finishReason) {
+        this.id = id;
+        this.index = index;
+        this.content = content;
+        this.role = role;
+        this.finishReason = finishReason;
+    }
+
+    /**
+     * Returns the id of the completion this chunk belongs to.
+     *
+     * @return the id of the completion.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the index of the choice this chunk belongs to.
+     *
+     * @return the index of the choice.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the content delta of the chunk.
+     *
+     * @return the content delta, or an empty string if the chunk carries no content.
+     */
+    public String getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the role of the chunk.
+     *
+     * @return the role, or null if the chunk does not carry it.
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Returns the reason the generation finished.
+     *
+     * @return the finish reason, or null if the generation has not finished yet.
+     */
+    public String getFinishReason() {
+        return finishReason;
+    }
+}
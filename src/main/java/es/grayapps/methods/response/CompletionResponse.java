@@ -1,14 +1,23 @@
 package es.grayapps.methods.response;
 
 import java.io.Serializable;
+import java.util.List;
 
 /**
  * CompletionResponse is a class that represents the response of a completion method.
+ * <p>
+ * The content, role and reasoning are those of the first choice. When several choices are asked for,
+ * all of them are available through {@link #getChoices()}. The tokens used are available when the server reports
+ * them, and the times measured by the client when the response was received from the server.
  */
-public class CompletionResponse implements Serializable {
+public class CompletionResponse implements Serializable, TimedResponse<CompletionResponse> {
 
     private final String content;
     private final String role;
+    private final String reasoning;
+    private final List<CompletionChoice> choices;
+    private final CompletionUsage usage;
+    private final ResponseTiming timing;
 
     /**
      * Creates a new instance of CompletionResponse with the provided content and role.
@@ -17,8 +26,52 @@ public class CompletionResponse implements Serializable {
      * @param role    the role of the response.
      */
     public CompletionResponse(String content, String role) {
-        this.content = content;
-        this.role = role;
+        this(content, role, null);
+    }
+
+    /**
+     * Creates a new instance of CompletionResponse with the provided content, role and reasoning.
+     *
+     * @param content   the content of the response.
+     * @param role      the role of the response.
+     * @param reasoning the reasoning of the response.
+     */
+    public CompletionResponse(String content, String role, String reasoning) {
+        this(List.of(new CompletionChoice(0, content, role, reasoning, null)));
+    }
+
+    /**
+     * Creates a new instance of CompletionResponse with the provided choices.
+     *
+     * @param choices the choices of the response, ordered by index.
+     * @throws IllegalArgumentException if there are no choices.
+     */
+    public CompletionResponse(List<CompletionChoice> choices) {
+        this(choices, null);
+    }
+
+    /**
+     * Creates a new instance of CompletionResponse with the provided choices and usage.
+     *
+     * @param choices the choices of the response, ordered by index.
+     * @param usage   the tokens used, or null if the server did not report them.
+     * @throws IllegalArgumentException if there are no choices.
+     */
+    public CompletionResponse(List<CompletionChoice> choices, CompletionUsage usage) {
+        this(List.copyOf(choices), usage, null);
+    }
+
+    private CompletionResponse(List<CompletionChoice> choices, CompletionUsage usage, ResponseTiming timing) {
+        if (choices.isEmpty()) {
+            throw new IllegalArgumentException("At least one choice is required");
+        }
+        CompletionChoice first = choices.get(0);
+        this.content = first.getContent();
+        this.role = first.getRole();
+        this.reasoning = first.getReasoning();
+        this.choices = choices;
+        this.usage = usage;
+        this.timing = timing;
     }
 
     /**
@@ -38,4 +91,63 @@ public class CompletionResponse implements Serializable {
     public String getRole() {
         return role;
     }
+
+    /**
+     * Returns the reasoning of the response, the text of the {@code <think>} sections of reasoning models.
+     *
+     * @return the reasoning of the response, or null if it was not kept or there was none.
+     */
+    public String getReasoning() {
+        return reasoning;
+    }
+
+    /**
+     * Returns the choices of the response, ordered by index. There is only one unless several were asked for
+     * with {@link es.grayapps.methods.CompletionOptions.CompletionOptionsBuilder#n(Integer)}.
+     *
+     * @return the choices of the response.
+     */
+    public List<CompletionChoice> getChoices() {
+        return choices;
+    }
+
+    /**
+     * Returns the reason the generation of the first choice finished, such as {@code stop} or {@code length}.
+     *
+     * @return the finish reason, or null if it is not known.
+     */
+    public String getFinishReason() {
+        return choices.get(0).getFinishReason();
+    }
+
+    /**
+     * Returns the tokens the completion consumed and generated.
+     *
+     * @return the usage, or null if the server did not report it.
+     */
+    public CompletionUsage getUsage() {
+        return usage;
+    }
+
+    /**
+     * Returns the times measured by the client while receiving this response. A response answered from a response
+     * cache keeps the timing of the request that fetched it.
+     *
+     * @return the timing, or null if it was not measured.
+     */
+    @Override
+    public ResponseTiming getTiming() {
+        return timing;
+    }
+
+    /**
+     * Returns a copy of this response with the provided timing.
+     *
+     * @param timing the times measured by the client.
+     * @return a copy of this response.
+     */
+    @Override
+    public CompletionResponse withTiming(ResponseTiming timing) {
+        return new CompletionResponse(choices, usage, timing);
+    }
 }
@@ -0,0 +1,67 @@
+package es.grayapps.methods.response;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+/**
+ * CompletionUsage is a class that represents the tokens a completion consumed and generated, as reported
+ * by the server, with the time the server took to generate it when reported too.
+ */
+public class CompletionUsage implements Serializable {
+
+    private final int promptTokens;
+    private final int completionTokens;
+    private final int totalTokens;
+    private final long serverDurationNanos;
+
+    /**
+     * Creates a new instance of CompletionUsage.
+     *
+     * @param promptTokens        the number of tokens of the prompt.
+     * @param completionTokens    the number of tokens generated.
+     * @param totalTokens         the total number of tokens.
+     * @param serverDurationNanos the time the server took to generate the completion, or -1 if it is not known.
+     */
+    public CompletionUsage(int promptTokens, int completionTokens, int totalTokens, long serverDurationNanos) {
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.totalTokens = totalTokens;
+        this.serverDurationNanos = serverDurationNanos;
+    }
+
+    public int getPromptTokens() {
+        return promptTokens;
+    }
+
+    public int getCompletionTokens() {
+        return completionTokens;
+    }
+
+    public int getTotalTokens() {
+        return totalTokens;
+    }
+
+    /**
+     * Returns the time the server reported it took to generate the completion.
+     *
+     * @return the server duration, or null if the server did not report it.
+     */
+    public Duration getServerDuration() {
+        return serverDurationNanos >= 0 ? Duration.ofNanos(serverDurationNanos) : null;
+    }
+
+    /**
+     * Returns the number of tokens generated per second of server time.
+     *
+     * @return the tokens per second, or NaN if the server did not report its duration.
+     */
+    public double getServerTokensPerSecond() {
+        return serverDurationNanos > 0 ? completionTokens * 1e9 / serverDurationNanos : Double.NaN;
+    }
+
+    @Override
+    public String toString() {
+        return "CompletionUsage{promptTokens=" + promptTokens + ", completionTokens=" + completionTokens
+                + ", totalTokens=" + totalTokens + '}';
+    }
+}
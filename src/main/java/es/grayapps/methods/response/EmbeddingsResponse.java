@@ -0,0 +1,58 @@
+package es.grayapps.methods.response;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * EmbeddingsResponse is a class that represents the response of an embeddings method.
+ * <p>
+ * The embeddings are kept as primitive float arrays, in the order of the inputs they were computed for.
+ */
+public class EmbeddingsResponse implements Serializable {
+
+    private final String model;
+    private final List<float[]> embeddings;
+
+    /**
+     * Creates a new instance of EmbeddingsResponse.
+     *
+     * @param model      the model that computed the embeddings.
+     * @param embeddings the embeddings, in the order of the inputs.
+     */
+    public EmbeddingsResponse(String model, List<float[]> embeddings) {
+        this.model = model;
+        this.embeddings = List.copyOf(embeddings);
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the embeddings, in the order of the inputs. The arrays must not be modified.
+     *
+     * @return the embeddings.
+     */
+    public List<float[]> getEmbeddings() {
+        return embeddings;
+    }
+
+    /**
+     * Returns the embedding of the input at the provided position.
+     *
+     * @param index the position of the input.
+     * @return the embedding.
+     */
+    public float[] getEmbedding(int index) {
+        return embeddings.get(index);
+    }
+
+    /**
+     * Returns the number of embeddings.
+     *
+     * @return the number of embeddings.
+     */
+    public int size() {
+        return embeddings.size();
+    }
+}
@@ -0,0 +1,43 @@
+package es.grayapps.methods.response;
+
+import java.io.Serializable;
+
+/**
+ * ModelInfo is a class that represents a model available on the server.
+ */
+public class ModelInfo implements Serializable {
+
+    private final String id;
+    private final String name;
+    private final String ownedBy;
+
+    /**
+     * Creates a new instance of ModelInfo.
+     *
+     * @param id      the id of the model, used to address it in requests.
+     * @param name    the display name of the model.
+     * @param ownedBy the owner of the model, for example {@code ollama} or {@code openai}.
+     */
+    public ModelInfo(String id, String name, String ownedBy) {
+        this.id = id;
+        this.name = name;
+        this.ownedBy = ownedBy;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getOwnedBy() {
+        return ownedBy;
+    }
+
+    @Override
+    public String toString() {
+        return "ModelInfo{id='" + id + "', name='" + name + "', ownedBy='" + ownedBy + "'}";
+    }
+}
@@ -0,0 +1,30 @@
+package es.grayapps.methods.response;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * ModelsResponse is a class that represents the response of a models method, the models available on the server.
+ */
+public class ModelsResponse implements Serializable {
+
+    private final List<ModelInfo> models;
+
+    /**
+     * Creates a new instance of ModelsResponse with the provided models.
+     *
+     * @param models the models.
+     */
+    public ModelsResponse(List<ModelInfo> models) {
+        this.models = List.copyOf(models);
+    }
+
+    /**
+     * Returns the models available on the server.
+     *
+     * @return the models.
+     */
+    public List<ModelInfo> getModels() {
+        return models;
+    }
+}
@@ -0,0 +1,46 @@
+package es.grayapps.methods.response;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+/**
+ * ResponseTiming is a class that represents the times of a request measured by the client: from sending it to
+ * receiving the start of the response, and to having the response deserialized.
+ */
+public class ResponseTiming implements Serializable {
+
+    private final long timeToFirstByteNanos;
+    private final long totalNanos;
+
+    /**
+     * Creates a new instance of ResponseTiming.
+     *
+     * @param timeToFirstByteNanos the time until the start of the response was received.
+     * @param totalNanos           the time until the response was deserialized.
+     */
+    public ResponseTiming(long timeToFirstByteNanos, long totalNanos) {
+        this.timeToFirstByteNanos = timeToFirstByteNanos;
+        this.totalNanos = totalNanos;
+    }
+
+    public Duration getTimeToFirstByte() {
+        return Duration.ofNanos(timeToFirstByteNanos);
+    }
+
+    public Duration getTotal() {
+        return Duration.ofNanos(totalNanos);
+    }
+
+    public long getTimeToFirstByteNanos() {
+        return timeToFirstByteNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseTiming{timeToFirstByte=" + getTimeToFirstByte() + ", total=" + getTotal() + '}';
+    }
+}
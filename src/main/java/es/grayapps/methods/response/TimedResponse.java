@@ -0,0 +1,25 @@
+package es.grayapps.methods.response;
+
+/**
+ * TimedResponse is an interface implemented by the responses that carry the times measured by the client
+ * while receiving them. The client attaches the timing once the response is deserialized.
+ *
+ * @param <R> the type of the response.
+ */
+public interface TimedResponse<R> {
+
+    /**
+     * Returns a copy of this response with the provided timing.
+     *
+     * @param timing the times measured by the client.
+     * @return a copy of this response.
+     */
+    R withTiming(ResponseTiming timing);
+
+    /**
+     * Returns the times measured by the client while receiving this response.
+     *
+     * @return the timing, or null if it was not measured.
+     */
+    ResponseTiming getTiming();
+}
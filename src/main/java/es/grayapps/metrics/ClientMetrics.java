@@ -0,0 +1,141 @@
+package es.grayapps.metrics;
+
+/**
+ * ClientMetrics is an interface that receives the measurements taken while executing methods.
+ * <p>
+ * Every measurement is tagged with the path and model of the method. Durations are given in nanoseconds
+ * and sizes in bytes, as primitives, so recording them does not allocate. All the methods do nothing by default,
+ * implementations override the ones they are interested in. They are called on the HTTP client threads,
+ * so they must be thread-safe and must not block.
+ */
+public interface ClientMetrics {
+
+    /**
+     * Returns the metrics that record nothing, used when no metrics are configured.
+     *
+     * @return the no-op metrics.
+     */
+    static ClientMetrics noop() {
+        return NoopClientMetrics.INSTANCE;
+    }
+
+    /**
+     * Called when a request is sent, it is in flight until {@link #requestFinished} is called.
+     *
+     * @param tags the tags of the request.
+     */
+    default void requestStarted(MetricTags tags) {
+    }
+
+    /**
+     * Called when a request finished, successfully or not.
+     *
+     * @param tags          the tags of the request.
+     * @param durationNanos the time from the request being sent to its response being deserialized.
+     * @param error         the error the request failed with, or null if it succeeded.
+     */
+    default void requestFinished(MetricTags tags, long durationNanos, Throwable error) {
+    }
+
+    /**
+     * Called when a failed attempt of a request is going to be retried.
+     *
+     * @param tags    the tags of the request.
+     * @param attempt the number of the attempt that failed, starting at 1.
+     * @param error   the error the attempt failed with.
+     */
+    default void retry(MetricTags tags, int attempt, Throwable error) {
+    }
+
+    /**
+     * Called when the state of the client-side limiter of a model changes.
+     *
+     * @param model    the model, empty for the methods not addressed to a model.
+     * @param limit    the current concurrency limit.
+     * @param inFlight the number of requests in flight.
+     * @param queued   the number of requests waiting for the limiter.
+     */
+    default void limiterState(String model, int limit, int inFlight, int queued) {
+    }
+
+    /**
+     * Called when a request is rejected by the client-side limiter, before being sent.
+     *
+     * @param tags the tags of the request.
+     */
+    default void limiterRejected(MetricTags tags) {
+    }
+
+    /**
+     * Called when a request leaves the dispatcher queue and starts running.
+     *
+     * @param tags      the tags of the request.
+     * @param waitNanos the time the request waited for a free slot of the dispatcher.
+     */
+    default void queueWait(MetricTags tags, long waitNanos) {
+    }
+
+    /**
+     * Called when a DNS lookup made for a request finished.
+     *
+     * @param tags          the tags of the request.
+     * @param durationNanos the time of the lookup.
+     */
+    default void dnsLookup(MetricTags tags, long durationNanos) {
+    }
+
+    /**
+     * Called when a connection opened for a request is established, including the TLS handshake.
+     *
+     * @param tags          the tags of the request.
+     * @param durationNanos the time to connect.
+     */
+    default void connect(MetricTags tags, long durationNanos) {
+    }
+
+    /**
+     * Called when the first byte of the response of a request arrives.
+     *
+     * @param tags          the tags of the request.
+     * @param durationNanos the time from the request starting to be written to the response starting to be read.
+     */
+    default void timeToFirstByte(MetricTags tags, long durationNanos) {
+    }
+
+    /**
+     * Called when the body of a request has been written.
+     *
+     * @param tags  the tags of the request.
+     * @param bytes the size of the body.
+     */
+    default void requestBytes(MetricTags tags, long bytes) {
+    }
+
+    /**
+     * Called when a compressed request body has been written.
+     *
+     * @param tags              the tags of the request.
+     * @param uncompressedBytes the size of the body before compression.
+     * @param compressedBytes   the size of the body sent.
+     */
+    default void requestCompressed(MetricTags tags, long uncompressedBytes, long compressedBytes) {
+    }
+
+    /**
+     * Called when the body of a response has been read.
+     *
+     * @param tags  the tags of the request.
+     * @param bytes the size of the body.
+     */
+    default void responseBytes(MetricTags tags, long bytes) {
+    }
+
+    /**
+     * Called when the body of a response has been deserialized.
+     *
+     * @param tags          the tags of the request.
+     * @param durationNanos the time to deserialize the body, including reading it from the socket.
+     */
+    default void deserialization(MetricTags tags, long durationNanos) {
+    }
+}
@@ -0,0 +1,230 @@
+package es.grayapps.metrics;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * CompositeEventListener is a class that forwards every event of an HTTP call to two listeners, in order,
+ * so the metrics of the client are measured without replacing the listener of a user-supplied client.
+ */
+final class CompositeEventListener extends EventListener {
+
+    private final EventListener first;
+    private final EventListener second;
+
+    private CompositeEventListener(EventListener first, EventListener second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Returns a factory of listeners that forward the events of each call to the listeners of both factories.
+     *
+     * @param first  the factory of the listeners notified first.
+     * @param second the factory of the listeners notified second.
+     * @return the listener factory.
+     */
+    static EventListener.Factory factory(EventListener.Factory first, EventListener.Factory second) {
+        return call -> {
+            EventListener firstListener = first.create(call);
+            EventListener secondListener = second.create(call);
+            if (firstListener == EventListener.NONE) {
+                return secondListener;
+            }
+            if (secondListener == EventListener.NONE) {
+                return firstListener;
+            }
+            return new CompositeEventListener(firstListener, secondListener);
+        };
+    }
+
+    @Override
+    public void callStart(@NotNull Call call) {
+        first.callStart(call);
+        second.callStart(call);
+    }
+
+    @Override
+    public void proxySelectStart(@NotNull Call call, @NotNull HttpUrl url) {
+        first.proxySelectStart(call, url);
+        second.proxySelectStart(call, url);
+    }
+
+    @Override
+    public void proxySelectEnd(@NotNull Call call, @NotNull HttpUrl url, @NotNull List<Proxy> proxies) {
+        first.proxySelectEnd(call, url, proxies);
+        second.proxySelectEnd(call, url, proxies);
+    }
+
+    @Override
+    public void dnsStart(@NotNull Call call, @NotNull String domainName) {
+        first.dnsStart(call, domainName);
+        second.dnsStart(call, domainName);
+    }
+
+    @Override
+    public void dnsEnd(@NotNull Call call, @NotNull String domainName, @NotNull List<InetAddress> inetAddressList) {
+        first.dnsEnd(call, domainName, inetAddressList);
+        second.dnsEnd(call, domainName, inetAddressList);
+    }
+
+    @Override
+    public void connectStart(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy) {
+        first.connectStart(call, inetSocketAddress, proxy);
+        second.connectStart(call, inetSocketAddress, proxy);
+    }
+
+    @Override
+    public void secureConnectStart(@NotNull Call call) {
+        first.secureConnectStart(call);
+        second.secureConnectStart(call);
+    }
+
+    @Override
+    public void secureConnectEnd(@NotNull Call call, @Nullable Handshake handshake) {
+        first.secureConnectEnd(call, handshake);
+        second.secureConnectEnd(call, handshake);
+    }
+
+    @Override
+    public void connectEnd(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy,
+                           @Nullable Protocol protocol) {
+        first.connectEnd(call, inetSocketAddress, proxy, protocol);
+        second.connectEnd(call, inetSocketAddress, proxy, protocol);
+    }
+
+    @Override
+    public void connectFailed(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy,
+                              @Nullable Protocol protocol, @NotNull IOException ioe) {
+        first.connectFailed(call, inetSocketAddress, proxy, protocol, ioe);
+        second.connectFailed(call, inetSocketAddress, proxy, protocol, ioe);
+    }
+
+    @Override
+    public void connectionAcquired(@NotNull Call call, @NotNull Connection connection) {
+        first.connectionAcquired(call, connection);
+        second.connectionAcquired(call, connection);
+    }
+
+    @Override
+    public void connectionReleased(@NotNull Call call, @NotNull Connection connection) {
+        first.connectionReleased(call, connection);
+        second.connectionReleased(call, connection);
+    }
+
+    @Override
+    public void requestHeadersStart(@NotNull Call call) {
+        first.requestHeadersStart(call);
+        second.requestHeadersStart(call);
+    }
+
+    @Override
+    public void requestHeadersEnd(@NotNull Call call, @NotNull Request request) {
+        first.requestHeadersEnd(call, request);
+        second.requestHeadersEnd(call, request);
+    }
+
+    @Override
+    public void requestBodyStart(@NotNull Call call) {
+        first.requestBodyStart(call);
+        second.requestBodyStart(call);
+    }
+
+    @Override
+    public void requestBodyEnd(@NotNull Call call, long byteCount) {
+        first.requestBodyEnd(call, byteCount);
+        second.requestBodyEnd(call, byteCount);
+    }
+
+    @Override
+    public void requestFailed(@NotNull Call call, @NotNull IOException ioe) {
+        first.requestFailed(call, ioe);
+        second.requestFailed(call, ioe);
+    }
+
+    @Override
+    public void responseHeadersStart(@NotNull Call call) {
+        first.responseHeadersStart(call);
+        second.responseHeadersStart(call);
+    }
+
+    @Override
+    public void responseHeadersEnd(@NotNull Call call, @NotNull Response response) {
+        first.responseHeadersEnd(call, response);
+        second.responseHeadersEnd(call, response);
+    }
+
+    @Override
+    public void responseBodyStart(@NotNull Call call) {
+        first.responseBodyStart(call);
+        second.responseBodyStart(call);
+    }
+
+    @Override
+    public void responseBodyEnd(@NotNull Call call, long byteCount) {
+        first.responseBodyEnd(call, byteCount);
+        second.responseBodyEnd(call, byteCount);
+    }
+
+    @Override
+    public void responseFailed(@NotNull Call call, @NotNull IOException ioe) {
+        first.responseFailed(call, ioe);
+        second.responseFailed(call, ioe);
+    }
+
+    @Override
+    public void callEnd(@NotNull Call call) {
+        first.callEnd(call);
+        second.callEnd(call);
+    }
+
+    @Override
+    public void callFailed(@NotNull Call call, @NotNull IOException ioe) {
+        first.callFailed(call, ioe);
+        second.callFailed(call, ioe);
+    }
+
+    @Override
+    public void canceled(@NotNull Call call) {
+        first.canceled(call);
+        second.canceled(call);
+    }
+
+    @Override
+    public void satisfactionFailure(@NotNull Call call, @NotNull Response response) {
+        first.satisfactionFailure(call, response);
+        second.satisfactionFailure(call, response);
+    }
+
+    @Override
+    public void cacheHit(@NotNull Call call, @NotNull Response response) {
+        first.cacheHit(call, response);
+        second.cacheHit(call, response);
+    }
+
+    @Override
+    public void cacheMiss(@NotNull Call call) {
+        first.cacheMiss(call);
+        second.cacheMiss(call);
+    }
+
+    @Override
+    public void cacheConditionalHit(@NotNull Call call, @NotNull Response cachedResponse) {
+        first.cacheConditionalHit(call, cachedResponse);
+        second.cacheConditionalHit(call, cachedResponse);
+    }
+}
@@ -0,0 +1,74 @@
+package es.grayapps.metrics;
+
+import es.grayapps.methods.IMethod;
+
+import java.util.Objects;
+
+/**
+ * MetricTags is a class that holds the dimensions every measurement of a request is tagged with,
+ * the path of the method and the model it is addressed to.
+ * <p>
+ * It is attached to the HTTP request, so the measurements taken by the HTTP client can be tagged too.
+ */
+public final class MetricTags {
+
+    private final String path;
+    private final String model;
+
+    /**
+     * Creates a new instance of MetricTags.
+     *
+     * @param path  the path of the method.
+     * @param model the model, or null if the method is not addressed to a model.
+     * @throws NullPointerException if path is null.
+     */
+    public MetricTags(String path, String model) {
+        this.path = Objects.requireNonNull(path);
+        this.model = model;
+    }
+
+    /**
+     * Returns the tags of the provided method.
+     *
+     * @param method the method.
+     * @return the tags of the method.
+     */
+    public static MetricTags of(IMethod<?> method) {
+        return new MetricTags(method.getPath(), method.getModel());
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the model the request is addressed to.
+     *
+     * @return the model, or null if the request is not addressed to a model.
+     */
+    public String getModel() {
+        return model;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MetricTags)) {
+            return false;
+        }
+        MetricTags that = (MetricTags) o;
+        return path.equals(that.path) && Objects.equals(model, that.model);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * path.hashCode() + Objects.hashCode(model);
+    }
+
+    @Override
+    public String toString() {
+        return "MetricTags{path='" + path + "', model='" + model + "'}";
+    }
+}
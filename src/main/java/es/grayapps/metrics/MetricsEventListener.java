@@ -0,0 +1,135 @@
+package es.grayapps.metrics;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * MetricsEventListener is a class that turns the events of an HTTP call into measurements.
+ * <p>
+ * One listener is created per call, only for the calls whose request carries {@link MetricTags}.
+ * The events of a call are delivered sequentially, so the listener keeps its timestamps in plain fields.
+ * The queue wait is the time between the call being started and the first event of its execution,
+ * which is either the selection of a route or the acquisition of a pooled connection.
+ */
+public final class MetricsEventListener extends EventListener {
+
+    private final ClientMetrics metrics;
+    private final MetricTags tags;
+    private long callStart;
+    private boolean dispatched;
+    private long dnsStart;
+    private long connectStart;
+    private long requestStart;
+
+    private MetricsEventListener(ClientMetrics metrics, MetricTags tags) {
+        this.metrics = metrics;
+        this.tags = tags;
+    }
+
+    /**
+     * Returns a factory of listeners that report to the provided metrics.
+     *
+     * @param metrics the metrics the measurements are reported to.
+     * @return the listener factory.
+     */
+    public static EventListener.Factory factory(ClientMetrics metrics) {
+        return call -> {
+            MetricTags tags = call.request().tag(MetricTags.class);
+            return tags != null ? new MetricsEventListener(metrics, tags) : EventListener.NONE;
+        };
+    }
+
+    /**
+     * Returns a factory of listeners that report to the provided metrics and forward every event to the listeners of
+     * the provided factory, such as the one of a user-supplied client.
+     *
+     * @param metrics  the metrics the measurements are reported to.
+     * @param delegate the factory of the listeners that keep receiving the events.
+     * @return the listener factory.
+     */
+    public static EventListener.Factory factory(ClientMetrics metrics, EventListener.Factory delegate) {
+        return CompositeEventListener.factory(delegate, factory(metrics));
+    }
+
+    @Override
+    public void callStart(@NotNull Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void proxySelectStart(@NotNull Call call, @NotNull HttpUrl url) {
+        onDispatched();
+    }
+
+    @Override
+    public void dnsStart(@NotNull Call call, @NotNull String domainName) {
+        onDispatched();
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(@NotNull Call call, @NotNull String domainName, @NotNull List<InetAddress> inetAddressList) {
+        metrics.dnsLookup(tags, System.nanoTime() - dnsStart);
+    }
+
+    @Override
+    public void connectStart(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy) {
+        onDispatched();
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void connectEnd(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy,
+                           @Nullable Protocol protocol) {
+        metrics.connect(tags, System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void connectFailed(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy,
+                              @Nullable Protocol protocol, @NotNull IOException ioe) {
+        metrics.connect(tags, System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void connectionAcquired(@NotNull Call call, @NotNull Connection connection) {
+        onDispatched();
+    }
+
+    @Override
+    public void requestHeadersStart(@NotNull Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(@NotNull Call call, long byteCount) {
+        metrics.requestBytes(tags, byteCount);
+    }
+
+    @Override
+    public void responseHeadersStart(@NotNull Call call) {
+        metrics.timeToFirstByte(tags, System.nanoTime() - requestStart);
+    }
+
+    @Override
+    public void responseBodyEnd(@NotNull Call call, long byteCount) {
+        metrics.responseBytes(tags, byteCount);
+    }
+
+    private void onDispatched() {
+        if (!dispatched) {
+            dispatched = true;
+            metrics.queueWait(tags, System.nanoTime() - callStart);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package es.grayapps.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MicrometerClientMetrics is a class that records the measurements of the client in a Micrometer registry.
+ * <p>
+ * Micrometer is an optional dependency, it must be on the classpath to use this class.
+ * Every meter is tagged with {@code path} and {@code model}, and the meters of each pair are looked up once
+ * and reused afterwards. The meters recorded, with the default prefix, are:
+ * <ul>
+ *     <li>{@code easywebui.requests}: timer of the requests, also tagged with {@code outcome} and {@code exception}.</li>
+ *     <li>{@code easywebui.requests.active}: gauge of the requests in flight.</li>
+ *     <li>{@code easywebui.errors}: counter of the failed requests, also tagged with {@code exception}.</li>
+ *     <li>{@code easywebui.retries}: counter of the retried attempts, also tagged with {@code exception}.</li>
+ *     <li>{@code easywebui.limiter.limit}, {@code easywebui.limiter.inflight} and {@code easywebui.limiter.queue}:
+ *     gauges of the client-side limiter of each model, only tagged with {@code model}.</li>
+ *     <li>{@code easywebui.limiter.rejected}: counter of the requests rejected by the client-side limiter.</li>
+ *     <li>{@code easywebui.queue.wait}, {@code easywebui.dns}, {@code easywebui.connect},
+ *     {@code easywebui.ttfb} and {@code easywebui.deserialization}: timers of each phase of the requests.</li>
+ *     <li>{@code easywebui.request.size} and {@code easywebui.response.size}: summaries of the body sizes.</li>
+ *     <li>{@code easywebui.request.uncompressed.size}: summary of the size of the compressed request bodies
+ *     before compression, and {@code easywebui.request.compression.saved}: counter of the bytes saved by compression.</li>
+ * </ul>
+ */
+public class MicrometerClientMetrics implements ClientMetrics {
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+    private final String prefix;
+    private final ConcurrentMap<MetricTags, Meters> meters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, int[]> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance of MicrometerClientMetrics with the {@code easywebui} prefix.
+     *
+     * @param registry the registry the meters are registered in.
+     * @throws NullPointerException if registry is null.
+     */
+    public MicrometerClientMetrics(MeterRegistry registry) {
+        this(registry, "easywebui");
+    }
+
+    /**
+     * Creates a new instance of MicrometerClientMetrics.
+     *
+     * @param registry the registry the meters are registered in.
+     * @param prefix   the prefix of the names of the meters.
+     * @throws NullPointerException if registry or prefix are null.
+     */
+    public MicrometerClientMetrics(MeterRegistry registry, String prefix) {
+        this.registry = Objects.requireNonNull(registry);
+        this.prefix = Objects.requireNonNull(prefix);
+    }
+
+    @Override
+    public void requestStarted(MetricTags tags) {
+        meters(tags).active.incrementAndGet();
+    }
+
+    @Override
+    public void requestFinished(MetricTags tags, long durationNanos, Throwable error) {
+        Meters meters = meters(tags);
+        meters.active.decrementAndGet();
+        if (error == null) {
+            meters.succeeded.record(durationNanos, TimeUnit.NANOSECONDS);
+            return;
+        }
+        String exception = error.getClass().getSimpleName();
+        Timer.builder(prefix + ".requests")
+                .tags(meters.tags.and("outcome", "error", "exception", exception))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        Counter.builder(prefix + ".errors")
+                .tags(meters.tags.and("exception", exception))
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void retry(MetricTags tags, int attempt, Throwable error) {
+        Counter.builder(prefix + ".retries")
+                .tags(meters(tags).tags.and("exception", error.getClass().getSimpleName()))
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void limiterState(String model, int limit, int inFlight, int queued) {
+        int[] state = limiters.computeIfAbsent(model, this::registerLimiter);
+        synchronized (state) {
+            state[0] = limit;
+            state[1] = inFlight;
+            state[2] = queued;
+        }
+    }
+
+    @Override
+    public void limiterRejected(MetricTags tags) {
+        meters(tags).limiterRejected.increment();
+    }
+
+    @Override
+    public void queueWait(MetricTags tags, long waitNanos) {
+        meters(tags).queueWait.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void dnsLookup(MetricTags tags, long durationNanos) {
+        meters(tags).dns.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connect(MetricTags tags, long durationNanos) {
+        meters(tags).connect.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void timeToFirstByte(MetricTags tags, long durationNanos) {
+        meters(tags).timeToFirstByte.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void requestBytes(MetricTags tags, long bytes) {
+        meters(tags).requestSize.record(bytes);
+    }
+
+    @Override
+    public void requestCompressed(MetricTags tags, long uncompressedBytes, long compressedBytes) {
+        Meters meters = meters(tags);
+        meters.uncompressedRequestSize.record(uncompressedBytes);
+        meters.compressionSaved.increment(Math.max(0, uncompressedBytes - compressedBytes));
+    }
+
+    @Override
+    public void responseBytes(MetricTags tags, long bytes) {
+        meters(tags).responseSize.record(bytes);
+    }
+
+    @Override
+    public void deserialization(MetricTags tags, long durationNanos) {
+        meters(tags).deserialization.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private int[] registerLimiter(String model) {
+        int[] state = new int[3];
+        Tags tags = Tags.of("model", model.isEmpty() ? NONE : model);
+        String[] names = {"limit", "inflight", "queue"};
+        for (int i = 0; i < names.length; i++) {
+            int index = i;
+            registry.gauge(prefix + ".limiter." + names[i], tags, state, values -> {
+                synchronized (values) {
+                    return values[index];
+                }
+            });
+        }
+        return state;
+    }
+
+    private Meters meters(MetricTags tags) {
+        return meters.computeIfAbsent(tags, Meters::new);
+    }
+
+    /**
+     * Meters is the set of meters of a path and model.
+     */
+    private final class Meters {
+        private final Tags tags;
+        private final AtomicInteger active = new AtomicInteger();
+        private final Timer succeeded;
+        private final Timer queueWait;
+        private final Timer dns;
+        private final Timer connect;
+        private final Timer timeToFirstByte;
+        private final Timer deserialization;
+        private final DistributionSummary requestSize;
+        private final DistributionSummary responseSize;
+        private final DistributionSummary uncompressedRequestSize;
+        private final Counter compressionSaved;
+        private final Counter limiterRejected;
+
+        private Meters(MetricTags metricTags) {
+            this.tags = Tags.of("path", metricTags.getPath(),
+                    "model", metricTags.getModel() != null ? metricTags.getModel() : NONE);
+            registry.gauge(prefix + ".requests.active", tags, active);
+            this.succeeded = Timer.builder(prefix + ".requests")
+                    .tags(tags.and("outcome", "success", "exception", NONE))
+                    .register(registry);
+            this.queueWait = timer("queue.wait");
+            this.dns = timer("dns");
+            this.connect = timer("connect");
+            this.timeToFirstByte = timer("ttfb");
+            this.deserialization = timer("deserialization");
+            this.requestSize = summary("request.size");
+            this.responseSize = summary("response.size");
+            this.uncompressedRequestSize = summary("request.uncompressed.size");
+            this.compressionSaved = Counter.builder(prefix + ".request.compression.saved")
+                    .baseUnit("bytes").tags(tags).register(registry);
+            this.limiterRejected = Counter.builder(prefix + ".limiter.rejected").tags(tags).register(registry);
+        }
+
+        private Timer timer(String name) {
+            return Timer.builder(prefix + "." + name).tags(tags).register(registry);
+        }
+
+        private DistributionSummary summary(String name) {
+            return DistributionSummary.builder(prefix + "." + name).baseUnit("bytes").tags(tags).register(registry);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package es.grayapps.metrics;
+
+import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.methods.response.CompletionUsage;
+import es.grayapps.methods.response.ResponseTiming;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ModelUsage is a class that accumulates the usage and latency of the completions of a model.
+ * <p>
+ * It is updated without locks, with {@link LongAdder} counters and log-linear histograms of the latencies,
+ * so it can be shared by every request of a client. Its getters read the current values.
+ */
+public class ModelUsage {
+
+    private final String model;
+    private final LongAdder completions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder promptTokens = new LongAdder();
+    private final LongAdder completionTokens = new LongAdder();
+    private final LongAdder measuredCompletionTokens = new LongAdder();
+    private final LongAdder measuredNanos = new LongAdder();
+    private final LogHistogram latency = new LogHistogram();
+    private final LogHistogram timeToFirstByte = new LogHistogram();
+
+    ModelUsage(String model) {
+        this.model = model;
+    }
+
+    void record(CompletionResponse response) {
+        completions.increment();
+        CompletionUsage usage = response.getUsage();
+        ResponseTiming timing = response.getTiming();
+        if (usage != null) {
+            promptTokens.add(usage.getPromptTokens());
+            completionTokens.add(usage.getCompletionTokens());
+        }
+        if (timing != null) {
+            latency.record(timing.getTotalNanos());
+            timeToFirstByte.record(timing.getTimeToFirstByteNanos());
+            if (usage != null) {
+                measuredCompletionTokens.add(usage.getCompletionTokens());
+                measuredNanos.add(timing.getTotalNanos());
+            }
+        }
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the number of completions received.
+     *
+     * @return the number of completions.
+     */
+    public long getCompletions() {
+        return completions.sum();
+    }
+
+    /**
+     * Returns the number of completions that failed.
+     *
+     * @return the number of errors.
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Returns the number of prompt tokens reported by the server.
+     *
+     * @return the number of prompt tokens.
+     */
+    public long getPromptTokens() {
+        return promptTokens.sum();
+    }
+
+    /**
+     * Returns the number of generated tokens reported by the server.
+     *
+     * @return the number of generated tokens.
+     */
+    public long getCompletionTokens() {
+        return completionTokens.sum();
+    }
+
+    /**
+     * Returns the number of tokens generated per second of client-measured latency, over the completions
+     * whose usage was reported.
+     *
+     * @return the tokens per second, or NaN if there are none.
+     */
+    public double getCompletionTokensPerSecond() {
+        long nanos = measuredNanos.sum();
+        return nanos > 0 ? measuredCompletionTokens.sum() * 1e9 / nanos : Double.NaN;
+    }
+
+    /**
+     * Returns the provided percentile of the latency of the completions, until they were deserialized.
+     *
+     * @param percentile the percentile, between 0 and 1.
+     * @return the latency, zero if no completion was measured.
+     */
+    public Duration getLatency(double percentile) {
+        return Duration.ofNanos(latency.getPercentile(percentile));
+    }
+
+    /**
+     * Returns the mean latency of the completions.
+     *
+     * @return the mean latency, zero if no completion was measured.
+     */
+    public Duration getMeanLatency() {
+        long count = latency.getCount();
+        return count > 0 ? Duration.ofNanos(latency.getSum() / count) : Duration.ZERO;
+    }
+
+    /**
+     * Returns the provided percentile of the time to the first byte of the completions.
+     *
+     * @param percentile the percentile, between 0 and 1.
+     * @return the time to first byte, zero if no completion was measured.
+     */
+    public Duration getTimeToFirstByte(double percentile) {
+        return Duration.ofNanos(timeToFirstByte.getPercentile(percentile));
+    }
+
+    @Override
+    public String toString() {
+        return "ModelUsage{model='" + model + "', completions=" + getCompletions() + ", errors=" + getErrors()
+                + ", promptTokens=" + getPromptTokens() + ", completionTokens=" + getCompletionTokens()
+                + ", p50=" + getLatency(0.5) + ", p99=" + getLatency(0.99) + '}';
+    }
+}
@@ -0,0 +1,12 @@
+package es.grayapps.metrics;
+
+/**
+ * NoopClientMetrics is the metrics implementation that records nothing.
+ */
+final class NoopClientMetrics implements ClientMetrics {
+
+    static final NoopClientMetrics INSTANCE = new NoopClientMetrics();
+
+    private NoopClientMetrics() {
+    }
+}
@@ -0,0 +1,60 @@
+package es.grayapps.metrics;
+
+import es.grayapps.methods.response.CompletionResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * UsageStats is a class that aggregates the token usage and latency of the completions of a client by model,
+ * to compute throughput and plan capacity.
+ * <p>
+ * Only the completions received from the server are counted, not those answered from a response cache.
+ */
+public class UsageStats {
+
+    private final ConcurrentMap<String, ModelUsage> models = new ConcurrentHashMap<>();
+
+    /**
+     * Records a completion received from the server.
+     *
+     * @param model    the model the completion was asked to.
+     * @param response the completion.
+     */
+    public void record(String model, CompletionResponse response) {
+        usage(model).record(response);
+    }
+
+    /**
+     * Records a completion that failed.
+     *
+     * @param model the model the completion was asked to.
+     */
+    public void recordError(String model) {
+        usage(model).recordError();
+    }
+
+    /**
+     * Returns the usage of the provided model.
+     *
+     * @param model the model.
+     * @return the usage, or null if no completion of the model was recorded.
+     */
+    public ModelUsage getModel(String model) {
+        return models.get(model != null ? model : "");
+    }
+
+    /**
+     * Returns the usage of every model with recorded completions.
+     *
+     * @return an unmodifiable snapshot of the models and their usage.
+     */
+    public Map<String, ModelUsage> getModels() {
+        return Map.copyOf(models);
+    }
+
+    private ModelUsage usage(String model) {
+        return models.computeIfAbsent(model != null ? model : "", ModelUsage::new);
+    }
+}
@@ -0,0 +1,64 @@
+package es.grayapps.resilience;
+
+/**
+ * AimdLimit is a concurrency limit that grows additively and shrinks multiplicatively, like TCP congestion control.
+ * <p>
+ * The limit grows by one for every successful request sent while the limit was being used at least by half,
+ * so an idle client does not inflate its limit. It is multiplied by the backoff ratio whenever the server rejects
+ * a request as overloaded or a request times out.
+ */
+public class AimdLimit implements ConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private int limit;
+
+    /**
+     * Creates a new instance of AimdLimit that shrinks by 10% on every drop.
+     *
+     * @param initialLimit the limit to start with.
+     * @param minLimit     the lowest limit.
+     * @param maxLimit     the highest limit.
+     * @throws IllegalArgumentException if the limits are not ordered or minLimit is less than 1.
+     */
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, 0.9);
+    }
+
+    /**
+     * Creates a new instance of AimdLimit.
+     *
+     * @param initialLimit the limit to start with.
+     * @param minLimit     the lowest limit.
+     * @param maxLimit     the highest limit.
+     * @param backoffRatio the factor the limit is multiplied by on every drop, between 0 and 1.
+     * @throws IllegalArgumentException if the limits are not ordered, minLimit is less than 1 or backoffRatio is out of range.
+     */
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
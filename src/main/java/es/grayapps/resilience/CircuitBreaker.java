@@ -0,0 +1,221 @@
+package es.grayapps.resilience;
+
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * CircuitBreaker is a class that stops sending requests to a model that keeps failing or is too slow.
+ * <p>
+ * A call asks the breaker for a permit before being sent, and records its outcome on the permit when it finishes.
+ * See {@link CircuitBreakerPolicy} for when the breaker opens and closes. Outcomes recorded on permits acquired
+ * before the last state change are ignored, so a call sent before the breaker opened cannot close it.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final String model;
+    private final CircuitBreakerPolicy policy;
+    private final byte[] window;
+    private State state = State.CLOSED;
+    private long generation;
+    private int windowIndex;
+    private int windowCount;
+    private int failures;
+    private int slowCalls;
+    private long openUntil;
+    private int probesStarted;
+    private int probesFinished;
+    private int probeFailures;
+    private int probeSlowCalls;
+
+    /**
+     * Creates a new instance of CircuitBreaker, closed.
+     *
+     * @param model  the model the breaker protects.
+     * @param policy the policy of the breaker.
+     * @throws NullPointerException if model or policy are null.
+     */
+    public CircuitBreaker(String model, CircuitBreakerPolicy policy) {
+        this.model = Objects.requireNonNull(model);
+        this.policy = Objects.requireNonNull(policy);
+        this.window = new byte[policy.getSlidingWindowSize()];
+    }
+
+    /**
+     * Asks for a permit to send a call.
+     *
+     * @return the permit, or null if the breaker is open or all its probe calls are in flight.
+     */
+    public Permit tryAcquire() {
+        Transition transition = null;
+        Permit permit = null;
+        synchronized (this) {
+            if (state == State.OPEN && System.nanoTime() - openUntil >= 0) {
+                transition = transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) {
+                permit = new Permit(generation);
+            } else if (state == State.HALF_OPEN && probesStarted < policy.getHalfOpenCalls()) {
+                probesStarted++;
+                permit = new Permit(generation);
+            }
+        }
+        notifyListeners(transition);
+        return permit;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    private void record(Permit permit, boolean failure, boolean slow) {
+        Transition transition = null;
+        synchronized (this) {
+            if (permit.generation != generation) {
+                return;
+            }
+            if (state == State.CLOSED) {
+                transition = recordClosed(failure, slow);
+            } else if (state == State.HALF_OPEN) {
+                transition = recordProbe(failure, slow);
+            }
+        }
+        notifyListeners(transition);
+    }
+
+    private synchronized void releaseProbe(Permit permit) {
+        if (permit.generation == generation && state == State.HALF_OPEN) {
+            probesStarted--;
+        }
+    }
+
+    private Transition recordClosed(boolean failure, boolean slow) {
+        if (windowCount == window.length) {
+            byte evicted = window[windowIndex];
+            failures -= evicted & FAILURE;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = (byte) ((failure ? FAILURE : 0) | (slow ? SLOW : 0));
+        windowIndex = (windowIndex + 1) % window.length;
+        failures += failure ? 1 : 0;
+        slowCalls += slow ? 1 : 0;
+
+        if (windowCount >= policy.getMinimumCalls() && exceedsThresholds(failures, slowCalls, windowCount)) {
+            return transitionTo(State.OPEN);
+        }
+        return null;
+    }
+
+    private Transition recordProbe(boolean failure, boolean slow) {
+        probesFinished++;
+        probeFailures += failure ? 1 : 0;
+        probeSlowCalls += slow ? 1 : 0;
+        if (probesFinished < policy.getHalfOpenCalls()) {
+            return null;
+        }
+        return transitionTo(exceedsThresholds(probeFailures, probeSlowCalls, probesFinished) ? State.OPEN : State.CLOSED);
+    }
+
+    private boolean exceedsThresholds(int failed, int slow, int calls) {
+        return (double) failed / calls >= policy.getFailureRateThreshold()
+                || (double) slow / calls >= policy.getSlowCallRateThreshold();
+    }
+
+    private Transition transitionTo(State next) {
+        State previous = state;
+        state = next;
+        generation++;
+        windowIndex = 0;
+        windowCount = 0;
+        failures = 0;
+        slowCalls = 0;
+        probesStarted = 0;
+        probesFinished = 0;
+        probeFailures = 0;
+        probeSlowCalls = 0;
+        if (next == State.OPEN) {
+            openUntil = System.nanoTime() + policy.getOpenDuration().toNanos();
+        }
+        return new Transition(previous, next);
+    }
+
+    private void notifyListeners(Transition transition) {
+        if (transition == null) {
+            return;
+        }
+        logger.info(() -> "Circuit breaker of model '" + model + "' changed from " + transition.from + " to " + transition.to);
+        for (CircuitBreakerListener listener : policy.getListeners()) {
+            try {
+                listener.onStateChange(model, transition.from, transition.to);
+            } catch (RuntimeException e) {
+                logger.warning(() -> "Circuit breaker listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * State is the state of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * Calls are sent, and their outcomes recorded.
+         */
+        CLOSED,
+        /**
+         * Calls fail fast without being sent.
+         */
+        OPEN,
+        /**
+         * A few probe calls are sent to decide whether to close the breaker.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Permit is the permission to send a call. Exactly one of its methods must be called once the call finishes.
+     */
+    public final class Permit {
+        private final long generation;
+
+        private Permit(long generation) {
+            this.generation = generation;
+        }
+
+        /**
+         * Records the outcome of the call.
+         *
+         * @param failure whether the call failed.
+         * @param slow    whether the call was slow.
+         */
+        public void record(boolean failure, boolean slow) {
+            CircuitBreaker.this.record(this, failure, slow);
+        }
+
+        /**
+         * Releases the permit without recording an outcome, for calls that were cancelled.
+         */
+        public void release() {
+            releaseProbe(this);
+        }
+    }
+
+    private static final class Transition {
+        private final State from;
+        private final State to;
+
+        private Transition(State from, State to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.CallNotPermittedException;
+import es.grayapps.methods.IMethod;
+import es.grayapps.utils.Timers;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * CircuitBreakerExecutor is a class that sends methods through the circuit breaker of their model.
+ * <p>
+ * Each model gets its own breaker, built from the policy of the model or from the default policy,
+ * so a failing or hanging model fails fast without holding back the others.
+ */
+public class CircuitBreakerExecutor {
+
+    private final CircuitBreakerPolicy defaultPolicy;
+    private final Map<String, CircuitBreakerPolicy> modelPolicies;
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance of CircuitBreakerExecutor.
+     *
+     * @param defaultPolicy the policy of the models without their own, or null to not protect them.
+     * @param modelPolicies the policies of specific models.
+     * @throws NullPointerException if modelPolicies is null.
+     */
+    public CircuitBreakerExecutor(CircuitBreakerPolicy defaultPolicy, Map<String, CircuitBreakerPolicy> modelPolicies) {
+        this.defaultPolicy = defaultPolicy;
+        this.modelPolicies = Map.copyOf(modelPolicies);
+    }
+
+    /**
+     * Sends the provided method if the circuit breaker of its model permits it.
+     *
+     * @param method the method to send.
+     * @param sender the function that sends the method to the server.
+     * @param <T>    the type of the response.
+     * @return the future of the request, or a future failed with a {@link CallNotPermittedException}
+     * if the breaker is open.
+     */
+    public <T extends Serializable> CompletableFuture<T> execute(IMethod<T> method,
+                                                                 Function<IMethod<T>, CompletableFuture<T>> sender) {
+        String model = method.getModel() != null ? method.getModel() : "";
+        CircuitBreakerPolicy policy = modelPolicies.getOrDefault(model, defaultPolicy);
+        if (policy == null) {
+            return sender.apply(method);
+        }
+        CircuitBreaker breaker = breakers.computeIfAbsent(model, key -> new CircuitBreaker(key, policy));
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (permit == null) {
+            return CompletableFuture.failedFuture(new CallNotPermittedException(
+                    "Circuit breaker of model '" + model + "' is " + breaker.getState()));
+        }
+
+        AtomicBoolean recorded = new AtomicBoolean();
+        ScheduledFuture<?> slowCall = Timers.schedule(() -> {
+            if (recorded.compareAndSet(false, true)) {
+                permit.record(false, true);
+            }
+        }, policy.getSlowCallDuration().toNanos());
+
+        CompletableFuture<T> request;
+        try {
+            request = sender.apply(method);
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> sent = request;
+        sent.whenComplete((value, e) -> {
+            slowCall.cancel(false);
+            if (!recorded.compareAndSet(false, true)) {
+                return;
+            }
+            if (sent.isCancelled()) {
+                permit.release();
+            } else {
+                permit.record(e != null && policy.isFailure(e), false);
+            }
+        });
+        return sent;
+    }
+
+    /**
+     * Returns the circuit breaker of the provided model.
+     *
+     * @param model the model.
+     * @return the circuit breaker, or null if the model is not protected or has not been used yet.
+     */
+    public CircuitBreaker getCircuitBreaker(String model) {
+        return breakers.get(model);
+    }
+}
@@ -0,0 +1,19 @@
+package es.grayapps.resilience;
+
+/**
+ * CircuitBreakerListener is an interface that is notified when a circuit breaker changes its state.
+ * <p>
+ * It is called on the thread that triggered the transition, outside of the lock of the breaker, and must not block.
+ */
+@FunctionalInterface
+public interface CircuitBreakerListener {
+
+    /**
+     * Called when the circuit breaker of a model changes its state.
+     *
+     * @param model the model of the circuit breaker, empty for the methods not addressed to a model.
+     * @param from  the previous state.
+     * @param to    the new state.
+     */
+    void onStateChange(String model, CircuitBreaker.State from, CircuitBreaker.State to);
+}
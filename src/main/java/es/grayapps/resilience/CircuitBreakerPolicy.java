@@ -0,0 +1,222 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.HttpStatusException;
+import es.grayapps.utils.Failures;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * CircuitBreakerPolicy is a class that describes when the circuit breaker of a model opens.
+ * <p>
+ * The outcomes of the latest calls are kept in a sliding window. Once the window holds the minimum number of calls,
+ * the breaker opens when the share of failed calls or of slow calls reaches its threshold. While open, calls fail fast
+ * with a {@link es.grayapps.exceptions.CallNotPermittedException}. After the open duration, a few probe calls are
+ * let through, and their outcome decides whether the breaker closes or opens again.
+ * <p>
+ * By default, server errors (5xx), 429 responses and connection failures count as failures.
+ * A call counts as slow as soon as it exceeds the slow call duration, without waiting for it to finish,
+ * so a model that hangs is detected before its requests time out.
+ */
+public class CircuitBreakerPolicy {
+
+    private final int slidingWindowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final Duration slowCallDuration;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final Predicate<Throwable> failurePredicate;
+    private final List<CircuitBreakerListener> listeners;
+
+    private CircuitBreakerPolicy(CircuitBreakerPolicyBuilder builder) {
+        this.slidingWindowSize = builder.slidingWindowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.slidingWindowSize);
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallDuration = builder.slowCallDuration;
+        this.openDuration = builder.openDuration;
+        this.halfOpenCalls = builder.halfOpenCalls;
+        this.failurePredicate = builder.failurePredicate;
+        this.listeners = List.copyOf(builder.listeners);
+    }
+
+    /**
+     * Creates a new builder of CircuitBreakerPolicy.
+     *
+     * @return a new builder.
+     */
+    public static CircuitBreakerPolicyBuilder builder() {
+        return new CircuitBreakerPolicyBuilder();
+    }
+
+    /**
+     * Returns whether the provided error counts as a failure of the model.
+     *
+     * @param error the error a call failed with.
+     * @return true if the error is a failure.
+     */
+    public boolean isFailure(Throwable error) {
+        Throwable cause = Failures.unwrap(error);
+        return failurePredicate.test(cause);
+    }
+
+    private static boolean isDefaultFailure(Throwable error) {
+        if (error instanceof HttpStatusException) {
+            int status = ((HttpStatusException) error).getStatusCode();
+            return status >= 500 || status == 429;
+        }
+        return Failures.isConnectionFailure(error);
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public Duration getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public List<CircuitBreakerListener> getListeners() {
+        return listeners;
+    }
+
+    /**
+     * CircuitBreakerPolicyBuilder is a class that builds a CircuitBreakerPolicy.
+     */
+    public static class CircuitBreakerPolicyBuilder {
+        private int slidingWindowSize = 50;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 0.8;
+        private Duration slowCallDuration = Duration.ofMinutes(2);
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+        private Predicate<Throwable> failurePredicate = CircuitBreakerPolicy::isDefaultFailure;
+        private final List<CircuitBreakerListener> listeners = new ArrayList<>();
+
+        /**
+         * Sets the number of latest calls the rates are computed on, and the minimum number of calls
+         * before the breaker may open. By default 50 and 10.
+         *
+         * @param slidingWindowSize the size of the sliding window.
+         * @param minimumCalls      the minimum number of calls.
+         * @return the CircuitBreakerPolicyBuilder instance.
+         * @throws IllegalArgumentException if a size is less than 1.
+         */
+        public CircuitBreakerPolicyBuilder slidingWindow(int slidingWindowSize, int minimumCalls) {
+            if (slidingWindowSize < 1 || minimumCalls < 1) {
+                throw new IllegalArgumentException("slidingWindowSize and minimumCalls must be at least 1");
+            }
+            this.slidingWindowSize = slidingWindowSize;
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Sets the share of failed calls that opens the breaker. By default 0.5.
+         *
+         * @param failureRateThreshold the threshold, greater than 0 and at most 1.
+         * @return the CircuitBreakerPolicyBuilder instance.
+         * @throws IllegalArgumentException if the threshold is out of range.
+         */
+        public CircuitBreakerPolicyBuilder failureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = checkRate(failureRateThreshold);
+            return this;
+        }
+
+        /**
+         * Sets when a call is slow, and the share of slow calls that opens the breaker. By default 2 minutes and 0.8.
+         *
+         * @param slowCallDuration      the duration over which a call is slow.
+         * @param slowCallRateThreshold the threshold, greater than 0 and at most 1, 1 only opens when every call is slow.
+         * @return the CircuitBreakerPolicyBuilder instance.
+         * @throws IllegalArgumentException if the threshold is out of range.
+         */
+        public CircuitBreakerPolicyBuilder slowCalls(Duration slowCallDuration, double slowCallRateThreshold) {
+            this.slowCallDuration = Objects.requireNonNull(slowCallDuration);
+            this.slowCallRateThreshold = checkRate(slowCallRateThreshold);
+            return this;
+        }
+
+        /**
+         * Sets how long the breaker stays open before letting probe calls through,
+         * and how many probe calls are let through. By default 30 seconds and 3 calls.
+         *
+         * @param openDuration  the open duration.
+         * @param halfOpenCalls the number of probe calls.
+         * @return the CircuitBreakerPolicyBuilder instance.
+         * @throws IllegalArgumentException if halfOpenCalls is less than 1.
+         */
+        public CircuitBreakerPolicyBuilder openDuration(Duration openDuration, int halfOpenCalls) {
+            if (halfOpenCalls < 1) {
+                throw new IllegalArgumentException("halfOpenCalls must be at least 1");
+            }
+            this.openDuration = Objects.requireNonNull(openDuration);
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        /**
+         * Sets which errors count as failures, replacing the default.
+         *
+         * @param failurePredicate the predicate that tells failures apart.
+         * @return the CircuitBreakerPolicyBuilder instance.
+         */
+        public CircuitBreakerPolicyBuilder recordFailure(Predicate<Throwable> failurePredicate) {
+            this.failurePredicate = Objects.requireNonNull(failurePredicate);
+            return this;
+        }
+
+        /**
+         * Adds a listener notified of the state changes of the breakers.
+         *
+         * @param listener the listener.
+         * @return the CircuitBreakerPolicyBuilder instance.
+         */
+        public CircuitBreakerPolicyBuilder listener(CircuitBreakerListener listener) {
+            listeners.add(Objects.requireNonNull(listener));
+            return this;
+        }
+
+        /**
+         * Builds the CircuitBreakerPolicy.
+         *
+         * @return a new CircuitBreakerPolicy.
+         */
+        public CircuitBreakerPolicy build() {
+            return new CircuitBreakerPolicy(this);
+        }
+
+        private static double checkRate(double rate) {
+            if (rate <= 0 || rate > 1) {
+                throw new IllegalArgumentException("Rate thresholds must be greater than 0 and at most 1");
+            }
+            return rate;
+        }
+    }
+}
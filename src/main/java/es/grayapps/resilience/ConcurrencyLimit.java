@@ -0,0 +1,30 @@
+package es.grayapps.resilience;
+
+/**
+ * ConcurrencyLimit is an interface that decides how many requests may be in flight at once,
+ * and adapts that number to the samples of the requests that finished.
+ * <p>
+ * Implementations are called under the lock of their limiter, so they do not need to be thread-safe.
+ *
+ * @see FixedLimit
+ * @see AimdLimit
+ * @see VegasLimit
+ */
+public interface ConcurrencyLimit {
+
+    /**
+     * Returns the current limit.
+     *
+     * @return the maximum number of requests in flight.
+     */
+    int getLimit();
+
+    /**
+     * Updates the limit with the sample of a finished request.
+     *
+     * @param rttNanos the time the request was in flight.
+     * @param inFlight the number of requests in flight when the request was sent, including itself.
+     * @param dropped  whether the server rejected the request as overloaded, or it timed out.
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+}
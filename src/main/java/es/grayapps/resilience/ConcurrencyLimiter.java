@@ -0,0 +1,155 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.LimitExceededException;
+import es.grayapps.utils.Timers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * ConcurrencyLimiter is a class that bounds the number of requests in flight, queueing the requests over the limit.
+ * <p>
+ * The limit is decided by a {@link ConcurrencyLimit}, which is updated with the outcome of every request.
+ * Queued requests are admitted in order as requests finish, and are rejected with a {@link LimitExceededException}
+ * when the queue is full or they waited longer than allowed. Waiting never blocks a thread.
+ */
+public class ConcurrencyLimiter {
+
+    private final ConcurrencyLimit limit;
+    private final int maxQueueSize;
+    private final ArrayDeque<CompletableFuture<Permit>> queue = new ArrayDeque<>();
+    private int inFlight;
+
+    /**
+     * Creates a new instance of ConcurrencyLimiter.
+     *
+     * @param limit        the algorithm that decides the limit.
+     * @param maxQueueSize the maximum number of requests waiting for a slot.
+     * @throws NullPointerException if limit is null.
+     */
+    public ConcurrencyLimiter(ConcurrencyLimit limit, int maxQueueSize) {
+        this.limit = Objects.requireNonNull(limit);
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * Acquires a slot for a request, waiting for one to be freed if the limit is reached.
+     *
+     * @param maxWaitNanos the longest time to wait for a slot.
+     * @return a future completed with the permit of the slot, which must be released when the request finishes.
+     * Cancelling it gives up waiting.
+     */
+    public CompletableFuture<Permit> acquire(long maxWaitNanos) {
+        CompletableFuture<Permit> waiter;
+        synchronized (this) {
+            if (queue.isEmpty() && inFlight < limit.getLimit()) {
+                return CompletableFuture.completedFuture(admit());
+            }
+            if (queue.size() >= maxQueueSize || maxWaitNanos <= 0) {
+                return CompletableFuture.failedFuture(new LimitExceededException(
+                        "Concurrency limit of " + limit.getLimit() + " reached with " + queue.size() + " requests queued"));
+            }
+            waiter = new CompletableFuture<>();
+            queue.add(waiter);
+        }
+        ScheduledFuture<?> timeout = Timers.schedule(() -> {
+            if (dequeue(waiter)) {
+                waiter.completeExceptionally(new LimitExceededException(
+                        "Timed out waiting for the concurrency limit of " + getLimit()));
+            }
+        }, maxWaitNanos);
+        waiter.whenComplete((permit, e) -> {
+            timeout.cancel(false);
+            if (waiter.isCancelled()) {
+                dequeue(waiter);
+            }
+        });
+        return waiter;
+    }
+
+    public synchronized int getLimit() {
+        return limit.getLimit();
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    private synchronized boolean dequeue(CompletableFuture<Permit> waiter) {
+        return queue.remove(waiter);
+    }
+
+    private Permit admit() {
+        inFlight++;
+        return new Permit(inFlight);
+    }
+
+    private void release(Permit permit, boolean sampled, boolean dropped) {
+        List<CompletableFuture<Permit>> admitted = new ArrayList<>();
+        List<Permit> permits = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (sampled) {
+                limit.onSample(System.nanoTime() - permit.start, permit.inFlight, dropped);
+            }
+            while (!queue.isEmpty() && inFlight < limit.getLimit()) {
+                admitted.add(queue.poll());
+                permits.add(admit());
+            }
+        }
+        for (int i = 0; i < admitted.size(); i++) {
+            if (!admitted.get(i).complete(permits.get(i))) {
+                permits.get(i).release();
+            }
+        }
+    }
+
+    /**
+     * Permit is a slot acquired for a request. It must be released exactly once.
+     */
+    public final class Permit {
+        private final long start = System.nanoTime();
+        private final int inFlight;
+        private boolean released;
+
+        private Permit(int inFlight) {
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * Releases the slot after the request finished, updating the limit with its outcome.
+         *
+         * @param dropped whether the server rejected the request as overloaded, or it timed out.
+         */
+        public void release(boolean dropped) {
+            if (markReleased()) {
+                ConcurrencyLimiter.this.release(this, true, dropped);
+            }
+        }
+
+        /**
+         * Releases the slot without updating the limit, for requests that were cancelled.
+         */
+        public void release() {
+            if (markReleased()) {
+                ConcurrencyLimiter.this.release(this, false, false);
+            }
+        }
+
+        private synchronized boolean markReleased() {
+            if (released) {
+                return false;
+            }
+            released = true;
+            return true;
+        }
+    }
+}
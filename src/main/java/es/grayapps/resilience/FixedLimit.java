@@ -0,0 +1,31 @@
+package es.grayapps.resilience;
+
+/**
+ * FixedLimit is a concurrency limit that never changes.
+ */
+public class FixedLimit implements ConcurrencyLimit {
+
+    private final int limit;
+
+    /**
+     * Creates a new instance of FixedLimit.
+     *
+     * @param limit the maximum number of requests in flight.
+     * @throws IllegalArgumentException if limit is less than 1.
+     */
+    public FixedLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+    }
+}
@@ -0,0 +1,92 @@
+package es.grayapps.resilience;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HedgeStats is a class that counts the hedged requests and how they ended.
+ */
+public class HedgeStats {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    void recordRequest() {
+        requests.increment();
+    }
+
+    void recordHedge() {
+        hedges.increment();
+    }
+
+    void recordWin() {
+        wins.increment();
+    }
+
+    void recordDenied() {
+        denied.increment();
+    }
+
+    /**
+     * Returns the number of idempotent requests that could be hedged.
+     *
+     * @return the number of requests.
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of duplicates sent.
+     *
+     * @return the number of hedges.
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * Returns the number of requests answered by a duplicate rather than by the original request.
+     *
+     * @return the number of wins.
+     */
+    public long getWins() {
+        return wins.sum();
+    }
+
+    /**
+     * Returns the number of duplicates not sent because the hedge budget was exhausted.
+     *
+     * @return the number of denied hedges.
+     */
+    public long getDenied() {
+        return denied.sum();
+    }
+
+    /**
+     * Returns the extra load caused by hedging, as duplicates sent per request.
+     *
+     * @return the hedge rate, or 0 if there was no request.
+     */
+    public double getHedgeRate() {
+        long total = getRequests();
+        return total == 0 ? 0 : (double) getHedges() / total;
+    }
+
+    /**
+     * Returns the share of the duplicates that answered before the original request.
+     *
+     * @return the win rate between 0 and 1, or 0 if no duplicate was sent.
+     */
+    public double getWinRate() {
+        long sent = getHedges();
+        return sent == 0 ? 0 : (double) getWins() / sent;
+    }
+
+    @Override
+    public String toString() {
+        return "HedgeStats{requests=" + getRequests() + ", hedges=" + getHedges() + ", wins=" + getWins()
+                + ", denied=" + getDenied() + "}";
+    }
+}
@@ -0,0 +1,184 @@
+package es.grayapps.resilience;
+
+import es.grayapps.methods.IMethod;
+import es.grayapps.utils.Timers;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+
+/**
+ * HedgingExecutor is a class that sends duplicates of the idempotent methods that are slow to answer,
+ * according to a {@link HedgingPolicy}.
+ * <p>
+ * Each attempt is sent with a listener that the sender calls once its response starts to be received.
+ * Until one of them does, a duplicate is sent after every hedging delay, up to the maximum of the policy.
+ * The first attempt that succeeds completes the returned future and the others are cancelled. Methods that are
+ * not idempotent are sent once.
+ */
+public class HedgingExecutor {
+
+    private static final Logger logger = Logger.getLogger(HedgingExecutor.class.getName());
+
+    private final HedgingPolicy policy;
+    private final HedgeStats stats = new HedgeStats();
+    private final LatencyTracker firstByteLatency;
+
+    /**
+     * Creates a new instance of HedgingExecutor.
+     *
+     * @param policy the policy that decides when requests are hedged.
+     * @throws NullPointerException if policy is null.
+     */
+    public HedgingExecutor(HedgingPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+        this.firstByteLatency = policy.getPercentile() > 0 ? new LatencyTracker(policy.getPercentile()) : null;
+    }
+
+    /**
+     * Sends the provided method, hedging it while no response starts to be received.
+     *
+     * @param method the method to send.
+     * @param sender the function that sends one attempt of the method, calling the provided listener
+     *               once its response starts to be received.
+     * @param <T>    the type of the response.
+     * @return a future completed with the response of the first successful attempt, or the error of the last one.
+     * Cancelling it cancels every attempt in flight.
+     */
+    public <T extends Serializable> CompletableFuture<T> execute(IMethod<T> method,
+                                                                 BiFunction<IMethod<T>, Runnable, CompletableFuture<T>> sender) {
+        if (!method.isIdempotent()) {
+            return sender.apply(method, null);
+        }
+        stats.recordRequest();
+        policy.getBudget().onRequest();
+        Hedged<T> hedged = new Hedged<>(method, sender);
+        hedged.send(0);
+        return hedged.result;
+    }
+
+    /**
+     * Returns the statistics of the hedges.
+     *
+     * @return the statistics.
+     */
+    public HedgeStats getStats() {
+        return stats;
+    }
+
+    public HedgingPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the delay before the next hedge, the percentile of the times to first byte when it is known.
+     */
+    long hedgeDelayNanos() {
+        long delay = policy.getDelay().toNanos();
+        if (firstByteLatency != null) {
+            return Math.max(delay, firstByteLatency.get());
+        }
+        return delay;
+    }
+
+    /**
+     * Hedged is the state of the attempts of a single method.
+     */
+    private final class Hedged<T extends Serializable> {
+        private final IMethod<T> method;
+        private final BiFunction<IMethod<T>, Runnable, CompletableFuture<T>> sender;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final List<CompletableFuture<T>> attempts = new ArrayList<>(2);
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean won = new AtomicBoolean();
+        private final long start = System.nanoTime();
+        private int failed;
+        private ScheduledFuture<?> timer;
+
+        private Hedged(IMethod<T> method, BiFunction<IMethod<T>, Runnable, CompletableFuture<T>> sender) {
+            this.method = method;
+            this.sender = sender;
+            result.whenComplete((value, e) -> {
+                List<CompletableFuture<T>> losers;
+                synchronized (this) {
+                    if (timer != null) {
+                        timer.cancel(false);
+                    }
+                    losers = new ArrayList<>(attempts);
+                }
+                losers.stream().filter(attempt -> !attempt.isDone()).forEach(attempt -> attempt.cancel(true));
+            });
+        }
+
+        private void send(int hedge) {
+            CompletableFuture<T> attempt;
+            try {
+                attempt = sender.apply(method, this::onStarted);
+            } catch (RuntimeException e) {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                attempts.add(attempt);
+                if (hedge < policy.getMaxHedges() && !result.isDone()) {
+                    timer = Timers.schedule(() -> hedge(hedge + 1), hedgeDelayNanos());
+                }
+            }
+            if (result.isDone()) {
+                attempt.cancel(true);
+                return;
+            }
+            attempt.whenComplete((value, e) -> {
+                if (e == null) {
+                    if (won.compareAndSet(false, true) && !result.isDone()) {
+                        if (hedge > 0) {
+                            stats.recordWin();
+                        }
+                        result.complete(value);
+                    }
+                    return;
+                }
+                boolean last;
+                synchronized (this) {
+                    last = ++failed == attempts.size();
+                }
+                if (last) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+
+        private void hedge(int hedge) {
+            if (result.isDone() || started.get()) {
+                return;
+            }
+            if (!policy.getBudget().tryRetry()) {
+                stats.recordDenied();
+                logger.fine(() -> "Hedge budget exhausted, not hedging " + method.getPath());
+                return;
+            }
+            stats.recordHedge();
+            logger.fine(() -> "Hedging " + method.getPath() + " as no response started after "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            send(hedge);
+        }
+
+        private void onStarted() {
+            if (started.compareAndSet(false, true)) {
+                synchronized (this) {
+                    if (timer != null) {
+                        timer.cancel(false);
+                    }
+                }
+                if (firstByteLatency != null) {
+                    firstByteLatency.record(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package es.grayapps.resilience;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * HedgingPolicy is a class that decides when a duplicate of a slow idempotent request is sent.
+ * <p>
+ * When a request has not started receiving its response after the hedging delay, a duplicate is sent,
+ * possibly to another endpoint, and whichever answers first wins while the others are cancelled. The delay is either
+ * fixed or a percentile of the observed times to first byte, so only the slowest requests are hedged.
+ * Hedges are bounded by a {@link RetryBudget}, which caps the extra load to a share of the requests.
+ */
+public class HedgingPolicy {
+
+    private final Duration delay;
+    private final double percentile;
+    private final int maxHedges;
+    private final RetryBudget budget;
+
+    private HedgingPolicy(HedgingPolicyBuilder builder) {
+        this.delay = builder.delay;
+        this.percentile = builder.percentile;
+        this.maxHedges = builder.maxHedges;
+        this.budget = builder.budget;
+    }
+
+    /**
+     * Creates a new builder of HedgingPolicy.
+     *
+     * @return a new builder.
+     */
+    public static HedgingPolicyBuilder builder() {
+        return new HedgingPolicyBuilder();
+    }
+
+    /**
+     * Returns the fixed delay before hedging, which is also the minimum delay when hedging at a percentile.
+     *
+     * @return the delay.
+     */
+    public Duration getDelay() {
+        return delay;
+    }
+
+    /**
+     * Returns the percentile of the times to first byte after which requests are hedged.
+     *
+     * @return the percentile between 0 and 1, or 0 if the delay is fixed.
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public int getMaxHedges() {
+        return maxHedges;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * HedgingPolicyBuilder is a class that builds a HedgingPolicy.
+     */
+    public static class HedgingPolicyBuilder {
+        private Duration delay = Duration.ofSeconds(1);
+        private double percentile;
+        private int maxHedges = 1;
+        private RetryBudget budget = new RetryBudget(0.1, 10);
+
+        private HedgingPolicyBuilder() {
+        }
+
+        /**
+         * Sets the time a request waits for the first byte of its response before it is hedged. By default 1 s.
+         *
+         * @param delay the delay.
+         * @return the HedgingPolicyBuilder instance.
+         * @throws IllegalArgumentException if delay is negative.
+         */
+        public HedgingPolicyBuilder delay(Duration delay) {
+            if (delay.isNegative()) {
+                throw new IllegalArgumentException("delay must not be negative");
+            }
+            this.delay = delay;
+            return this;
+        }
+
+        /**
+         * Hedges the requests that have not started receiving their response after the provided percentile
+         * of the observed times to first byte, for example 0.95. The delay set with {@link #delay(Duration)}
+         * is used until enough times were observed, and as the minimum delay afterwards.
+         *
+         * @param percentile the percentile, between 0 and 1.
+         * @return the HedgingPolicyBuilder instance.
+         * @throws IllegalArgumentException if percentile is not greater than 0 and lower than 1.
+         */
+        public HedgingPolicyBuilder percentile(double percentile) {
+            if (percentile <= 0 || percentile >= 1) {
+                throw new IllegalArgumentException("percentile must be between 0 and 1");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of duplicates sent for a request, each one after another delay. By default 1.
+         *
+         * @param maxHedges the maximum number of hedges.
+         * @return the HedgingPolicyBuilder instance.
+         * @throws IllegalArgumentException if maxHedges is less than 1.
+         */
+        public HedgingPolicyBuilder maxHedges(int maxHedges) {
+            if (maxHedges < 1) {
+                throw new IllegalArgumentException("maxHedges must be at least 1");
+            }
+            this.maxHedges = maxHedges;
+            return this;
+        }
+
+        /**
+         * Sets the budget that bounds the hedges. By default one hedge every ten requests, with bursts of 10.
+         *
+         * @param budget the hedge budget, see {@link RetryBudget#unlimited()}.
+         * @return the HedgingPolicyBuilder instance.
+         */
+        public HedgingPolicyBuilder budget(RetryBudget budget) {
+            this.budget = Objects.requireNonNull(budget);
+            return this;
+        }
+
+        /**
+         * Builds the HedgingPolicy.
+         *
+         * @return a new HedgingPolicy.
+         */
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package es.grayapps.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyTracker is a class that estimates a percentile of the most recent latencies.
+ * <p>
+ * The latencies are kept in a ring of fixed size, and the percentile is recomputed from a sorted copy of it
+ * every few samples, so reading it is cheap.
+ */
+final class LatencyTracker {
+
+    private static final int SIZE = 512;
+    private static final int MIN_SAMPLES = 32;
+    private static final int REFRESH_EVERY = 32;
+
+    private final double percentile;
+    private final AtomicLongArray samples = new AtomicLongArray(SIZE);
+    private final AtomicLong count = new AtomicLong();
+    private volatile long value = -1;
+
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    void record(long nanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % SIZE), nanos);
+        if (n + 1 >= MIN_SAMPLES && (n + 1) % REFRESH_EVERY == 0) {
+            refresh((int) Math.min(n + 1, SIZE));
+        }
+    }
+
+    /**
+     * Returns the percentile of the recent latencies.
+     *
+     * @return the percentile in nanoseconds, or -1 if too few latencies were recorded yet.
+     */
+    long get() {
+        return value;
+    }
+
+    private void refresh(int size) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        value = sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+    }
+}
@@ -0,0 +1,147 @@
+package es.grayapps.resilience;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * LimiterPolicy is a class that describes how the requests to a model are limited on the client side.
+ * <p>
+ * A policy is a template: every model gets its own rate limiter and concurrency limiter built from it,
+ * so a saturated model does not hold back requests to the others. Requests over the limits wait in a queue,
+ * up to a maximum size and a maximum time, and are rejected past them.
+ */
+public class LimiterPolicy {
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Supplier<ConcurrencyLimit> concurrencyLimit;
+    private final int maxQueueSize;
+    private final Duration maxQueueWait;
+
+    private LimiterPolicy(LimiterPolicyBuilder builder) {
+        this.permitsPerSecond = builder.permitsPerSecond;
+        this.burst = builder.burst;
+        this.concurrencyLimit = builder.concurrencyLimit;
+        this.maxQueueSize = builder.maxQueueSize;
+        this.maxQueueWait = builder.maxQueueWait;
+    }
+
+    /**
+     * Creates a new builder of LimiterPolicy.
+     *
+     * @return a new builder.
+     */
+    public static LimiterPolicyBuilder builder() {
+        return new LimiterPolicyBuilder();
+    }
+
+    /**
+     * Creates the rate limiter of a model.
+     *
+     * @return a new rate limiter, or null if the rate is not limited.
+     */
+    RateLimiter newRateLimiter() {
+        return permitsPerSecond > 0 ? new RateLimiter(permitsPerSecond, burst) : null;
+    }
+
+    /**
+     * Creates the concurrency limiter of a model.
+     *
+     * @return a new concurrency limiter.
+     */
+    ConcurrencyLimiter newConcurrencyLimiter() {
+        return new ConcurrencyLimiter(Objects.requireNonNull(concurrencyLimit.get()), maxQueueSize);
+    }
+
+    public Duration getMaxQueueWait() {
+        return maxQueueWait;
+    }
+
+    /**
+     * LimiterPolicyBuilder is a class that builds a LimiterPolicy.
+     */
+    public static class LimiterPolicyBuilder {
+        private double permitsPerSecond;
+        private int burst = 1;
+        private Supplier<ConcurrencyLimit> concurrencyLimit = () -> new AimdLimit(20, 1, 200);
+        private int maxQueueSize = 1000;
+        private Duration maxQueueWait = Duration.ofSeconds(30);
+
+        /**
+         * Limits the rate of requests of each model with a token bucket. Not limited by default.
+         *
+         * @param permitsPerSecond the maximum sustained rate of requests.
+         * @param burst            the number of requests that can be sent at once after an idle period.
+         * @return the LimiterPolicyBuilder instance.
+         * @throws IllegalArgumentException if permitsPerSecond is not positive or burst is less than 1.
+         */
+        public LimiterPolicyBuilder rateLimit(double permitsPerSecond, int burst) {
+            if (permitsPerSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("permitsPerSecond must be positive and burst at least 1");
+            }
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * Sets how the concurrency limit of each model is decided.
+         * By default it adapts with {@link AimdLimit}, starting at 20 requests, between 1 and 200.
+         *
+         * @param concurrencyLimit the factory of the limit of each model,
+         *                         for example {@code () -> new VegasLimit(10, 1, 100)}.
+         * @return the LimiterPolicyBuilder instance.
+         */
+        public LimiterPolicyBuilder concurrencyLimit(Supplier<ConcurrencyLimit> concurrencyLimit) {
+            this.concurrencyLimit = Objects.requireNonNull(concurrencyLimit);
+            return this;
+        }
+
+        /**
+         * Sets a fixed concurrency limit for each model.
+         *
+         * @param limit the maximum number of requests in flight per model.
+         * @return the LimiterPolicyBuilder instance.
+         */
+        public LimiterPolicyBuilder concurrencyLimit(int limit) {
+            FixedLimit fixed = new FixedLimit(limit);
+            return concurrencyLimit(() -> fixed);
+        }
+
+        /**
+         * Sets the maximum number of requests of each model waiting for the limits. By default 1000.
+         *
+         * @param maxQueueSize the maximum queue size, 0 rejects requests over the limits immediately.
+         * @return the LimiterPolicyBuilder instance.
+         * @throws IllegalArgumentException if maxQueueSize is negative.
+         */
+        public LimiterPolicyBuilder maxQueueSize(int maxQueueSize) {
+            if (maxQueueSize < 0) {
+                throw new IllegalArgumentException("maxQueueSize must not be negative");
+            }
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * Sets the longest time a request waits for the limits before being rejected. By default 30 seconds.
+         *
+         * @param maxQueueWait the maximum queue wait.
+         * @return the LimiterPolicyBuilder instance.
+         */
+        public LimiterPolicyBuilder maxQueueWait(Duration maxQueueWait) {
+            this.maxQueueWait = Objects.requireNonNull(maxQueueWait);
+            return this;
+        }
+
+        /**
+         * Builds the LimiterPolicy.
+         *
+         * @return a new LimiterPolicy.
+         */
+        public LimiterPolicy build() {
+            return new LimiterPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.CallNotPermittedException;
+import es.grayapps.exceptions.HttpStatusException;
+import es.grayapps.exceptions.LimitExceededException;
+import es.grayapps.methods.IMethod;
+import es.grayapps.metrics.ClientMetrics;
+import es.grayapps.metrics.MetricTags;
+import es.grayapps.utils.Failures;
+import es.grayapps.utils.Timers;
+
+import java.io.InterruptedIOException;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * LimitingExecutor is a class that admits methods to the server within the rate and concurrency limits of their model.
+ * <p>
+ * Each model gets its own limiters, built from the policy of the model or from the default policy.
+ * Responses with status 429 or 503 and timeouts are reported to the concurrency limit as drops, so adaptive limits
+ * shrink when the server is overloaded. Requests rejected by a circuit breaker after their admission never reached
+ * the server, so they release their slot without updating the limit.
+ * Cancelling the returned future gives up waiting, or cancels the request.
+ */
+public class LimitingExecutor {
+
+    private static final Logger logger = Logger.getLogger(LimitingExecutor.class.getName());
+
+    private final LimiterPolicy defaultPolicy;
+    private final Map<String, LimiterPolicy> modelPolicies;
+    private final ClientMetrics metrics;
+    private final ConcurrentMap<String, ModelLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance of LimitingExecutor.
+     *
+     * @param defaultPolicy the policy of the models without their own, or null to not limit them.
+     * @param modelPolicies the policies of specific models.
+     * @param metrics       the metrics the state of the limiters is reported to.
+     * @throws NullPointerException if modelPolicies or metrics are null.
+     */
+    public LimitingExecutor(LimiterPolicy defaultPolicy, Map<String, LimiterPolicy> modelPolicies, ClientMetrics metrics) {
+        this.defaultPolicy = defaultPolicy;
+        this.modelPolicies = Map.copyOf(modelPolicies);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Sends the provided method once it is admitted by the limiters of its model.
+     *
+     * @param method the method to send.
+     * @param sender the function that sends the method to the server.
+     * @param <T>    the type of the response.
+     * @return a future completed with the response, or with a {@link LimitExceededException} if the method is rejected.
+     */
+    public <T extends Serializable> CompletableFuture<T> execute(IMethod<T> method,
+                                                                 Function<IMethod<T>, CompletableFuture<T>> sender) {
+        String model = method.getModel() != null ? method.getModel() : "";
+        ModelLimiter limiter = limiterFor(model);
+        if (limiter == null) {
+            return sender.apply(method);
+        }
+        return new Admission<>(method, sender, limiter).start();
+    }
+
+    /**
+     * Returns the concurrency limiter of the provided model.
+     *
+     * @param model the model.
+     * @return the concurrency limiter, or null if the model is not limited or has not been used yet.
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter(String model) {
+        ModelLimiter limiter = limiters.get(model);
+        return limiter != null ? limiter.concurrency : null;
+    }
+
+    private ModelLimiter limiterFor(String model) {
+        LimiterPolicy policy = modelPolicies.getOrDefault(model, defaultPolicy);
+        if (policy == null) {
+            return null;
+        }
+        return limiters.computeIfAbsent(model, key -> new ModelLimiter(key, policy));
+    }
+
+    private static boolean isDrop(Throwable error) {
+        Throwable cause = Failures.unwrap(error);
+        if (cause instanceof HttpStatusException) {
+            int status = ((HttpStatusException) cause).getStatusCode();
+            return status == 429 || status == 503;
+        }
+        return cause instanceof InterruptedIOException && Failures.isConnectionFailure(cause);
+    }
+
+    /**
+     * ModelLimiter is the set of limiters of a model.
+     */
+    private final class ModelLimiter {
+        private final String model;
+        private final LimiterPolicy policy;
+        private final RateLimiter rate;
+        private final ConcurrencyLimiter concurrency;
+
+        private ModelLimiter(String model, LimiterPolicy policy) {
+            this.model = model;
+            this.policy = policy;
+            this.rate = policy.newRateLimiter();
+            this.concurrency = policy.newConcurrencyLimiter();
+        }
+
+        private void report() {
+            metrics.limiterState(model, concurrency.getLimit(), concurrency.getInFlight(), concurrency.getQueued());
+        }
+    }
+
+    /**
+     * Admission is the progress of a single method through the limiters of its model.
+     */
+    private final class Admission<T extends Serializable> {
+        private final IMethod<T> method;
+        private final Function<IMethod<T>, CompletableFuture<T>> sender;
+        private final ModelLimiter limiter;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long deadline;
+        private volatile CompletableFuture<?> pending;
+        private volatile ScheduledFuture<?> timer;
+
+        private Admission(IMethod<T> method, Function<IMethod<T>, CompletableFuture<T>> sender, ModelLimiter limiter) {
+            this.method = method;
+            this.sender = sender;
+            this.limiter = limiter;
+            this.deadline = System.nanoTime() + limiter.policy.getMaxQueueWait().toNanos();
+            result.whenComplete((value, e) -> {
+                CompletableFuture<?> current = pending;
+                ScheduledFuture<?> wait = timer;
+                if (result.isCancelled() && current != null) {
+                    current.cancel(true);
+                }
+                if (result.isCancelled() && wait != null) {
+                    wait.cancel(false);
+                }
+            });
+        }
+
+        private CompletableFuture<T> start() {
+            if (limiter.rate == null) {
+                acquire();
+                return result;
+            }
+            long wait = limiter.rate.tryReserve(remaining());
+            if (wait < 0) {
+                reject(new LimitExceededException("Rate limit of model '" + limiter.model + "' exceeded"));
+            } else if (wait == 0) {
+                acquire();
+            } else {
+                logger.finer(() -> "Rate limit of model '" + limiter.model + "' reached, waiting " + wait + " ns");
+                timer = Timers.schedule(this::acquire, wait);
+            }
+            return result;
+        }
+
+        private void acquire() {
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<ConcurrencyLimiter.Permit> permit = limiter.concurrency.acquire(remaining());
+            pending = permit;
+            limiter.report();
+            permit.whenComplete((acquired, e) -> {
+                if (e != null) {
+                    if (!permit.isCancelled()) {
+                        reject(e);
+                    }
+                    return;
+                }
+                if (result.isDone()) {
+                    acquired.release();
+                    return;
+                }
+                send(acquired);
+            });
+        }
+
+        private void send(ConcurrencyLimiter.Permit permit) {
+            CompletableFuture<T> sent;
+            try {
+                sent = sender.apply(method);
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<T> request = sent;
+            pending = request;
+            if (result.isCancelled()) {
+                request.cancel(true);
+            }
+            request.whenComplete((value, e) -> {
+                if (request.isCancelled() || Failures.unwrap(e) instanceof CallNotPermittedException) {
+                    permit.release();
+                } else {
+                    permit.release(e != null && isDrop(e));
+                }
+                limiter.report();
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+
+        private void reject(Throwable error) {
+            logger.fine(() -> "Request to model '" + limiter.model + "' rejected: " + error.getMessage());
+            metrics.limiterRejected(MetricTags.of(method));
+            result.completeExceptionally(error);
+        }
+
+        private long remaining() {
+            return Math.max(0, deadline - System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package es.grayapps.resilience;
+
+/**
+ * RateLimiter is a class that spaces requests to a maximum rate, as a token bucket.
+ * <p>
+ * The bucket refills continuously at the rate and holds up to {@code burst} tokens. Each request takes a token,
+ * and a request that finds the bucket empty reserves the next token instead, being told how long to wait for it.
+ * Requests never wait on a lock: the wait is scheduled by the caller.
+ */
+public class RateLimiter {
+
+    private final double tokensPerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Creates a new instance of RateLimiter, with a full bucket.
+     *
+     * @param permitsPerSecond the maximum sustained rate of requests.
+     * @param burst            the number of requests that can be sent at once after an idle period.
+     * @throws IllegalArgumentException if permitsPerSecond is not positive or burst is less than 1.
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1");
+        }
+        this.tokensPerNano = permitsPerSecond / 1e9;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Reserves a token, if it is available within the provided time.
+     *
+     * @param maxWaitNanos the longest time the caller accepts to wait for the token.
+     * @return the time to wait before sending the request, or -1 if the token is not available in time,
+     * in which case nothing is reserved.
+     */
+    public synchronized long tryReserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long wait = (long) Math.ceil((1 - tokens) / tokensPerNano);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return wait;
+    }
+}
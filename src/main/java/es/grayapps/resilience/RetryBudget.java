@@ -0,0 +1,90 @@
+package es.grayapps.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RetryBudget is a class that bounds the number of retries to a share of the requests, as a token bucket.
+ * <p>
+ * Every request deposits {@code ratio} tokens in the bucket, up to {@code maxTokens}, and every retry withdraws
+ * a whole token. Retries are denied while the bucket is empty, so when the server is failing most requests
+ * the retries stop amplifying the load on it instead of multiplying it by the number of attempts.
+ * The bucket starts full, so a few retries are allowed before any request is made.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong tokens;
+
+    /**
+     * Creates a new instance of RetryBudget.
+     *
+     * @param ratio     the retries allowed per request, 0.2 allows one retry every five requests.
+     * @param maxTokens the maximum number of retries that can be saved up for bursts of failures.
+     * @throws IllegalArgumentException if ratio is negative or maxTokens is negative.
+     */
+    public RetryBudget(double ratio, int maxTokens) {
+        if (ratio < 0) {
+            throw new IllegalArgumentException("ratio must not be negative");
+        }
+        if (maxTokens < 0) {
+            throw new IllegalArgumentException("maxTokens must not be negative");
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = maxTokens * SCALE;
+        this.tokens = new AtomicLong(capacity);
+    }
+
+    /**
+     * Returns a budget that never denies a retry.
+     *
+     * @return the unlimited budget.
+     */
+    public static RetryBudget unlimited() {
+        return new RetryBudget(0, Integer.MAX_VALUE) {
+            @Override
+            public void onRequest() {
+            }
+
+            @Override
+            public boolean tryRetry() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Records a request, depositing its share of retries.
+     */
+    public void onRequest() {
+        tokens.accumulateAndGet(deposit, (current, added) -> Math.min(capacity, current + added));
+    }
+
+    /**
+     * Withdraws a retry from the budget.
+     *
+     * @return true if the retry is allowed, false if the budget is exhausted.
+     */
+    public boolean tryRetry() {
+        while (true) {
+            long current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of retries currently allowed.
+     *
+     * @return the available retries.
+     */
+    public int getAvailable() {
+        return (int) Math.min(Integer.MAX_VALUE, tokens.get() / SCALE);
+    }
+}
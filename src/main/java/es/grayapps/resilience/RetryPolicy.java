@@ -0,0 +1,249 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.HttpStatusException;
+import es.grayapps.utils.Failures;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * RetryPolicy is a class that decides whether a failed request is retried, and after which delay.
+ * <p>
+ * Requests answered with one of the retryable statuses are retried, by default 429, 502, 503 and 504,
+ * which the server sends before doing any work. Connection failures are only retried when enabled, as the server
+ * may have already processed the request. The delay grows exponentially with each attempt, and is randomly
+ * shortened by the jitter so clients that failed together do not retry together. A {@code Retry-After} delay
+ * sent by the server takes precedence, and the request is not retried if it is longer than the maximum allowed.
+ * Retries are also bounded by a {@link RetryBudget}, shared by every request of the policy.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final Set<Integer> retryStatuses;
+    private final boolean retryOnConnectionFailure;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double multiplier;
+    private final double jitter;
+    private final boolean respectRetryAfter;
+    private final Duration maxRetryAfter;
+    private final RetryBudget budget;
+
+    private RetryPolicy(RetryPolicyBuilder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.retryStatuses = Set.copyOf(builder.retryStatuses);
+        this.retryOnConnectionFailure = builder.retryOnConnectionFailure;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.respectRetryAfter = builder.respectRetryAfter;
+        this.maxRetryAfter = builder.maxRetryAfter;
+        this.budget = builder.budget;
+    }
+
+    /**
+     * Returns a policy with the default settings.
+     *
+     * @return the default policy.
+     */
+    public static RetryPolicy defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Creates a new builder of RetryPolicy.
+     *
+     * @return a new builder.
+     */
+    public static RetryPolicyBuilder builder() {
+        return new RetryPolicyBuilder();
+    }
+
+    /**
+     * Returns the delay before retrying a request that failed with the provided error.
+     *
+     * @param attempt the number of the attempt that failed, starting at 1.
+     * @param error   the error the attempt failed with.
+     * @return the delay before the next attempt, or null if the request must not be retried.
+     */
+    public Duration retryDelay(int attempt, Throwable error) {
+        if (attempt >= maxAttempts) {
+            return null;
+        }
+        Throwable cause = unwrap(error);
+        if (cause instanceof HttpStatusException) {
+            HttpStatusException statusError = (HttpStatusException) cause;
+            if (!retryStatuses.contains(statusError.getStatusCode())) {
+                return null;
+            }
+            Duration retryAfter = statusError.getRetryAfter();
+            if (respectRetryAfter && retryAfter != null) {
+                return retryAfter.compareTo(maxRetryAfter) <= 0 ? retryAfter : null;
+            }
+            return backoff(attempt);
+        }
+        if (retryOnConnectionFailure && Failures.isConnectionFailure(cause)) {
+            return backoff(attempt);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the backoff before the attempt that follows the provided one, with jitter applied.
+     *
+     * @param attempt the number of the attempt that failed, starting at 1.
+     * @return the backoff.
+     */
+    public Duration backoff(int attempt) {
+        double base = initialBackoff.toNanos() * Math.pow(multiplier, attempt - 1);
+        double capped = Math.min(base, maxBackoff.toNanos());
+        double jittered = capped * (1 - jitter * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofNanos((long) jittered);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * RetryPolicyBuilder is a class that builds a RetryPolicy.
+     */
+    public static class RetryPolicyBuilder {
+        private int maxAttempts = 3;
+        private final Set<Integer> retryStatuses = new TreeSet<>(Set.of(429, 502, 503, 504));
+        private boolean retryOnConnectionFailure;
+        private Duration initialBackoff = Duration.ofMillis(500);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+        private double multiplier = 2;
+        private double jitter = 0.5;
+        private boolean respectRetryAfter = true;
+        private Duration maxRetryAfter = Duration.ofMinutes(1);
+        private RetryBudget budget = new RetryBudget(0.2, 10);
+
+        /**
+         * Sets the maximum number of attempts of a request, including the first one. By default 3.
+         *
+         * @param maxAttempts the maximum number of attempts.
+         * @return the RetryPolicyBuilder instance.
+         * @throws IllegalArgumentException if maxAttempts is less than 1.
+         */
+        public RetryPolicyBuilder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the HTTP statuses that are retried, replacing the default 429, 502, 503 and 504.
+         *
+         * @param statuses the retryable statuses.
+         * @return the RetryPolicyBuilder instance.
+         */
+        public RetryPolicyBuilder retryOnStatus(int... statuses) {
+            retryStatuses.clear();
+            for (int status : statuses) {
+                retryStatuses.add(status);
+            }
+            return this;
+        }
+
+        /**
+         * Sets whether requests that failed to reach the server or to be answered are retried. Disabled by default,
+         * as the server may have processed the request.
+         *
+         * @param retryOnConnectionFailure whether connection failures are retried.
+         * @return the RetryPolicyBuilder instance.
+         */
+        public RetryPolicyBuilder retryOnConnectionFailure(boolean retryOnConnectionFailure) {
+            this.retryOnConnectionFailure = retryOnConnectionFailure;
+            return this;
+        }
+
+        /**
+         * Sets the exponential backoff between attempts. By default 500 ms, doubled on each attempt up to 30 s.
+         *
+         * @param initialBackoff the delay before the first retry.
+         * @param maxBackoff     the maximum delay between attempts.
+         * @param multiplier     the factor the delay grows by on each attempt.
+         * @return the RetryPolicyBuilder instance.
+         * @throws IllegalArgumentException if a delay is negative or the multiplier is less than 1.
+         */
+        public RetryPolicyBuilder backoff(Duration initialBackoff, Duration maxBackoff, double multiplier) {
+            if (initialBackoff.isNegative() || maxBackoff.isNegative() || multiplier < 1) {
+                throw new IllegalArgumentException("Backoff delays must not be negative and multiplier must be at least 1");
+            }
+            this.initialBackoff = initialBackoff;
+            this.maxBackoff = maxBackoff;
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Sets the share of the backoff that is randomized. 0 disables jitter, 1 picks any delay
+         * between zero and the backoff. By default 0.5.
+         *
+         * @param jitter the jitter, between 0 and 1.
+         * @return the RetryPolicyBuilder instance.
+         * @throws IllegalArgumentException if jitter is not between 0 and 1.
+         */
+        public RetryPolicyBuilder jitter(double jitter) {
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("jitter must be between 0 and 1");
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets whether the {@code Retry-After} delay sent by the server is honoured, and the longest delay accepted.
+         * Requests asked to wait longer are not retried. Enabled by default, up to one minute.
+         *
+         * @param respectRetryAfter whether the delay sent by the server is honoured.
+         * @param maxRetryAfter     the longest delay accepted.
+         * @return the RetryPolicyBuilder instance.
+         */
+        public RetryPolicyBuilder retryAfter(boolean respectRetryAfter, Duration maxRetryAfter) {
+            this.respectRetryAfter = respectRetryAfter;
+            this.maxRetryAfter = Objects.requireNonNull(maxRetryAfter);
+            return this;
+        }
+
+        /**
+         * Sets the budget that bounds the retries. By default one retry every five requests, with bursts of 10.
+         *
+         * @param budget the retry budget, see {@link RetryBudget#unlimited()}.
+         * @return the RetryPolicyBuilder instance.
+         */
+        public RetryPolicyBuilder retryBudget(RetryBudget budget) {
+            this.budget = Objects.requireNonNull(budget);
+            return this;
+        }
+
+        /**
+         * Builds the RetryPolicy.
+         *
+         * @return a new RetryPolicy.
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
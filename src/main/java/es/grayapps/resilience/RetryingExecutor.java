@@ -0,0 +1,130 @@
+package es.grayapps.resilience;
+
+import es.grayapps.methods.IMethod;
+import es.grayapps.metrics.ClientMetrics;
+import es.grayapps.metrics.MetricTags;
+import es.grayapps.utils.Timers;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * RetryingExecutor is a class that sends methods again when they fail, according to a {@link RetryPolicy}.
+ * <p>
+ * Retries never block a thread: the next attempt is scheduled after the backoff with {@link Timers}, and sent from
+ * the timer thread. Cancelling the returned future cancels the attempt in flight, or the backoff timer.
+ */
+public class RetryingExecutor {
+
+    private static final Logger logger = Logger.getLogger(RetryingExecutor.class.getName());
+
+    private final RetryPolicy policy;
+    private final ClientMetrics metrics;
+
+    /**
+     * Creates a new instance of RetryingExecutor.
+     *
+     * @param policy  the policy that decides which requests are retried.
+     * @param metrics the metrics the retries are reported to.
+     * @throws NullPointerException if policy or metrics are null.
+     */
+    public RetryingExecutor(RetryPolicy policy, ClientMetrics metrics) {
+        this.policy = Objects.requireNonNull(policy);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Sends the provided method, retrying it while it fails with a retryable error.
+     *
+     * @param method the method to send.
+     * @param sender the function that sends one attempt of the method to the server.
+     * @param <T>    the type of the response.
+     * @return a future completed with the response of the first successful attempt, or the error of the last one.
+     */
+    public <T extends Serializable> CompletableFuture<T> execute(IMethod<T> method,
+                                                                 Function<IMethod<T>, CompletableFuture<T>> sender) {
+        policy.getBudget().onRequest();
+        Attempts<T> attempts = new Attempts<>(method, sender);
+        attempts.send(1);
+        return attempts.result;
+    }
+
+    public RetryPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Attempts is the state of the attempts of a single method.
+     */
+    private final class Attempts<T extends Serializable> {
+        private final IMethod<T> method;
+        private final Function<IMethod<T>, CompletableFuture<T>> sender;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile CompletableFuture<T> current;
+        private volatile ScheduledFuture<?> backoff;
+
+        private Attempts(IMethod<T> method, Function<IMethod<T>, CompletableFuture<T>> sender) {
+            this.method = method;
+            this.sender = sender;
+            result.whenComplete((value, e) -> {
+                CompletableFuture<T> attempt = current;
+                ScheduledFuture<?> timer = backoff;
+                if (result.isCancelled() && attempt != null) {
+                    attempt.cancel(true);
+                }
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+            });
+        }
+
+        private void send(int attempt) {
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<T> future;
+            try {
+                future = sender.apply(method);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            current = future;
+            if (result.isCancelled()) {
+                future.cancel(true);
+                return;
+            }
+            future.whenComplete((value, e) -> {
+                if (e == null) {
+                    result.complete(value);
+                    return;
+                }
+                if (result.isDone()) {
+                    return;
+                }
+                Duration delay = policy.retryDelay(attempt, e);
+                if (delay == null) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                if (!policy.getBudget().tryRetry()) {
+                    logger.fine(() -> "Retry budget exhausted, not retrying " + method.getPath());
+                    result.completeExceptionally(e);
+                    return;
+                }
+                logger.fine(() -> "Retrying " + method.getPath() + " in " + delay.toMillis() + " ms after attempt "
+                        + attempt + " failed: " + e.getMessage());
+                metrics.retry(MetricTags.of(method), attempt, e);
+                ScheduledFuture<?> timer = Timers.schedule(() -> send(attempt + 1), delay.toNanos());
+                backoff = timer;
+                if (result.isDone()) {
+                    timer.cancel(false);
+                }
+            });
+        }
+    }
+}
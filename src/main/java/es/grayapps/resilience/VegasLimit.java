@@ -0,0 +1,75 @@
+package es.grayapps.resilience;
+
+/**
+ * VegasLimit is a concurrency limit driven by latency, after the TCP Vegas congestion control.
+ * <p>
+ * The lowest latency seen is taken as the latency of the server without load. The number of requests queued
+ * at the server is estimated from how much slower the latest request was, and the limit grows while that queue
+ * is short and shrinks when it gets long, before the server starts rejecting requests.
+ * The limit also shrinks when a request is dropped. The lowest latency is forgotten periodically,
+ * so the limit follows changes of the server.
+ */
+public class VegasLimit implements ConcurrencyLimit {
+
+    private static final int PROBE_INTERVAL = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private long rttNoLoad;
+    private int samples;
+
+    /**
+     * Creates a new instance of VegasLimit.
+     *
+     * @param initialLimit the limit to start with.
+     * @param minLimit     the lowest limit.
+     * @param maxLimit     the highest limit.
+     * @throws IllegalArgumentException if the limits are not ordered or minLimit is less than 1.
+     */
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (++samples >= PROBE_INTERVAL) {
+            samples = 0;
+            rttNoLoad = 0;
+        }
+        double step = Math.max(1, Math.log10(limit));
+        if (dropped) {
+            limit = Math.max(minLimit, limit - step);
+            return;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+            rttNoLoad = rttNanos;
+        }
+        if (inFlight * 2 < limit) {
+            return;
+        }
+
+        double queued = Math.ceil(limit * (1 - (double) rttNoLoad / rttNanos));
+        if (queued <= step) {
+            limit += 2 * step;
+        } else if (queued < 3 * step) {
+            limit += step;
+        } else if (queued > 6 * step) {
+            limit -= step;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+}
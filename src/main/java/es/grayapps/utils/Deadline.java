@@ -0,0 +1,111 @@
+package es.grayapps.utils;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deadline is a class that represents the instant by which an execution must finish.
+ * <p>
+ * The execution is given up when the deadline passes: its future is cancelled, which cancels the HTTP call in flight
+ * and releases its connection, and the future returned by {@link #enforce(CompletableFuture, Executor)} fails with a
+ * {@link TimeoutException}. Each call is also sent with the time left as its OkHttp call timeout.
+ * The timeout is never completed on the shared {@link Timers} thread, so slow callbacks of the caller cannot hold up
+ * the other timers of the client.
+ */
+public final class Deadline {
+
+    private final Duration timeout;
+    private final long deadlineNanos;
+
+    private Deadline(Duration timeout) {
+        this.timeout = timeout;
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * Creates a deadline the provided time from now.
+     *
+     * @param timeout the time the execution may take.
+     * @return a new deadline.
+     * @throws NullPointerException     if timeout is null.
+     * @throws IllegalArgumentException if timeout is not positive.
+     */
+    public static Deadline after(Duration timeout) {
+        if (Objects.requireNonNull(timeout).isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+        return new Deadline(timeout);
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns the time left until the deadline.
+     *
+     * @return the time left in nanoseconds, zero or negative once the deadline passed.
+     */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * Returns the exception executions that miss this deadline fail with.
+     *
+     * @return a new TimeoutException.
+     */
+    public TimeoutException timeoutException() {
+        return new TimeoutException("Deadline of " + timeout.toMillis() + " ms exceeded");
+    }
+
+    /**
+     * Enforces this deadline on the provided execution.<br>
+     * An execution that fails once the deadline passed, such as a call whose OkHttp call timeout fired first,
+     * also fails with a TimeoutException, caused by its original error.
+     *
+     * @param future   the future of the execution, cancelled if the deadline passes first.
+     * @param executor the executor used to complete the returned future on timeout, or null to complete it on the
+     *                 common fork-join pool.
+     * @param <T>      the type of the response.
+     * @return a future completed as the provided one, or with a TimeoutException if the deadline passes first.
+     * Cancelling it cancels the execution.
+     */
+    public <T> CompletableFuture<T> enforce(CompletableFuture<T> future, Executor executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable expire = () -> {
+            if (result.completeExceptionally(timeoutException())) {
+                future.cancel(true);
+            }
+        };
+        Executor target = executor != null ? executor : ForkJoinPool.commonPool();
+        ScheduledFuture<?> timer = Timers.schedule(() -> target.execute(expire), Math.max(0, remainingNanos()));
+        future.whenComplete((value, e) -> {
+            timer.cancel(false);
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (remainingNanos() <= 0) {
+                TimeoutException timeout = timeoutException();
+                timeout.initCause(cause);
+                cause = timeout;
+            }
+            result.completeExceptionally(cause);
+        });
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) {
+                timer.cancel(false);
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,38 @@
+package es.grayapps.utils;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Failures is a class that classifies the errors requests fail with, for the policies that decide
+ * whether to retry, fail over or count them.
+ * <p>
+ * Calls cancelled by the client fail with a {@link java.util.concurrent.CancellationException}, see
+ * {@link HttpResponse}, so an {@link IOException} always means the call itself failed.
+ */
+public final class Failures {
+
+    private Failures() {
+    }
+
+    /**
+     * Returns the cause of the provided error if it is a {@link CompletionException} wrapping it.
+     *
+     * @param error the error.
+     * @return the wrapped cause, or the error itself.
+     */
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Returns whether the provided error is a failure of the connection to the server, such as a refused connection,
+     * a reset or a timeout, and not a cancellation.
+     *
+     * @param error the error, possibly wrapped in a {@link CompletionException}.
+     * @return true if the error is a connection failure.
+     */
+    public static boolean isConnectionFailure(Throwable error) {
+        return unwrap(error) instanceof IOException;
+    }
+}
@@ -2,7 +2,12 @@ package es.grayapps.utils;
 
 import es.grayapps.exceptions.EasyWebUIException;
 import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.exceptions.HttpStatusException;
 import es.grayapps.methods.IMethod;
+import es.grayapps.methods.response.ResponseTiming;
+import es.grayapps.methods.response.TimedResponse;
+import es.grayapps.metrics.ClientMetrics;
+import es.grayapps.metrics.MetricTags;
 import okhttp3.Call;
 import okhttp3.Callback;
 import okhttp3.Response;
@@ -11,10 +16,21 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * HttpResponse is a class that handles the HTTP response and deserializes it into an object of type T.
+ * <p>
+ * Once bound to a call, cancelling this future cancels the call.
+ * The time taken to deserialize the response is reported to the provided metrics, and responses that are
+ * {@link TimedResponse} get the times measured since this future was created.
  *
  * @param <T>      the type of the response expected to be deserialized.
  * @param <Method> the type of the method that makes the request.
@@ -22,6 +38,12 @@ import java.util.concurrent.CompletableFuture;
 public class HttpResponse<T extends Serializable, Method extends IMethod<T>> extends CompletableFuture<T> implements Callback {
 
     private final Method method;
+    private final Executor executor;
+    private final ClientMetrics metrics;
+    private final MetricTags tags;
+    private final long startNanos = System.nanoTime();
+    private volatile Call call;
+    private volatile Runnable onStarted;
 
     /**
      * Creates a new instance of HttpResponse with the provided method.
@@ -29,18 +51,87 @@ public class HttpResponse<T extends Serializable, Method extends IMethod<T>> ext
      * @param method the method that makes the request.
      */
     public HttpResponse(Method method) {
+        this(method, null);
+    }
+
+    /**
+     * Creates a new instance of HttpResponse with the provided method, completing on the provided executor.
+     *
+     * @param method   the method that makes the request.
+     * @param executor the executor used to complete this future, or null to complete it on the HTTP client thread.
+     */
+    public HttpResponse(Method method, Executor executor) {
+        this(method, executor, ClientMetrics.noop(), null);
+    }
+
+    /**
+     * Creates a new instance of HttpResponse with the provided method, completing on the provided executor
+     * and reporting to the provided metrics.
+     *
+     * @param method   the method that makes the request.
+     * @param executor the executor used to complete this future, or null to complete it on the HTTP client thread.
+     * @param metrics  the metrics the deserialization time is reported to.
+     * @param tags     the tags the deserialization time is reported with.
+     */
+    public HttpResponse(Method method, Executor executor, ClientMetrics metrics, MetricTags tags) {
         this.method = method;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.tags = tags;
     }
 
     /**
-     * Called when the request fails.
+     * Binds the call that produces the response, so cancelling this future cancels the call.
+     *
+     * @param call the call that was made.
+     */
+    public void bind(Call call) {
+        this.call = call;
+        if (isCancelled()) {
+            call.cancel();
+        }
+    }
+
+    /**
+     * Sets a listener called once a successful response starts to be received, before it is deserialized.
+     *
+     * @param onStarted the listener, or null for none.
+     */
+    public void whenStarted(Runnable onStarted) {
+        this.onStarted = onStarted;
+    }
+
+    /**
+     * Cancels this future and the bound call, if any.
+     *
+     * @param mayInterruptIfRunning ignored, the call is always cancelled.
+     * @return true if this future was cancelled.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Call boundCall = call;
+        if (boundCall != null) {
+            boundCall.cancel();
+        }
+        return cancelled;
+    }
+
+    /**
+     * Called when the request fails. A call that was cancelled fails this future with a CancellationException.
      *
      * @param call the call that was made.
      * @param e    the exception that was thrown.
      */
     @Override
     public void onFailure(@NotNull Call call, @NotNull IOException e) {
-        completeExceptionally(e);
+        if (call.isCanceled()) {
+            CancellationException cancelled = new CancellationException("Call canceled");
+            cancelled.initCause(e);
+            fail(cancelled);
+            return;
+        }
+        fail(e);
     }
 
     /**
@@ -52,28 +143,82 @@ public class HttpResponse<T extends Serializable, Method extends IMethod<T>> ext
      */
     @Override
     public void onResponse(@NotNull Call call, @NotNull Response response) throws IOException {
+        final long firstByteNanos = System.nanoTime();
         try (ResponseBody body = response.body()) {
-            if (response.code() != 200) {
+            if (!response.isSuccessful()) {
                 final String errorBody = body != null ? body.string() : "Empty body";
-                completeExceptionally(new EasyWebUIException(
-                        "API returned error code: " + response.code() + " - Body: " + errorBody
-                ));
+                fail(new HttpStatusException(response.code(), errorBody, retryAfter(response.header("Retry-After"))));
                 return;
             }
 
             if (body == null) {
-                completeExceptionally(new EasyWebUIExceptionRuntime("API returned empty response."));
+                fail(new EasyWebUIExceptionRuntime("API returned empty response."));
                 return;
             }
 
+            final Runnable started = onStarted;
+            if (started != null) {
+                started.run();
+            }
+
+            try {
+                final long start = System.nanoTime();
+                final T result = method.deserialize(body.byteStream());
+                metrics.deserialization(tags, System.nanoTime() - start);
+                succeed(timed(result, firstByteNanos));
+            } catch (EasyWebUIException | EasyWebUIExceptionRuntime | IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    /**
+     * Parses the value of a {@code Retry-After} header, either a number of seconds or an HTTP date.
+     *
+     * @param value the value of the header, may be null.
+     * @return the delay, or null if there is no valid value.
+     */
+    static Duration retryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
             try {
-                final T result = method.deserialize(body.string());
-                complete(result);
-            } catch (EasyWebUIException | EasyWebUIExceptionRuntime e) {
-                completeExceptionally(e);
+                Instant date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                Duration delay = Duration.between(Instant.now(), date);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                return null;
             }
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private T timed(T result, long firstByteNanos) {
+        if (!(result instanceof TimedResponse)) {
+            return result;
+        }
+        long now = System.nanoTime();
+        return (T) ((TimedResponse<?>) result).withTiming(
+                new ResponseTiming(firstByteNanos - startNanos, now - startNanos));
+    }
+
+    private void succeed(T result) {
+        if (executor == null) {
+            complete(result);
+        } else {
+            executor.execute(() -> complete(result));
+        }
+    }
+
+    private void fail(Throwable e) {
+        if (executor == null) {
+            completeExceptionally(e);
+        } else {
+            executor.execute(() -> completeExceptionally(e));
+        }
+    }
 
 }
\ No newline at end of file
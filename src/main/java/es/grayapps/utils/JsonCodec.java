@@ -0,0 +1,127 @@
+package es.grayapps.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * JsonCodec is a class that holds the JSON serialization components shared by the methods.
+ * <p>
+ * An ObjectMapper is expensive to create and warms up its serializer caches on first use,
+ * so a single codec is meant to be shared by every method. The readers and writers it hands out
+ * are immutable and thread-safe, and are cached per type. Writers never close the stream they write to,
+ * so they can write directly into a request body.
+ * <p>
+ * The default codec registers the Jackson Blackbird module, or the Afterburner module on older setups,
+ * when one of them is found on the classpath, to speed up bean access.
+ *
+ * @author javiergg
+ */
+public final class JsonCodec {
+
+    private static final Logger logger = Logger.getLogger(JsonCodec.class.getName());
+
+    private static final String[] FAST_BEAN_ACCESS_MODULES = {
+            "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+    };
+
+    private static final JsonCodec DEFAULT = new JsonCodec(registerFastBeanAccess(new ObjectMapper()));
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter writer;
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private JsonCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.writer = mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Returns the codec shared by default by every method.
+     *
+     * @return the default codec.
+     */
+    public static JsonCodec getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Creates a new codec on top of the provided mapper.<br>
+     * The mapper must not be reconfigured afterwards, as readers and writers are cached.
+     *
+     * @param mapper the mapper.
+     * @return a new codec.
+     * @throws NullPointerException if mapper is null.
+     */
+    public static JsonCodec create(ObjectMapper mapper) {
+        return new JsonCodec(Objects.requireNonNull(mapper));
+    }
+
+    /**
+     * Registers the Blackbird or Afterburner module on the provided mapper, if one of them is on the classpath.
+     *
+     * @param mapper the mapper.
+     * @return the same mapper.
+     */
+    public static ObjectMapper registerFastBeanAccess(ObjectMapper mapper) {
+        for (String moduleClass : FAST_BEAN_ACCESS_MODULES) {
+            try {
+                Module module = (Module) Class.forName(moduleClass).getDeclaredConstructor().newInstance();
+                mapper.registerModule(module);
+                logger.fine("Registered Jackson module: " + moduleClass);
+                return mapper;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.finest("Jackson module not available: " + moduleClass);
+            }
+        }
+        return mapper;
+    }
+
+    /**
+     * Returns the JSON factory, to create streaming parsers and generators.
+     *
+     * @return the JSON factory.
+     */
+    public JsonFactory getFactory() {
+        return mapper.getFactory();
+    }
+
+    /**
+     * Returns a writer for any value.
+     *
+     * @return the writer.
+     */
+    public ObjectWriter writer() {
+        return writer;
+    }
+
+    /**
+     * Returns a writer bound to the provided type.
+     *
+     * @param type the type to write.
+     * @return the cached writer.
+     */
+    public ObjectWriter writerFor(Class<?> type) {
+        return writers.computeIfAbsent(type, key -> mapper.writerFor(key).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+    }
+
+    /**
+     * Returns a reader bound to the provided type.
+     *
+     * @param type the type to read.
+     * @return the cached reader.
+     */
+    public ObjectReader readerFor(Class<?> type) {
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+}
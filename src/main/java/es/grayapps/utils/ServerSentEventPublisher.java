@@ -0,0 +1,233 @@
+package es.grayapps.utils;
+
+import es.grayapps.exceptions.EasyWebUIException;
+import es.grayapps.exceptions.HttpStatusException;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ServerSentEventPublisher is a class that streams the server-sent events of an HTTP call to a single subscriber.
+ * <p>
+ * The call is started on the first request of the subscriber, and events are read from the response
+ * only while the subscriber has outstanding demand, so a slow subscriber holds back the reading of the socket
+ * instead of buffering the whole response. Cancelling the subscription cancels the underlying call.
+ *
+ * @param <T> the type of the items published for each event.
+ */
+public class ServerSentEventPublisher<T> implements Flow.Publisher<T> {
+
+    private static final String DATA_PREFIX = "data:";
+    private static final String DONE = "[DONE]";
+
+    private final Call call;
+    private final EventParser<T> parser;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Creates a new instance of ServerSentEventPublisher.
+     *
+     * @param call   the call that produces the event stream, not yet executed.
+     * @param parser the parser used to turn the data of each event into an item.
+     */
+    public ServerSentEventPublisher(Call call, EventParser<T> parser) {
+        this.call = call;
+        this.parser = parser;
+    }
+
+    /**
+     * Subscribes to the event stream. Only one subscriber is supported, as the underlying call can only be executed once.
+     *
+     * @param subscriber the subscriber.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("ServerSentEventPublisher only supports a single subscriber"));
+            return;
+        }
+        EventSubscription subscription = new EventSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * EventParser is an interface that turns the data of a server-sent event into an item.
+     *
+     * @param <T> the type of the item.
+     */
+    @FunctionalInterface
+    public interface EventParser<T> {
+
+        /**
+         * Parses the data of a single event.
+         *
+         * @param data the data of the event, with multi-line data joined by line feeds.
+         * @return the parsed item, or null to skip the event.
+         * @throws EasyWebUIException if the data cannot be parsed.
+         */
+        T parse(String data) throws EasyWebUIException;
+    }
+
+    /**
+     * EventSubscription is the subscription handed to the subscriber, it also receives the response of the call.
+     */
+    private class EventSubscription implements Flow.Subscription, Callback {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private long demand;
+        private boolean cancelled;
+
+        private EventSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                signalError(new IllegalArgumentException("Requested items must be positive, was " + n));
+                return;
+            }
+            synchronized (this) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                notifyAll();
+            }
+            if (started.compareAndSet(false, true)) {
+                call.enqueue(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                notifyAll();
+            }
+            call.cancel();
+        }
+
+        @Override
+        public void onFailure(@NotNull Call call, @NotNull IOException e) {
+            if (!isCancelled()) {
+                signalError(e);
+            }
+        }
+
+        @Override
+        public void onResponse(@NotNull Call call, @NotNull Response response) {
+            try (ResponseBody body = response.body()) {
+                if (!response.isSuccessful()) {
+                    final String errorBody = body != null ? body.string() : "Empty body";
+                    signalError(new HttpStatusException(response.code(), errorBody,
+                            HttpResponse.retryAfter(response.header("Retry-After"))));
+                    return;
+                }
+
+                if (body == null) {
+                    signalError(new EasyWebUIException("API returned empty response."));
+                    return;
+                }
+
+                readEvents(body.source());
+            } catch (IOException e) {
+                if (!isCancelled()) {
+                    signalError(e);
+                }
+            } catch (EasyWebUIException | RuntimeException e) {
+                call.cancel();
+                signalError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                call.cancel();
+                signalError(e);
+            }
+        }
+
+        /**
+         * Reads the events from the source, waiting for demand before emitting each one,
+         * so no further event is read from the socket while the subscriber has no demand.
+         */
+        private void readEvents(BufferedSource source) throws IOException, EasyWebUIException, InterruptedException {
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (!isCancelled() && (line = source.readUtf8Line()) != null) {
+                if (!line.isEmpty()) {
+                    if (line.startsWith(DATA_PREFIX)) {
+                        if (data.length() > 0) {
+                            data.append('\n');
+                        }
+                        int start = DATA_PREFIX.length();
+                        if (start < line.length() && line.charAt(start) == ' ') {
+                            start++;
+                        }
+                        data.append(line, start, line.length());
+                    }
+                    continue;
+                }
+                if (data.length() == 0) {
+                    continue;
+                }
+                String event = data.toString();
+                data.setLength(0);
+                if (DONE.equals(event)) {
+                    break;
+                }
+                T item = parser.parse(event);
+                if (item == null) {
+                    continue;
+                }
+                if (!awaitDemand()) {
+                    return;
+                }
+                subscriber.onNext(item);
+            }
+            if (!isCancelled()) {
+                signalComplete();
+            }
+        }
+
+        private synchronized boolean awaitDemand() throws InterruptedException {
+            while (demand == 0 && !cancelled) {
+                wait();
+            }
+            if (demand != Long.MAX_VALUE) {
+                demand--;
+            }
+            return !cancelled;
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void signalError(Throwable t) {
+            if (terminated.compareAndSet(false, true)) {
+                subscriber.onError(t);
+            }
+        }
+
+        private void signalComplete() {
+            if (terminated.compareAndSet(false, true)) {
+                subscriber.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package es.grayapps.utils;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * StreamingRequestBody is a class that writes a JSON request body directly into the HTTP connection,
+ * without building an intermediate String or byte array.
+ * <p>
+ * Streamed bodies have no known length and are sent with {@code Transfer-Encoding: chunked}, which some proxies
+ * reject. So bodies estimated below {@link #BUFFER_LIMIT}, or of unknown size, are written into a byte array on the
+ * HTTP client thread and sent with a {@code Content-Length}; only larger bodies are streamed.
+ */
+public class StreamingRequestBody extends RequestBody {
+
+    /**
+     * The estimated size in bytes from which bodies are streamed instead of buffered.
+     */
+    public static final long BUFFER_LIMIT = 64 * 1024;
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final BodyWriter writer;
+    private final boolean buffered;
+    private byte[] buffer;
+
+    /**
+     * Creates a new instance of StreamingRequestBody for a body of unknown size, which is buffered.
+     *
+     * @param writer the writer of the body, it may be called more than once if the request is retried.
+     */
+    public StreamingRequestBody(BodyWriter writer) {
+        this(writer, -1);
+    }
+
+    /**
+     * Creates a new instance of StreamingRequestBody, streamed if its estimated size reaches {@link #BUFFER_LIMIT}.
+     *
+     * @param writer        the writer of the body, it may be called more than once if the request is retried.
+     * @param estimatedSize the estimated size of the body in bytes, or -1 if it is unknown.
+     */
+    public StreamingRequestBody(BodyWriter writer, long estimatedSize) {
+        this.writer = writer;
+        this.buffered = estimatedSize < BUFFER_LIMIT;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    /**
+     * Returns the length of the body, writing it into a byte array if it is buffered.
+     *
+     * @return the length in bytes, or -1 if the body is streamed.
+     * @throws IOException if an error occurs while writing the body.
+     */
+    @Override
+    public long contentLength() throws IOException {
+        return buffered ? buffer().length : -1;
+    }
+
+    @Override
+    public void writeTo(@NotNull BufferedSink sink) throws IOException {
+        if (buffered) {
+            sink.write(buffer());
+            return;
+        }
+        try (OutputStream out = new FilterOutputStream(sink.outputStream()) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        }) {
+            writer.writeTo(out);
+        }
+    }
+
+    private byte[] buffer() throws IOException {
+        if (buffer == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writer.writeTo(out);
+            buffer = out.toByteArray();
+        }
+        return buffer;
+    }
+
+    /**
+     * BodyWriter is an interface that writes a request body into a stream.
+     */
+    @FunctionalInterface
+    public interface BodyWriter {
+
+        /**
+         * Writes the body into the provided stream.
+         *
+         * @param out the stream the body is written to.
+         * @throws IOException if an error occurs while writing the body.
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,175 @@
+package es.grayapps.utils;
+
+import java.io.Writer;
+
+/**
+ * ThinkTagFilter is a writer that removes the {@code <think>...</think>} reasoning sections
+ * of reasoning models from the text written to it, along with the whitespace that follows them.
+ * <p>
+ * The text is filtered in a single linear pass by a small state machine, so tags split across
+ * several writes are recognized too. The reasoning text is only kept when asked to, otherwise it is
+ * discarded as it is written. A reasoning section that is never closed, as happens when the generation
+ * is cut short, is treated as reasoning until the end of the text.
+ */
+public class ThinkTagFilter extends Writer {
+
+    private static final char[] OPEN_TAG = "<think>".toCharArray();
+    private static final char[] CLOSE_TAG = "</think>".toCharArray();
+
+    private final StringBuilder content = new StringBuilder();
+    private final StringBuilder reasoning;
+    private State state = State.TEXT;
+    private int matched;
+    private boolean sawReasoning;
+
+    /**
+     * Creates a new instance of ThinkTagFilter.
+     *
+     * @param keepReasoning whether the text of the reasoning sections is kept, see {@link #getReasoning()}.
+     */
+    public ThinkTagFilter(boolean keepReasoning) {
+        this.reasoning = keepReasoning ? new StringBuilder() : null;
+    }
+
+    /**
+     * Filters the provided text in one call.
+     *
+     * @param text the text to filter, may be null.
+     * @return the text without reasoning sections, or null if the text was null.
+     */
+    public static String strip(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.indexOf('<') < 0) {
+            return text;
+        }
+        ThinkTagFilter filter = new ThinkTagFilter(false);
+        filter.write(text, 0, text.length());
+        return filter.getContent();
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            accept(buffer[i]);
+        }
+    }
+
+    @Override
+    public void write(String text) {
+        write(text, 0, text.length());
+    }
+
+    @Override
+    public void write(String text, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            accept(text.charAt(i));
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        accept((char) c);
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case SKIP_WHITESPACE:
+                if (isWhitespace(c)) {
+                    return;
+                }
+                state = State.TEXT;
+                acceptText(c);
+                return;
+            case THINK:
+                acceptThink(c);
+                return;
+            default:
+                acceptText(c);
+        }
+    }
+
+    private void acceptText(char c) {
+        if (c == OPEN_TAG[matched]) {
+            if (++matched == OPEN_TAG.length) {
+                matched = 0;
+                state = State.THINK;
+                if (reasoning != null && sawReasoning) {
+                    reasoning.append("\n\n");
+                }
+                sawReasoning = true;
+            }
+            return;
+        }
+        if (matched > 0) {
+            content.append(OPEN_TAG, 0, matched);
+            matched = 0;
+            acceptText(c);
+            return;
+        }
+        content.append(c);
+    }
+
+    private void acceptThink(char c) {
+        if (c == CLOSE_TAG[matched]) {
+            if (++matched == CLOSE_TAG.length) {
+                matched = 0;
+                state = State.SKIP_WHITESPACE;
+            }
+            return;
+        }
+        if (matched > 0) {
+            if (reasoning != null) {
+                reasoning.append(CLOSE_TAG, 0, matched);
+            }
+            matched = 0;
+            acceptThink(c);
+            return;
+        }
+        if (reasoning != null) {
+            reasoning.append(c);
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    /**
+     * Returns the text written so far, without reasoning sections.
+     * A partially written opening tag at the end of the text is kept as text.
+     *
+     * @return the filtered text.
+     */
+    public String getContent() {
+        if (state == State.TEXT && matched > 0) {
+            return content.toString() + new String(OPEN_TAG, 0, matched);
+        }
+        return content.toString();
+    }
+
+    /**
+     * Returns the text of the reasoning sections written so far, one section per paragraph.
+     *
+     * @return the reasoning text, or null if it is not kept or there was no reasoning section.
+     */
+    public String getReasoning() {
+        if (reasoning == null || !sawReasoning) {
+            return null;
+        }
+        return reasoning.toString().trim();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private enum State {
+        TEXT, THINK, SKIP_WHITESPACE
+    }
+}
@@ -0,0 +1,42 @@
+package es.grayapps.utils;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timers is a class that schedules the timeouts of the client on a single shared daemon thread.
+ * <p>
+ * Unlike {@link java.util.concurrent.CompletableFuture#delayedExecutor}, the timeouts it schedules can be cancelled,
+ * and cancelled timeouts are removed at once, so the many timeouts of short requests that never fire do not pile up.
+ * Tasks must be short, as they all run on the same thread.
+ */
+public final class Timers {
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER;
+
+    static {
+        AtomicInteger count = new AtomicInteger();
+        SCHEDULER = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "easywebui-timer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    private Timers() {
+    }
+
+    /**
+     * Schedules the provided task.
+     *
+     * @param task       the task to run.
+     * @param delayNanos the delay before running it.
+     * @return the scheduled task, which can be cancelled.
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delayNanos) {
+        return SCHEDULER.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,57 @@
+package es.grayapps.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+/**
+ * VirtualThreads is a class that gives access to the virtual threads of Java 21 and newer runtimes.
+ * <p>
+ * This is the baseline implementation, which looks the API up reflectively so the library still
+ * compiles and runs on Java 11. The multi-release JAR ships a Java 21 implementation that uses the API directly.
+ */
+public final class VirtualThreads {
+
+    private static final Logger logger = Logger.getLogger(VirtualThreads.class.getName());
+
+    private static final ThreadFactory FACTORY = createFactory();
+
+    private VirtualThreads() {
+    }
+
+    private static ThreadFactory createFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "easywebui-virtual-", 0L);
+            Method factory = builderClass.getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.fine("Virtual threads are not available on this runtime");
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the runtime supports virtual threads.
+     *
+     * @return true if virtual threads are supported.
+     */
+    public static boolean isSupported() {
+        return FACTORY != null;
+    }
+
+    /**
+     * Returns an executor that runs every task on a new virtual thread.
+     *
+     * @return the executor.
+     * @throws UnsupportedOperationException if the runtime does not support virtual threads.
+     */
+    public static Executor executor() {
+        if (FACTORY == null) {
+            throw new UnsupportedOperationException("Virtual threads require a Java 21 or newer runtime");
+        }
+        return task -> FACTORY.newThread(task).start();
+    }
+}
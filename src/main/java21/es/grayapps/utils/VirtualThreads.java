@@ -0,0 +1,35 @@
+package es.grayapps.utils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * VirtualThreads is a class that gives access to the virtual threads of Java 21 and newer runtimes.
+ * <p>
+ * This is the Java 21 implementation of the multi-release JAR, which uses the API directly.
+ */
+public final class VirtualThreads {
+
+    private static final ThreadFactory FACTORY = Thread.ofVirtual().name("easywebui-virtual-", 0).factory();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns whether the runtime supports virtual threads.
+     *
+     * @return always true.
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Returns an executor that runs every task on a new virtual thread.
+     *
+     * @return the executor.
+     */
+    public static Executor executor() {
+        return task -> FACTORY.newThread(task).start();
+    }
+}
@@ -1,12 +1,72 @@
 package es.grayapps;
 
+import es.grayapps.batch.BatchResult;
+import es.grayapps.cache.MemoryResponseCache;
+import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.exceptions.LimitExceededException;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.PromptTemplate;
+import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.methods.response.ModelsResponse;
+import es.grayapps.resilience.CircuitBreaker;
+import es.grayapps.resilience.CircuitBreakerPolicy;
+import es.grayapps.resilience.HedgingPolicy;
+import es.grayapps.resilience.LimiterPolicy;
+import es.grayapps.resilience.RetryPolicy;
+import es.grayapps.utils.VirtualThreads;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class EasyWebUITest {
 
+    private static final String COMPLETION_JSON = "{\"id\":\"1\",\"choices\":[{\"index\":0,\"message\":{\"content\":\"response content\",\"role\":\"assistant\"}}]}";
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private EasyWebUI easyWebUI() {
+        return EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .build();
+    }
+
     @Test
     void testEasyWebUIBuilder() {
         EasyWebUI builtEasyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
@@ -18,4 +78,357 @@ class EasyWebUITest {
         assertEquals("http://example.com", builtEasyWebUI.getServerUrl());
         assertEquals("token", builtEasyWebUI.getServerToken());
     }
-}
\ No newline at end of file
+
+    @Test
+    void executeCompletionReturnsResponse() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+
+        CompletionResponse response = easyWebUI().executeCompletion(new CompletionMethod("model", "message", "user"));
+
+        assertEquals("response content", response.getContent());
+        assertEquals("Bearer token", server.takeRequest().getHeader("Authorization"));
+    }
+
+    @Test
+    void executeCompletionAsyncCompletesOnExecutor() throws Exception {
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        Thread[] completionThread = new Thread[1];
+
+        CompletionResponse response = easyWebUI()
+                .executeCompletionAsync(new CompletionMethod("model", "message", "user"), runnable -> {
+                    Thread thread = new Thread(runnable, "completion-executor");
+                    completionThread[0] = thread;
+                    thread.start();
+                })
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("response content", response.getContent());
+        assertEquals("completion-executor", completionThread[0].getName());
+    }
+
+    @Test
+    void cancellingAsyncExecutionCancelsCall() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+
+        CompletableFuture<CompletionResponse> future = easyWebUI()
+                .executeCompletionAsync(new CompletionMethod("model", "message", "user"));
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    void timeoutOfMethodCancelsCallAndReleasesConnection() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .connectionPool(new ConnectionPool())
+                .build();
+
+        CompletableFuture<CompletionResponse> future = easyWebUI.executeCompletionAsync(
+                new CompletionMethod("model", "message", "user").withTimeout(Duration.ofMillis(300)));
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        awaitNoConnections(easyWebUI);
+    }
+
+    @Test
+    void timeoutOfExecutionCoversRetries() {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .retryPolicy(RetryPolicy.defaults())
+                .build();
+
+        EasyWebUIExceptionRuntime e = assertThrows(EasyWebUIExceptionRuntime.class, () ->
+                easyWebUI.execute(new CompletionMethod("model", "message", "user"), Duration.ofMillis(300)));
+
+        assertInstanceOf(TimeoutException.class, e.getCause().getCause());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void interruptingBlockingExecutionCancelsCall() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .connectionPool(new ConnectionPool())
+                .build();
+        Thread thread = new Thread(() -> assertThrows(EasyWebUIExceptionRuntime.class,
+                () -> easyWebUI.executeCompletion(new CompletionMethod("model", "message", "user"))));
+        thread.start();
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+
+        thread.interrupt();
+        thread.join(5000);
+
+        assertFalse(thread.isAlive());
+        awaitNoConnections(easyWebUI);
+    }
+
+    private static void awaitNoConnections(EasyWebUI easyWebUI) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (easyWebUI.getHttpClient().connectionPool().connectionCount() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "connection not released in time");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void streamCompletionSkipsEventsWithoutChoicesAndStripsReasoning() throws Exception {
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/event-stream").setBody(
+                "data: {\"sources\":[]}\n\n"
+                        + "data: {\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"<thi\"}}]}\n\n"
+                        + "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"nk>plan</think>\\n\\nhi\"}}]}\n\n"
+                        + "data: {\"choices\":[],\"usage\":{\"total_tokens\":3}}\n\n"
+                        + "data: [DONE]\n\n"));
+        List<String> chunks = new CopyOnWriteArrayList<>();
+
+        CompletionResponse response = easyWebUI()
+                .streamCompletion(new CompletionMethod("model", "message", "user").withReasoning(true),
+                        chunk -> chunks.add(chunk.getContent()))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, chunks.size());
+        assertEquals("hi", response.getContent());
+        assertEquals("plan", response.getReasoning());
+        assertEquals("assistant", response.getRole());
+    }
+
+    @Test
+    void sendsSmallBodiesWithLengthAndStreamsLargeOnes() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        EasyWebUI easyWebUI = easyWebUI();
+
+        easyWebUI.executeCompletion(new CompletionMethod("model", "message", "user"));
+        easyWebUI.executeCompletion(new CompletionMethod("model", "x".repeat(100_000), "user"));
+
+        RecordedRequest small = server.takeRequest();
+        assertEquals(String.valueOf(small.getBodySize()), small.getHeader("Content-Length"));
+        RecordedRequest large = server.takeRequest();
+        assertEquals("chunked", large.getHeader("Transfer-Encoding"));
+        assertTrue(large.getBodySize() > 100_000);
+    }
+
+    @Test
+    void defaultInstancesShareHttpClient() {
+        EasyWebUI first = new EasyWebUI("http://example.com", "token");
+        EasyWebUI second = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl("http://example.com")
+                .serverToken("token")
+                .build();
+
+        assertSame(first.getHttpClient(), second.getHttpClient());
+    }
+
+    @Test
+    void builderConfiguresHttpClient() {
+        EasyWebUI built = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl("http://example.com")
+                .serverToken("token")
+                .maxRequestsPerHost(32)
+                .connectionPool(10, Duration.ofMinutes(1))
+                .http2PriorKnowledge()
+                .readTimeout(Duration.ofSeconds(30))
+                .build();
+
+        OkHttpClient client = built.getHttpClient();
+        assertEquals(32, client.dispatcher().getMaxRequestsPerHost());
+        assertEquals(List.of(Protocol.H2_PRIOR_KNOWLEDGE), client.protocols());
+        assertEquals(30_000, client.readTimeoutMillis());
+    }
+
+    @Test
+    void builderSharesExternalClientPool() {
+        ConnectionPool pool = new ConnectionPool();
+        OkHttpClient shared = new OkHttpClient.Builder().connectionPool(pool).build();
+
+        EasyWebUI first = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl("http://example.com")
+                .serverToken("token")
+                .okHttpClient(shared)
+                .build();
+        EasyWebUI second = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl("http://example.com")
+                .serverToken("token")
+                .okHttpClient(shared)
+                .callTimeout(Duration.ofSeconds(5))
+                .build();
+
+        assertSame(pool, first.getHttpClient().connectionPool());
+        assertSame(pool, second.getHttpClient().connectionPool());
+        assertSame(shared.dispatcher(), second.getHttpClient().dispatcher());
+    }
+
+    @Test
+    void executeAllReturnsResultsInOrderAndReportsFailures() {
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+
+        List<BatchResult<CompletionResponse>> results = easyWebUI().executeAll(List.of(
+                new CompletionMethod("model", "first", "user"),
+                new CompletionMethod("model", "second", "user"),
+                new CompletionMethod("model", "third", "user")), 1);
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(2, results.get(2).getIndex());
+    }
+
+    @Test
+    void virtualThreadModeExecutesOrFallsBack() {
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        EasyWebUI virtual = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .executionMode(ExecutionMode.VIRTUAL_THREADS)
+                .build();
+
+        assertEquals(VirtualThreads.isSupported() ? ExecutionMode.VIRTUAL_THREADS : ExecutionMode.DISPATCHER,
+                virtual.getExecutionMode());
+        assertEquals("response content", virtual.executeCompletion(new CompletionMethod("model", "message", "user")).getContent());
+    }
+
+    @Test
+    void retryPolicyRetriesUnavailableServerHonouringRetryAfter() {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "0").setBody("busy"));
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "0").setBody("slow down"));
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .retryPolicy(RetryPolicy.defaults())
+                .build();
+
+        CompletionResponse response = easyWebUI.executeCompletion(new CompletionMethod("model", "message", "user"));
+
+        assertEquals("response content", response.getContent());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void circuitBreakerDoesNotCountProbesRejectedByLimiter() throws InterruptedException {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("error"));
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("error"));
+        List<String> transitions = new CopyOnWriteArrayList<>();
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .limiter(LimiterPolicy.builder().rateLimit(1, 2).maxQueueWait(Duration.ZERO).build())
+                .circuitBreaker(CircuitBreakerPolicy.builder()
+                        .slidingWindow(2, 2)
+                        .openDuration(Duration.ofMillis(50), 1)
+                        .listener((model, from, to) -> transitions.add(from + "->" + to))
+                        .build())
+                .build();
+        CompletionMethod method = new CompletionMethod("model", "message", "user");
+        for (int i = 0; i < 2; i++) {
+            assertThrows(CompletionException.class, () -> easyWebUI.executeCompletionAsync(method).join());
+        }
+        Thread.sleep(100);
+
+        CompletionException rejected = assertThrows(CompletionException.class,
+                () -> easyWebUI.executeCompletionAsync(method).join());
+        Thread.sleep(50);
+
+        assertInstanceOf(LimitExceededException.class, rejected.getCause());
+        assertEquals(List.of("CLOSED->OPEN"), transitions);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void circuitBreakerDoesNotCountLimiterQueueAsSlowCall() {
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setHeadersDelay(100, TimeUnit.MILLISECONDS).setBody(COMPLETION_JSON));
+        }
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .limiter(LimiterPolicy.builder().concurrencyLimit(1).build())
+                .circuitBreaker(CircuitBreakerPolicy.builder()
+                        .slidingWindow(4, 4)
+                        .slowCalls(Duration.ofMillis(250), 0.25)
+                        .build())
+                .build();
+        List<CompletableFuture<CompletionResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(easyWebUI.executeCompletionAsync(new CompletionMethod("model", "message", "user")));
+        }
+
+        futures.forEach(future -> assertEquals("response content", future.join().getContent()));
+        assertEquals(CircuitBreaker.State.CLOSED, easyWebUI.getCircuitBreaker("model").getState());
+    }
+
+    @Test
+    void hedgingSendsDuplicateOfSlowIdempotentRequest() {
+        server.enqueue(new MockResponse().setHeadersDelay(2, TimeUnit.SECONDS).setBody(COMPLETION_JSON));
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .hedging(HedgingPolicy.builder().delay(Duration.ofMillis(200)).build())
+                .build();
+
+        long start = System.nanoTime();
+        CompletionResponse response = easyWebUI.executeCompletion(
+                new CompletionMethod("model", "message", "user").withIdempotent(true));
+
+        assertEquals("response content", response.getContent());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, easyWebUI.getHedgeStats().getWins());
+    }
+
+    @Test
+    void listModelsSendsBodylessGetAnsweredFromCache() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody("{\"data\":[{\"id\":\"llama3\",\"name\":\"Llama 3\",\"owned_by\":\"ollama\"}]}"));
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .responseCache(new MemoryResponseCache(10, Duration.ofMinutes(1)))
+                .build();
+
+        ModelsResponse first = easyWebUI.listModels();
+        ModelsResponse second = easyWebUI.listModels();
+
+        assertEquals("llama3", first.getModels().get(0).getId());
+        assertEquals("llama3", second.getModels().get(0).getId());
+        assertEquals(1, server.getRequestCount());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("GET", request.getMethod());
+        assertEquals("/api/models", request.getPath());
+        assertEquals(0, request.getBodySize());
+    }
+
+    @Test
+    void sendsHeadersOfMethod() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody("{\"id\":\"1\",\"choices\":[{\"index\":0,"
+                + "\"message\":{\"content\":\"hi\",\"role\":\"assistant\"}}]}"));
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .build();
+        PromptTemplate template = PromptTemplate.builder("model")
+                .system("be brief")
+                .prefixHashHeader("X-Prompt-Prefix-Hash")
+                .build();
+
+        easyWebUI.executeCompletion(template.method("hello"));
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals(template.getPrefixHash(), request.getHeader("X-Prompt-Prefix-Hash"));
+        assertEquals("{\"model\":\"model\",\"messages\":[{\"content\":\"be brief\",\"role\":\"system\"},"
+                + "{\"content\":\"hello\",\"role\":\"user\"}]}", request.getBody().readUtf8());
+    }
+}
@@ -0,0 +1,110 @@
+package es.grayapps.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchRunnerTest {
+
+    @Test
+    void runsEveryMethodWithinConcurrencyWindow() {
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<BatchResult<String>> results = new ArrayList<>();
+
+        CompletableFuture<BatchProgress> done = new BatchRunner<Integer, String>(
+                IntStream.range(0, 10).boxed().iterator(), 10, 3,
+                i -> {
+                    CompletableFuture<String> future = new CompletableFuture<>();
+                    pending.add(future);
+                    maxInFlight.accumulateAndGet((int) pending.stream().filter(f -> !f.isDone()).count(), Math::max);
+                    return future;
+                },
+                new BatchListener<>() {
+                    @Override
+                    public void onResult(BatchResult<String> result) {
+                        results.add(result);
+                    }
+                }).run();
+
+        while (!done.isDone()) {
+            pending.stream().filter(f -> !f.isDone()).findFirst().ifPresent(f -> f.complete("ok"));
+        }
+
+        assertEquals(3, maxInFlight.get());
+        assertEquals(10, results.size());
+        assertEquals(10, done.join().getCompleted());
+    }
+
+    @Test
+    void failuresDoNotAbortBatch() {
+        BatchProgress progress = new BatchRunner<Integer, Integer>(
+                IntStream.range(0, 5).boxed().iterator(), 5, 2,
+                i -> i % 2 == 0 ? CompletableFuture.completedFuture(i) : CompletableFuture.failedFuture(new IllegalStateException()),
+                new BatchListener<>() {
+                }).run().join();
+
+        assertEquals(5, progress.getCompleted());
+        assertEquals(2, progress.getFailed());
+    }
+
+    @Test
+    void cancellingStopsBatchAndCancelsInFlight() {
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+
+        CompletableFuture<BatchProgress> done = new BatchRunner<Integer, String>(
+                IntStream.range(0, 10).boxed().iterator(), 10, 2,
+                i -> {
+                    CompletableFuture<String> future = new CompletableFuture<>();
+                    pending.add(future);
+                    return future;
+                },
+                new BatchListener<>() {
+                }).run();
+
+        done.cancel(true);
+
+        assertEquals(2, pending.size());
+        assertTrue(pending.stream().allMatch(CompletableFuture::isCancelled));
+        assertTrue(done.isCancelled());
+    }
+
+    @Test
+    void failingSourceFailsBatchAndCancelsInFlight() {
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+
+        CompletableFuture<BatchProgress> done = new BatchRunner<Integer, String>(
+                IntStream.range(0, 10).boxed().map(i -> {
+                    if (i == 3) {
+                        throw new IllegalStateException("broken source");
+                    }
+                    return i;
+                }).iterator(), -1, 2,
+                i -> {
+                    CompletableFuture<String> future = new CompletableFuture<>();
+                    pending.add(future);
+                    return future;
+                },
+                new BatchListener<>() {
+                }).run();
+
+        pending.get(0).complete("ok");
+        pending.get(1).complete("ok");
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> done.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(3, pending.size());
+        assertTrue(pending.get(2).isCancelled());
+    }
+}
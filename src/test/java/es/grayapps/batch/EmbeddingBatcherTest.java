@@ -0,0 +1,152 @@
+package es.grayapps.batch;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.exceptions.EasyWebUIException;
+import es.grayapps.exceptions.HttpStatusException;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmbeddingBatcherTest {
+
+    private MockWebServer server;
+    private EasyWebUI easyWebUI;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private static MockResponse embeddings(int count) {
+        StringBuilder body = new StringBuilder("{\"data\":[");
+        for (int i = 0; i < count; i++) {
+            body.append(i > 0 ? "," : "").append("{\"index\":").append(i).append(",\"embedding\":[").append(i).append("]}");
+        }
+        return new MockResponse().setBody(body.append("]}").toString());
+    }
+
+    @Test
+    void sendsFullBatchAtOnceAndFansOutResults() throws Exception {
+        server.enqueue(embeddings(3));
+        EmbeddingBatcher batcher = EmbeddingBatcher.builder(easyWebUI, "model")
+                .maxBatchSize(3)
+                .linger(Duration.ofMinutes(1))
+                .build();
+
+        CompletableFuture<float[]> first = batcher.embed("a");
+        CompletableFuture<float[]> second = batcher.embed("b");
+        CompletableFuture<float[]> third = batcher.embed("c");
+
+        assertArrayEquals(new float[]{0}, first.get(5, TimeUnit.SECONDS));
+        assertArrayEquals(new float[]{1}, second.get(5, TimeUnit.SECONDS));
+        assertArrayEquals(new float[]{2}, third.get(5, TimeUnit.SECONDS));
+        assertEquals("{\"model\":\"model\",\"input\":[\"a\",\"b\",\"c\"]}",
+                server.takeRequest(1, TimeUnit.SECONDS).getBody().readUtf8());
+        assertEquals(1, batcher.getBatches());
+        assertEquals(3, batcher.getInputs());
+    }
+
+    @Test
+    void sendsPartialBatchAfterLinger() throws Exception {
+        server.enqueue(embeddings(2));
+        EmbeddingBatcher batcher = EmbeddingBatcher.builder(easyWebUI, "model")
+                .linger(Duration.ofMillis(50))
+                .build();
+
+        List<float[]> result = batcher.embedAll(List.of("a", "b")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, result.size());
+        assertArrayEquals(new float[]{1}, result.get(1));
+        assertEquals("{\"model\":\"model\",\"input\":[\"a\",\"b\"]}",
+                server.takeRequest(1, TimeUnit.SECONDS).getBody().readUtf8());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void skipsCancelledInputs() throws Exception {
+        server.enqueue(embeddings(1));
+        EmbeddingBatcher batcher = EmbeddingBatcher.builder(easyWebUI, "model")
+                .linger(Duration.ofMinutes(1))
+                .build();
+
+        batcher.embed("a").cancel(true);
+        CompletableFuture<float[]> kept = batcher.embed("b");
+        batcher.flush();
+
+        assertArrayEquals(new float[]{0}, kept.get(5, TimeUnit.SECONDS));
+        assertEquals("{\"model\":\"model\",\"input\":[\"b\"]}",
+                server.takeRequest(1, TimeUnit.SECONDS).getBody().readUtf8());
+    }
+
+    @Test
+    void failsEveryInputOfFailedBatch() {
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("bad request"));
+        EmbeddingBatcher batcher = EmbeddingBatcher.builder(easyWebUI, "model")
+                .maxBatchSize(2)
+                .linger(Duration.ofMinutes(1))
+                .build();
+
+        CompletableFuture<float[]> first = batcher.embed("a");
+        CompletableFuture<float[]> second = batcher.embed("b");
+
+        assertInstanceOf(HttpStatusException.class,
+                assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(HttpStatusException.class,
+                assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    @Test
+    void failsEveryInputWhenEmbeddingsDoNotMatchInputs() {
+        server.enqueue(embeddings(1));
+        EmbeddingBatcher batcher = EmbeddingBatcher.builder(easyWebUI, "model")
+                .maxBatchSize(2)
+                .linger(Duration.ofMinutes(1))
+                .build();
+
+        CompletableFuture<float[]> first = batcher.embed("a");
+        CompletableFuture<float[]> second = batcher.embed("b");
+
+        assertInstanceOf(EasyWebUIException.class,
+                assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(EasyWebUIException.class,
+                assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    @Test
+    void closeSendsPendingInputsAndRejectsNewOnes() throws Exception {
+        server.enqueue(embeddings(1));
+        EmbeddingBatcher batcher = EmbeddingBatcher.builder(easyWebUI, "model")
+                .linger(Duration.ofMinutes(1))
+                .build();
+
+        CompletableFuture<float[]> pending = batcher.embed("a");
+        batcher.close();
+
+        assertArrayEquals(new float[]{0}, pending.get(5, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> batcher.embed("b"));
+    }
+}
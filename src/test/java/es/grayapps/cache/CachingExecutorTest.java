@@ -0,0 +1,83 @@
+package es.grayapps.cache;
+
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.utils.JsonCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingExecutorTest {
+
+    private final CachingExecutor executor = new CachingExecutor(new MemoryResponseCache(100, Duration.ofMinutes(1)), JsonCodec.getDefault());
+
+    @Test
+    void answersRepeatedMethodsFromCache() {
+        AtomicInteger requests = new AtomicInteger();
+        CompletionResponse response = new CompletionResponse("content", "assistant");
+
+        for (int i = 0; i < 3; i++) {
+            CompletionResponse result = executor.execute(new CompletionMethod("model", "message", "user").withCacheable(true), method -> {
+                requests.incrementAndGet();
+                return CompletableFuture.completedFuture(response);
+            }).join();
+            assertSame(response, result);
+        }
+
+        assertEquals(1, requests.get());
+        assertEquals(2, executor.getStats().getHits());
+        assertEquals(1, executor.getStats().getMisses());
+    }
+
+    @Test
+    void coalescesIdenticalMethodsInFlight() {
+        CompletableFuture<CompletionResponse> request = new CompletableFuture<>();
+        AtomicInteger requests = new AtomicInteger();
+
+        CompletableFuture<CompletionResponse> first = executor.execute(new CompletionMethod("model", "message", "user"), method -> {
+            requests.incrementAndGet();
+            return request;
+        });
+        CompletableFuture<CompletionResponse> second = executor.execute(new CompletionMethod("model", "message", "user"), method -> {
+            requests.incrementAndGet();
+            return request;
+        });
+
+        first.cancel(true);
+        assertFalse(request.isCancelled());
+        request.complete(new CompletionResponse("content", "assistant"));
+
+        assertEquals("content", second.join().getContent());
+        assertEquals(1, requests.get());
+        assertEquals(1, executor.getStats().getCoalesced());
+    }
+
+    @Test
+    void cancellingEveryCallerCancelsRequest() {
+        CompletableFuture<CompletionResponse> request = new CompletableFuture<>();
+
+        CompletableFuture<CompletionResponse> first = executor.execute(new CompletionMethod("model", "message", "user"), method -> request);
+        CompletableFuture<CompletionResponse> second = executor.execute(new CompletionMethod("model", "message", "user"), method -> request);
+        first.cancel(true);
+        second.cancel(true);
+
+        assertTrue(request.isCancelled());
+    }
+
+    @Test
+    void keyDependsOnBodyAndVariant() throws Exception {
+        CompletionMethod method = new CompletionMethod("model", "message", "user");
+
+        assertEquals(CacheKey.of(method, JsonCodec.getDefault()), CacheKey.of(new CompletionMethod("model", "message", "user"), JsonCodec.getDefault()));
+        assertNotEquals(CacheKey.of(method, JsonCodec.getDefault()), CacheKey.of(new CompletionMethod("model", "other", "user"), JsonCodec.getDefault()));
+        assertNotEquals(CacheKey.of(method, JsonCodec.getDefault()), CacheKey.of(method.withReasoning(true), JsonCodec.getDefault()));
+    }
+}
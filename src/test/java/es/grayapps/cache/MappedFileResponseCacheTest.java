@@ -0,0 +1,105 @@
+package es.grayapps.cache;
+
+import es.grayapps.methods.response.CompletionChoice;
+import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.methods.response.CompletionUsage;
+import es.grayapps.methods.response.EmbeddingsResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MappedFileResponseCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storesAndReadsResponses() throws IOException {
+        try (MappedFileResponseCache cache = new MappedFileResponseCache(directory.resolve("cache"), 64 * 1024, 100, Duration.ofMinutes(1))) {
+            cache.put("a", "first", null);
+            cache.put("b", "second", null);
+            cache.put("a", "replaced", null);
+
+            assertEquals("replaced", cache.get("a"));
+            assertEquals("second", cache.get("b"));
+            assertEquals(2, cache.size());
+        }
+    }
+
+    @Test
+    void recoversResponsesAfterReopen() throws IOException {
+        Path file = directory.resolve("cache");
+        try (MappedFileResponseCache cache = new MappedFileResponseCache(file, 64 * 1024, 100, Duration.ofMinutes(1))) {
+            cache.put("a", "first", null);
+            cache.put("b", "second", null);
+            cache.invalidate("b");
+        }
+        try (MappedFileResponseCache cache = new MappedFileResponseCache(file, 64 * 1024, 100, Duration.ofMinutes(1))) {
+            assertEquals("first", cache.get("a"));
+            assertNull(cache.get("b"));
+        }
+    }
+
+    @Test
+    void evictedResponsesAreNotRecoveredAfterReopen() throws IOException {
+        Path file = directory.resolve("cache");
+        try (MappedFileResponseCache cache = new MappedFileResponseCache(file, 64 * 1024, 2, Duration.ofMinutes(1))) {
+            cache.put("a", "first", null);
+            cache.put("b", "second", null);
+            cache.put("c", "third", null);
+            assertNull(cache.get("a"));
+        }
+        try (MappedFileResponseCache cache = new MappedFileResponseCache(file, 64 * 1024, 100, Duration.ofMinutes(1))) {
+            assertNull(cache.get("a"));
+            assertEquals("third", cache.get("c"));
+            assertEquals(2, cache.size());
+        }
+    }
+
+    @Test
+    void readsOnlyFilteredResponseTypes() throws IOException {
+        CompletionResponse completion = new CompletionResponse(
+                List.of(new CompletionChoice(0, "content", "assistant", null, "stop")),
+                new CompletionUsage(1, 2, 3, -1));
+        try (MappedFileResponseCache cache = new MappedFileResponseCache(directory.resolve("cache"), 64 * 1024, 100,
+                Duration.ofMinutes(1))) {
+            cache.put("completion", completion, null);
+            cache.put("embeddings", new EmbeddingsResponse("model", List.of(new float[]{0.5f, 1.5f})), null);
+            cache.put("custom", new CustomResponse(), null);
+
+            assertEquals("content", ((CompletionResponse) cache.get("completion")).getContent());
+            assertEquals(3, ((CompletionResponse) cache.get("completion")).getUsage().getTotalTokens());
+            assertArrayEquals(new float[]{0.5f, 1.5f}, ((EmbeddingsResponse) cache.get("embeddings")).getEmbedding(0));
+            assertNull(cache.get("custom"));
+            assertEquals(2, cache.size());
+        }
+    }
+
+    @Test
+    void wrapsAroundAndEvictsOverwrittenResponses() throws IOException {
+        Path file = directory.resolve("cache");
+        try (MappedFileResponseCache cache = new MappedFileResponseCache(file, 1024, 100, Duration.ofMinutes(1))) {
+            for (int i = 0; i < 50; i++) {
+                cache.put("key" + i, "value" + i, null);
+            }
+            assertEquals("value49", cache.get("key49"));
+            assertNull(cache.get("key0"));
+        }
+        try (MappedFileResponseCache cache = new MappedFileResponseCache(file, 1024, 100, Duration.ofMinutes(1))) {
+            assertEquals("value49", cache.get("key49"));
+            assertNull(cache.get("key0"));
+        }
+    }
+
+    private static final class CustomResponse implements Serializable {
+    }
+}
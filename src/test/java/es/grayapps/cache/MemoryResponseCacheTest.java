@@ -0,0 +1,34 @@
+package es.grayapps.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MemoryResponseCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        MemoryResponseCache cache = new MemoryResponseCache(2, Duration.ofMinutes(1));
+        cache.put("a", "1", null);
+        cache.put("b", "2", null);
+        cache.get("a");
+        cache.put("c", "3", null);
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() throws InterruptedException {
+        MemoryResponseCache cache = new MemoryResponseCache(10, Duration.ofMinutes(1));
+        cache.put("a", "1", Duration.ofMillis(1));
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,140 @@
+package es.grayapps.compression;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.metrics.ClientMetrics;
+import es.grayapps.metrics.MetricTags;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCompressionTest {
+
+    private static final String COMPLETION_JSON = "{\"id\":\"1\",\"choices\":[{\"index\":0,\"message\":{\"content\":\"response content\",\"role\":\"assistant\"}}]}";
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private EasyWebUI.EasyWebUIBuilder builder() {
+        return EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token");
+    }
+
+    private static byte[] compress(CompressionCodec codec, String value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressed = codec.compress(out)) {
+            compressed.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static String decompress(CompressionCodec codec, byte[] value) throws IOException {
+        try (InputStream in = codec.decompress(new ByteArrayInputStream(value))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void builtinCodecsRoundTrip() throws IOException {
+        String value = "compress me ".repeat(100);
+
+        assertEquals(value, decompress(CompressionCodec.gzip(), compress(CompressionCodec.gzip(), value)));
+        assertEquals(value, decompress(CompressionCodec.deflate(), compress(CompressionCodec.deflate(), value)));
+    }
+
+    @Test
+    void compressesLargeRequestBodies() throws InterruptedException, IOException {
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        AtomicLong uncompressed = new AtomicLong();
+        AtomicLong compressed = new AtomicLong();
+        EasyWebUI easyWebUI = builder()
+                .compression(RequestCompression.builder().threshold(1024).build())
+                .metrics(new ClientMetrics() {
+                    @Override
+                    public void requestCompressed(MetricTags tags, long uncompressedBytes, long compressedBytes) {
+                        uncompressed.set(uncompressedBytes);
+                        compressed.set(compressedBytes);
+                    }
+                })
+                .build();
+        CompletionMethod method = new CompletionMethod("model", "context ".repeat(1000), "user");
+
+        CompletionResponse response = easyWebUI.executeCompletion(method);
+
+        assertEquals("response content", response.getContent());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        byte[] body = request.getBody().readByteArray();
+        assertEquals(method.getBody(), decompress(CompressionCodec.gzip(), body));
+        assertEquals(method.getBody().length(), uncompressed.get());
+        assertEquals(body.length, compressed.get());
+        assertTrue(compressed.get() < uncompressed.get() / 10);
+    }
+
+    @Test
+    void doesNotCompressSmallRequestBodies() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        EasyWebUI easyWebUI = builder().compression(RequestCompression.defaults()).build();
+        CompletionMethod method = new CompletionMethod("model", "hello", "user");
+
+        easyWebUI.executeCompletion(method);
+
+        RecordedRequest request = server.takeRequest();
+        assertNull(request.getHeader("Content-Encoding"));
+        assertEquals("{\"model\":\"model\",\"messages\":[{\"content\":\"hello\",\"role\":\"user\"}]}",
+                request.getBody().readUtf8());
+    }
+
+    @Test
+    void negotiatesAcceptedResponseEncodings() throws InterruptedException, IOException {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Encoding", "deflate")
+                .setBody(new Buffer().write(compress(CompressionCodec.deflate(), COMPLETION_JSON))));
+        EasyWebUI easyWebUI = builder()
+                .compression(RequestCompression.builder()
+                        .acceptEncoding(CompressionCodec.deflate(), CompressionCodec.gzip())
+                        .build())
+                .build();
+
+        CompletionResponse response = easyWebUI.executeCompletion(new CompletionMethod("model", "hello", "user"));
+
+        assertEquals("response content", response.getContent());
+        assertEquals("deflate, gzip", server.takeRequest().getHeader("Accept-Encoding"));
+    }
+
+    @Test
+    void unknownSizesAreOnlyCompressedWithoutThreshold() {
+        assertFalse(RequestCompression.defaults().shouldCompress(-1));
+        assertTrue(RequestCompression.builder().threshold(0).build().shouldCompress(-1));
+        assertTrue(RequestCompression.defaults().shouldCompress(16 * 1024));
+    }
+}
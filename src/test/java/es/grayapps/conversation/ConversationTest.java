@@ -0,0 +1,119 @@
+package es.grayapps.conversation;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.methods.CompletionMessage;
+import es.grayapps.methods.response.CompletionResponse;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConversationTest {
+
+    private MockWebServer server;
+    private EasyWebUI easyWebUI;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private static MockResponse reply(String content) {
+        return new MockResponse().setBody("{\"id\":\"1\",\"choices\":[{\"index\":0,\"message\":{\"content\":\""
+                + content + "\",\"role\":\"assistant\"}}]}");
+    }
+
+    private static List<String> contents(Conversation conversation) {
+        return conversation.getMessages().stream().map(CompletionMessage::getMessage).collect(Collectors.toList());
+    }
+
+    @Test
+    void appendsRepliesToHistory() throws InterruptedException {
+        server.enqueue(reply("first reply"));
+        server.enqueue(reply("second reply"));
+        Conversation conversation = Conversation.builder(easyWebUI, "model").system("be brief").build();
+
+        assertEquals("first reply", conversation.send("first").getContent());
+        assertEquals("second reply", conversation.send("second").getContent());
+
+        server.takeRequest();
+        RecordedRequest second = server.takeRequest();
+        assertEquals("{\"model\":\"model\",\"messages\":[{\"content\":\"be brief\",\"role\":\"system\"},"
+                        + "{\"content\":\"first\",\"role\":\"user\"},{\"content\":\"first reply\",\"role\":\"assistant\"},"
+                        + "{\"content\":\"second\",\"role\":\"user\"}]}",
+                second.getBody().readUtf8());
+        assertEquals(List.of("be brief", "first", "first reply", "second", "second reply"), contents(conversation));
+    }
+
+    @Test
+    void truncatesOldestMessagesKeepingSystemMessages() {
+        server.enqueue(reply("one"));
+        server.enqueue(reply("two"));
+        Conversation conversation = Conversation.builder(easyWebUI, "model")
+                .system("system")
+                .truncation(TruncationPolicy.maxMessages(3))
+                .build();
+
+        conversation.send("a");
+        conversation.send("b");
+
+        assertEquals(List.of("system", "one", "b", "two"), contents(conversation));
+    }
+
+    @Test
+    void truncatesToTokenBudget() {
+        Conversation conversation = Conversation.builder(easyWebUI, "model")
+                .truncation(TruncationPolicy.maxTokens(20))
+                .build();
+        server.enqueue(reply("x".repeat(40)));
+
+        conversation.send("y".repeat(40));
+
+        assertEquals(List.of("x".repeat(40)), contents(conversation));
+        assertEquals(14, conversation.getHistoryTokens());
+    }
+
+    @Test
+    void failedMessageIsRemovedFromHistory() {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("error"));
+        Conversation conversation = Conversation.builder(easyWebUI, "model").build();
+
+        CompletableFuture<CompletionResponse> future = conversation.sendAsync("hello");
+
+        assertThrows(Exception.class, future::join);
+        assertEquals(List.of(), contents(conversation));
+        assertEquals(0, conversation.getHistoryTokens());
+    }
+
+    @Test
+    void rejectsMessageWhileReplyIsPending() {
+        server.enqueue(reply("reply").setHeadersDelay(200, TimeUnit.MILLISECONDS));
+        Conversation conversation = Conversation.builder(easyWebUI, "model").build();
+
+        CompletableFuture<CompletionResponse> future = conversation.sendAsync("first");
+
+        assertThrows(IllegalStateException.class, () -> conversation.sendAsync("second"));
+        future.join();
+    }
+}
@@ -0,0 +1,166 @@
+package es.grayapps.endpoints;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.exceptions.HttpStatusException;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EndpointGroupTest {
+
+    private static final String COMPLETION_JSON = "{\"id\":\"1\",\"choices\":[{\"index\":0,\"message\":{\"content\":\"response content\",\"role\":\"assistant\"}}]}";
+
+    private MockWebServer first;
+    private MockWebServer second;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        first = new MockWebServer();
+        first.start();
+        second = new MockWebServer();
+        second.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        first.shutdown();
+        second.shutdown();
+    }
+
+    private String url(MockWebServer server) {
+        return server.url("/").toString().replaceAll("/$", "");
+    }
+
+    @Test
+    void failsOverToAnotherEndpointWithItsOwnToken() throws InterruptedException {
+        first.enqueue(new MockResponse().setResponseCode(503).setBody("unavailable"));
+        second.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        EndpointGroup group = EndpointGroup.builder()
+                .endpoint(url(first), "first-token")
+                .endpoint(url(second), "second-token")
+                .loadBalancer(LoadBalancer.roundRobin())
+                .build();
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder().endpoints(group).build();
+
+        CompletionResponse response = easyWebUI.executeCompletion(new CompletionMethod("model", "hello", "user"));
+
+        assertEquals("response content", response.getContent());
+        assertEquals("Bearer first-token", first.takeRequest().getHeader("Authorization"));
+        assertEquals("Bearer second-token", second.takeRequest().getHeader("Authorization"));
+        assertEquals(url(first), easyWebUI.getServerUrl());
+    }
+
+    @Test
+    void doesNotFailOverOnClientErrors() {
+        first.enqueue(new MockResponse().setResponseCode(400).setBody("bad request"));
+        EndpointGroup group = EndpointGroup.builder()
+                .endpoint(url(first), "token")
+                .endpoint(url(second), "token")
+                .loadBalancer(LoadBalancer.roundRobin())
+                .build();
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder().endpoints(group).build();
+
+        CompletableFuture<CompletionResponse> future =
+                easyWebUI.executeCompletionAsync(new CompletionMethod("model", "hello", "user"));
+
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(HttpStatusException.class, e.getCause());
+        assertEquals(0, second.getRequestCount());
+    }
+
+    @Test
+    void failsWithLastErrorWhenEveryEndpointFails() {
+        first.enqueue(new MockResponse().setResponseCode(502).setBody("bad gateway"));
+        second.enqueue(new MockResponse().setResponseCode(504).setBody("gateway timeout"));
+        EndpointGroup group = EndpointGroup.builder()
+                .endpoint(url(first), "token")
+                .endpoint(url(second), "token")
+                .loadBalancer(LoadBalancer.roundRobin())
+                .maxFailovers(3)
+                .build();
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder().endpoints(group).build();
+
+        CompletableFuture<CompletionResponse> future =
+                easyWebUI.executeCompletionAsync(new CompletionMethod("model", "hello", "user"));
+
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        assertEquals(504, ((HttpStatusException) e.getCause()).getStatusCode());
+        assertEquals(1, first.getRequestCount());
+        assertEquals(1, second.getRequestCount());
+    }
+
+    @Test
+    void unhealthyEndpointIsSkipped() {
+        second.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        second.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        EndpointGroup group = EndpointGroup.builder()
+                .endpoint(url(first), "token")
+                .endpoint(url(second), "token")
+                .loadBalancer(LoadBalancer.roundRobin())
+                .build();
+        group.getEndpoints().get(0).markUnhealthy();
+        EasyWebUI easyWebUI = EasyWebUI.EasyWebUIBuilder.builder().endpoints(group).build();
+
+        easyWebUI.executeCompletion(new CompletionMethod("model", "hello", "user"));
+        easyWebUI.executeCompletion(new CompletionMethod("model", "hello", "user"));
+
+        assertEquals(0, first.getRequestCount());
+        assertEquals(2, second.getRequestCount());
+    }
+
+    @Test
+    void healthChecksMarkEndpointsDownAndUp() throws InterruptedException {
+        first.enqueue(new MockResponse().setResponseCode(503));
+        first.enqueue(new MockResponse().setResponseCode(200));
+        EndpointGroup group = EndpointGroup.builder()
+                .endpoint(url(first), "token")
+                .healthCheck("/health", Duration.ofMillis(20))
+                .build();
+        try {
+            group.startHealthChecks(new OkHttpClient());
+            EndpointState state = group.getEndpoints().get(0);
+
+            RecordedRequest check = first.takeRequest(5, TimeUnit.SECONDS);
+            assertEquals("/health", check.getPath());
+            assertEquals("Bearer token", check.getHeader("Authorization"));
+            awaitHealthy(state, false);
+            assertFalse(state.isHealthy());
+
+            first.takeRequest(5, TimeUnit.SECONDS);
+            awaitHealthy(state, true);
+            assertTrue(state.isHealthy());
+        } finally {
+            group.close();
+        }
+    }
+
+    private static void awaitHealthy(EndpointState state, boolean healthy) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (state.isHealthy() != healthy && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void requiresAtLeastOneEndpoint() {
+        assertThrows(IllegalStateException.class, () -> EndpointGroup.builder().build());
+    }
+}
@@ -0,0 +1,82 @@
+package es.grayapps.endpoints;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LoadBalancerTest {
+
+    private final EndpointState a = new EndpointState(new Endpoint("http://a", "token"));
+    private final EndpointState b = new EndpointState(new Endpoint("http://b", "token"));
+    private final EndpointState c = new EndpointState(new Endpoint("http://c", "token"));
+
+    @Test
+    void roundRobinChoosesEachEndpointInTurn() {
+        LoadBalancer balancer = LoadBalancer.roundRobin();
+        List<EndpointState> chosen = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            chosen.add(balancer.choose(List.of(a, b, c)));
+        }
+
+        assertEquals(List.of(a, b, c, a, b, c), chosen);
+    }
+
+    @Test
+    void leastOutstandingChoosesLeastBusyEndpoint() {
+        a.onStart();
+        a.onStart();
+        c.onStart();
+        LoadBalancer balancer = LoadBalancer.leastOutstanding();
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(b, balancer.choose(List.of(a, b, c)));
+        }
+    }
+
+    @Test
+    void ewmaPrefersFasterEndpoint() {
+        a.onStart();
+        a.onSuccess(100_000_000);
+        b.onStart();
+        b.onSuccess(10_000_000);
+        LoadBalancer balancer = LoadBalancer.ewma();
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(b, balancer.choose(List.of(a, b)));
+        }
+    }
+
+    @Test
+    void ewmaWeighsLatencyByOutstandingRequests() {
+        a.onStart();
+        a.onSuccess(20_000_000);
+        b.onStart();
+        b.onSuccess(10_000_000);
+        for (int i = 0; i < 3; i++) {
+            b.onStart();
+        }
+
+        assertSame(a, LoadBalancer.ewma().choose(List.of(a, b)));
+    }
+
+    @Test
+    void endpointTurnsUnhealthyAfterConsecutiveFailures() {
+        for (int i = 0; i < 2; i++) {
+            a.onStart();
+            a.onFailure(3);
+        }
+        a.onStart();
+        a.onSuccess(1_000_000);
+        for (int i = 0; i < 3; i++) {
+            a.onStart();
+            a.onFailure(3);
+        }
+
+        assertEquals(false, a.isHealthy());
+        assertEquals(0, a.getOutstanding());
+    }
+}
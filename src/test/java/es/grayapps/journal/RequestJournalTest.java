@@ -0,0 +1,194 @@
+package es.grayapps.journal;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.batch.BatchListener;
+import es.grayapps.batch.BatchProgress;
+import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.IMethod;
+import es.grayapps.methods.MethodType;
+import es.grayapps.methods.response.CompletionResponse;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private MockWebServer server;
+    private EasyWebUI easyWebUI;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private static MockResponse reply(String content) {
+        return new MockResponse().setBody("{\"id\":\"1\",\"choices\":[{\"index\":0,\"message\":{\"content\":\""
+                + content + "\",\"role\":\"assistant\"}}]}");
+    }
+
+    @Test
+    void answersCompletedMethodsFromJournalAfterReopening() throws IOException {
+        server.enqueue(reply("first reply"));
+        Path file = directory.resolve("journal");
+        CompletionMethod method = new CompletionMethod("model", "first", "user");
+
+        try (RequestJournal journal = new RequestJournal(file)) {
+            assertEquals("first reply", journal.execute(easyWebUI, method).join().getContent());
+        }
+        try (RequestJournal journal = new RequestJournal(file)) {
+            assertEquals(1, journal.getCompletedCount());
+            assertEquals("first reply", journal.execute(easyWebUI, method).join().getContent());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void resumeSendsOnlyPendingMethods() throws IOException {
+        server.enqueue(reply("done"));
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("bad request"));
+        Path file = directory.resolve("journal");
+
+        try (RequestJournal journal = new RequestJournal(file, 4096, 1, Duration.ZERO)) {
+            journal.execute(easyWebUI, "a", new CompletionMethod("model", "a", "user")).join();
+            assertThrows(CompletionException.class,
+                    () -> journal.execute(easyWebUI, "b", new CompletionMethod("model", "b", "user")).join());
+        }
+
+        server.enqueue(reply("resumed"));
+        try (RequestJournal journal = new RequestJournal(file, 4096, 1, Duration.ZERO)) {
+            assertEquals(List.of("b"), journal.getPending());
+
+            BatchProgress progress = journal.resume(easyWebUI, 4, new BatchListener<>() {
+            }).join();
+
+            assertEquals(1, progress.getCompleted());
+            assertEquals(0, journal.getPendingCount());
+            assertEquals("resumed", ((CompletionResponse) journal.getResult("b")).getContent());
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void growsAcrossChunks() throws IOException {
+        Path file = directory.resolve("journal");
+        try (RequestJournal journal = new RequestJournal(file, 256, 1000, Duration.ofSeconds(1))) {
+            for (int i = 0; i < 20; i++) {
+                server.enqueue(reply("reply " + i));
+                journal.execute(easyWebUI, "id" + i, new CompletionMethod("model", "message " + i, "user")).join();
+            }
+        }
+        try (RequestJournal journal = new RequestJournal(file)) {
+            assertEquals(20, journal.getCompletedCount());
+            assertEquals("reply 19", ((CompletionResponse) journal.getResult("id19")).getContent());
+        }
+    }
+
+    @Test
+    void stopsAtTornRecord() throws IOException {
+        server.enqueue(reply("lost"));
+        Path file = directory.resolve("journal");
+        try (RequestJournal journal = new RequestJournal(file, 32, 1, Duration.ZERO)) {
+            journal.execute(easyWebUI, "a", new CompletionMethod("model", "a", "user")).join();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 8);
+        }
+
+        try (RequestJournal journal = new RequestJournal(file)) {
+            assertFalse(journal.isCompleted("a"));
+            assertEquals(List.of("a"), journal.getPending());
+            assertNull(journal.getMethod("b"));
+        }
+    }
+
+    @Test
+    void readsOnlyFilteredMethodTypes() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("bad request"));
+        Path file = directory.resolve("journal");
+        try (RequestJournal journal = new RequestJournal(file)) {
+            assertThrows(CompletionException.class, () -> journal.execute(easyWebUI, "custom", new CustomMethod()).join());
+        }
+
+        try (RequestJournal journal = new RequestJournal(file)) {
+            assertEquals(List.of("custom"), journal.getPending());
+            assertThrows(EasyWebUIExceptionRuntime.class, () -> journal.getMethod("custom"));
+        }
+        try (RequestJournal journal = new RequestJournal(file, 4096, 1, Duration.ZERO,
+                ObjectInputFilter.Config.createFilter("es.grayapps.journal.*;java.lang.*"))) {
+            assertInstanceOf(CustomMethod.class, journal.getMethod("custom"));
+        }
+    }
+
+    @Test
+    void rejectsMethodsThatAreNotSerializable() throws IOException {
+        IMethod<CompletionResponse> method = new IMethod<>() {
+            @Override
+            public MethodType getMethod() {
+                return MethodType.GET;
+            }
+
+            @Override
+            public String getPath() {
+                return "/";
+            }
+
+            @Override
+            public CompletionResponse deserialize(String json) {
+                return null;
+            }
+        };
+        try (RequestJournal journal = new RequestJournal(directory.resolve("journal"))) {
+            assertThrows(IllegalArgumentException.class, () -> journal.execute(easyWebUI, "a", method));
+        }
+    }
+
+    private static final class CustomMethod implements IMethod<CompletionResponse>, Serializable {
+        @Override
+        public MethodType getMethod() {
+            return MethodType.GET;
+        }
+
+        @Override
+        public String getPath() {
+            return "/custom";
+        }
+
+        @Override
+        public CompletionResponse deserialize(String json) {
+            return null;
+        }
+    }
+}
@@ -1,12 +1,26 @@
 package es.grayapps.methods;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import es.grayapps.exceptions.EasyWebUIException;
 import es.grayapps.exceptions.EasyWebUIExceptionRuntime;
+import es.grayapps.methods.response.CompletionChunk;
 import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.utils.JsonCodec;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CompletionMethodTest {
 
@@ -22,14 +36,102 @@ class CompletionMethodTest {
         assertEquals("/api/chat/completions", method.getPath());
     }
 
-/*    @Test
+    @Test
     void getBodyReturnsValidJson() throws JsonProcessingException {
         CompletionMethod method = new CompletionMethod("model", "message", "role");
-        String expectedJson = "{\"messages\":[{\"role\":\"role\",\"content\":\"message\"}],\"model\":\"model\"}";
-        //TODO fix map order, sometimes tests fails
+        String expectedJson = "{\"model\":\"model\",\"messages\":[{\"content\":\"message\",\"role\":\"role\"}]}";
 
         assertEquals(expectedJson, method.getBody());
-    }*/
+    }
+
+    @Test
+    void getBodyEncodesMessagesWithTheCodecOfTheMethod() throws JsonProcessingException {
+        List<CompletionMessage> messages = List.of(new CompletionMessage("año", "user"));
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.getFactory().enable(JsonWriteFeature.ESCAPE_NON_ASCII.mappedFeature());
+
+        assertEquals("{\"model\":\"model\",\"messages\":[{\"content\":\"año\",\"role\":\"user\"}]}",
+                new CompletionMethod("model", messages).getBody());
+        assertEquals("{\"model\":\"model\",\"messages\":[{\"content\":\"a\\u00F1o\",\"role\":\"user\"}]}",
+                new CompletionMethod("model", messages, JsonCodec.create(mapper)).getBody());
+    }
+
+    @Test
+    void getBodyWritesOptionsInFixedOrder() throws JsonProcessingException {
+        CompletionOptions options = CompletionOptions.builder()
+                .seed(7L)
+                .stop("\n", "END")
+                .n(2)
+                .temperature(0.5)
+                .maxTokens(128)
+                .build();
+        CompletionMethod method = new CompletionMethod("model", "message", "user").withOptions(options);
+
+        assertEquals("{\"model\":\"model\",\"messages\":[{\"content\":\"message\",\"role\":\"user\"}],"
+                + "\"max_tokens\":128,\"temperature\":0.5,\"stop\":[\"\\n\",\"END\"],\"n\":2,\"seed\":7}", method.getBody());
+        assertEquals("{\"model\":\"model\",\"messages\":[{\"content\":\"message\",\"role\":\"user\"}],"
+                + "\"max_tokens\":128,\"temperature\":0.5,\"stop\":[\"\\n\",\"END\"],\"n\":2,\"seed\":7,"
+                + "\"stream\":true}", method.getStreamBody());
+    }
+
+    @Test
+    void derivedOptionsShareSettings() {
+        CompletionOptions base = CompletionOptions.builder().maxTokens(64).stop("END").build();
+
+        CompletionOptions derived = base.toBuilder().temperature(0.0).build();
+
+        assertSame(base.getStop(), derived.getStop());
+        assertEquals(64, derived.getMaxTokens());
+        assertNull(base.getTemperature());
+        assertEquals(base, base.toBuilder().build());
+        assertTrue(CompletionOptions.none().isEmpty());
+    }
+
+    @Test
+    void templateBodyMatchesPlainBodyWithOptions() throws JsonProcessingException {
+        CompletionOptions options = CompletionOptions.builder().maxTokens(16).seed(1L).build();
+        PromptTemplate template = PromptTemplate.builder("model").system("system").build();
+        CompletionMethod plain = new CompletionMethod("model", List.of(new CompletionMessage("system", "system"),
+                new CompletionMessage("message", "user"))).withOptions(options);
+
+        CompletionMethod method = template.method("message").withOptions(options);
+
+        assertEquals(plain.getBody(), method.getBody());
+        assertEquals(plain.getStreamBody(), method.getStreamBody());
+    }
+
+    @Test
+    void deserializeExposesEveryChoice() throws EasyWebUIException {
+        String jsonResponse = "{\"id\":\"1\",\"choices\":["
+                + "{\"index\":1,\"message\":{\"content\":\"second\",\"role\":\"assistant\"},\"finish_reason\":\"length\"},"
+                + "{\"index\":0,\"message\":{\"content\":\"first\",\"role\":\"assistant\"},\"finish_reason\":\"stop\"}]}";
+        CompletionMethod method = new CompletionMethod("model", "message", "role");
+
+        CompletionResponse response = method.deserialize(jsonResponse);
+
+        assertEquals("first", response.getContent());
+        assertEquals(2, response.getChoices().size());
+        assertEquals("stop", response.getChoices().get(0).getFinishReason());
+        assertEquals("second", response.getChoices().get(1).getContent());
+        assertEquals("length", response.getChoices().get(1).getFinishReason());
+    }
+
+    @Test
+    void deserializeReadsUsageAndServerTimings() throws EasyWebUIException {
+        String jsonResponse = "{\"id\":\"1\",\"choices\":[{\"index\":0,\"message\":{\"content\":\"c\",\"role\":\"assistant\"}}],"
+                + "\"usage\":{\"prompt_tokens\":10,\"completion_tokens\":20,\"total_tokens\":30},"
+                + "\"timings\":{\"prompt_ms\":100.0,\"predicted_ms\":400.0}}";
+        CompletionMethod method = new CompletionMethod("model", "message", "role");
+
+        CompletionResponse response = method.deserialize(jsonResponse);
+
+        assertEquals(10, response.getUsage().getPromptTokens());
+        assertEquals(20, response.getUsage().getCompletionTokens());
+        assertEquals(30, response.getUsage().getTotalTokens());
+        assertEquals(Duration.ofMillis(500), response.getUsage().getServerDuration());
+        assertEquals(40.0, response.getUsage().getServerTokensPerSecond(), 1e-9);
+        assertNull(response.getTiming());
+    }
 
     @Test
     void deserializeReturnsCompletionResponse() throws EasyWebUIException {
@@ -53,4 +155,61 @@ class CompletionMethodTest {
         CompletionMethod method = new CompletionMethod("model", "message", "role");
         assertThrows(EasyWebUIExceptionRuntime.class, () -> method.deserialize(jsonResponse));
     }
-}
\ No newline at end of file
+
+    @Test
+    void deserializeChunkSkipsEventsWithoutChoices() throws EasyWebUIException {
+        CompletionMethod method = new CompletionMethod("model", "message", "role");
+
+        assertNull(method.deserializeChunk("{\"selected_model_id\":\"model\"}"));
+        assertNull(method.deserializeChunk("{\"id\":\"1\",\"choices\":[],\"usage\":{\"total_tokens\":3}}"));
+    }
+
+    @Test
+    void deserializeChunkReturnsCompletionChunk() throws EasyWebUIException {
+        String jsonChunk = "{\"id\":\"1\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"Hel\"},\"finish_reason\":null}]}";
+        CompletionMethod method = new CompletionMethod("model", "message", "role");
+        CompletionChunk chunk = method.deserializeChunk(jsonChunk);
+        assertEquals("1", chunk.getId());
+        assertEquals("Hel", chunk.getContent());
+        assertEquals("assistant", chunk.getRole());
+        assertNull(chunk.getFinishReason());
+    }
+
+    @Test
+    void writeBodyMatchesGetBody() throws Exception {
+        CompletionMethod method = new CompletionMethod("model", "message", "role");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        method.writeBody(out);
+        assertEquals(method.getBody(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void deserializeFromStreamReturnsCompletionResponse() throws Exception {
+        String jsonResponse = "{\"id\":\"1\",\"choices\":[{\"index\":0,\"message\":{\"content\":\"response content\",\"role\":\"response role\"}}]}";
+        CompletionMethod method = new CompletionMethod("model", "message", "role");
+        CompletionResponse response = method.deserialize(new ByteArrayInputStream(jsonResponse.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("response content", response.getContent());
+    }
+
+    @Test
+    void deserializeKeepsLowestIndexChoice() throws EasyWebUIException {
+        String jsonResponse = "{\"choices\":[{\"message\":{\"content\":\"second\",\"role\":\"assistant\"},\"index\":1},"
+                + "{\"index\":0,\"message\":{\"content\":\"first\",\"role\":\"assistant\"}}],\"id\":\"1\"}";
+        CompletionMethod method = new CompletionMethod("model", "message", "role");
+        assertEquals("first", method.deserialize(jsonResponse).getContent());
+    }
+
+    @Test
+    void deserializeStripsThinkSections() throws EasyWebUIException {
+        String jsonResponse = "{\"id\":\"1\",\"choices\":[{\"index\":0,\"message\":{\"content\":\"<think>why</think>\\n\\nanswer\",\"role\":\"assistant\"}}]}";
+        CompletionMethod method = new CompletionMethod("model", "message", "role");
+
+        CompletionResponse response = method.deserialize(jsonResponse);
+        assertEquals("answer", response.getContent());
+        assertNull(response.getReasoning());
+
+        CompletionResponse withReasoning = method.withReasoning(true).deserialize(jsonResponse);
+        assertEquals("answer", withReasoning.getContent());
+        assertEquals("why", withReasoning.getReasoning());
+    }
+}
@@ -0,0 +1,65 @@
+package es.grayapps.methods;
+
+import es.grayapps.exceptions.EasyWebUIException;
+import es.grayapps.methods.response.EmbeddingsResponse;
+import es.grayapps.methods.response.ModelsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddingsMethodTest {
+
+    @Test
+    void getBodyWritesModelAndInputs() throws IOException {
+        EmbeddingsMethod method = new EmbeddingsMethod("model", List.of("first", "second"));
+
+        assertEquals("{\"model\":\"model\",\"input\":[\"first\",\"second\"]}", method.getBody());
+        assertEquals("/api/embeddings", method.getPath());
+        assertTrue(method.getMethod().permitsBody());
+    }
+
+    @Test
+    void deserializeOrdersEmbeddingsByIndex() throws EasyWebUIException, IOException {
+        String json = "{\"object\":\"list\",\"data\":[{\"index\":1,\"embedding\":[0.5,-1]},"
+                + "{\"embedding\":[0.25,2.0],\"index\":0}],\"model\":\"served-model\"}";
+        EmbeddingsMethod method = new EmbeddingsMethod("model", List.of("first", "second"));
+
+        EmbeddingsResponse response = method.deserialize(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("served-model", response.getModel());
+        assertEquals(2, response.size());
+        assertArrayEquals(new float[]{0.25f, 2.0f}, response.getEmbedding(0));
+        assertArrayEquals(new float[]{0.5f, -1f}, response.getEmbedding(1));
+    }
+
+    @Test
+    void deserializeFailsWhenEmbeddingsAreMissing() {
+        EmbeddingsMethod method = new EmbeddingsMethod("model", List.of("first", "second"));
+
+        assertThrows(EasyWebUIException.class,
+                () -> method.deserialize("{\"data\":[{\"index\":0,\"embedding\":[1]}]}"));
+    }
+
+    @Test
+    void modelsMethodIsBodylessAndCacheable() throws EasyWebUIException {
+        ModelsMethod method = new ModelsMethod();
+
+        ModelsResponse response = method.deserialize("{\"data\":[{\"id\":\"llama3:8b\",\"name\":\"Llama 3\","
+                + "\"owned_by\":\"ollama\"},{\"id\":\"gpt-4o\",\"name\":\"GPT-4o\",\"owned_by\":\"openai\"}]}");
+
+        assertFalse(method.getMethod().permitsBody());
+        assertTrue(method.isCacheable());
+        assertEquals(2, response.getModels().size());
+        assertEquals("llama3:8b", response.getModels().get(0).getId());
+        assertEquals("openai", response.getModels().get(1).getOwnedBy());
+    }
+}
@@ -0,0 +1,81 @@
+package es.grayapps.methods;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class PromptTemplateTest {
+
+    private static final PromptTemplate TEMPLATE = PromptTemplate.builder("model")
+            .system("You are \"helpful\"")
+            .message(new CompletionMessage("example", "user"))
+            .build();
+
+    @Test
+    void bodyMatchesBodyOfPlainMethod() throws IOException {
+        CompletionMethod plain = new CompletionMethod("model", List.of(
+                new CompletionMessage("You are \"helpful\"", "system"),
+                new CompletionMessage("example", "user"),
+                new CompletionMessage("question ñ", "user")));
+
+        CompletionMethod method = TEMPLATE.method("question ñ");
+
+        assertEquals(plain.getBody(), method.getBody());
+        assertEquals(plain.getStreamBody(), method.getStreamBody());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        method.writeBody(out);
+        assertEquals(plain.getBody(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void templateWithoutFixedMessagesWritesVariableMessagesOnly() throws IOException {
+        PromptTemplate template = PromptTemplate.builder("model").build();
+
+        assertEquals("{\"model\":\"model\",\"messages\":[{\"content\":\"a\",\"role\":\"user\"},"
+                        + "{\"content\":\"b\",\"role\":\"assistant\"}]}",
+                template.method(List.of(new CompletionMessage("a", "user"), new CompletionMessage("b", "assistant")))
+                        .getBody());
+    }
+
+    @Test
+    void prefixHashDependsOnModelAndFixedMessagesOnly() {
+        PromptTemplate same = PromptTemplate.builder("model")
+                .system("You are \"helpful\"")
+                .message(new CompletionMessage("example", "user"))
+                .prefixHashHeader("X-Prompt-Prefix-Hash")
+                .build();
+        PromptTemplate other = PromptTemplate.builder("other").system("You are \"helpful\"").build();
+
+        assertEquals(64, TEMPLATE.getPrefixHash().length());
+        assertEquals(TEMPLATE.getPrefixHash(), same.getPrefixHash());
+        assertNotEquals(TEMPLATE.getPrefixHash(), other.getPrefixHash());
+        assertEquals(Map.of(), TEMPLATE.method("a").getHeaders());
+        assertEquals(Map.of("X-Prompt-Prefix-Hash", same.getPrefixHash()), same.method("a").getHeaders());
+    }
+
+    @Test
+    void methodSurvivesJavaSerialization() throws IOException, ClassNotFoundException {
+        CompletionMethod method = TEMPLATE.method("question").withCacheable(true);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(method);
+        }
+
+        CompletionMethod copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (CompletionMethod) in.readObject();
+        }
+
+        assertEquals(method.getBody(), copy.getBody());
+    }
+}
@@ -0,0 +1,122 @@
+package es.grayapps.metrics;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.methods.CompletionMethod;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicrometerClientMetricsTest {
+
+    private static final String COMPLETION_JSON = "{\"id\":\"1\",\"choices\":[{\"index\":0,\"message\":{\"content\":\"response content\",\"role\":\"assistant\"}}]}";
+
+    private MockWebServer server;
+    private SimpleMeterRegistry registry;
+    private EasyWebUI easyWebUI;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        registry = new SimpleMeterRegistry();
+        easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .metrics(new MicrometerClientMetrics(registry))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void recordsEveryPhaseOfSuccessfulRequest() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+
+        easyWebUI.executeCompletionAsync(new CompletionMethod("model", "message", "user")).join();
+
+        await(() -> registry.find("easywebui.requests").tag("outcome", "success").timer() != null
+                && registry.find("easywebui.requests").tag("outcome", "success").timer().count() == 1);
+        await(() -> registry.get("easywebui.response.size").summary().count() == 1);
+        assertEquals(1, registry.get("easywebui.queue.wait").timer().count());
+        assertEquals(1, registry.get("easywebui.connect").timer().count());
+        assertEquals(1, registry.get("easywebui.ttfb").timer().count());
+        assertEquals(1, registry.get("easywebui.deserialization").timer().count());
+        assertTrue(registry.get("easywebui.request.size").summary().totalAmount() > 0);
+        assertEquals(COMPLETION_JSON.length(), registry.get("easywebui.response.size").summary().totalAmount());
+        assertEquals(0, registry.get("easywebui.requests.active").gauge().value());
+        for (Meter meter : registry.getMeters()) {
+            assertEquals("/api/chat/completions", meter.getId().getTag("path"));
+            assertEquals("model", meter.getId().getTag("model"));
+        }
+    }
+
+    @Test
+    void countsFailedRequests() throws InterruptedException {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("error"));
+
+        assertThrows(CompletionException.class,
+                () -> easyWebUI.executeCompletionAsync(new CompletionMethod("model", "message", "user")).join());
+
+        await(() -> registry.find("easywebui.errors").counter() != null);
+        assertEquals(1, registry.get("easywebui.errors").tag("exception", "HttpStatusException").counter().count());
+        assertEquals(1, registry.get("easywebui.requests").tag("outcome", "error").timer().count());
+        assertEquals(0, registry.get("easywebui.requests.active").gauge().value());
+    }
+
+    @Test
+    void keepsEventListenerOfSuppliedClient() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        List<String> events = new CopyOnWriteArrayList<>();
+        EasyWebUI withListener = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .okHttpClient(new OkHttpClient.Builder().eventListener(new EventListener() {
+                    @Override
+                    public void callStart(@NotNull Call call) {
+                        events.add("callStart");
+                    }
+
+                    @Override
+                    public void callEnd(@NotNull Call call) {
+                        events.add("callEnd");
+                    }
+                }).build())
+                .metrics(new MicrometerClientMetrics(registry))
+                .build();
+
+        withListener.executeCompletionAsync(new CompletionMethod("model", "message", "user")).join();
+
+        await(() -> events.contains("callEnd"));
+        assertEquals(List.of("callStart", "callEnd"), events);
+        assertEquals(1, registry.get("easywebui.ttfb").timer().count());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package es.grayapps.metrics;
+
+import es.grayapps.EasyWebUI;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UsageStatsTest {
+
+    private static final String COMPLETION_JSON = "{\"id\":\"1\",\"choices\":[{\"index\":0,"
+            + "\"message\":{\"content\":\"response content\",\"role\":\"assistant\"},\"finish_reason\":\"stop\"}],"
+            + "\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":30,\"total_tokens\":42}}";
+
+    private MockWebServer server;
+    private UsageStats usageStats;
+    private EasyWebUI easyWebUI;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        usageStats = new UsageStats();
+        easyWebUI = EasyWebUI.EasyWebUIBuilder.builder()
+                .serverUrl(server.url("").toString().replaceAll("/$", ""))
+                .serverToken("token")
+                .usageStats(usageStats)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void aggregatesUsageAndTimingOfCompletions() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+        server.enqueue(new MockResponse().setBody(COMPLETION_JSON));
+
+        CompletionResponse response = easyWebUI.executeCompletionAsync(
+                new CompletionMethod("model", "message", "user")).join();
+        easyWebUI.executeCompletionAsync(new CompletionMethod("model", "message", "user")).join();
+
+        assertEquals("stop", response.getFinishReason());
+        assertEquals(42, response.getUsage().getTotalTokens());
+        assertNotNull(response.getTiming());
+        assertTrue(response.getTiming().getTimeToFirstByteNanos() <= response.getTiming().getTotalNanos());
+        await(() -> usageStats.getModel("model") != null && usageStats.getModel("model").getCompletions() == 2);
+        ModelUsage usage = usageStats.getModel("model");
+        assertEquals(24, usage.getPromptTokens());
+        assertEquals(60, usage.getCompletionTokens());
+        assertEquals(0, usage.getErrors());
+        assertTrue(usage.getLatency(0.99).compareTo(Duration.ZERO) > 0);
+        assertTrue(usage.getCompletionTokensPerSecond() > 0);
+        assertNull(usageStats.getModel("other"));
+    }
+
+    @Test
+    void countsFailedCompletions() throws InterruptedException {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("error"));
+
+        assertThrows(CompletionException.class, () -> easyWebUI.executeCompletionAsync(
+                new CompletionMethod("model", "message", "user")).join());
+
+        await(() -> usageStats.getModel("model") != null && usageStats.getModel("model").getErrors() == 1);
+        assertEquals(0, usageStats.getModel("model").getCompletions());
+        assertTrue(Double.isNaN(usageStats.getModel("model").getCompletionTokensPerSecond()));
+    }
+
+    @Test
+    void histogramPercentilesAreWithinBucketPrecision() {
+        LogHistogram histogram = new LogHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1_000_000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertWithin(500_000_000, histogram.getPercentile(0.5));
+        assertWithin(990_000_000, histogram.getPercentile(0.99));
+        assertWithin(1_000_000_000, histogram.getPercentile(1));
+        assertEquals(0, new LogHistogram().getPercentile(0.5));
+    }
+
+    @Test
+    void histogramBucketsAreContiguous() {
+        for (int index = 1; index < 60 * 16; index++) {
+            assertEquals(index, LogHistogram.index(LogHistogram.highestValue(index - 1) + 1));
+            assertEquals(index, LogHistogram.index(LogHistogram.highestValue(index)));
+        }
+        assertEquals(60 * 16 - 1, LogHistogram.index(Long.MAX_VALUE));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16, "expected about " + expected + " but was " + actual);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.CallNotPermittedException;
+import es.grayapps.exceptions.HttpStatusException;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final CompletionResponse RESPONSE = new CompletionResponse("content", "assistant");
+
+    private final List<String> transitions = new CopyOnWriteArrayList<>();
+
+    private CircuitBreakerPolicy.CircuitBreakerPolicyBuilder policy() {
+        return CircuitBreakerPolicy.builder()
+                .slidingWindow(4, 4)
+                .failureRateThreshold(0.5)
+                .openDuration(Duration.ofMillis(50), 2)
+                .listener((model, from, to) -> transitions.add(model + ":" + from + "->" + to));
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("model", policy().build());
+
+        breaker.tryAcquire().record(false, false);
+        breaker.tryAcquire().record(true, false);
+        breaker.tryAcquire().record(false, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.tryAcquire().record(true, false);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+        assertEquals(List.of("model:CLOSED->OPEN"), transitions);
+    }
+
+    @Test
+    void probesCloseBreakerAfterOpenDuration() throws InterruptedException {
+        CircuitBreaker breaker = open(new CircuitBreaker("model", policy().build()));
+        Thread.sleep(60);
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(breaker.tryAcquire());
+        first.record(false, false);
+        second.record(false, false);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(List.of("model:CLOSED->OPEN", "model:OPEN->HALF_OPEN", "model:HALF_OPEN->CLOSED"), transitions);
+    }
+
+    @Test
+    void failedProbesOpenBreakerAgain() throws InterruptedException {
+        CircuitBreaker breaker = open(new CircuitBreaker("model", policy().build()));
+        Thread.sleep(60);
+
+        breaker.tryAcquire().record(true, false);
+        breaker.tryAcquire().record(false, false);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void ignoresOutcomesOfCallsSentBeforeStateChange() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("model", policy().build());
+        CircuitBreaker.Permit stale = breaker.tryAcquire();
+        open(breaker);
+        Thread.sleep(60);
+        breaker.tryAcquire();
+
+        stale.record(false, false);
+        stale.record(false, false);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void executorFailsFastWhileOpen() {
+        CircuitBreakerExecutor executor = new CircuitBreakerExecutor(policy().build(), Map.of());
+        CompletionMethod method = new CompletionMethod("model", "message", "user");
+        for (int i = 0; i < 4; i++) {
+            assertThrows(CompletionException.class, () -> executor.execute(method,
+                    m -> CompletableFuture.<CompletionResponse>failedFuture(new HttpStatusException(500, "", null))).join());
+        }
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> executor.execute(method, m -> CompletableFuture.completedFuture(RESPONSE)).join());
+
+        assertInstanceOf(CallNotPermittedException.class, error.getCause());
+        assertEquals(RESPONSE, executor.execute(new CompletionMethod("other", "message", "user"),
+                m -> CompletableFuture.completedFuture(RESPONSE)).join());
+    }
+
+    @Test
+    void executorCountsHangingCallsAsSlowBeforeTheyFinish() throws InterruptedException {
+        CircuitBreakerExecutor executor = new CircuitBreakerExecutor(policy()
+                .slidingWindow(2, 2)
+                .slowCalls(Duration.ofMillis(20), 1)
+                .build(), Map.of());
+        CompletionMethod method = new CompletionMethod("model", "message", "user");
+
+        executor.execute(method, m -> new CompletableFuture<>());
+        executor.execute(method, m -> new CompletableFuture<>());
+        Thread.sleep(100);
+
+        assertEquals(CircuitBreaker.State.OPEN, executor.getCircuitBreaker("model").getState());
+    }
+
+    @Test
+    void clientErrorsAreNotFailures() {
+        CircuitBreakerPolicy policy = CircuitBreakerPolicy.builder().build();
+
+        assertFalse(policy.isFailure(new HttpStatusException(400, "", null)));
+        assertTrue(policy.isFailure(new HttpStatusException(503, "", null)));
+        assertTrue(policy.isFailure(new CompletionException(new IOException("reset"))));
+    }
+
+    private static CircuitBreaker open(CircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquire().record(true, false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
@@ -0,0 +1,105 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.LimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+
+    private static final long WAIT = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void queuesRequestsOverLimitUntilReleased() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new FixedLimit(1), 10);
+
+        ConcurrencyLimiter.Permit first = limiter.acquire(WAIT).join();
+        CompletableFuture<ConcurrencyLimiter.Permit> second = limiter.acquire(WAIT);
+
+        assertFalse(second.isDone());
+        assertEquals(1, limiter.getQueued());
+        first.release(false);
+        assertTrue(second.isDone());
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new FixedLimit(1), 1);
+        limiter.acquire(WAIT).join();
+        limiter.acquire(WAIT);
+
+        CompletionException error = assertThrows(CompletionException.class, () -> limiter.acquire(WAIT).join());
+        assertInstanceOf(LimitExceededException.class, error.getCause());
+    }
+
+    @Test
+    void rejectsAfterMaximumWait() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new FixedLimit(1), 10);
+        limiter.acquire(WAIT).join();
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> limiter.acquire(TimeUnit.MILLISECONDS.toNanos(20)).join());
+        assertInstanceOf(LimitExceededException.class, error.getCause());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void cancelledWaiterLeavesQueue() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new FixedLimit(1), 10);
+        ConcurrencyLimiter.Permit first = limiter.acquire(WAIT).join();
+
+        limiter.acquire(WAIT).cancel(true);
+        first.release(false);
+
+        assertEquals(0, limiter.getQueued());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void aimdLimitGrowsUnderLoadAndShrinksOnDrops() {
+        AimdLimit limit = new AimdLimit(10, 1, 20);
+
+        limit.onSample(1000, 2, false);
+        assertEquals(10, limit.getLimit());
+        limit.onSample(1000, 10, false);
+        assertEquals(11, limit.getLimit());
+        limit.onSample(1000, 10, true);
+        assertEquals(9, limit.getLimit());
+    }
+
+    @Test
+    void vegasLimitShrinksWhenLatencyGrows() {
+        VegasLimit limit = new VegasLimit(20, 1, 100);
+
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(100), 20, false);
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 20);
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(400), grown, false);
+        }
+        assertTrue(limit.getLimit() < grown);
+    }
+
+    @Test
+    void rateLimiterSpacesRequestsAfterBurst() {
+        RateLimiter rate = new RateLimiter(10, 2);
+
+        assertEquals(0, rate.tryReserve(0));
+        assertEquals(0, rate.tryReserve(0));
+        assertEquals(-1, rate.tryReserve(0));
+        long wait = rate.tryReserve(WAIT);
+        assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+}
@@ -0,0 +1,171 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.HttpStatusException;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgingExecutorTest {
+
+    private static final CompletionMethod METHOD = new CompletionMethod("model", "message", "user").withIdempotent(true);
+    private static final CompletionResponse RESPONSE = new CompletionResponse("content", "assistant");
+
+    private final List<CompletableFuture<CompletionResponse>> attempts = new CopyOnWriteArrayList<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private static HedgingExecutor executor(RetryBudget budget) {
+        return new HedgingExecutor(HedgingPolicy.builder()
+                .delay(Duration.ofMillis(20))
+                .budget(budget)
+                .build());
+    }
+
+    private CompletableFuture<CompletionResponse> send(HedgingExecutor executor, CompletionMethod method) {
+        return executor.execute(method, (hedged, onStarted) -> {
+            CompletableFuture<CompletionResponse> attempt = new CompletableFuture<>();
+            attempts.add(attempt);
+            listeners.add(onStarted);
+            return attempt;
+        });
+    }
+
+    private void awaitAttempts(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (attempts.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, attempts.size());
+    }
+
+    @Test
+    void hedgeWinsAndOriginalIsCancelled() throws InterruptedException {
+        HedgingExecutor executor = executor(RetryBudget.unlimited());
+        CompletableFuture<CompletionResponse> result = send(executor, METHOD);
+
+        awaitAttempts(2);
+        attempts.get(1).complete(RESPONSE);
+
+        assertEquals(RESPONSE, result.join());
+        assertTrue(attempts.get(0).isCancelled());
+        assertEquals(1, executor.getStats().getHedges());
+        assertEquals(1, executor.getStats().getWins());
+        assertEquals(1.0, executor.getStats().getHedgeRate());
+    }
+
+    @Test
+    void originalWinsAndHedgeIsCancelled() throws InterruptedException {
+        HedgingExecutor executor = executor(RetryBudget.unlimited());
+        CompletableFuture<CompletionResponse> result = send(executor, METHOD);
+
+        awaitAttempts(2);
+        attempts.get(0).complete(RESPONSE);
+
+        assertEquals(RESPONSE, result.join());
+        assertTrue(attempts.get(1).isCancelled());
+        assertEquals(0, executor.getStats().getWins());
+    }
+
+    @Test
+    void doesNotHedgeOnceResponseStarted() throws InterruptedException {
+        HedgingExecutor executor = executor(RetryBudget.unlimited());
+        CompletableFuture<CompletionResponse> result = send(executor, METHOD);
+        listeners.get(0).run();
+
+        Thread.sleep(60);
+        attempts.get(0).complete(RESPONSE);
+
+        assertEquals(RESPONSE, result.join());
+        assertEquals(1, attempts.size());
+        assertEquals(0, executor.getStats().getHedges());
+    }
+
+    @Test
+    void doesNotHedgeMethodsThatAreNotIdempotent() throws InterruptedException {
+        HedgingExecutor executor = executor(RetryBudget.unlimited());
+        send(executor, new CompletionMethod("model", "message", "user"));
+
+        Thread.sleep(60);
+
+        assertEquals(1, attempts.size());
+        assertEquals(0, executor.getStats().getRequests());
+    }
+
+    @Test
+    void waitsForHedgeWhenOriginalFails() throws InterruptedException {
+        HedgingExecutor executor = executor(RetryBudget.unlimited());
+        CompletableFuture<CompletionResponse> result = send(executor, METHOD);
+
+        awaitAttempts(2);
+        attempts.get(0).completeExceptionally(new HttpStatusException(500, "error", null));
+        attempts.get(1).complete(RESPONSE);
+
+        assertEquals(RESPONSE, result.join());
+    }
+
+    @Test
+    void failsWhenEveryAttemptFailed() throws InterruptedException {
+        HedgingExecutor executor = executor(RetryBudget.unlimited());
+        CompletableFuture<CompletionResponse> result = send(executor, METHOD);
+
+        awaitAttempts(2);
+        attempts.get(1).completeExceptionally(new HttpStatusException(500, "hedge", null));
+        attempts.get(0).completeExceptionally(new HttpStatusException(500, "original", null));
+
+        CompletionException error = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(HttpStatusException.class, error.getCause());
+        assertEquals("original", ((HttpStatusException) error.getCause()).getBody());
+    }
+
+    @Test
+    void stopsHedgingWhenBudgetIsExhausted() throws InterruptedException {
+        HedgingExecutor executor = executor(new RetryBudget(0, 1));
+        send(executor, METHOD);
+        send(executor, METHOD);
+
+        Thread.sleep(80);
+
+        assertEquals(3, attempts.size());
+        assertEquals(1, executor.getStats().getHedges());
+        assertEquals(1, executor.getStats().getDenied());
+    }
+
+    @Test
+    void cancellingResultCancelsEveryAttempt() throws InterruptedException {
+        HedgingExecutor executor = executor(RetryBudget.unlimited());
+        CompletableFuture<CompletionResponse> result = send(executor, METHOD);
+
+        awaitAttempts(2);
+        result.cancel(true);
+
+        assertTrue(attempts.get(0).isCancelled());
+        assertTrue(attempts.get(1).isCancelled());
+    }
+
+    @Test
+    void percentileDelayFollowsObservedTimesToFirstByte() {
+        HedgingExecutor executor = new HedgingExecutor(HedgingPolicy.builder()
+                .delay(Duration.ofMillis(1))
+                .percentile(0.9)
+                .build());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), executor.hedgeDelayNanos());
+
+        LatencyTracker tracker = new LatencyTracker(0.9);
+        for (int i = 1; i <= 128; i++) {
+            tracker.record(i);
+        }
+
+        assertEquals(116, tracker.get());
+    }
+}
@@ -0,0 +1,130 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.CallNotPermittedException;
+import es.grayapps.exceptions.HttpStatusException;
+import es.grayapps.exceptions.LimitExceededException;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.metrics.ClientMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimitingExecutorTest {
+
+    private static final CompletionResponse RESPONSE = new CompletionResponse("content", "assistant");
+
+    @Test
+    void limitsEachModelSeparately() {
+        LimitingExecutor executor = new LimitingExecutor(LimiterPolicy.builder().concurrencyLimit(1).maxQueueSize(0).build(),
+                Map.of(), ClientMetrics.noop());
+        CompletableFuture<CompletionResponse> pending = new CompletableFuture<>();
+
+        CompletableFuture<CompletionResponse> first = executor.execute(new CompletionMethod("a", "message", "user"), m -> pending);
+        CompletableFuture<CompletionResponse> sameModel = executor.execute(new CompletionMethod("a", "message", "user"),
+                m -> CompletableFuture.completedFuture(RESPONSE));
+        CompletableFuture<CompletionResponse> otherModel = executor.execute(new CompletionMethod("b", "message", "user"),
+                m -> CompletableFuture.completedFuture(RESPONSE));
+
+        CompletionException error = assertThrows(CompletionException.class, sameModel::join);
+        assertInstanceOf(LimitExceededException.class, error.getCause());
+        assertEquals(RESPONSE, otherModel.join());
+        pending.complete(RESPONSE);
+        assertEquals(RESPONSE, first.join());
+        assertEquals(0, executor.getConcurrencyLimiter("a").getInFlight());
+    }
+
+    @Test
+    void queuedMethodIsSentWhenSlotFrees() {
+        LimitingExecutor executor = new LimitingExecutor(LimiterPolicy.builder().concurrencyLimit(1).build(),
+                Map.of(), ClientMetrics.noop());
+        CompletableFuture<CompletionResponse> pending = new CompletableFuture<>();
+        CompletionMethod method = new CompletionMethod("a", "message", "user");
+
+        executor.execute(method, m -> pending);
+        CompletableFuture<CompletionResponse> queued = executor.execute(method, m -> CompletableFuture.completedFuture(RESPONSE));
+
+        assertFalse(queued.isDone());
+        pending.complete(RESPONSE);
+        assertEquals(RESPONSE, queued.join());
+    }
+
+    @Test
+    void overloadResponsesShrinkAdaptiveLimit() {
+        LimitingExecutor executor = new LimitingExecutor(null,
+                Map.of("a", LimiterPolicy.builder().concurrencyLimit(() -> new AimdLimit(10, 1, 10, 0.5)).build()),
+                ClientMetrics.noop());
+        CompletionMethod method = new CompletionMethod("a", "message", "user");
+
+        assertThrows(CompletionException.class, () -> executor.execute(method,
+                m -> CompletableFuture.<CompletionResponse>failedFuture(new HttpStatusException(429, "", null))).join());
+
+        assertEquals(5, executor.getConcurrencyLimiter("a").getLimit());
+        assertTrue(executor.execute(new CompletionMethod("b", "message", "user"),
+                m -> CompletableFuture.completedFuture(RESPONSE)).isDone());
+        assertNull(executor.getConcurrencyLimiter("b"));
+    }
+
+    @Test
+    void methodsRejectedByCircuitBreakerDoNotUpdateLimit() {
+        LimitingExecutor executor = new LimitingExecutor(
+                LimiterPolicy.builder().concurrencyLimit(() -> new AimdLimit(1, 1, 10)).build(), Map.of(),
+                ClientMetrics.noop());
+        CompletionMethod method = new CompletionMethod("a", "message", "user");
+
+        assertThrows(CompletionException.class, () -> executor.execute(method,
+                m -> CompletableFuture.<CompletionResponse>failedFuture(new CallNotPermittedException("open"))).join());
+
+        assertEquals(1, executor.getConcurrencyLimiter("a").getLimit());
+        assertEquals(0, executor.getConcurrencyLimiter("a").getInFlight());
+        executor.execute(method, m -> CompletableFuture.completedFuture(RESPONSE)).join();
+        assertEquals(2, executor.getConcurrencyLimiter("a").getLimit());
+    }
+
+    @Test
+    void rateLimitDelaysMethodsOverBurst() {
+        LimitingExecutor executor = new LimitingExecutor(LimiterPolicy.builder()
+                .rateLimit(20, 1)
+                .maxQueueWait(Duration.ofSeconds(1))
+                .build(), Map.of(), ClientMetrics.noop());
+        CompletionMethod method = new CompletionMethod("a", "message", "user");
+
+        long start = System.nanoTime();
+        executor.execute(method, m -> CompletableFuture.completedFuture(RESPONSE)).join();
+        executor.execute(method, m -> CompletableFuture.completedFuture(RESPONSE)).join();
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(40).toNanos());
+    }
+
+    @Test
+    void cancelledMethodWaitingForRateIsNeverSent() throws InterruptedException {
+        LimitingExecutor executor = new LimitingExecutor(LimiterPolicy.builder()
+                .rateLimit(20, 1)
+                .maxQueueWait(Duration.ofSeconds(1))
+                .build(), Map.of(), ClientMetrics.noop());
+        CompletionMethod method = new CompletionMethod("a", "message", "user");
+        AtomicBoolean sent = new AtomicBoolean();
+
+        executor.execute(method, m -> CompletableFuture.completedFuture(RESPONSE)).join();
+        CompletableFuture<CompletionResponse> delayed = executor.execute(method, m -> {
+            sent.set(true);
+            return CompletableFuture.completedFuture(RESPONSE);
+        });
+        assertTrue(delayed.cancel(true));
+        Thread.sleep(100);
+
+        assertFalse(sent.get());
+        assertEquals(0, executor.getConcurrencyLimiter("a").getInFlight());
+    }
+}
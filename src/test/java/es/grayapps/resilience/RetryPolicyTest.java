@@ -0,0 +1,79 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.EasyWebUIException;
+import es.grayapps.exceptions.HttpStatusException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    private final RetryPolicy policy = RetryPolicy.builder()
+            .maxAttempts(4)
+            .backoff(Duration.ofMillis(100), Duration.ofMillis(300), 2)
+            .jitter(0)
+            .build();
+
+    @Test
+    void backsOffExponentiallyUpToMaximum() {
+        assertEquals(Duration.ofMillis(100), policy.backoff(1));
+        assertEquals(Duration.ofMillis(200), policy.backoff(2));
+        assertEquals(Duration.ofMillis(300), policy.backoff(3));
+    }
+
+    @Test
+    void jitterShortensBackoff() {
+        RetryPolicy jittered = RetryPolicy.builder().backoff(Duration.ofMillis(100), Duration.ofSeconds(1), 2).jitter(1).build();
+        for (int i = 0; i < 100; i++) {
+            Duration backoff = jittered.backoff(1);
+            assertFalse(backoff.isNegative());
+            assertTrue(backoff.compareTo(Duration.ofMillis(100)) <= 0);
+        }
+    }
+
+    @Test
+    void retriesOnlyRetryableStatuses() {
+        assertNotNull(policy.retryDelay(1, new HttpStatusException(503, "busy", null)));
+        assertNotNull(policy.retryDelay(1, new HttpStatusException(429, "slow down", null)));
+        assertNull(policy.retryDelay(1, new HttpStatusException(400, "bad request", null)));
+        assertNull(policy.retryDelay(1, new EasyWebUIException("other")));
+        assertNull(policy.retryDelay(1, new IOException("reset")));
+        assertNull(policy.retryDelay(4, new HttpStatusException(503, "busy", null)));
+    }
+
+    @Test
+    void honoursRetryAfterUpToMaximum() {
+        assertEquals(Duration.ofSeconds(2), policy.retryDelay(1, new HttpStatusException(429, "", Duration.ofSeconds(2))));
+        assertNull(policy.retryDelay(1, new HttpStatusException(429, "", Duration.ofHours(1))));
+    }
+
+    @Test
+    void retriesConnectionFailuresWhenEnabled() {
+        RetryPolicy connectionFailures = RetryPolicy.builder().retryOnConnectionFailure(true).build();
+
+        assertNotNull(connectionFailures.retryDelay(1, new IOException("reset")));
+        CancellationException cancelled = new CancellationException("Call canceled");
+        cancelled.initCause(new IOException("Canceled"));
+        assertNull(connectionFailures.retryDelay(1, cancelled));
+    }
+
+    @Test
+    void budgetBoundsRetries() {
+        RetryBudget budget = new RetryBudget(0.5, 1);
+
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+        budget.onRequest();
+        assertFalse(budget.tryRetry());
+        budget.onRequest();
+        assertTrue(budget.tryRetry());
+    }
+}
@@ -0,0 +1,95 @@
+package es.grayapps.resilience;
+
+import es.grayapps.exceptions.HttpStatusException;
+import es.grayapps.methods.CompletionMethod;
+import es.grayapps.methods.response.CompletionResponse;
+import es.grayapps.metrics.ClientMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryingExecutorTest {
+
+    private static final CompletionMethod METHOD = new CompletionMethod("model", "message", "user");
+
+    private static RetryingExecutor executor(RetryBudget budget) {
+        return new RetryingExecutor(RetryPolicy.builder()
+                .backoff(Duration.ofMillis(1), Duration.ofMillis(5), 2)
+                .retryBudget(budget)
+                .build(), ClientMetrics.noop());
+    }
+
+    @Test
+    void retriesUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletionResponse response = executor(RetryBudget.unlimited()).execute(METHOD, method -> {
+            if (attempts.incrementAndGet() < 3) {
+                return CompletableFuture.failedFuture(new HttpStatusException(503, "busy", null));
+            }
+            return CompletableFuture.completedFuture(new CompletionResponse("content", "assistant"));
+        }).join();
+
+        assertEquals("content", response.getContent());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void failsWithLastErrorAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletionException error = assertThrows(CompletionException.class, () -> executor(RetryBudget.unlimited())
+                .execute(METHOD, method -> CompletableFuture.<CompletionResponse>failedFuture(
+                        new HttpStatusException(503, "attempt " + attempts.incrementAndGet(), null)))
+                .join());
+
+        assertEquals(3, attempts.get());
+        assertInstanceOf(HttpStatusException.class, error.getCause());
+        assertEquals("attempt 3", ((HttpStatusException) error.getCause()).getBody());
+    }
+
+    @Test
+    void stopsRetryingWhenBudgetIsExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+        RetryingExecutor executor = executor(new RetryBudget(0, 1));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(CompletionException.class, () -> executor.execute(METHOD, method -> {
+                attempts.incrementAndGet();
+                return CompletableFuture.<CompletionResponse>failedFuture(new HttpStatusException(503, "busy", null));
+            }).join());
+        }
+
+        assertEquals(4, attempts.get());
+    }
+
+    @Test
+    void cancellingStopsRetries() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<CompletionResponse> pending = new CompletableFuture<>();
+        RetryingExecutor executor = new RetryingExecutor(RetryPolicy.builder()
+                .backoff(Duration.ofMillis(50), Duration.ofMillis(50), 1)
+                .retryBudget(RetryBudget.unlimited())
+                .build(), ClientMetrics.noop());
+
+        CompletableFuture<CompletionResponse> future = executor.execute(METHOD, method -> {
+            if (attempts.incrementAndGet() == 1) {
+                return CompletableFuture.failedFuture(new HttpStatusException(503, "busy", null));
+            }
+            return pending;
+        });
+        future.cancel(true);
+        Thread.sleep(150);
+
+        assertEquals(1, attempts.get());
+        assertTrue(future.isCancelled());
+    }
+}
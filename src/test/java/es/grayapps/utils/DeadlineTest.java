@@ -0,0 +1,51 @@
+package es.grayapps.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineTest {
+
+    @Test
+    void timeoutFailsResultAndCancelsExecution() throws Exception {
+        CompletableFuture<String> execution = new CompletableFuture<>();
+        CompletableFuture<Boolean> cancelled = execution.handle((value, e) -> execution.isCancelled());
+
+        CompletableFuture<String> result = Deadline.after(Duration.ofMillis(20)).enforce(execution, null);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertTrue(cancelled.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void slowCallbackOfTimeoutDoesNotDelayOtherTimers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> timer = new CompletableFuture<>();
+        Deadline.after(Duration.ofMillis(10)).enforce(new CompletableFuture<String>(), null)
+                .whenComplete((value, e) -> {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+
+        Timers.schedule(() -> timer.complete(null), TimeUnit.MILLISECONDS.toNanos(50));
+
+        try {
+            timer.get(1, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -7,11 +7,17 @@ import okhttp3.Response;
 import okhttp3.ResponseBody;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CancellationException;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class HttpResponseTest {
@@ -24,6 +30,18 @@ class HttpResponseTest {
         assertTrue(httpResponse.isCompletedExceptionally());
     }
 
+    @Test
+    void onFailureOfCanceledCallFailsWithCancellation() {
+        HttpResponse<String, IMethod<String>> httpResponse = new HttpResponse<>(mock(IMethod.class));
+        Call call = mock(Call.class);
+        when(call.isCanceled()).thenReturn(true);
+
+        httpResponse.onFailure(call, new IOException("Canceled"));
+
+        assertTrue(httpResponse.isCancelled());
+        assertFalse(Failures.isConnectionFailure(assertThrows(CancellationException.class, httpResponse::join)));
+    }
+
     @Test
     void onResponseHandlesEmptyBody() throws IOException {
         HttpResponse<String, IMethod<String>> httpResponse = new HttpResponse<>(mock(IMethod.class));
@@ -37,15 +55,36 @@ class HttpResponseTest {
     @Test
     void onResponseHandlesDeserializationException() throws IOException, EasyWebUIException {
         IMethod<String> mockMethod = mock(IMethod.class);
-        when(mockMethod.deserialize(anyString())).thenThrow(new EasyWebUIException("Deserialization error"));
+        when(mockMethod.deserialize(any(InputStream.class))).thenThrow(new EasyWebUIException("Deserialization error"));
         HttpResponse<String, IMethod<String>> httpResponse = new HttpResponse<>(mockMethod);
 
         Response mockResponse = mock(Response.class);
         ResponseBody mockBody = mock(ResponseBody.class);
+        when(mockResponse.code()).thenReturn(200);
         when(mockResponse.body()).thenReturn(mockBody);
-        when(mockBody.string()).thenReturn("Response body");
+        when(mockBody.byteStream()).thenReturn(new ByteArrayInputStream("Response body".getBytes()));
 
         httpResponse.onResponse(mock(Call.class), mockResponse);
         assertTrue(httpResponse.isCompletedExceptionally());
     }
-}
\ No newline at end of file
+
+    @Test
+    void cancelCancelsBoundCall() {
+        HttpResponse<String, IMethod<String>> httpResponse = new HttpResponse<>(mock(IMethod.class));
+        Call call = mock(Call.class);
+        httpResponse.bind(call);
+
+        assertTrue(httpResponse.cancel(true));
+        verify(call).cancel();
+    }
+
+    @Test
+    void bindAfterCancelCancelsCall() {
+        HttpResponse<String, IMethod<String>> httpResponse = new HttpResponse<>(mock(IMethod.class));
+        httpResponse.cancel(true);
+        Call call = mock(Call.class);
+
+        httpResponse.bind(call);
+        verify(call).cancel();
+    }
+}
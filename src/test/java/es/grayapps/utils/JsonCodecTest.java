@@ -0,0 +1,32 @@
+package es.grayapps.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JsonCodecTest {
+
+    @Test
+    void getDefaultReturnsSharedInstance() {
+        assertSame(JsonCodec.getDefault(), JsonCodec.getDefault());
+    }
+
+    @Test
+    void readersAndWritersAreCachedPerType() {
+        JsonCodec codec = JsonCodec.create(new ObjectMapper());
+        assertSame(codec.readerFor(Map.class), codec.readerFor(Map.class));
+        assertSame(codec.writerFor(Map.class), codec.writerFor(Map.class));
+        assertNotSame(codec.readerFor(Map.class), codec.readerFor(String.class));
+    }
+
+    @Test
+    void readerReadsValues() throws Exception {
+        Map<?, ?> value = JsonCodec.getDefault().readerFor(Map.class).readValue("{\"key\":\"value\"}");
+        assertEquals("value", value.get("key"));
+    }
+}
@@ -0,0 +1,129 @@
+package es.grayapps.utils;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerSentEventPublisherTest {
+
+    private final OkHttpClient client = new OkHttpClient();
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private ServerSentEventPublisher<String> publisher() {
+        Request request = new Request.Builder().url(server.url("/events")).build();
+        return new ServerSentEventPublisher<>(client.newCall(request), data -> data);
+    }
+
+    @Test
+    void publishesEventsUntilDone() throws Exception {
+        server.enqueue(new MockResponse().setBody(": comment\n\ndata: first\n\ndata: second\ndata: line\n\ndata: [DONE]\n\n"));
+        List<String> items = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+
+        publisher().subscribe(new CollectingSubscriber(items, done, Long.MAX_VALUE));
+
+        done.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("first", "second\nline"), items);
+    }
+
+    @Test
+    void respectsDemand() throws Exception {
+        server.enqueue(new MockResponse().setBody("data: first\n\ndata: second\n\n"));
+        List<String> items = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CollectingSubscriber subscriber = new CollectingSubscriber(items, done, 1);
+
+        publisher().subscribe(subscriber);
+
+        Thread.sleep(200);
+        assertEquals(List.of("first"), items);
+        subscriber.subscription.request(1);
+        done.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("first", "second"), items);
+    }
+
+    @Test
+    void errorStatusSignalsError() {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("boom"));
+        CompletableFuture<Void> done = new CompletableFuture<>();
+
+        publisher().subscribe(new CollectingSubscriber(new CopyOnWriteArrayList<>(), done, 1));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> done.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getMessage().contains("500"));
+    }
+
+    @Test
+    void secondSubscriberIsRejected() {
+        ServerSentEventPublisher<String> publisher = publisher();
+        publisher.subscribe(new CollectingSubscriber(new CopyOnWriteArrayList<>(), new CompletableFuture<>(), 0));
+        CompletableFuture<Void> done = new CompletableFuture<>();
+
+        publisher.subscribe(new CollectingSubscriber(new CopyOnWriteArrayList<>(), done, 0));
+
+        assertTrue(done.isCompletedExceptionally());
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<String> {
+        private final List<String> items;
+        private final CompletableFuture<Void> done;
+        private final long initialDemand;
+        private Flow.Subscription subscription;
+
+        private CollectingSubscriber(List<String> items, CompletableFuture<Void> done, long initialDemand) {
+            this.items = items;
+            this.done = done;
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(String item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
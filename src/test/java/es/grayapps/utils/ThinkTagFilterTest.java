@@ -0,0 +1,55 @@
+package es.grayapps.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ThinkTagFilterTest {
+
+    @Test
+    void stripRemovesThinkSectionsAndFollowingWhitespace() {
+        assertEquals("Hello world", ThinkTagFilter.strip("<think>reasoning\nhere</think>\n\nHello world"));
+        assertEquals("a b", ThinkTagFilter.strip("a <think>one</think> b<think>two</think>"));
+    }
+
+    @Test
+    void stripKeepsTextWithoutTags() {
+        assertEquals("a < b <thin>", ThinkTagFilter.strip("a < b <thin>"));
+        assertNull(ThinkTagFilter.strip(null));
+    }
+
+    @Test
+    void stripDropsUnclosedThinkSection() {
+        assertEquals("answer ", ThinkTagFilter.strip("answer <think>cut short"));
+    }
+
+    @Test
+    void filterRecognizesTagsSplitAcrossWrites() {
+        ThinkTagFilter filter = new ThinkTagFilter(true);
+        filter.write("<thi");
+        filter.write("nk>why</thi");
+        filter.write("nk> answer");
+
+        assertEquals("answer", filter.getContent());
+        assertEquals("why", filter.getReasoning());
+    }
+
+    @Test
+    void filterKeepsEveryReasoningSection() {
+        ThinkTagFilter filter = new ThinkTagFilter(true);
+        filter.write("<think>first</think>a<think>second</think>b");
+
+        assertEquals("ab", filter.getContent());
+        assertEquals("first\n\nsecond", filter.getReasoning());
+    }
+
+    @Test
+    void filterDoesNotKeepReasoningByDefault() {
+        ThinkTagFilter filter = new ThinkTagFilter(false);
+        filter.write("<think>why</think>answer");
+
+        assertEquals("answer", filter.getContent());
+        assertNull(filter.getReasoning());
+    }
+}